@@ -0,0 +1,43 @@
+#!/bin/sh
+# Compares startup with and without the class data sharing archive: time from launching the
+# JVM until the liveness probe answers, and the latency of the first API request after that.
+# Run it in the image, so it measures the same JVM and flags that the pods use:
+#   docker run --rm --cpus 0.5 -m 512m --entrypoint sh <image> ./benchmark.sh 8081 /transactions
+# Usage: benchmark.sh <port> <base path> [runs]
+cd "$(dirname "$0")"
+PORT=$1
+BASE=$2
+RUNS=${3:-5}
+URL="http://localhost:$PORT"
+
+now_ms() {
+    echo $(($(date +%s%N) / 1000000))
+}
+
+measure() {
+    start=$(now_ms)
+    APPCDS=$1 sh ./run.sh > /dev/null 2>&1 &
+    pid=$!
+    until curl -sf -o /dev/null "$URL$BASE/health/live"; do
+        sleep 0.05
+    done
+    live=$(($(now_ms) - start))
+    first=$(curl -s -o /dev/null -w "%{time_total}" "$URL$BASE")
+    kill -TERM "$pid"
+    wait "$pid" 2> /dev/null
+    echo "$live $first"
+}
+
+for mode in off on; do
+    i=0
+    results=""
+    while [ "$i" -lt "$RUNS" ]; do
+        results="$results$(measure "$mode")
+"
+        i=$((i + 1))
+    done
+    printf "%s" "$results" | awk -v mode="$mode" '
+        { live += $1; first += $2 }
+        END { printf "AppCDS %-3s  start to live: %6.0f ms  first request: %6.1f ms  (%d runs)\n",
+                     mode, live / NR, first * 1000 / NR, NR }'
+done
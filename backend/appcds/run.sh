@@ -0,0 +1,13 @@
+#!/bin/sh
+# Starts a service from the layout built by the appcds profile (mvn package -Pappcds).
+# The class path is listed in a fixed order, because the JVM only maps app.jsa for the class
+# path it was written with. APPCDS=off starts without the archive, e.g. for benchmark.sh.
+# Extra arguments are passed to the JVM.
+cd "$(dirname "$0")"
+CLASSPATH="$(ls ./*-appcds.jar):$(ls lib/*.jar | LC_ALL=C sort | paste -sd: -)"
+CDS_OPTS=""
+if [ "$APPCDS" != "off" ] && [ -f app.jsa ]; then
+    # -Xshare:auto starts without the archive instead of failing if it does not match
+    CDS_OPTS="-XX:SharedArchiveFile=app.jsa -Xshare:auto"
+fi
+exec java $JAVA_OPTS $CDS_OPTS "$@" -cp "$CLASSPATH" com.kumuluz.ee.EeApplication
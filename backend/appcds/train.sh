@@ -0,0 +1,40 @@
+#!/bin/sh
+# Training run for the class data sharing archive: starts the service once, sends it the
+# requests a new pod gets (probes, a scrape, API calls) and lets the JVM write every class it
+# loaded to app.jsa on exit. MongoDB and RabbitMQ do not have to be reachable; startup tasks
+# keep retrying and the same classes are loaded.
+# Usage: train.sh <port> <base path>, e.g. train.sh 8081 /transactions
+set -e
+cd "$(dirname "$0")"
+PORT=$1
+BASE=$2
+URL="http://localhost:$PORT"
+
+rm -f app.jsa
+APPCDS=off sh ./run.sh -XX:ArchiveClassesAtExit=app.jsa &
+PID=$!
+
+TRIES=0
+until curl -sf -o /dev/null "$URL$BASE/health/live"; do
+    TRIES=$((TRIES + 1))
+    if [ "$TRIES" -ge 120 ] || ! kill -0 "$PID" 2>/dev/null; then
+        echo "Service did not start on port $PORT." >&2
+        kill "$PID" 2>/dev/null || true
+        exit 1
+    fi
+    sleep 1
+done
+
+for path in "$BASE/health" "$BASE/health/ready" "$BASE" /metrics; do
+    curl -s -o /dev/null "$URL$path" || true
+done
+curl -s -o /dev/null -X POST -H "Content-Type: application/json" -d "{}" "$URL$BASE" || true
+
+# The archive is written when the JVM exits normally; SIGTERM runs the shutdown hooks first
+kill -TERM "$PID"
+wait "$PID" || true
+if [ ! -s app.jsa ]; then
+    echo "No archive was written." >&2
+    exit 1
+fi
+echo "Wrote $(du -h app.jsa | cut -f1) class data sharing archive."
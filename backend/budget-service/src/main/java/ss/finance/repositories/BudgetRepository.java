@@ -2,25 +2,37 @@ package ss.finance.repositories;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.Initialized;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.bson.Document;
 import org.bson.types.ObjectId;
 
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Indexes;
 
 import ss.finance.entities.Budget;
+import ss.finance.indexes.IndexDefinition;
+import ss.finance.indexes.IndexRegistry;
+import ss.finance.indexes.QueryCheck;
 import ss.finance.utils.MongoDBConnection;
 
 @ApplicationScoped
 public class BudgetRepository {
     private MongoCollection<Document> collection;
-    private static final Logger logger = Logger.getLogger(BudgetRepository.class.getName());
+    private static final Logger logger = LogManager.getLogger(BudgetRepository.class);
+
+    @Inject
+    private IndexRegistry indexRegistry;
 
     public BudgetRepository() {
         MongoClient mongoClient = MongoDBConnection.getMongoClient();
@@ -28,6 +40,17 @@ public class BudgetRepository {
         this.collection = database.getCollection("budgets");
         logger.info("Initialized BudgetRepository with MongoDB collection 'budgets'");
     }
+
+    public void registerIndexes(@Observes @Initialized(ApplicationScoped.class) Object init) {
+        // En proračun na kategorijo; indeks služi tudi iskanju po userId
+        indexRegistry.register(IndexDefinition.on("budgets", Indexes.ascending("userId", "category")).unique());
+
+        ObjectId sampleUser = new ObjectId();
+        indexRegistry.verify(
+                QueryCheck.find("budgets by user", "budgets", Filters.eq("userId", sampleUser)),
+                QueryCheck.find("budget by user and category", "budgets",
+                        Filters.and(Filters.eq("userId", sampleUser), Filters.eq("category", "Food"))));
+    }
     
     public void addBudget(Budget budget) {
         // Normalizacija kategorije (prva črka velika, ostale male)
@@ -37,13 +60,13 @@ public class BudgetRepository {
 
         Document budgetDoc = toDocument(budget);
         collection.insertOne(budgetDoc);
-        logger.info("Budget added successfully: " + budget);
+        logger.info("Budget added successfully: {}", budget);
     }
 
     public List<Budget> getBudgetsByUserId(ObjectId userId) {
         List<Document> documents = collection.find(new Document("userId", userId)).into(new ArrayList<>());
         List<Budget> budgets = documents.stream().map(this::toBudget).collect(Collectors.toList());
-        logger.info("Retrieved budgets for userId " + userId + ": " + budgets);
+        logger.debug("Retrieved budgets for userId {}: {}", userId, budgets);
         return budgets;
     }
 
@@ -51,10 +74,10 @@ public class BudgetRepository {
         Document doc = collection.find(new Document("userId", userId).append("category", categoryName)).first();
         if (doc != null) {
             Budget budget = toBudget(doc);
-            logger.info("Retrieved budget for userId " + userId + " and category " + categoryName + ": " + budget);
+            logger.debug("Retrieved budget for userId {} and category {}: {}", userId, categoryName, budget);
             return budget;
         } else {
-            logger.warning("No budget found for userId " + userId + " and category " + categoryName);
+            logger.warn("No budget found for userId {} and category {}", userId, categoryName);
             return null;
         }
     }
@@ -65,24 +88,24 @@ public class BudgetRepository {
                 new Document("$set", new Document("monthlyLimit", newLimit))
         );
         if (updateResult.getMatchedCount() > 0) {
-            logger.info("Updated monthly limit for budgetId " + budgetId + " to " + newLimit);
+            logger.info("Updated monthly limit for budgetId {} to {}", budgetId, newLimit);
         } else {
-            logger.warning("No budget found with ID: " + budgetId);
+            logger.warn("No budget found with ID: {}", budgetId);
         }
     }
 
     public boolean deleteBudget(ObjectId userId, String categoryName) {
-        logger.info("Deleting budget with userId: " + userId + " and category: " + categoryName);
+        logger.debug("Deleting budget with userId: {} and category: {}", userId, categoryName);
     
         // Uporaba `$regex` za ignoriranje velikih/malih črk
         var result = collection.deleteOne(new Document("userId", userId)
                 .append("category", new Document("$regex", "^" + categoryName + "$").append("$options", "i")));
     
         if (result.getDeletedCount() > 0) {
-            logger.info("Budget deleted successfully: userId=" + userId + ", category=" + categoryName);
+            logger.info("Budget deleted successfully: userId={}, category={}", userId, categoryName);
             return true;
         } else {
-            logger.warning("No budget found for userId: " + userId + " and category: " + categoryName);
+            logger.warn("No budget found for userId: {} and category: {}", userId, categoryName);
             return false;
         }
     }
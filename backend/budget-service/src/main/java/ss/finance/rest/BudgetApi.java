@@ -1,10 +1,7 @@
 package ss.finance.rest;
 
-import java.util.logging.Logger;
-
 import javax.inject.Inject;
 import javax.ws.rs.Consumes;
-import javax.ws.rs.CookieParam;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
@@ -12,9 +9,13 @@ import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.SecurityContext;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.bson.types.ObjectId;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
@@ -23,14 +24,13 @@ import org.eclipse.microprofile.openapi.annotations.parameters.RequestBody;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 
-import com.mongodb.client.MongoClient;
-import com.mongodb.client.MongoClients;
-import com.mongodb.client.MongoDatabase;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoWriteException;
 
-import jakarta.json.Json;
-import jakarta.json.JsonObject;
 import ss.finance.entities.Budget;
-import ss.finance.security.JwtUtil;
+import ss.finance.health.HealthService;
+import ss.finance.security.Authenticated;
+import ss.finance.security.AuthenticatedUser;
 import ss.finance.services.BudgetBean;
 import ss.finance.services.BudgetUpdateRequest;
 
@@ -44,52 +44,42 @@ public class BudgetApi {
     private BudgetBean budgetBean;
 
     @Inject
-    private JwtUtil jwtUtil;
+    private HealthService healthService;
 
-    private static final Logger logger = Logger.getLogger(BudgetApi.class.getName());
-    private static final String MONGO_URI = System.getenv("MONGO_URL");
-    private static final String DATABASE_NAME = System.getenv("DATABASE_NAME");
+    private static final Logger logger = LogManager.getLogger(BudgetApi.class);
 
-    @Operation(summary = "Health check", description = "Returns the health status of the Budget microservice.")
+    @Operation(summary = "Health check", description = "Returns the readiness of the Budget microservice. Kept for existing probes, same as /health/ready.")
     @APIResponse(
             responseCode = "200",
             description = "Service is up and running",
-            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"status\": \"UP\", \"details\": {\"MongoDB\": \"UP\", \"Budget Service\": \"UP\"}}"))
+            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"status\": \"UP\", \"details\": {\"MongoDB\": {\"status\": \"UP\", \"latencyMs\": \"2\"}, \"Budget Service\": \"UP\"}}"))
     )
     @APIResponse(
             responseCode = "503",
             description = "Service is down",
-            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"status\": \"DOWN\", \"details\": {\"MongoDB\": \"DOWN\", \"Budget Service\": \"UP\"}}"))
+            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"status\": \"DOWN\", \"details\": {\"MongoDB\": {\"status\": \"DOWN\", \"error\": \"No response within 1000 ms\"}, \"Budget Service\": \"UP\"}}"))
     )
     @GET
     @Path("/health")
     public Response healthCheck() {
-        boolean isMongoUp = checkMongoDB();
-        boolean isServiceUp = true;
-
-        JsonObject healthJson = Json.createObjectBuilder()
-            .add("status", isMongoUp ? "UP" : "DOWN")
-            .add("details", Json.createObjectBuilder()
-                .add("MongoDB", isMongoUp ? "UP" : "DOWN")
-                .add("Budget Service", isServiceUp ? "UP" : "DOWN")
-                .build())
-            .build();
-
-        logger.info("Health Check: " + healthJson);
+        return healthService.readiness().with("Budget Service").toResponse();
+    }
 
-        int statusCode = isMongoUp ? Response.Status.OK.getStatusCode() : Response.Status.SERVICE_UNAVAILABLE.getStatusCode();
-        return Response.status(statusCode).entity(healthJson.toString()).build();
+    @Operation(summary = "Liveness check", description = "Returns UP while the process can serve requests. Does not check dependencies.")
+    @APIResponse(responseCode = "200", description = "Service is alive")
+    @GET
+    @Path("/health/live")
+    public Response livenessCheck() {
+        return healthService.liveness().toResponse();
     }
 
-    private boolean checkMongoDB() {
-        try (MongoClient mongoClient = MongoClients.create(MONGO_URI)) {
-            MongoDatabase database = mongoClient.getDatabase(DATABASE_NAME);
-            database.listCollectionNames().first();
-            return true;
-        } catch (Exception e) {
-            logger.severe("MongoDB health check failed: " + e.getMessage());
-            return false;
-        }
+    @Operation(summary = "Readiness check", description = "Pings MongoDB through the shared client. Results are cached briefly.")
+    @APIResponse(responseCode = "200", description = "Service is ready")
+    @APIResponse(responseCode = "503", description = "A critical dependency is unavailable")
+    @GET
+    @Path("/health/ready")
+    public Response readinessCheck() {
+        return healthService.readiness().toResponse();
     }
 
     @Operation(summary = "Add a new budget",
@@ -104,24 +94,23 @@ public class BudgetApi {
             description = "Unauthorized access",
             content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"message\": \"Token is missing or invalid\"}"))
     )
+    @APIResponse(
+            responseCode = "409",
+            description = "A budget for this category already exists",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"message\": \"Budget for this category already exists\"}"))
+    )
     @APIResponse(
             responseCode = "500",
             description = "Server error occurred",
             content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"message\": \"Server error occurred\"}"))
     )
+    @Authenticated
     @POST
     public Response addBudget(
             @RequestBody(description = "Budget data to be created", required = true, content = @Content(schema = @Schema(implementation = Budget.class))) Budget budget,
-            @CookieParam("auth_token") String token) {
+            @Context SecurityContext securityContext) {
         try {
-            logger.info("Received token: " + token);
-            if (token == null || token.isEmpty()) {
-                return Response.status(Response.Status.UNAUTHORIZED)
-                        .entity("{\"message\": \"Token is missing or invalid\"}")
-                        .build();
-            }
-
-            ObjectId userId = jwtUtil.extractUserId(token);
+            ObjectId userId = AuthenticatedUser.userId(securityContext);
             budget.setUserId(userId);
             budget.setCategory(
                 budget.getCategory().substring(0, 1).toUpperCase() + budget.getCategory().substring(1).toLowerCase()
@@ -131,8 +120,18 @@ public class BudgetApi {
             return Response.status(Response.Status.CREATED)
                     .entity("{\"message\": \"Budget added successfully\"}")
                     .build();
+        } catch (MongoWriteException e) {
+            if (e.getError().getCategory() == ErrorCategory.DUPLICATE_KEY) {
+                return Response.status(Response.Status.CONFLICT)
+                        .entity("{\"message\": \"Budget for this category already exists\"}")
+                        .build();
+            }
+            logger.error("Error adding budget: {}", e.getMessage());
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("{\"message\": \"Server error occurred\"}")
+                    .build();
         } catch (Exception e) {
-            logger.severe("Error adding budget: " + e.getMessage());
+            logger.error("Error adding budget: {}", e.getMessage());
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity("{\"message\": \"Server error occurred\"}")
                     .build();
@@ -160,16 +159,11 @@ public class BudgetApi {
             description = "Server error occurred",
             content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"message\": \"Server error occurred\"}"))
     )
+    @Authenticated
     @GET
-    public Response getBudgets(@CookieParam("auth_token") String token) {
+    public Response getBudgets(@Context SecurityContext securityContext) {
         try {
-            if (token == null || token.isEmpty()) {
-                return Response.status(Response.Status.UNAUTHORIZED)
-                        .entity("{\"message\": \"Token is missing or invalid\"}")
-                        .build();
-            }
-
-            ObjectId userId = jwtUtil.extractUserId(token);
+            ObjectId userId = AuthenticatedUser.userId(securityContext);
             var budgets = budgetBean.getBudgetsByUserId(userId);
 
             if (budgets.isEmpty()) {
@@ -178,7 +172,7 @@ public class BudgetApi {
 
             return Response.ok(budgets).build();
         } catch (Exception e) {
-            logger.severe("Error retrieving budgets: " + e.getMessage());
+            logger.error("Error retrieving budgets: {}", e.getMessage());
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity("{\"message\": \"Server error occurred\"}")
                     .build();
@@ -202,25 +196,20 @@ public class BudgetApi {
             description = "Server error occurred",
             content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"message\": \"Server error occurred\"}"))
     )
+    @Authenticated
     @PUT
     @Path("/{categoryName}")
     public Response updateBudget(
             @PathParam("categoryName") String categoryName,
-            @CookieParam("auth_token") String token,
+            @Context SecurityContext securityContext,
             @RequestBody(description = "Request body containing the new monthly limit", required = true, content = @Content(schema = @Schema(implementation = BudgetUpdateRequest.class))) BudgetUpdateRequest request) {
         try {
-            if (token == null || token.isEmpty()) {
-                return Response.status(Response.Status.UNAUTHORIZED)
-                        .entity("{\"message\": \"Token is missing or invalid\"}")
-                        .build();
-            }
-
-            ObjectId userId = jwtUtil.extractUserId(token);
+            ObjectId userId = AuthenticatedUser.userId(securityContext);
             String normalizedCategoryName = categoryName.substring(0, 1).toUpperCase() + categoryName.substring(1).toLowerCase();
             budgetBean.updateBudget(userId, normalizedCategoryName, request.getNewLimit());
             return Response.ok("{\"message\": \"Budget updated successfully\"}").build();
         } catch (Exception e) {
-            logger.severe("Error updating budget: " + e.getMessage());
+            logger.error("Error updating budget: {}", e.getMessage());
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity("{\"message\": \"Server error occurred\"}")
                     .build();
@@ -244,17 +233,12 @@ public class BudgetApi {
             description = "Server error occurred",
             content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"message\": \"Server error occurred\"}"))
     )
+    @Authenticated
     @DELETE
     @Path("/{categoryName}")
-    public Response deleteBudget(@PathParam("categoryName") String categoryName, @CookieParam("auth_token") String token) {
+    public Response deleteBudget(@PathParam("categoryName") String categoryName, @Context SecurityContext securityContext) {
         try {
-            if (token == null || token.isEmpty()) {
-                return Response.status(Response.Status.UNAUTHORIZED)
-                        .entity("{\"message\": \"Token is missing or invalid\"}")
-                        .build();
-            }
-
-            ObjectId userId = jwtUtil.extractUserId(token);
+            ObjectId userId = AuthenticatedUser.userId(securityContext);
             boolean deleted = budgetBean.deleteBudget(userId, categoryName);
 
             if (deleted) {
@@ -265,7 +249,7 @@ public class BudgetApi {
                         .build();
             }
         } catch (Exception e) {
-            logger.severe("Error deleting budget: " + e.getMessage());
+            logger.error("Error deleting budget: {}", e.getMessage());
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity("{\"message\": \"Server error occurred\"}")
                     .build();
@@ -1,11 +1,12 @@
 package ss.finance.services;
 
 import java.util.List;
-import java.util.logging.Logger;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.bson.types.ObjectId;
 
 import ss.finance.entities.Budget;
@@ -17,31 +18,31 @@ public class BudgetBean {
     @Inject
     private BudgetRepository budgetRepository;
 
-    private static final Logger logger = Logger.getLogger(BudgetBean.class.getName());
+    private static final Logger logger = LogManager.getLogger(BudgetBean.class);
 
     public void addBudget(Budget budget) {
-        logger.info("Adding new budget: " + budget);
+        logger.debug("Adding new budget: {}", budget);
         budgetRepository.addBudget(budget);
     }
 
     public List<Budget> getBudgetsByUserId(ObjectId userId) {
-        logger.info("Fetching budgets for userId: " + userId);
+        logger.debug("Fetching budgets for userId: {}", userId);
         return budgetRepository.getBudgetsByUserId(userId);
     }
 
     public void updateBudget(ObjectId userId, String categoryName, double newLimit) {
-        logger.info("Updating budget for userId: " + userId + ", category: " + categoryName + ", newLimit: " + newLimit);
+        logger.debug("Updating budget for userId: {}, category: {}, newLimit: {}", userId, categoryName, newLimit);
         Budget budget = budgetRepository.getBudgetByUserIdAndCategory(userId, categoryName);
         if (budget != null) {
             budgetRepository.updateMonthlyLimit(budget.getId(), newLimit);
         } else {
-            logger.warning("No budget found for userId: " + userId + ", category: " + categoryName);
+            logger.warn("No budget found for userId: {}, category: {}", userId, categoryName);
             throw new IllegalArgumentException("Budget not found for the given user and category");
         }
     }
 
     public boolean deleteBudget(ObjectId userId, String categoryName) {
-        logger.info("Attempting to delete budget for userId: " + userId + ", category: " + categoryName);
+        logger.debug("Attempting to delete budget for userId: {}, category: {}", userId, categoryName);
         return budgetRepository.deleteBudget(userId, categoryName);
     }
 }
\ No newline at end of file
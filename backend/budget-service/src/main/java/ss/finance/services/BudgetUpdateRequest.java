@@ -1,7 +1,6 @@
 package ss.finance.services;
 
 import java.util.List;
-import java.util.logging.Logger;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
@@ -7,6 +7,7 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.mockito.ArgumentMatchers.any;
@@ -26,9 +27,15 @@ import com.mongodb.client.result.InsertOneResult;
 import com.mongodb.client.result.UpdateResult;
 
 import ss.finance.entities.Budget;
+import ss.finance.testing.TestConfiguration;
 
 class BudgetRepositoryTest {
 
+    @BeforeAll
+    static void initConfiguration() {
+        TestConfiguration.initialize();
+    }
+
     @Mock
     private MongoCollection<Document> mockCollection;
 
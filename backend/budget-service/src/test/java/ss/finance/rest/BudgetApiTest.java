@@ -4,9 +4,12 @@ import java.util.Arrays;
 import java.util.List;
 
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.SecurityContext;
 
+import org.bson.BsonDocument;
 import org.bson.types.ObjectId;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -14,15 +17,19 @@ import static org.mockito.ArgumentMatchers.any;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import static org.mockito.Mockito.doNothing;
-import static org.mockito.Mockito.lenient;
-import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import com.mongodb.MongoWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.WriteError;
+
 import ss.finance.entities.Budget;
-import ss.finance.security.JwtUtil;
+import ss.finance.security.Authenticated;
+import ss.finance.security.AuthenticatedUser;
 import ss.finance.services.BudgetBean;
 import ss.finance.services.BudgetUpdateRequest;
 
@@ -32,31 +39,25 @@ class BudgetApiTest {
     @Mock
     private BudgetBean budgetBean;
 
-    @Mock
-    private JwtUtil jwtUtil;
-
     @InjectMocks
     private BudgetApi budgetApi;
 
-    private String validToken;
+    private SecurityContext securityContext;
     private ObjectId userId;
     private Budget sampleBudget;
 
     @BeforeEach
     void setUp() {
         userId = new ObjectId();
-        validToken = "valid.jwt.token";
+        securityContext = new AuthenticatedUser(userId);
         sampleBudget = new Budget(userId, "Food", 500.00);
-
-        // Uporabi lenient(), da preprečiš UnnecessaryStubbingException
-        lenient().when(jwtUtil.extractUserId(validToken)).thenReturn(userId);
     }
 
     @Test
     void testAddBudget_Success() {
         doNothing().when(budgetBean).addBudget(any(Budget.class));
 
-        Response response = budgetApi.addBudget(sampleBudget, validToken);
+        Response response = budgetApi.addBudget(sampleBudget, securityContext);
 
         assertEquals(Response.Status.CREATED.getStatusCode(), response.getStatus());
         assertEquals("{\"message\": \"Budget added successfully\"}", response.getEntity());
@@ -65,13 +66,21 @@ class BudgetApiTest {
     }
 
     @Test
-    void testAddBudget_Unauthorized() {
-        Response response = budgetApi.addBudget(sampleBudget, null);
+    void testAddBudget_Duplicate() {
+        doThrow(new MongoWriteException(new WriteError(11000, "E11000 duplicate key error", new BsonDocument()), new ServerAddress()))
+                .when(budgetBean).addBudget(any(Budget.class));
 
-        assertEquals(Response.Status.UNAUTHORIZED.getStatusCode(), response.getStatus());
-        assertEquals("{\"message\": \"Token is missing or invalid\"}", response.getEntity());
+        Response response = budgetApi.addBudget(sampleBudget, securityContext);
 
-        verify(budgetBean, never()).addBudget(any(Budget.class));
+        assertEquals(Response.Status.CONFLICT.getStatusCode(), response.getStatus());
+        assertEquals("{\"message\": \"Budget for this category already exists\"}", response.getEntity());
+    }
+
+    @Test
+    void testAddBudget_Unauthorized() throws NoSuchMethodException {
+        // Requests without a valid token are rejected by AuthenticationFilter before reaching the resource
+        assertTrue(BudgetApi.class.getMethod("addBudget", Budget.class, SecurityContext.class)
+                .isAnnotationPresent(Authenticated.class));
     }
 
     @Test
@@ -79,7 +88,7 @@ class BudgetApiTest {
         List<Budget> budgets = Arrays.asList(sampleBudget, new Budget(userId, "Transport", 200.00));
         when(budgetBean.getBudgetsByUserId(userId)).thenReturn(budgets);
 
-        Response response = budgetApi.getBudgets(validToken);
+        Response response = budgetApi.getBudgets(securityContext);
 
         assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
         assertEquals(budgets, response.getEntity());
@@ -91,7 +100,7 @@ class BudgetApiTest {
     void testGetBudgets_NoContent() {
         when(budgetBean.getBudgetsByUserId(userId)).thenReturn(List.of());
 
-        Response response = budgetApi.getBudgets(validToken);
+        Response response = budgetApi.getBudgets(securityContext);
 
         assertEquals(Response.Status.NO_CONTENT.getStatusCode(), response.getStatus());
 
@@ -104,7 +113,7 @@ class BudgetApiTest {
         request.setNewLimit(600.00);
         doNothing().when(budgetBean).updateBudget(userId, "Food", request.getNewLimit());
 
-        Response response = budgetApi.updateBudget("food", validToken, request);
+        Response response = budgetApi.updateBudget("food", securityContext, request);
 
         assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
         assertEquals("{\"message\": \"Budget updated successfully\"}", response.getEntity());
@@ -116,7 +125,7 @@ class BudgetApiTest {
     void testDeleteBudget_Success() {
         when(budgetBean.deleteBudget(userId, "Food")).thenReturn(true);
 
-        Response response = budgetApi.deleteBudget("Food", validToken);
+        Response response = budgetApi.deleteBudget("Food", securityContext);
 
         assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
         assertEquals("{\"message\": \"Budget deleted successfully\"}", response.getEntity());
@@ -128,7 +137,7 @@ class BudgetApiTest {
     void testDeleteBudget_NotFound() {
         when(budgetBean.deleteBudget(userId, "Food")).thenReturn(false);
 
-        Response response = budgetApi.deleteBudget("Food", validToken);
+        Response response = budgetApi.deleteBudget("Food", securityContext);
 
         assertEquals(Response.Status.NOT_FOUND.getStatusCode(), response.getStatus());
         assertEquals("{\"message\": \"Budget not found for category: Food\"}", response.getEntity());
@@ -0,0 +1,154 @@
+package ss.finance.events;
+
+import org.bson.types.ObjectId;
+
+/**
+ * Event published on the transaction queue whenever a transaction changes.
+ * Timestamps are epoch milliseconds so that the wire format does not depend on
+ * the time zone or locale of either side.
+ * <p>
+ * {@code version} increases with every change a user makes, so a consumer that keeps
+ * the last applied version per transaction can ignore redelivered or reordered events.
+ * Updated and deleted events carry the full state of the transaction after the update,
+ * or before the delete.
+ */
+public class TransactionEvent {
+
+    public enum EventType {
+        CREATED((byte) 1),
+        UPDATED((byte) 2),
+        DELETED((byte) 3);
+
+        private final byte code;
+
+        EventType(byte code) {
+            this.code = code;
+        }
+
+        public byte getCode() {
+            return code;
+        }
+
+        public static EventType fromCode(byte code) {
+            for (EventType eventType : values()) {
+                if (eventType.code == code) {
+                    return eventType;
+                }
+            }
+            throw new IllegalArgumentException("Unknown transaction event type: " + code);
+        }
+    }
+
+    private EventType eventType;
+    private ObjectId transactionId;
+    private ObjectId userId;
+    private long version;
+    private String type; // "income" ali "expense"
+    private double amount;
+    private String category;
+    private long date;
+    private long occurredAt;
+
+    public TransactionEvent() {
+    }
+
+    public TransactionEvent(EventType eventType, ObjectId transactionId, ObjectId userId, long version,
+                            String type, double amount, String category, long date, long occurredAt) {
+        this.eventType = eventType;
+        this.transactionId = transactionId;
+        this.userId = userId;
+        this.version = version;
+        this.type = type;
+        this.amount = amount;
+        this.category = category;
+        this.date = date;
+        this.occurredAt = occurredAt;
+    }
+
+    public EventType getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(EventType eventType) {
+        this.eventType = eventType;
+    }
+
+    public ObjectId getTransactionId() {
+        return transactionId;
+    }
+
+    public void setTransactionId(ObjectId transactionId) {
+        this.transactionId = transactionId;
+    }
+
+    public ObjectId getUserId() {
+        return userId;
+    }
+
+    public void setUserId(ObjectId userId) {
+        this.userId = userId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public void setAmount(double amount) {
+        this.amount = amount;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public long getDate() {
+        return date;
+    }
+
+    public void setDate(long date) {
+        this.date = date;
+    }
+
+    public long getOccurredAt() {
+        return occurredAt;
+    }
+
+    public void setOccurredAt(long occurredAt) {
+        this.occurredAt = occurredAt;
+    }
+
+    @Override
+    public String toString() {
+        return "TransactionEvent{" +
+                "eventType=" + eventType +
+                ", transactionId=" + transactionId +
+                ", userId=" + userId +
+                ", version=" + version +
+                ", type='" + type + '\'' +
+                ", amount=" + amount +
+                ", category='" + category + '\'' +
+                ", date=" + date +
+                ", occurredAt=" + occurredAt +
+                '}';
+    }
+}
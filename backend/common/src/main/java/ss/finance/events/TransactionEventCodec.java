@@ -0,0 +1,135 @@
+package ss.finance.events;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.bson.types.ObjectId;
+
+/**
+ * Binary wire format of {@link TransactionEvent}, shared by the producer and all consumers.
+ * <p>
+ * Layout of version 2 (big-endian):
+ * <pre>
+ * format       1 byte
+ * eventType    1 byte
+ * transaction 12 bytes (ObjectId)
+ * userId      12 bytes (ObjectId)
+ * version      8 bytes (per-user change version)
+ * date         8 bytes (epoch millis)
+ * occurredAt   8 bytes (epoch millis)
+ * amount       8 bytes (IEEE 754 double)
+ * type         2 byte length + UTF-8, length -1 for null
+ * category     2 byte length + UTF-8, length -1 for null
+ * </pre>
+ * Version 1 is the same without the change version field, which then decodes as 0.
+ * The leading format byte lets consumers reject or adapt to formats they do not know.
+ * It can never be {@code '{'}, so payloads are also distinguishable from the old JSON
+ * messages. The codec is stateless and encodes into a single exactly sized array.
+ */
+public final class TransactionEventCodec {
+
+    public static final byte FORMAT_V1 = 1;
+    public static final byte FORMAT_V2 = 2;
+    public static final byte FORMAT = FORMAT_V2;
+
+    private static final int OBJECT_ID_LENGTH = 12;
+    private static final int FIXED_LENGTH = 2 + 2 * OBJECT_ID_LENGTH + 4 * Long.BYTES;
+
+    private TransactionEventCodec() {
+    }
+
+    public static byte[] encode(TransactionEvent event) {
+        byte[] type = toBytes(event.getType());
+        byte[] category = toBytes(event.getCategory());
+
+        byte[] body = new byte[FIXED_LENGTH + stringLength(type) + stringLength(category)];
+        ByteBuffer buffer = ByteBuffer.wrap(body);
+        buffer.put(FORMAT);
+        buffer.put(event.getEventType().getCode());
+        event.getTransactionId().putToByteBuffer(buffer);
+        event.getUserId().putToByteBuffer(buffer);
+        buffer.putLong(event.getVersion());
+        buffer.putLong(event.getDate());
+        buffer.putLong(event.getOccurredAt());
+        buffer.putDouble(event.getAmount());
+        putString(buffer, type);
+        putString(buffer, category);
+        return body;
+    }
+
+    /**
+     * @throws IllegalArgumentException If the format is unknown or the payload is truncated.
+     */
+    public static TransactionEvent decode(byte[] body) {
+        if (!isEvent(body)) {
+            throw new IllegalArgumentException("Unsupported transaction event format: "
+                    + (body == null || body.length == 0 ? "empty" : String.valueOf(body[0])));
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(body, 1, body.length - 1);
+            TransactionEvent event = new TransactionEvent();
+            event.setEventType(TransactionEvent.EventType.fromCode(buffer.get()));
+            event.setTransactionId(getObjectId(buffer));
+            event.setUserId(getObjectId(buffer));
+            if (body[0] >= FORMAT_V2) {
+                event.setVersion(buffer.getLong());
+            }
+            event.setDate(buffer.getLong());
+            event.setOccurredAt(buffer.getLong());
+            event.setAmount(buffer.getDouble());
+            event.setType(getString(buffer));
+            event.setCategory(getString(buffer));
+            return event;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated transaction event of " + body.length + " bytes", e);
+        }
+    }
+
+    /**
+     * Returns true if the payload is in a format this codec can read.
+     */
+    public static boolean isEvent(byte[] body) {
+        return body != null && body.length > 0 && (body[0] == FORMAT_V1 || body[0] == FORMAT_V2);
+    }
+
+    private static byte[] toBytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int stringLength(byte[] value) {
+        if (value != null && value.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("String field too long for transaction event: " + value.length + " bytes");
+        }
+        return Short.BYTES + (value == null ? 0 : value.length);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putShort((short) -1);
+        } else {
+            buffer.putShort((short) value.length);
+            buffer.put(value);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        if (buffer.remaining() < length) {
+            throw new BufferUnderflowException();
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private static ObjectId getObjectId(ByteBuffer buffer) {
+        if (buffer.remaining() < OBJECT_ID_LENGTH) {
+            throw new BufferUnderflowException();
+        }
+        return new ObjectId(buffer);
+    }
+}
@@ -0,0 +1,9 @@
+package ss.finance.health;
+
+/**
+ * A dependency check registered with {@link HealthService}. Thrown exceptions count as DOWN.
+ */
+@FunctionalInterface
+public interface HealthCheck {
+    HealthResult check() throws Exception;
+}
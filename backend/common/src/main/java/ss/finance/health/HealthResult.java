@@ -0,0 +1,46 @@
+package ss.finance.health;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Outcome of a single {@link HealthCheck}, with optional details such as latency or channel counts.
+ */
+public final class HealthResult {
+    private final boolean up;
+    private final Map<String, Object> details;
+
+    private HealthResult(boolean up, Map<String, Object> details) {
+        this.up = up;
+        this.details = Collections.unmodifiableMap(new LinkedHashMap<>(details));
+    }
+
+    public static HealthResult up() {
+        return new HealthResult(true, Map.of());
+    }
+
+    public static HealthResult up(Map<String, Object> details) {
+        return new HealthResult(true, details);
+    }
+
+    public static HealthResult down(String error) {
+        return new HealthResult(false, Map.of("error", error == null ? "unknown" : error));
+    }
+
+    public static HealthResult down(Map<String, Object> details) {
+        return new HealthResult(false, details);
+    }
+
+    public boolean isUp() {
+        return up;
+    }
+
+    public String getStatus() {
+        return up ? "UP" : "DOWN";
+    }
+
+    public Map<String, Object> getDetails() {
+        return details;
+    }
+}
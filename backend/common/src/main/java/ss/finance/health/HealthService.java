@@ -0,0 +1,243 @@
+package ss.finance.health;
+
+import java.lang.management.ManagementFactory;
+import java.time.Clock;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.Initialized;
+import javax.enterprise.event.Observes;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bson.Document;
+
+import com.kumuluz.ee.configuration.utils.ConfigurationUtil;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObjectBuilder;
+import ss.finance.metrics.MetricsRegistry;
+import ss.finance.utils.MongoDBConnection;
+
+/**
+ * Liveness and readiness checks shared by all services.
+ * <p>
+ * Liveness only says that the process can serve requests and never touches a dependency, so a
+ * database outage does not make Kubernetes restart every pod. Readiness runs the registered
+ * checks: MongoDB is pinged through the shared client, and components such as the RabbitMQ
+ * publisher or consumer register their own. Each check runs with a timeout and its result is
+ * cached, so frequent probes from several replicas cost at most one ping per TTL; a check that is
+ * still running is not started a second time.
+ * <p>
+ * The time from JVM start until the application is started, and until readiness first
+ * reports UP, is logged and exported as {@code process_start_to_ready_seconds}.
+ * <p>
+ * Configuration: {@code health.cache-ttl-ms}, {@code health.timeout-ms}.
+ */
+@ApplicationScoped
+public class HealthService {
+    private static final Logger logger = LogManager.getLogger(HealthService.class);
+    private static final String DATABASE_NAME = "financeApp";
+
+    private static volatile double startToReadySeconds = Double.NaN;
+
+    static {
+        MetricsRegistry.gauge("process_start_to_ready_seconds",
+                "Time from JVM start until readiness first reported UP.", () -> startToReadySeconds);
+    }
+
+    private final long cacheTtlMs;
+    private final long timeoutMs;
+    private final Clock clock;
+    private final Map<String, Registration> checks = new LinkedHashMap<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "health-check");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public HealthService() {
+        this(ConfigurationUtil.getInstance().getLong("health.cache-ttl-ms").orElse(5000L),
+                ConfigurationUtil.getInstance().getLong("health.timeout-ms").orElse(1000L),
+                Clock.systemUTC());
+        register("MongoDB", HealthService::pingMongo, true);
+    }
+
+    // For tests: no MongoDB check is registered
+    HealthService(long cacheTtlMs, long timeoutMs, Clock clock) {
+        this.cacheTtlMs = cacheTtlMs;
+        this.timeoutMs = timeoutMs;
+        this.clock = clock;
+    }
+
+    /**
+     * Adds a readiness check. A failing critical check makes the service not ready; other checks
+     * are only reported, e.g. a broker that an outbox can wait for.
+     */
+    public synchronized void register(String name, HealthCheck check, boolean critical) {
+        checks.put(name, new Registration(check, critical));
+    }
+
+    public void onStart(@Observes @Initialized(ApplicationScoped.class) Object init) {
+        logger.info("Application started {} ms after JVM start.", ManagementFactory.getRuntimeMXBean().getUptime());
+    }
+
+    public HealthReport liveness() {
+        return new HealthReport(true, new LinkedHashMap<>());
+    }
+
+    public HealthReport readiness() {
+        Map<String, Registration> current;
+        synchronized (this) {
+            current = new LinkedHashMap<>(checks);
+        }
+        boolean up = true;
+        Map<String, HealthResult> results = new LinkedHashMap<>();
+        for (Map.Entry<String, Registration> entry : current.entrySet()) {
+            HealthResult result = entry.getValue().result(entry.getKey());
+            results.put(entry.getKey(), result);
+            if (entry.getValue().critical && !result.isUp()) {
+                up = false;
+            }
+        }
+        if (up && Double.isNaN(startToReadySeconds)) {
+            long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+            startToReadySeconds = uptime / 1000.0;
+            logger.info("Ready {} ms after JVM start.", uptime);
+        }
+        return new HealthReport(up, results);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    private static HealthResult pingMongo() {
+        long start = System.nanoTime();
+        MongoDBConnection.getDatabase(DATABASE_NAME).runCommand(new Document("ping", 1));
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("latencyMs", (System.nanoTime() - start) / 1_000_000);
+        details.put("connectionsInUse", MongoDBConnection.getMetrics().getConnectionsInUse());
+        details.put("waitQueueSize", MongoDBConnection.getMetrics().getWaitQueueSize());
+        return HealthResult.up(details);
+    }
+
+    private final class Registration {
+        private final HealthCheck check;
+        private final boolean critical;
+        private HealthResult cached;
+        private long cachedAt;
+        private CompletableFuture<HealthResult> running;
+
+        Registration(HealthCheck check, boolean critical) {
+            this.check = check;
+            this.critical = critical;
+        }
+
+        HealthResult result(String name) {
+            CompletableFuture<HealthResult> future;
+            synchronized (this) {
+                if (cached != null && clock.millis() - cachedAt < cacheTtlMs) {
+                    return cached;
+                }
+                if (running == null) {
+                    running = CompletableFuture.supplyAsync(this::runCheck, executor);
+                }
+                future = running;
+            }
+            HealthResult result;
+            try {
+                result = future.get(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // The check keeps running; its result is cached once it finishes
+                result = HealthResult.down("No response within " + timeoutMs + " ms");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                result = HealthResult.down("Interrupted");
+            } catch (Exception e) {
+                result = HealthResult.down(e.getMessage());
+            }
+            if (!result.isUp()) {
+                logger.warn("{} health check failed: {}", name, result.getDetails());
+            }
+            return result;
+        }
+
+        private HealthResult runCheck() {
+            HealthResult result;
+            try {
+                result = check.check();
+            } catch (Exception e) {
+                result = HealthResult.down(e.getMessage());
+            }
+            synchronized (this) {
+                cached = result;
+                cachedAt = clock.millis();
+                running = null;
+            }
+            return result;
+        }
+    }
+
+    public static final class HealthReport {
+        private final boolean up;
+        private final Map<String, HealthResult> checks;
+
+        HealthReport(boolean up, Map<String, HealthResult> checks) {
+            this.up = up;
+            this.checks = checks;
+        }
+
+        public boolean isUp() {
+            return up;
+        }
+
+        public Map<String, HealthResult> getChecks() {
+            return checks;
+        }
+
+        /**
+         * Adds a component that is reported as UP, e.g. the service itself.
+         */
+        public HealthReport with(String name) {
+            checks.put(name, HealthResult.up());
+            return this;
+        }
+
+        public String toJson() {
+            JsonObjectBuilder details = Json.createObjectBuilder();
+            for (Map.Entry<String, HealthResult> entry : checks.entrySet()) {
+                HealthResult result = entry.getValue();
+                if (result.getDetails().isEmpty()) {
+                    details.add(entry.getKey(), result.getStatus());
+                } else {
+                    JsonObjectBuilder check = Json.createObjectBuilder().add("status", result.getStatus());
+                    for (Map.Entry<String, Object> detail : result.getDetails().entrySet()) {
+                        check.add(detail.getKey(), String.valueOf(detail.getValue()));
+                    }
+                    details.add(entry.getKey(), check);
+                }
+            }
+            return Json.createObjectBuilder()
+                    .add("status", up ? "UP" : "DOWN")
+                    .add("details", details)
+                    .build()
+                    .toString();
+        }
+
+        public Response toResponse() {
+            Response.Status status = up ? Response.Status.OK : Response.Status.SERVICE_UNAVAILABLE;
+            return Response.status(status).type(MediaType.APPLICATION_JSON).entity(toJson()).build();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package ss.finance.health;
+
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.kumuluz.ee.configuration.utils.ConfigurationUtil;
+
+/**
+ * Runs startup work that needs a dependency, e.g. creating indexes, off the boot thread.
+ * <p>
+ * HTTP serving starts right away instead of waiting for MongoDB. Tasks run one after another in
+ * the order they were submitted. A task that throws is retried with exponential backoff before
+ * any later task runs, so a task can rely on the ones before it. The critical "Startup"
+ * readiness check stays down until every task has finished, so no traffic is routed to a pod
+ * that is not set up yet.
+ * <p>
+ * Configuration: {@code startup.retry.initial-backoff-ms}, {@code startup.retry.max-backoff-ms}.
+ */
+@ApplicationScoped
+public class StartupTasks {
+    private static final Logger logger = LogManager.getLogger(StartupTasks.class);
+
+    @Inject
+    private HealthService healthService;
+
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final Queue<Task> tasks = new ArrayDeque<>();
+    private final ScheduledExecutorService executor;
+    private boolean running;
+
+    public StartupTasks() {
+        ConfigurationUtil config = ConfigurationUtil.getInstance();
+        this.initialBackoffMs = config.getLong("startup.retry.initial-backoff-ms").orElse(500L);
+        this.maxBackoffMs = config.getLong("startup.retry.max-backoff-ms").orElse(30000L);
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "startup-tasks");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // For tests: tasks run only when the given executor runs them
+    StartupTasks(HealthService healthService, ScheduledExecutorService executor, long initialBackoffMs,
+                 long maxBackoffMs) {
+        this.healthService = healthService;
+        this.executor = executor;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+    }
+
+    @PostConstruct
+    public void init() {
+        healthService.register("Startup", () -> {
+            Map<String, Object> pending = pending();
+            return pending.isEmpty() ? HealthResult.up() : HealthResult.down(pending);
+        }, true);
+    }
+
+    public synchronized void submit(String name, Runnable work) {
+        tasks.add(new Task(name, work));
+        if (!running) {
+            running = true;
+            executor.execute(this::runNext);
+        }
+    }
+
+    /**
+     * Tasks that have not finished yet, with the error of their last attempt.
+     */
+    public synchronized Map<String, Object> pending() {
+        Map<String, Object> pending = new LinkedHashMap<>();
+        for (Task task : tasks) {
+            pending.put(task.name, task.lastError == null ? "pending" : task.lastError);
+        }
+        return pending;
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    private void runNext() {
+        Task task;
+        synchronized (this) {
+            task = tasks.peek();
+            if (task == null) {
+                running = false;
+            }
+        }
+        if (task == null) {
+            // Records the time to ready even if no probe asks for a while
+            healthService.readiness();
+            return;
+        }
+        try {
+            task.work.run();
+            synchronized (this) {
+                tasks.remove();
+            }
+            logger.info("Startup task '{}' finished after {} attempt(s).", task.name, task.attempts + 1);
+            executor.execute(this::runNext);
+        } catch (Exception e) {
+            long delay = Math.min(maxBackoffMs, initialBackoffMs << Math.min(task.attempts, 16));
+            synchronized (this) {
+                task.attempts++;
+                task.lastError = String.valueOf(e.getMessage());
+            }
+            logger.warn("Startup task '{}' failed, retrying in {} ms: {}", task.name, delay, e.getMessage());
+            executor.schedule(this::runNext, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static final class Task {
+        private final String name;
+        private final Runnable work;
+        private int attempts;
+        private String lastError;
+
+        Task(String name, Runnable work) {
+            this.name = name;
+            this.work = work;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package ss.finance.indexes;
+
+import java.util.Objects;
+
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.IndexOptions;
+
+/**
+ * Declares an index that a service expects on one of its collections.
+ * Identified by its key specification, so the same declaration from two services is harmless.
+ */
+public final class IndexDefinition {
+    private final String collection;
+    private final BsonDocument keys;
+    private String name;
+    private boolean unique;
+    private boolean sparse;
+    private BsonDocument partialFilter;
+
+    private IndexDefinition(String collection, BsonDocument keys) {
+        this.collection = collection;
+        this.keys = keys;
+    }
+
+    public static IndexDefinition on(String collection, Bson keys) {
+        return new IndexDefinition(collection, toBsonDocument(keys));
+    }
+
+    public IndexDefinition name(String name) {
+        this.name = name;
+        return this;
+    }
+
+    public IndexDefinition unique() {
+        this.unique = true;
+        return this;
+    }
+
+    public IndexDefinition sparse() {
+        this.sparse = true;
+        return this;
+    }
+
+    public IndexDefinition partial(Bson filter) {
+        this.partialFilter = toBsonDocument(filter);
+        return this;
+    }
+
+    public String getCollection() {
+        return collection;
+    }
+
+    public BsonDocument getKeys() {
+        return keys;
+    }
+
+    IndexModel toIndexModel() {
+        IndexOptions options = new IndexOptions().unique(unique).sparse(sparse);
+        if (name != null) {
+            options.name(name);
+        }
+        if (partialFilter != null) {
+            options.partialFilterExpression(partialFilter);
+        }
+        return new IndexModel(keys, options);
+    }
+
+    /**
+     * Returns null when the existing index matches this definition, otherwise what differs.
+     */
+    String differenceFrom(Document existing) {
+        StringBuilder difference = new StringBuilder();
+        if (unique != existing.getBoolean("unique", false)) {
+            difference.append("unique expected ").append(unique).append("; ");
+        }
+        if (sparse != existing.getBoolean("sparse", false)) {
+            difference.append("sparse expected ").append(sparse).append("; ");
+        }
+        Object existingPartial = existing.get("partialFilterExpression");
+        BsonDocument actualPartial = existingPartial instanceof Bson ? toBsonDocument((Bson) existingPartial) : null;
+        if (!Objects.equals(partialFilter, actualPartial)) {
+            difference.append("partialFilterExpression expected ").append(partialFilter).append("; ");
+        }
+        return difference.length() == 0 ? null : difference.substring(0, difference.length() - 2);
+    }
+
+    static BsonDocument toBsonDocument(Bson bson) {
+        return bson.toBsonDocument(BsonDocument.class, MongoClientSettings.getDefaultCodecRegistry());
+    }
+
+    @Override
+    public String toString() {
+        return collection + " " + keys.toJson();
+    }
+}
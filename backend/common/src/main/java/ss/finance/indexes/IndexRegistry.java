@@ -0,0 +1,196 @@
+package ss.finance.indexes;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bson.BsonDocument;
+import org.bson.Document;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+
+import ss.finance.health.StartupTasks;
+import ss.finance.utils.MongoDBConnection;
+
+/**
+ * Declarative registry of the indexes each service relies on.
+ * <p>
+ * Beans register their {@link IndexDefinition}s at startup; registration creates missing
+ * indexes as a {@link StartupTasks} task, which is a no-op for indexes that already exist, so
+ * the service starts serving without waiting for MongoDB but is only ready once they exist.
+ * A failure, for example a unique index over duplicate data, is logged and shows up in the
+ * drift report instead of stopping the service. {@link QueryCheck}s are explained against the
+ * live planner so that a key query that falls back to a collection scan is noticed at deploy time.
+ */
+@ApplicationScoped
+public class IndexRegistry {
+    private static final Logger logger = LogManager.getLogger(IndexRegistry.class);
+    private static final String DATABASE_NAME = "financeApp";
+
+    private final List<IndexDefinition> indexes = new ArrayList<>();
+    private final List<QueryCheck> checks = new ArrayList<>();
+    private final Map<IndexDefinition, String> failures = new LinkedHashMap<>();
+
+    @Inject
+    private StartupTasks startupTasks;
+
+    public void register(IndexDefinition... definitions) {
+        Set<String> collections = new LinkedHashSet<>();
+        synchronized (this) {
+            for (IndexDefinition definition : definitions) {
+                indexes.add(definition);
+                collections.add(definition.getCollection());
+            }
+        }
+        startupTasks.submit("indexes on " + String.join(", ", collections), () -> ensure(definitions));
+    }
+
+    private synchronized void ensure(IndexDefinition... definitions) {
+        MongoDatabase database = MongoDBConnection.getDatabase(DATABASE_NAME);
+        // Throws while MongoDB is unreachable, so the task is retried instead of every index being reported as failed
+        database.runCommand(new Document("ping", 1));
+        for (IndexDefinition definition : definitions) {
+            try {
+                database.getCollection(definition.getCollection()).createIndexes(List.of(definition.toIndexModel()));
+                failures.remove(definition);
+                logger.info("Index ensured: {}", definition);
+            } catch (Exception e) {
+                failures.put(definition, e.getMessage());
+                logger.error("Failed to create index {}: {}", definition, e.getMessage());
+            }
+        }
+        for (Map<String, Object> drift : driftReport()) {
+            logger.warn("Index drift: {}", drift);
+        }
+    }
+
+    /**
+     * Registers key queries and explains them once the indexes registered before them exist,
+     * logging every check that fails.
+     */
+    public void verify(QueryCheck... queries) {
+        synchronized (this) {
+            checks.addAll(List.of(queries));
+        }
+        startupTasks.submit("query checks", () -> explainAll(queries));
+    }
+
+    private synchronized void explainAll(QueryCheck... queries) {
+        MongoDBConnection.getDatabase(DATABASE_NAME).runCommand(new Document("ping", 1));
+        for (QueryCheck query : queries) {
+            Map<String, Object> result = explain(query);
+            if (!Boolean.TRUE.equals(result.get("ok"))) {
+                logger.warn("Query check failed: {}", result);
+            }
+        }
+    }
+
+    /**
+     * Compares the declared indexes with the ones that exist. Reports declared indexes that are
+     * missing or have different options, and indexes on registered collections that nobody
+     * declared.
+     */
+    public synchronized List<Map<String, Object>> driftReport() {
+        MongoDatabase database = MongoDBConnection.getDatabase(DATABASE_NAME);
+        List<Map<String, Object>> report = new ArrayList<>();
+
+        Set<String> collections = new LinkedHashSet<>();
+        for (IndexDefinition definition : indexes) {
+            collections.add(definition.getCollection());
+        }
+        for (String collectionName : collections) {
+            MongoCollection<Document> collection = database.getCollection(collectionName);
+            List<Document> existing = collection.listIndexes().into(new ArrayList<>());
+            Set<BsonDocument> declared = new LinkedHashSet<>();
+
+            for (IndexDefinition definition : indexes) {
+                if (!definition.getCollection().equals(collectionName) || !declared.add(definition.getKeys())) {
+                    continue;
+                }
+                Document match = null;
+                for (Document index : existing) {
+                    if (IndexDefinition.toBsonDocument((Document) index.get("key")).equals(definition.getKeys())) {
+                        match = index;
+                        break;
+                    }
+                }
+                if (match == null) {
+                    report.add(drift(collectionName, definition.getKeys().toJson(), "MISSING", failures.get(definition)));
+                } else {
+                    String difference = definition.differenceFrom(match);
+                    if (difference != null) {
+                        report.add(drift(collectionName, match.getString("name"), "OPTIONS_DIFFER", difference));
+                    }
+                }
+            }
+            for (Document index : existing) {
+                BsonDocument keys = IndexDefinition.toBsonDocument((Document) index.get("key"));
+                if (!"_id_".equals(index.getString("name")) && !declared.contains(keys)) {
+                    report.add(drift(collectionName, index.getString("name"), "UNDECLARED", keys.toJson()));
+                }
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Explains every registered query check again, e.g. after an index was changed by hand.
+     */
+    public synchronized List<Map<String, Object>> checkQueries() {
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (QueryCheck query : checks) {
+            results.add(explain(query));
+        }
+        return results;
+    }
+
+    public Map<String, Object> report() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("drift", driftReport());
+        report.put("queries", checkQueries());
+        return report;
+    }
+
+    private Map<String, Object> explain(QueryCheck query) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("query", query.getName());
+        result.put("collection", query.getCollection());
+        try {
+            BsonDocument explain = MongoDBConnection.getDatabase(DATABASE_NAME)
+                    .runCommand(query.explainCommand(), BsonDocument.class);
+            List<String> stages = QueryCheck.winningStages(explain);
+            boolean indexed = !stages.contains("COLLSCAN");
+            boolean sortsInMemory = stages.contains("SORT");
+            boolean covered = indexed && !stages.contains("FETCH");
+            result.put("stages", stages);
+            result.put("indexed", indexed);
+            result.put("sortsInMemory", sortsInMemory);
+            result.put("covered", covered);
+            result.put("ok", indexed && !sortsInMemory && (covered || !query.isExpectCovered()));
+        } catch (Exception e) {
+            result.put("ok", false);
+            result.put("error", e.getMessage());
+        }
+        return result;
+    }
+
+    private static Map<String, Object> drift(String collection, String index, String status, String detail) {
+        Map<String, Object> drift = new LinkedHashMap<>();
+        drift.put("collection", collection);
+        drift.put("index", index);
+        drift.put("status", status);
+        if (detail != null) {
+            drift.put("detail", detail);
+        }
+        return drift;
+    }
+}
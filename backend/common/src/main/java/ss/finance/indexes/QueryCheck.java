@@ -0,0 +1,104 @@
+package ss.finance.indexes;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.conversions.Bson;
+
+/**
+ * A key query of a service whose plan is checked with {@code explain} at startup.
+ * The check fails when the winning plan scans the collection or sorts in memory, and,
+ * for checks marked {@link #covered()}, when it has to fetch documents at all.
+ */
+public final class QueryCheck {
+    private final String name;
+    private final String collection;
+    private final BsonDocument command;
+    private boolean expectCovered;
+
+    private QueryCheck(String name, String collection, BsonDocument command) {
+        this.name = name;
+        this.collection = collection;
+        this.command = command;
+    }
+
+    public static QueryCheck find(String name, String collection, Bson filter) {
+        return new QueryCheck(name, collection, new BsonDocument("find", new BsonString(collection))
+                .append("filter", IndexDefinition.toBsonDocument(filter)));
+    }
+
+    public static QueryCheck aggregate(String name, String collection, List<? extends Bson> pipeline) {
+        BsonArray stages = new BsonArray();
+        for (Bson stage : pipeline) {
+            stages.add(IndexDefinition.toBsonDocument(stage));
+        }
+        return new QueryCheck(name, collection, new BsonDocument("aggregate", new BsonString(collection))
+                .append("pipeline", stages)
+                .append("cursor", new BsonDocument()));
+    }
+
+    public QueryCheck sort(Bson sort) {
+        command.append("sort", IndexDefinition.toBsonDocument(sort));
+        return this;
+    }
+
+    public QueryCheck projection(Bson projection) {
+        command.append("projection", IndexDefinition.toBsonDocument(projection));
+        return this;
+    }
+
+    public QueryCheck covered() {
+        this.expectCovered = true;
+        return this;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getCollection() {
+        return collection;
+    }
+
+    BsonDocument explainCommand() {
+        return new BsonDocument("explain", command).append("verbosity", new BsonString("queryPlanner"));
+    }
+
+    boolean isExpectCovered() {
+        return expectCovered;
+    }
+
+    /**
+     * Collects the stage names of every winning plan in an explain result. Aggregations
+     * nest the plan under their first stage, so the whole document is searched.
+     */
+    static List<String> winningStages(BsonDocument explain) {
+        List<String> stages = new ArrayList<>();
+        collect(explain, false, stages);
+        return stages;
+    }
+
+    private static void collect(BsonDocument document, boolean inWinningPlan, List<String> stages) {
+        for (String key : document.keySet()) {
+            if ("rejectedPlans".equals(key)) {
+                continue;
+            }
+            if (inWinningPlan && "stage".equals(key) && document.get(key).isString()) {
+                stages.add(document.getString(key).getValue());
+            }
+            boolean winning = inWinningPlan || "winningPlan".equals(key);
+            if (document.get(key).isDocument()) {
+                collect(document.getDocument(key), winning, stages);
+            } else if (document.get(key).isArray()) {
+                for (var element : document.getArray(key)) {
+                    if (element.isDocument()) {
+                        collect(element.asDocument(), winning, stages);
+                    }
+                }
+            }
+        }
+    }
+}
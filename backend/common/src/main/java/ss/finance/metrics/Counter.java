@@ -0,0 +1,50 @@
+package ss.finance.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonic counter, e.g. requests or messages handled. Rates are derived by Prometheus.
+ */
+public class Counter extends Collector<Counter.Child> {
+
+    Counter(String name, String help, String... labelNames) {
+        super(name, help, "counter", labelNames);
+    }
+
+    /**
+     * Increments a counter that has no labels.
+     */
+    public void inc() {
+        labels().inc();
+    }
+
+    public void inc(long amount) {
+        labels().inc(amount);
+    }
+
+    @Override
+    Child newChild() {
+        return new Child();
+    }
+
+    @Override
+    void writeChild(StringBuilder out, String labels, Child child) {
+        sample(out, getName(), labels, child.get());
+    }
+
+    public static class Child {
+        private final LongAdder value = new LongAdder();
+
+        public void inc() {
+            value.increment();
+        }
+
+        public void inc(long amount) {
+            value.add(amount);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+    }
+}
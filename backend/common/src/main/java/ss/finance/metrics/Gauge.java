@@ -0,0 +1,42 @@
+package ss.finance.metrics;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * Value that is read when the metrics are scraped, e.g. pool usage or queue depth. Also used for
+ * counters that a component already keeps itself, which are then exported with the counter type.
+ */
+public class Gauge extends Collector<Gauge.Child> {
+
+    Gauge(String name, String help, String type, String... labelNames) {
+        super(name, help, type, labelNames);
+    }
+
+    /**
+     * Sets the supplier of a gauge that has no labels, replacing the previous one.
+     */
+    public void set(DoubleSupplier supplier) {
+        labels().set(supplier);
+    }
+
+    @Override
+    Child newChild() {
+        return new Child();
+    }
+
+    @Override
+    void writeChild(StringBuilder out, String labels, Child child) {
+        DoubleSupplier supplier = child.supplier;
+        if (supplier != null) {
+            sample(out, getName(), labels, supplier.getAsDouble());
+        }
+    }
+
+    public static class Child {
+        private volatile DoubleSupplier supplier;
+
+        public void set(DoubleSupplier supplier) {
+            this.supplier = supplier;
+        }
+    }
+}
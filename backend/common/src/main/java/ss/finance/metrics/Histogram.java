@@ -0,0 +1,76 @@
+package ss.finance.metrics;
+
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency or size distribution with fixed buckets. Observing is lock-free, so it is cheap enough
+ * for every request; buckets are only summed up when the metrics are scraped.
+ */
+public class Histogram extends Collector<Histogram.Child> {
+    /**
+     * Seconds, from 1 ms to 10 s.
+     */
+    public static final double[] LATENCY_BUCKETS = {0.001, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+
+    private final double[] buckets;
+
+    Histogram(String name, String help, double[] buckets, String... labelNames) {
+        super(name, help, "histogram", labelNames);
+        this.buckets = buckets.clone();
+    }
+
+    /**
+     * Records a value on a histogram that has no labels.
+     */
+    public void observe(double value) {
+        labels().observe(value);
+    }
+
+    @Override
+    Child newChild() {
+        return new Child(buckets);
+    }
+
+    @Override
+    void writeChild(StringBuilder out, String labels, Child child) {
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+        long cumulative = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            cumulative += child.counts[i].sum();
+            sample(out, getName() + "_bucket", prefix + "le=\"" + format(buckets[i]) + "\"", cumulative);
+        }
+        cumulative += child.counts[buckets.length].sum();
+        sample(out, getName() + "_bucket", prefix + "le=\"+Inf\"", cumulative);
+        sample(out, getName() + "_sum", labels, child.sum.sum());
+        sample(out, getName() + "_count", labels, cumulative);
+    }
+
+    public static class Child {
+        private final double[] buckets;
+        // One slot per bucket plus +Inf; made cumulative when written
+        private final LongAdder[] counts;
+        private final DoubleAdder sum = new DoubleAdder();
+
+        Child(double[] buckets) {
+            this.buckets = buckets;
+            this.counts = new LongAdder[buckets.length + 1];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = new LongAdder();
+            }
+        }
+
+        public void observe(double value) {
+            int i = 0;
+            while (i < buckets.length && value > buckets[i]) {
+                i++;
+            }
+            counts[i].increment();
+            sum.add(value);
+        }
+
+        public void observeNanos(long nanos) {
+            observe(nanos / 1e9);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package ss.finance.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Process-wide registry of the metrics exposed at {@code /metrics}.
+ * <p>
+ * Static like the shared MongoClient, so that components outside CDI (e.g. the Mongo command
+ * listener) can record metrics too. Registering a name again returns the existing metric, so
+ * fields such as {@code private final Counter x = MetricsRegistry.counter(...)} are shared by every
+ * instance of a class.
+ */
+public final class MetricsRegistry {
+    private static final Map<String, Collector<?>> collectors = new ConcurrentSkipListMap<>();
+
+    static {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        gauge("jvm_memory_heap_used_bytes", "Used heap memory.",
+                () -> memory.getHeapMemoryUsage().getUsed());
+        gauge("jvm_memory_heap_max_bytes", "Maximum heap memory.",
+                () -> memory.getHeapMemoryUsage().getMax());
+        gauge("jvm_threads_live", "Live threads.",
+                () -> ManagementFactory.getThreadMXBean().getThreadCount());
+        gauge("process_uptime_seconds", "Time since the JVM started.",
+                () -> ManagementFactory.getRuntimeMXBean().getUptime() / 1000.0);
+    }
+
+    private MetricsRegistry() {
+    }
+
+    public static Counter counter(String name, String help, String... labelNames) {
+        return register(name, Counter.class, new Counter(name, help, labelNames));
+    }
+
+    public static Histogram histogram(String name, String help, String... labelNames) {
+        return histogram(name, help, Histogram.LATENCY_BUCKETS, labelNames);
+    }
+
+    public static Histogram histogram(String name, String help, double[] buckets, String... labelNames) {
+        return register(name, Histogram.class, new Histogram(name, help, buckets, labelNames));
+    }
+
+    public static Gauge gauge(String name, String help, String... labelNames) {
+        return register(name, Gauge.class, new Gauge(name, help, "gauge", labelNames));
+    }
+
+    /**
+     * Registers a gauge without labels that reads its value from {@code supplier}.
+     */
+    public static Gauge gauge(String name, String help, DoubleSupplier supplier) {
+        Gauge gauge = gauge(name, help);
+        gauge.set(supplier);
+        return gauge;
+    }
+
+    /**
+     * Exports a count that a component already keeps as a Prometheus counter.
+     */
+    public static Gauge functionCounter(String name, String help, DoubleSupplier supplier) {
+        Gauge counter = register(name, Gauge.class, new Gauge(name, help, "counter"));
+        counter.set(supplier);
+        return counter;
+    }
+
+    /**
+     * All metrics in the Prometheus text exposition format, version 0.0.4.
+     */
+    public static String scrape() {
+        StringBuilder out = new StringBuilder(8192);
+        for (Collector<?> collector : collectors.values()) {
+            collector.write(out);
+        }
+        return out.toString();
+    }
+
+    private static <T extends Collector<?>> T register(String name, Class<T> type, T metric) {
+        Collector<?> existing = collectors.putIfAbsent(name, metric);
+        if (existing == null) {
+            return metric;
+        }
+        if (!type.isInstance(existing)) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as " + existing.getClass().getSimpleName());
+        }
+        return type.cast(existing);
+    }
+}
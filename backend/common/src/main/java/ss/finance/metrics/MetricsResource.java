@@ -0,0 +1,22 @@
+package ss.finance.metrics;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Response;
+
+/**
+ * Prometheus scrape endpoint of every service: request rate and latency per endpoint, MongoDB
+ * command latency per collection, RabbitMQ publish and consume rates and JVM basics. It is not
+ * routed through the gateway; Prometheus scrapes the pods directly.
+ */
+@Path("/metrics")
+public class MetricsResource {
+    static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    @GET
+    @Produces(CONTENT_TYPE)
+    public Response scrape() {
+        return Response.ok(MetricsRegistry.scrape(), CONTENT_TYPE).build();
+    }
+}
@@ -0,0 +1,71 @@
+package ss.finance.metrics;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.PreMatching;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Times every request of a service, per resource method.
+ * <p>
+ * Runs before matching, so requests rejected by other filters (e.g. a 401 from the
+ * authentication filter) are counted as well. Requests are labelled with the matched
+ * {@code Class.method} rather than the URI, so path parameters do not create new series.
+ * Streamed bodies are timed until the resource method returns.
+ */
+@Provider
+@PreMatching
+@Priority(Priorities.AUTHENTICATION - 500)
+public class RequestMetricsFilter implements ContainerRequestFilter, ContainerResponseFilter {
+    private static final String START_PROPERTY = RequestMetricsFilter.class.getName() + ".start";
+
+    private static final Histogram duration = MetricsRegistry.histogram("http_server_request_duration_seconds",
+            "Time from receiving a request until its response is written.", "method", "resource");
+    private static final Counter requests = MetricsRegistry.counter("http_server_requests_total",
+            "Completed requests.", "method", "resource", "status");
+    private static final AtomicLong inFlight = new AtomicLong();
+
+    static {
+        MetricsRegistry.gauge("http_server_requests_in_flight", "Requests that are being handled.", inFlight::get);
+    }
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        inFlight.incrementAndGet();
+        requestContext.setProperty(START_PROPERTY, System.nanoTime());
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        Object start = requestContext.getProperty(START_PROPERTY);
+        if (!(start instanceof Long)) {
+            return;
+        }
+        inFlight.decrementAndGet();
+        String method = requestContext.getMethod();
+        String resource = resource();
+        duration.labels(method, resource).observeNanos(System.nanoTime() - (Long) start);
+        requests.labels(method, resource, Integer.toString(responseContext.getStatus())).inc();
+    }
+
+    private String resource() {
+        Method method = resourceInfo == null ? null : resourceInfo.getResourceMethod();
+        if (method == null) {
+            // 404s and aborted pre-matching requests share one series
+            return "unmatched";
+        }
+        return resourceInfo.getResourceClass().getSimpleName() + "." + method.getName();
+    }
+}
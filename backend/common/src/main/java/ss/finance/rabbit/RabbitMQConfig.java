@@ -0,0 +1,127 @@
+package ss.finance.rabbit;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.BuiltinExchangeType;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ConnectionFactory;
+import com.rabbitmq.client.ShutdownSignalException;
+
+public class RabbitMQConfig {
+
+    private static final Logger logger = LogManager.getLogger(RabbitMQConfig.class);
+
+    // Durable successor of the transient "transactionQueue"; see "Nadgradnja vrste RabbitMQ" in README.md
+    private static final String QUEUE_NAME = "transactionEvents";
+    private static final String DEAD_LETTER_EXCHANGE = QUEUE_NAME + ".dlx";
+    private static final String DEAD_LETTER_QUEUE = QUEUE_NAME + ".dlq";
+    private static final long NETWORK_RECOVERY_INTERVAL_MS = 5000;
+
+    /**
+     * Ustvari tovarno povezav z RabbitMQ strežnikom. Povezave se po izpadu same obnovijo,
+     * skupaj s kanali, vrstami in potrjevanjem objav.
+     *
+     * @return Nastavljena tovarna povezav.
+     * @throws IllegalArgumentException Če manjkajo konfiguracije ali port ni veljaven.
+     */
+    public static ConnectionFactory createConnectionFactory() {
+        ConnectionFactory factory = new ConnectionFactory();
+
+        // Branje konfiguracije iz okolja
+        String host = System.getenv("RABBITMQ_HOST");
+        String username = System.getenv("RABBITMQ_USER");
+        String password = System.getenv("RABBITMQ_PASS");
+        String portStr = System.getenv("RABBITMQ_PORT");
+
+        if (host == null || username == null || password == null || portStr == null) {
+            throw new IllegalArgumentException("Missing required RabbitMQ environment variables (RABBITMQ_HOST, RABBITMQ_USER, RABBITMQ_PASS, RABBITMQ_PORT)");
+        }
+
+        factory.setHost(host);
+        factory.setUsername(username);
+        factory.setPassword(password);
+
+        // Preverjanje in nastavitev porta
+        try {
+            factory.setPort(Integer.parseInt(portStr));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid RabbitMQ port: " + portStr, e);
+        }
+
+        factory.setAutomaticRecoveryEnabled(true);
+        factory.setTopologyRecoveryEnabled(true);
+        factory.setNetworkRecoveryInterval(NETWORK_RECOVERY_INTERVAL_MS);
+        return factory;
+    }
+
+    /**
+     * Ustvari povezavo z RabbitMQ strežnikom.
+     *
+     * @return Povezava z RabbitMQ.
+     * @throws Exception Če pride do napake pri vzpostavitvi povezave ali če manjkajo konfiguracije.
+     */
+    public static Connection createConnection() throws Exception {
+        ConnectionFactory factory = createConnectionFactory();
+
+        logger.info("Connecting to RabbitMQ at {}:{}", factory.getHost(), factory.getPort());
+        Connection connection = factory.newConnection();
+        logger.info("Connection to RabbitMQ established.");
+
+        return connection;
+    }
+
+    /**
+     * Deklarira vrsto transakcij in njeno vrsto za neobdelana sporočila (dead-letter).
+     * Producent in potrošnik jo morata deklarirati z enakimi argumenti. Vrsta je trajna, da
+     * potrjena sporočila, ki jih relay že izbriše iz outboxa, preživijo ponovni zagon strežnika.
+     * <p>
+     * Lastnosti in argumentov obstoječe vrste ni mogoče spremeniti: RabbitMQ tako deklaracijo zavrne
+     * s 406 PRECONDITION_FAILED in zapre kanal. Sprememba zato potrebuje novo ime vrste ali pravilo
+     * (policy) na strežniku, kot opisuje razdelek "Nadgradnja vrste RabbitMQ" v README.md.
+     *
+     * @param channel Kanal, na katerem se vrsta deklarira.
+     * @throws IllegalStateException Če obstoječa vrsta ne ustreza deklaraciji.
+     * @throws Exception Če deklaracija ne uspe.
+     */
+    public static void declareQueue(Channel channel) throws Exception {
+        channel.exchangeDeclare(DEAD_LETTER_EXCHANGE, BuiltinExchangeType.DIRECT, true);
+        channel.queueDeclare(DEAD_LETTER_QUEUE, true, false, false, null);
+        channel.queueBind(DEAD_LETTER_QUEUE, DEAD_LETTER_EXCHANGE, DEAD_LETTER_QUEUE);
+
+        Map<String, Object> arguments = new HashMap<>();
+        arguments.put("x-dead-letter-exchange", DEAD_LETTER_EXCHANGE);
+        arguments.put("x-dead-letter-routing-key", DEAD_LETTER_QUEUE);
+        try {
+            channel.queueDeclare(QUEUE_NAME, true, false, false, arguments);
+        } catch (IOException e) {
+            if (isPreconditionFailed(e)) {
+                throw new IllegalStateException("Queue '" + QUEUE_NAME + "' exists with different arguments; "
+                        + "delete it or migrate it as described in README.md", e);
+            }
+            throw e;
+        }
+    }
+
+    private static boolean isPreconditionFailed(IOException e) {
+        return e.getCause() instanceof ShutdownSignalException
+                && ((ShutdownSignalException) e.getCause()).getReason() instanceof AMQP.Channel.Close
+                && ((AMQP.Channel.Close) ((ShutdownSignalException) e.getCause()).getReason()).getReplyCode()
+                        == AMQP.PRECONDITION_FAILED;
+    }
+
+    /**
+     * Vrne ime vrste sporočil.
+     *
+     * @return Ime vrste sporočil.
+     */
+    public static String getQueueName() {
+        return QUEUE_NAME;
+    }
+}
@@ -0,0 +1,307 @@
+package ss.finance.rabbit;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.kumuluz.ee.configuration.utils.ConfigurationUtil;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ConfirmListener;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.MessageProperties;
+import com.rabbitmq.client.Recoverable;
+import com.rabbitmq.client.RecoveryListener;
+
+import ss.finance.metrics.Counter;
+import ss.finance.metrics.MetricsRegistry;
+
+/**
+ * Thread-safe RabbitMQ publisher shared by all request threads.
+ * <p>
+ * A {@link Channel} must not be used by two threads at once, so publishes borrow a
+ * channel from a bounded pool. Every pooled channel runs in confirm mode and limits
+ * the number of unconfirmed messages to an in-flight window; the returned future
+ * completes when the broker acks the message. The connection recovers automatically,
+ * including its channels and declared queues.
+ * <p>
+ * Configuration (config.yaml or environment):
+ * {@code rabbitmq.publisher.pool-size}, {@code rabbitmq.publisher.max-in-flight},
+ * {@code rabbitmq.publisher.borrow-timeout-ms}.
+ */
+@ApplicationScoped
+public class RabbitPublisher {
+
+    private static final Logger logger = LogManager.getLogger(RabbitPublisher.class);
+    private static final Counter published = MetricsRegistry.counter("rabbitmq_published_total",
+            "Messages handed to the broker.", "routing_key");
+    private static final Counter confirms = MetricsRegistry.counter("rabbitmq_publish_confirms_total",
+            "Publisher confirms by outcome: ack, nack, or lost with the channel.", "outcome");
+
+    private final int poolSize;
+    private final int maxInFlight;
+    private final long borrowTimeoutMs;
+
+    private volatile Connection connection;
+    private volatile BlockingQueue<PooledChannel> pool;
+    private volatile List<PooledChannel> allChannels = List.of();
+
+    public RabbitPublisher() {
+        ConfigurationUtil config = ConfigurationUtil.getInstance();
+        this.poolSize = config.getInteger("rabbitmq.publisher.pool-size").orElse(4);
+        this.maxInFlight = config.getInteger("rabbitmq.publisher.max-in-flight").orElse(256);
+        this.borrowTimeoutMs = config.getLong("rabbitmq.publisher.borrow-timeout-ms").orElse(5000L);
+    }
+
+    /**
+     * Publishes a persistent message to a queue through the default exchange, so that it survives a
+     * broker restart once confirmed.
+     *
+     * @return Future that completes when the broker confirms the message, or fails when it nacks it
+     *         or the channel is lost before the confirm arrives.
+     */
+    public CompletableFuture<Void> publish(String queueName, byte[] body) throws IOException, InterruptedException, TimeoutException {
+        return publish("", queueName, MessageProperties.PERSISTENT_BASIC, body);
+    }
+
+    public CompletableFuture<Void> publish(String exchange, String routingKey, AMQP.BasicProperties properties, byte[] body)
+            throws IOException, InterruptedException, TimeoutException {
+        BlockingQueue<PooledChannel> channels = start();
+        PooledChannel pooled = channels.poll(borrowTimeoutMs, TimeUnit.MILLISECONDS);
+        if (pooled == null) {
+            throw new TimeoutException("No RabbitMQ publisher channel available within " + borrowTimeoutMs + " ms");
+        }
+        try {
+            return pooled.publish(exchange, routingKey, properties, body);
+        } finally {
+            channels.offer(pooled.channel.isOpen() ? pooled : replace(pooled));
+        }
+    }
+
+    public boolean isConnected() {
+        Connection current = connection;
+        return current != null && current.isOpen();
+    }
+
+    /**
+     * Connection and channel state for health checks. A publisher that has not published yet is
+     * reported as idle, since it only connects on first use.
+     */
+    public Map<String, Object> state() {
+        Map<String, Object> state = new LinkedHashMap<>();
+        Connection current = connection;
+        if (current == null) {
+            state.put("connection", "IDLE");
+            return state;
+        }
+        int openChannels = 0;
+        for (PooledChannel pooled : allChannels) {
+            if (pooled.channel.isOpen()) {
+                openChannels++;
+            }
+        }
+        state.put("connection", current.isOpen() ? "OPEN" : "CLOSED");
+        state.put("openChannels", openChannels);
+        state.put("poolSize", poolSize);
+        state.put("idleChannels", pool.size());
+        state.put("unconfirmed", unconfirmed());
+        return state;
+    }
+
+    private int unconfirmed() {
+        int unconfirmed = 0;
+        for (PooledChannel pooled : allChannels) {
+            unconfirmed += pooled.outstanding.size();
+        }
+        return unconfirmed;
+    }
+
+    private BlockingQueue<PooledChannel> start() throws IOException {
+        BlockingQueue<PooledChannel> current = pool;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (pool == null) {
+                Connection newConnection = null;
+                try {
+                    newConnection = RabbitMQConfig.createConnectionFactory().newConnection("publisher");
+                    BlockingQueue<PooledChannel> channels = new ArrayBlockingQueue<>(poolSize);
+                    for (int i = 0; i < poolSize; i++) {
+                        Channel channel = newConnection.createChannel();
+                        if (i == 0) {
+                            RabbitMQConfig.declareQueue(channel);
+                        }
+                        channels.add(new PooledChannel(channel));
+                    }
+                    allChannels = List.copyOf(channels);
+                    pool = channels;
+                    connection = newConnection;
+                    MetricsRegistry.gauge("rabbitmq_publisher_unconfirmed", "Published messages waiting for a confirm.",
+                            this::unconfirmed);
+                    logger.info("RabbitMQ publisher started with {} channels, in-flight window {}.",
+                            poolSize, maxInFlight);
+                } catch (Exception e) {
+                    // The next publish retries with a new connection, so this one must not stay open
+                    if (newConnection != null) {
+                        newConnection.abort();
+                    }
+                    if (e instanceof IOException) {
+                        throw (IOException) e;
+                    }
+                    throw new IOException("Failed to start RabbitMQ publisher: " + e.getMessage(), e);
+                }
+            }
+            return pool;
+        }
+    }
+
+    /**
+     * A new channel in place of one the broker closed, e.g. after a publish to a missing exchange.
+     * Channel-level errors are not recovered automatically, unlike a lost connection; while the
+     * connection itself is down, the closed channel is kept for its recovery.
+     */
+    private PooledChannel replace(PooledChannel closed) {
+        Connection current = connection;
+        if (current == null || !current.isOpen()) {
+            return closed;
+        }
+        synchronized (this) {
+            try {
+                PooledChannel replacement = new PooledChannel(current.createChannel());
+                List<PooledChannel> channels = new ArrayList<>(allChannels);
+                channels.set(channels.indexOf(closed), replacement);
+                allChannels = List.copyOf(channels);
+                logger.warn("Replaced closed RabbitMQ publisher channel {}: {}", closed.channel.getChannelNumber(),
+                        closed.channel.getCloseReason() == null ? "unknown" : closed.channel.getCloseReason().getMessage());
+                return replacement;
+            } catch (Exception e) {
+                logger.warn("Could not replace closed RabbitMQ publisher channel: {}", e.getMessage());
+                return closed;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        Connection current = connection;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (Exception e) {
+                logger.warn("Error closing RabbitMQ publisher connection: {}", e.getMessage());
+            }
+        }
+    }
+
+    private final class PooledChannel implements ConfirmListener, RecoveryListener {
+        private final Channel channel;
+        private final Semaphore window = new Semaphore(maxInFlight);
+        private final ConcurrentNavigableMap<Long, CompletableFuture<Void>> outstanding = new ConcurrentSkipListMap<>();
+
+        PooledChannel(Channel channel) throws IOException {
+            this.channel = channel;
+            channel.confirmSelect();
+            channel.addConfirmListener(this);
+            channel.addShutdownListener(cause -> failAll(cause));
+            if (channel instanceof Recoverable) {
+                ((Recoverable) channel).addRecoveryListener(this);
+            }
+        }
+
+        CompletableFuture<Void> publish(String exchange, String routingKey, AMQP.BasicProperties properties, byte[] body)
+                throws IOException, InterruptedException, TimeoutException {
+            if (!window.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new TimeoutException("RabbitMQ in-flight window of " + maxInFlight + " is full");
+            }
+            CompletableFuture<Void> confirm = new CompletableFuture<>();
+            long sequenceNumber = channel.getNextPublishSeqNo();
+            outstanding.put(sequenceNumber, confirm);
+            try {
+                channel.basicPublish(exchange, routingKey, properties, body);
+            } catch (IOException | RuntimeException e) {
+                if (outstanding.remove(sequenceNumber) != null) {
+                    window.release();
+                }
+                throw e;
+            }
+            published.labels(routingKey).inc();
+            return confirm;
+        }
+
+        @Override
+        public void handleAck(long deliveryTag, boolean multiple) {
+            settle(deliveryTag, multiple, null);
+        }
+
+        @Override
+        public void handleNack(long deliveryTag, boolean multiple) {
+            settle(deliveryTag, multiple, new IOException("Message was nacked by the broker"));
+        }
+
+        @Override
+        public void handleRecovery(Recoverable recoverable) {
+            logger.info("RabbitMQ publisher channel {} recovered.", channel.getChannelNumber());
+        }
+
+        @Override
+        public void handleRecoveryStarted(Recoverable recoverable) {
+            // Sequence numbers restart on the recovered channel, so pending confirms will never arrive
+            failAll(new IOException("RabbitMQ channel is recovering"));
+        }
+
+        private void settle(long deliveryTag, boolean multiple, Exception failure) {
+            List<CompletableFuture<Void>> settled = new ArrayList<>();
+            if (multiple) {
+                Map<Long, CompletableFuture<Void>> confirmed = outstanding.headMap(deliveryTag, true);
+                for (Long tag : new ArrayList<>(confirmed.keySet())) {
+                    CompletableFuture<Void> future = outstanding.remove(tag);
+                    if (future != null) {
+                        settled.add(future);
+                    }
+                }
+            } else {
+                CompletableFuture<Void> future = outstanding.remove(deliveryTag);
+                if (future != null) {
+                    settled.add(future);
+                }
+            }
+            window.release(settled.size());
+            confirms.labels(failure == null ? "ack" : "nack").inc(settled.size());
+            for (CompletableFuture<Void> future : settled) {
+                if (failure == null) {
+                    future.complete(null);
+                } else {
+                    future.completeExceptionally(failure);
+                }
+            }
+        }
+
+        private void failAll(Exception cause) {
+            for (Long tag : new ArrayList<>(outstanding.keySet())) {
+                CompletableFuture<Void> future = outstanding.remove(tag);
+                if (future != null) {
+                    window.release();
+                    confirms.labels("lost").inc();
+                    future.completeExceptionally(cause);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package ss.finance.security;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import javax.ws.rs.NameBinding;
+
+/**
+ * Marks resource classes or methods that require a valid {@code auth_token} cookie.
+ * {@link AuthenticationFilter} resolves the user before the method runs; the method reads it
+ * with {@link AuthenticatedUser#userId(javax.ws.rs.core.SecurityContext)}.
+ */
+@NameBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface Authenticated {
+}
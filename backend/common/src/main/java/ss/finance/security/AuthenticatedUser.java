@@ -0,0 +1,67 @@
+package ss.finance.security;
+
+import java.security.Principal;
+
+import javax.ws.rs.core.SecurityContext;
+
+import org.bson.types.ObjectId;
+
+/**
+ * Security context of a request that passed {@link AuthenticationFilter}. Resource methods take
+ * it as {@code @Context SecurityContext} and read the user id with {@link #userId(SecurityContext)}.
+ */
+public class AuthenticatedUser implements SecurityContext {
+    public static final String AUTH_SCHEME = "JWT";
+
+    private final ObjectId userId;
+    private final boolean secure;
+    private final Principal principal;
+
+    public AuthenticatedUser(ObjectId userId) {
+        this(userId, false);
+    }
+
+    public AuthenticatedUser(ObjectId userId, boolean secure) {
+        this.userId = userId;
+        this.secure = secure;
+        String name = userId.toHexString();
+        this.principal = () -> name;
+    }
+
+    public ObjectId getUserId() {
+        return userId;
+    }
+
+    /**
+     * Returns the user of an {@link Authenticated} request.
+     *
+     * @throws IllegalStateException If the request did not pass the filter, i.e. the resource
+     *                               method is missing its {@link Authenticated} annotation.
+     */
+    public static ObjectId userId(SecurityContext securityContext) {
+        if (securityContext instanceof AuthenticatedUser) {
+            return ((AuthenticatedUser) securityContext).userId;
+        }
+        throw new IllegalStateException("Request was not authenticated; is the resource annotated with @Authenticated?");
+    }
+
+    @Override
+    public Principal getUserPrincipal() {
+        return principal;
+    }
+
+    @Override
+    public boolean isUserInRole(String role) {
+        return false;
+    }
+
+    @Override
+    public boolean isSecure() {
+        return secure;
+    }
+
+    @Override
+    public String getAuthenticationScheme() {
+        return AUTH_SCHEME;
+    }
+}
@@ -0,0 +1,70 @@
+package ss.finance.security;
+
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.core.Cookie;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Provider;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bson.types.ObjectId;
+
+/**
+ * Resolves the user of every {@link Authenticated} request from the {@code auth_token} cookie.
+ * <p>
+ * Runs after matching but before the resource method is invoked, so a request without a valid
+ * token is rejected with 401 before its body is read. Accepted requests get an
+ * {@link AuthenticatedUser} security context.
+ */
+@Provider
+@Authenticated
+@Priority(Priorities.AUTHENTICATION)
+public class AuthenticationFilter implements ContainerRequestFilter {
+    public static final String TOKEN_COOKIE = "auth_token";
+    static final String UNAUTHORIZED_MESSAGE = "{\"message\": \"Token is missing or invalid\"}";
+
+    private static final Logger logger = LogManager.getLogger(AuthenticationFilter.class);
+
+    @Inject
+    private JwtUtil jwtUtil;
+
+    public AuthenticationFilter() {
+    }
+
+    AuthenticationFilter(JwtUtil jwtUtil) {
+        this.jwtUtil = jwtUtil;
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        Cookie cookie = requestContext.getCookies().get(TOKEN_COOKIE);
+        String token = cookie == null ? null : cookie.getValue();
+        if (token == null || token.isEmpty()) {
+            reject(requestContext);
+            return;
+        }
+
+        ObjectId userId;
+        try {
+            userId = jwtUtil.extractUserId(token);
+        } catch (RuntimeException e) {
+            logger.debug("Rejected token: {}", e.getMessage());
+            reject(requestContext);
+            return;
+        }
+        boolean secure = requestContext.getSecurityContext() != null && requestContext.getSecurityContext().isSecure();
+        requestContext.setSecurityContext(new AuthenticatedUser(userId, secure));
+    }
+
+    private static void reject(ContainerRequestContext requestContext) {
+        requestContext.abortWith(Response.status(Response.Status.UNAUTHORIZED)
+                .type(MediaType.APPLICATION_JSON)
+                .entity(UNAUTHORIZED_MESSAGE)
+                .build());
+    }
+}
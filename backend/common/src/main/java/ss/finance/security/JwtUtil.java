@@ -1,34 +1,82 @@
 package ss.finance.security;
 import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.PostConstruct;
+import javax.crypto.spec.SecretKeySpec;
 import javax.enterprise.context.ApplicationScoped;
 
 import org.bson.types.ObjectId;
 
+import com.kumuluz.ee.configuration.utils.ConfigurationUtil;
+
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Clock;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
-
+import io.jsonwebtoken.impl.DefaultClock;
+
+/**
+ * Issues and verifies access and refresh tokens.
+ * <p>
+ * The signing keys and parsers are built once in {@link #init()}. Every authenticated request
+ * calls {@link #extractUserId(String)} with the same cookie over and over, so verified access
+ * tokens are cached by their SHA-256 hash until their {@code exp}; a hit skips the signature
+ * check and claim parsing. Only verified tokens are cached, and the cache is bounded by
+ * {@code jwt.cache.max-size}.
+ */
 @ApplicationScoped
 public class JwtUtil {
 
-    private final String secretKey = System.getenv("JWT_SECRET");
-    private final String refreshSecretKey = System.getenv("REFRESH_TOKEN_SECRET");
+    private final String secretKey;
+    private final String refreshSecretKey;
+    private final Clock clock;
     private static final long EXPIRATION_TIME = 3600000; // Default to 1h
     private static final long REFRESH_EXPIRATION_TIME = 86400000; // Default to 1day
 
+    private Key signingKey;
+    private Key refreshSigningKey;
+    private JwtParser parser;
+    private JwtParser refreshParser;
+    private int cacheMaxSize;
+    private final Map<String, CachedToken> verifiedTokens = new ConcurrentHashMap<>();
+
+    public JwtUtil() {
+        this(System.getenv("JWT_SECRET"), System.getenv("REFRESH_TOKEN_SECRET"), DefaultClock.INSTANCE);
+    }
+
+    JwtUtil(String secretKey, String refreshSecretKey, Clock clock) {
+        this.secretKey = secretKey;
+        this.refreshSecretKey = refreshSecretKey;
+        this.clock = clock;
+    }
 
     @PostConstruct
     public void init() {
+        init(ConfigurationUtil.getInstance().getInteger("jwt.cache.max-size").orElse(10000));
+    }
+
+    void init(int cacheMaxSize) {
         try {
             if (secretKey == null || secretKey.isEmpty() || refreshSecretKey == null || refreshSecretKey.isEmpty()) {
                 throw new IllegalStateException("JWT_SECRET or REFRESH_TOKEN_SECRET is not set in the environment variables");
             }
+            signingKey = new SecretKeySpec(secretKey.getBytes(StandardCharsets.UTF_8), SignatureAlgorithm.HS256.getJcaName());
+            refreshSigningKey = new SecretKeySpec(refreshSecretKey.getBytes(StandardCharsets.UTF_8), SignatureAlgorithm.HS256.getJcaName());
+            // A configured parser holds no per-call state, so one instance is shared by all request threads
+            parser = Jwts.parser().setSigningKey(signingKey).setClock(clock);
+            refreshParser = Jwts.parser().setSigningKey(refreshSigningKey).setClock(clock);
+            this.cacheMaxSize = cacheMaxSize;
         } catch (Exception e) {
             throw new IllegalStateException("Failed to initialize JwtUtil: " + e.getMessage(), e);
         }
@@ -41,9 +89,9 @@ public class JwtUtil {
 
         return Jwts.builder()
                 .setClaims(claims)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
-                .signWith(SignatureAlgorithm.HS256, secretKey.getBytes(StandardCharsets.UTF_8))
+                .setIssuedAt(clock.now())
+                .setExpiration(new Date(clock.now().getTime() + EXPIRATION_TIME))
+                .signWith(SignatureAlgorithm.HS256, signingKey)
                 .compact();
     }
 
@@ -55,19 +103,16 @@ public class JwtUtil {
 
         return Jwts.builder()
                 .setClaims(claims)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + REFRESH_EXPIRATION_TIME)) // 1 day validity
-                .signWith(SignatureAlgorithm.HS256, refreshSecretKey.getBytes(StandardCharsets.UTF_8)) // Use a different secret key
+                .setIssuedAt(clock.now())
+                .setExpiration(new Date(clock.now().getTime() + REFRESH_EXPIRATION_TIME)) // 1 day validity
+                .signWith(SignatureAlgorithm.HS256, refreshSigningKey) // Use a different secret key
                 .compact();
     }
 
 
     public Claims extractClaims(String token) {
         try {
-            return Jwts.parser()
-                    .setSigningKey(secretKey.getBytes(StandardCharsets.UTF_8)) // Use StandardCharsets.UTF_8
-                    .parseClaimsJws(token)
-                    .getBody();
+            return parser.parseClaimsJws(token).getBody();
         } catch (ExpiredJwtException e) {
             throw new RuntimeException("Token has expired", e);
         } catch (io.jsonwebtoken.SignatureException e) {
@@ -77,24 +122,32 @@ public class JwtUtil {
         }
     }
 
-
-
-
     public ObjectId extractUserId(String token) {
+        String cacheKey = token == null ? null : hash(token);
+        CachedToken cached = cacheKey == null ? null : verifiedTokens.get(cacheKey);
+        if (cached != null) {
+            if (clock.now().getTime() < cached.expiresAt) {
+                return cached.userId;
+            }
+            // Expired: drop it and let the parser report the expiry as before
+            verifiedTokens.remove(cacheKey, cached);
+        }
+
         Claims claims = extractClaims(token);
         String userIdString = claims.get("userId", String.class);  // Extract the userId as String
 
         // Convert the String userId to an ObjectId
-        return new ObjectId(userIdString);  // Assuming userIdString is a valid ObjectId string
+        ObjectId userId = new ObjectId(userIdString);  // Assuming userIdString is a valid ObjectId string
+        if (claims.getExpiration() != null) {
+            cache(cacheKey, new CachedToken(userId, claims.getExpiration().getTime()));
+        }
+        return userId;
     }
 
 
     public Claims extractRefreshClaims(String token) {
         try {
-            return Jwts.parser()
-                    .setSigningKey(refreshSecretKey.getBytes(StandardCharsets.UTF_8)) // Use StandardCharsets.UTF_8
-                    .parseClaimsJws(token)
-                    .getBody();
+            return refreshParser.parseClaimsJws(token).getBody();
         } catch (ExpiredJwtException e) {
             throw new RuntimeException("Refresh token has expired", e);
         } catch (io.jsonwebtoken.SignatureException e) {
@@ -110,5 +163,46 @@ public class JwtUtil {
 
         return new ObjectId(userIdString);
     }
-}
 
+    // Synchronized so that concurrent misses cannot all pass the size check and overfill the cache
+    private synchronized void cache(String cacheKey, CachedToken token) {
+        if (verifiedTokens.size() >= cacheMaxSize) {
+            evict();
+        }
+        verifiedTokens.put(cacheKey, token);
+    }
+
+    // Drops expired tokens first; if the cache is still full, drops arbitrary entries, which are simply verified again
+    private void evict() {
+        long now = clock.now().getTime();
+        verifiedTokens.values().removeIf(token -> token.expiresAt <= now);
+        Iterator<String> keys = verifiedTokens.keySet().iterator();
+        while (verifiedTokens.size() >= cacheMaxSize && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    int cachedTokens() {
+        return verifiedTokens.size();
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static final class CachedToken {
+        private final ObjectId userId;
+        private final long expiresAt;
+
+        CachedToken(ObjectId userId, long expiresAt) {
+            this.userId = userId;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
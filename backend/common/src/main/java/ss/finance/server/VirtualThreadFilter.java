@@ -0,0 +1,167 @@
+package ss.finance.server;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.annotation.WebFilter;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+
+import com.kumuluz.ee.configuration.utils.ConfigurationUtil;
+
+import ss.finance.metrics.Counter;
+import ss.finance.metrics.MetricsRegistry;
+
+/**
+ * Runs request handling on virtual threads instead of Jetty's bounded thread pool.
+ * <p>
+ * Handlers block on MongoDB; with a platform thread per request a slow database can take every
+ * pool thread. When {@code request-execution.virtual-threads} is enabled, the request is put into
+ * async mode and the rest of the chain (Jersey and its filters) runs on a new virtual thread, so the
+ * Jetty thread goes back to the pool right away. Concurrency is then bounded by the MongoDB pool and
+ * its wait queue rather than by the number of Jetty threads.
+ * <p>
+ * A request still running after {@code request-execution.async-timeout-ms} is answered with 503 and
+ * its virtual thread is interrupted, so a stuck handler cannot hold the connection forever.
+ * <p>
+ * Requests that cannot be handled asynchronously, and every request while the mode is off, are
+ * handled on the calling thread as before.
+ */
+@WebFilter(urlPatterns = "/*", asyncSupported = true)
+public class VirtualThreadFilter implements Filter {
+    static final String ENABLED_KEY = "request-execution.virtual-threads";
+    static final String TIMEOUT_KEY = "request-execution.async-timeout-ms";
+    static final String JERSEY_SERVLET = "org.glassfish.jersey.servlet.ServletContainer";
+
+    private static final Logger logger = LogManager.getLogger(VirtualThreadFilter.class);
+    private static final AtomicLong active = new AtomicLong();
+    private static final Counter timeouts = MetricsRegistry.counter("http_server_virtual_thread_timeouts_total",
+            "Requests on virtual threads answered with 503 after request-execution.async-timeout-ms.");
+
+    static {
+        MetricsRegistry.gauge("http_server_virtual_thread_requests", "Requests being handled on virtual threads.",
+                active::get);
+    }
+
+    private ExecutorService executor;
+    private long timeoutMs;
+
+    public VirtualThreadFilter() {
+    }
+
+    VirtualThreadFilter(ExecutorService executor, long timeoutMs) {
+        this.executor = executor;
+        this.timeoutMs = timeoutMs;
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+        ConfigurationUtil config = ConfigurationUtil.getInstance();
+        if (config.getBoolean(ENABLED_KEY).orElse(false)) {
+            executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("request-", 0).factory());
+            timeoutMs = config.getLong(TIMEOUT_KEY).orElse(60000L);
+            logger.info("Handling requests on virtual threads.");
+            warnIfNotAsync(filterConfig.getServletContext());
+        }
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        if (executor == null || !request.isAsyncSupported()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        AsyncContext async = request.startAsync(request, response);
+        async.setTimeout(timeoutMs);
+        AtomicBoolean completed = new AtomicBoolean();
+        FutureTask<Void> handling = new FutureTask<>(() -> {
+            active.incrementAndGet();
+            try {
+                chain.doFilter(request, response);
+            } catch (Exception e) {
+                if (!completed.get()) {
+                    logger.error("Request failed on virtual thread: {}", e.getMessage(), e);
+                    if (!response.isCommitted()) {
+                        ((HttpServletResponse) response).setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                    }
+                }
+            } finally {
+                active.decrementAndGet();
+                if (completed.compareAndSet(false, true)) {
+                    async.complete();
+                }
+            }
+        }, null);
+        async.addListener(new AsyncListener() {
+            @Override
+            public void onTimeout(AsyncEvent event) throws IOException {
+                if (!completed.compareAndSet(false, true)) {
+                    return;
+                }
+                timeouts.inc();
+                logger.warn("Request timed out after {} ms on virtual thread.", timeoutMs);
+                handling.cancel(true);
+                if (!response.isCommitted()) {
+                    ((HttpServletResponse) response).sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                }
+                async.complete();
+            }
+
+            @Override
+            public void onComplete(AsyncEvent event) {
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+        executor.execute(handling);
+    }
+
+    /**
+     * Jersey's requests stay on Jetty threads if its servlet is not registered as async-supported,
+     * which would silently turn the mode off.
+     */
+    private static void warnIfNotAsync(ServletContext context) {
+        ServletContextHandler handler = ServletContextHandler.getServletContextHandler(context);
+        if (handler == null) {
+            return;
+        }
+        for (ServletHolder servlet : handler.getServletHandler().getServlets()) {
+            if (JERSEY_SERVLET.equals(servlet.getClassName()) && !servlet.isAsyncSupported()) {
+                logger.warn("Servlet '{}' does not support async requests; its requests are handled on Jetty threads.",
+                        servlet.getName());
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package ss.finance.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.kumuluz.ee.configuration.utils.ConfigurationUtil;
+
+/**
+ * Lets one in every {@code rate} calls through, so per-row DEBUG logging can be switched on for a
+ * large read without writing a line for every document. A rate of 1 logs every row.
+ * <p>
+ * Check the level first, so a disabled logger does not advance the counter:
+ * {@code if (logger.isDebugEnabled() && sampler.sample()) logger.debug(...)}.
+ */
+public class LogSampler {
+    public static final String RATE_KEY = "logging.row-sample-rate";
+
+    private final long rate;
+    private final AtomicLong calls = new AtomicLong();
+
+    public LogSampler(long rate) {
+        this.rate = Math.max(1, rate);
+    }
+
+    /**
+     * Sampler for per-row logs, configured by {@code logging.row-sample-rate} (default 100).
+     */
+    public static LogSampler forRows() {
+        return new LogSampler(ConfigurationUtil.getInstance().getLong(RATE_KEY).orElse(100L));
+    }
+
+    public boolean sample() {
+        return rate == 1 || calls.getAndIncrement() % rate == 0;
+    }
+
+    public long getRate() {
+        return rate;
+    }
+}
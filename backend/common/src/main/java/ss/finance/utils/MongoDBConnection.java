@@ -1,37 +1,150 @@
 package ss.finance.utils;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
 import javax.enterprise.context.ApplicationScoped;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.kumuluz.ee.configuration.utils.ConfigurationUtil;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoCompressor;
+import com.mongodb.ReadPreference;
+import com.mongodb.WriteConcern;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
 import com.mongodb.client.MongoDatabase;
 
+/**
+ * Shared MongoClient of a service.
+ * <p>
+ * The client is created once from the {@code kumuluzee.datasource.mongodb} block of config.yaml
+ * (falling back to the {@code MONGO_URI} environment variable). Options that are set in config
+ * override the ones from the connection string; unset options keep the driver defaults:
+ * {@code pool.max-size}, {@code pool.min-size}, {@code pool.max-wait-ms},
+ * {@code pool.max-idle-ms}, {@code pool.max-lifetime-ms}, {@code read-preference},
+ * {@code write-concern} and {@code compressors} (comma separated, e.g. {@code zstd,snappy}).
+ * Pool and command statistics are collected by {@link MongoMetrics}.
+ */
 @ApplicationScoped
 public class MongoDBConnection {
-    private static MongoClient mongoClient;
-    private static MongoClient testClient; // Dodatna spremenljivka za testiranje
+    private static final Logger logger = LogManager.getLogger(MongoDBConnection.class);
+    private static final String PREFIX = "kumuluzee.datasource.mongodb.";
+
+    private static final MongoMetrics metrics = new MongoMetrics();
+    private static volatile MongoClient mongoClient;
+    private static volatile MongoClient testClient; // Dodatna spremenljivka za testiranje
 
     public static MongoClient getMongoClient() {
-        if (testClient != null) {
-            return testClient; // Uporabi testni MongoDB, če je nastavljen
+        MongoClient test = testClient;
+        if (test != null) {
+            return test; // Uporabi testni MongoDB, če je nastavljen
         }
 
-        if (mongoClient == null) {
-            String mongoUri = System.getenv("MONGO_URI");
-            if (mongoUri == null || mongoUri.isEmpty()) {
-                mongoUri = "mongodb://localhost:27017"; // Privzeta lokalna povezava
+        MongoClient client = mongoClient;
+        if (client == null) {
+            synchronized (MongoDBConnection.class) {
+                client = mongoClient;
+                if (client == null) {
+                    client = MongoClients.create(buildSettings(ConfigurationUtil.getInstance()));
+                    mongoClient = client;
+                }
             }
-            mongoClient = MongoClients.create(mongoUri);
         }
-        return mongoClient;
+        return client;
     }
 
     public static MongoDatabase getDatabase(String dbName) {
         return getMongoClient().getDatabase(dbName);
     }
 
+    public static MongoMetrics getMetrics() {
+        return metrics;
+    }
+
     // ✅ DODANO: Metoda za testno injiciranje MongoDB klienta
     public static void setTestMongoClient(MongoClient testMongo) {
         testClient = testMongo;
     }
-}
\ No newline at end of file
+
+    static MongoClientSettings buildSettings(ConfigurationUtil config) {
+        MongoClientSettings.Builder settings = MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(connectionString(config)))
+                .addCommandListener(metrics);
+
+        Optional<Integer> maxSize = config.getInteger(PREFIX + "pool.max-size");
+        Optional<Integer> minSize = config.getInteger(PREFIX + "pool.min-size");
+        Optional<Long> maxWaitMs = config.getLong(PREFIX + "pool.max-wait-ms");
+        Optional<Long> maxIdleMs = config.getLong(PREFIX + "pool.max-idle-ms");
+        Optional<Long> maxLifetimeMs = config.getLong(PREFIX + "pool.max-lifetime-ms");
+        settings.applyToConnectionPoolSettings(pool -> {
+            pool.addConnectionPoolListener(metrics);
+            maxSize.ifPresent(pool::maxSize);
+            minSize.ifPresent(pool::minSize);
+            maxWaitMs.ifPresent(ms -> pool.maxWaitTime(ms, TimeUnit.MILLISECONDS));
+            maxIdleMs.ifPresent(ms -> pool.maxConnectionIdleTime(ms, TimeUnit.MILLISECONDS));
+            maxLifetimeMs.ifPresent(ms -> pool.maxConnectionLifeTime(ms, TimeUnit.MILLISECONDS));
+        });
+
+        config.get(PREFIX + "read-preference").filter(value -> !value.isBlank())
+                .ifPresent(value -> settings.readPreference(ReadPreference.valueOf(value.trim())));
+        config.get(PREFIX + "write-concern").filter(value -> !value.isBlank())
+                .ifPresent(value -> settings.writeConcern(parseWriteConcern(value.trim())));
+        config.get(PREFIX + "compressors").filter(value -> !value.isBlank())
+                .ifPresent(value -> settings.compressorList(parseCompressors(value)));
+
+        logger.info("MongoDB client: maxPoolSize={}, compressors={}",
+                maxSize.map(String::valueOf).orElse("default"), config.get(PREFIX + "compressors").orElse("none"));
+        return settings.build();
+    }
+
+    private static String connectionString(ConfigurationUtil config) {
+        String uri = config.get(PREFIX + "connectionString").orElse(null);
+        if (uri == null || uri.isBlank() || uri.startsWith("${")) {
+            uri = System.getenv("MONGO_URI");
+        }
+        if (uri == null || uri.isEmpty()) {
+            uri = "mongodb://localhost:27017"; // Privzeta lokalna povezava
+        }
+        return uri;
+    }
+
+    static WriteConcern parseWriteConcern(String value) {
+        if (value.chars().allMatch(Character::isDigit)) {
+            return new WriteConcern(Integer.parseInt(value));
+        }
+        WriteConcern writeConcern = WriteConcern.valueOf(value.toUpperCase(Locale.ROOT));
+        if (writeConcern == null) {
+            throw new IllegalArgumentException("Unknown MongoDB write concern: " + value);
+        }
+        return writeConcern;
+    }
+
+    static List<MongoCompressor> parseCompressors(String value) {
+        List<MongoCompressor> compressors = new ArrayList<>();
+        for (String name : value.split(",")) {
+            switch (name.trim().toLowerCase(Locale.ROOT)) {
+                case "zstd":
+                    compressors.add(MongoCompressor.createZstdCompressor());
+                    break;
+                case "snappy":
+                    compressors.add(MongoCompressor.createSnappyCompressor());
+                    break;
+                case "zlib":
+                    compressors.add(MongoCompressor.createZlibCompressor());
+                    break;
+                case "":
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown MongoDB compressor: " + name);
+            }
+        }
+        return compressors;
+    }
+}
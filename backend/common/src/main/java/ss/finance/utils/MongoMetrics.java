@@ -0,0 +1,218 @@
+package ss.finance.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckOutStartedEvent;
+import com.mongodb.event.ConnectionCheckedInEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionClosedEvent;
+import com.mongodb.event.ConnectionCreatedEvent;
+import com.mongodb.event.ConnectionPoolListener;
+
+import ss.finance.metrics.Histogram;
+import ss.finance.metrics.MetricsRegistry;
+
+/**
+ * Connection pool and command statistics of the shared MongoClient. Checkout latency and
+ * the wait queue show whether the pool is too small for the load of a pod; per-command
+ * timings show where the time goes once a connection is held. Both are also exported to
+ * {@link MetricsRegistry}, command latency labelled by command and collection.
+ */
+public class MongoMetrics implements ConnectionPoolListener, CommandListener {
+
+    private final AtomicLong checkoutsStarted = new AtomicLong();
+    private final AtomicLong checkoutsSucceeded = new AtomicLong();
+    private final AtomicLong checkoutsFailed = new AtomicLong();
+    private final AtomicLong checkoutNanos = new AtomicLong();
+    private final AtomicLong maxCheckoutNanos = new AtomicLong();
+    private final AtomicLong connectionsOpen = new AtomicLong();
+    private final AtomicLong connectionsInUse = new AtomicLong();
+    private final Map<String, CommandStats> commands = new ConcurrentHashMap<>();
+    // Collection of each running command; the succeeded and failed events do not carry it
+    private final Map<Integer, String> runningCollections = new ConcurrentHashMap<>();
+    private final Histogram checkoutDuration = MetricsRegistry.histogram("mongodb_pool_checkout_duration_seconds",
+            "Time spent waiting for a pooled connection.");
+    private final Histogram commandDuration = MetricsRegistry.histogram("mongodb_command_duration_seconds",
+            "MongoDB command latency.", "command", "collection", "outcome");
+
+    public MongoMetrics() {
+        MetricsRegistry.gauge("mongodb_pool_connections_open", "Open connections of the pool.",
+                connectionsOpen::get);
+        MetricsRegistry.gauge("mongodb_pool_connections_in_use", "Connections checked out of the pool.",
+                connectionsInUse::get);
+        MetricsRegistry.gauge("mongodb_pool_wait_queue_size", "Threads waiting for a connection.",
+                this::getWaitQueueSize);
+    }
+
+    @Override
+    public void connectionCheckOutStarted(ConnectionCheckOutStartedEvent event) {
+        checkoutsStarted.incrementAndGet();
+    }
+
+    @Override
+    public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+        long elapsed = event.getElapsedTime(TimeUnit.NANOSECONDS);
+        checkoutsSucceeded.incrementAndGet();
+        checkoutNanos.addAndGet(elapsed);
+        maxCheckoutNanos.accumulateAndGet(elapsed, Math::max);
+        connectionsInUse.incrementAndGet();
+        checkoutDuration.labels().observeNanos(elapsed);
+    }
+
+    @Override
+    public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+        checkoutsFailed.incrementAndGet();
+    }
+
+    @Override
+    public void connectionCheckedIn(ConnectionCheckedInEvent event) {
+        connectionsInUse.decrementAndGet();
+    }
+
+    @Override
+    public void connectionCreated(ConnectionCreatedEvent event) {
+        connectionsOpen.incrementAndGet();
+    }
+
+    @Override
+    public void connectionClosed(ConnectionClosedEvent event) {
+        connectionsOpen.decrementAndGet();
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        runningCollections.put(event.getRequestId(), collection(event.getCommandName(), event.getCommand()));
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        long elapsed = event.getElapsedTime(TimeUnit.NANOSECONDS);
+        stats(event.getCommandName()).record(elapsed, false);
+        recordCommand(event.getRequestId(), event.getCommandName(), "success", elapsed);
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        long elapsed = event.getElapsedTime(TimeUnit.NANOSECONDS);
+        stats(event.getCommandName()).record(elapsed, true);
+        recordCommand(event.getRequestId(), event.getCommandName(), "failure", elapsed);
+    }
+
+    private void recordCommand(int requestId, String commandName, String outcome, long nanos) {
+        String collection = runningCollections.remove(requestId);
+        commandDuration.labels(commandName, collection == null ? "" : collection, outcome).observeNanos(nanos);
+    }
+
+    // CRUD commands name their collection in the value of the command field, e.g. {find: "transactions"}
+    private static String collection(String commandName, BsonDocument command) {
+        BsonValue value = command.get(commandName);
+        return value != null && value.isString() ? value.asString().getValue() : "";
+    }
+
+    private CommandStats stats(String commandName) {
+        return commands.computeIfAbsent(commandName, name -> new CommandStats());
+    }
+
+    /**
+     * Threads currently waiting for a connection.
+     */
+    public long getWaitQueueSize() {
+        return Math.max(0, checkoutsStarted.get() - checkoutsSucceeded.get() - checkoutsFailed.get());
+    }
+
+    public long getCheckoutsSucceeded() {
+        return checkoutsSucceeded.get();
+    }
+
+    public long getCheckoutsFailed() {
+        return checkoutsFailed.get();
+    }
+
+    public long getCheckoutNanos() {
+        return checkoutNanos.get();
+    }
+
+    public long getConnectionsOpen() {
+        return connectionsOpen.get();
+    }
+
+    public long getConnectionsInUse() {
+        return connectionsInUse.get();
+    }
+
+    public Map<String, CommandStats> getCommands() {
+        return commands;
+    }
+
+    public Map<String, Object> snapshot() {
+        long checkouts = checkoutsSucceeded.get();
+        Map<String, Object> pool = new LinkedHashMap<>();
+        pool.put("connectionsOpen", connectionsOpen.get());
+        pool.put("connectionsInUse", connectionsInUse.get());
+        pool.put("waitQueueSize", getWaitQueueSize());
+        pool.put("checkouts", checkouts);
+        pool.put("checkoutsFailed", checkoutsFailed.get());
+        pool.put("averageCheckoutMs", checkouts == 0 ? 0.0 : checkoutNanos.get() / 1e6 / checkouts);
+        pool.put("maxCheckoutMs", maxCheckoutNanos.get() / 1e6);
+
+        Map<String, Object> commandSnapshot = new LinkedHashMap<>();
+        for (Map.Entry<String, CommandStats> entry : commands.entrySet()) {
+            commandSnapshot.put(entry.getKey(), entry.getValue().snapshot());
+        }
+
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("pool", pool);
+        snapshot.put("commands", commandSnapshot);
+        return snapshot;
+    }
+
+    public static class CommandStats {
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos, boolean failed) {
+            count.incrementAndGet();
+            if (failed) {
+                failures.incrementAndGet();
+            }
+            totalNanos.addAndGet(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        public long getCount() {
+            return count.get();
+        }
+
+        public long getFailures() {
+            return failures.get();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.get();
+        }
+
+        Map<String, Object> snapshot() {
+            long calls = count.get();
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("count", calls);
+            snapshot.put("failures", failures.get());
+            snapshot.put("averageMs", calls == 0 ? 0.0 : totalNanos.get() / 1e6 / calls);
+            snapshot.put("maxMs", maxNanos.get() / 1e6);
+            return snapshot;
+        }
+    }
+}
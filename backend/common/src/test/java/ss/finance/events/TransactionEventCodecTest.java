@@ -0,0 +1,118 @@
+package ss.finance.events;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.bson.types.ObjectId;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class TransactionEventCodecTest {
+
+    private static final ObjectId TRANSACTION_ID = new ObjectId("65a1b2c3d4e5f60718293a4b");
+    private static final ObjectId USER_ID = new ObjectId("65a1b2c3d4e5f60718293a4c");
+
+    @Test
+    void testRoundTrip() {
+        TransactionEvent event = new TransactionEvent(TransactionEvent.EventType.UPDATED, TRANSACTION_ID, USER_ID,
+                42L, "expense", 12.5, "Hrana in pijača", 1704153600000L, 1704157200000L);
+
+        TransactionEvent decoded = TransactionEventCodec.decode(TransactionEventCodec.encode(event));
+
+        assertEquals(TransactionEvent.EventType.UPDATED, decoded.getEventType());
+        assertEquals(TRANSACTION_ID, decoded.getTransactionId());
+        assertEquals(USER_ID, decoded.getUserId());
+        assertEquals(42L, decoded.getVersion());
+        assertEquals("expense", decoded.getType());
+        assertEquals(12.5, decoded.getAmount());
+        assertEquals("Hrana in pijača", decoded.getCategory());
+        assertEquals(1704153600000L, decoded.getDate());
+        assertEquals(1704157200000L, decoded.getOccurredAt());
+    }
+
+    @Test
+    void testRoundTripWithoutStrings() {
+        TransactionEvent event = new TransactionEvent(TransactionEvent.EventType.DELETED, TRANSACTION_ID, USER_ID,
+                1L, null, 0.0, null, 0L, 0L);
+
+        TransactionEvent decoded = TransactionEventCodec.decode(TransactionEventCodec.encode(event));
+
+        assertNull(decoded.getType());
+        assertNull(decoded.getCategory());
+        assertEquals(TransactionEvent.EventType.DELETED, decoded.getEventType());
+    }
+
+    @Test
+    void testEncodesCurrentFormatAndVersion() {
+        TransactionEvent event = new TransactionEvent(TransactionEvent.EventType.CREATED, TRANSACTION_ID, USER_ID,
+                7L, "income", 100.0, "Plača", 0L, 0L);
+
+        byte[] body = TransactionEventCodec.encode(event);
+
+        assertEquals(TransactionEventCodec.FORMAT_V2, body[0]);
+        assertEquals(TransactionEvent.EventType.CREATED.getCode(), body[1]);
+        // Verzija spremembe sledi obema ObjectId-jema
+        assertEquals(7L, ByteBuffer.wrap(body, 2 + 2 * 12, Long.BYTES).getLong());
+    }
+
+    @Test
+    void testDecodesVersionOneWithoutVersion() {
+        byte[] category = "Hrana".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(2 + 2 * 12 + 3 * Long.BYTES + Short.BYTES + Short.BYTES + category.length);
+        buffer.put(TransactionEventCodec.FORMAT_V1);
+        buffer.put(TransactionEvent.EventType.CREATED.getCode());
+        TRANSACTION_ID.putToByteBuffer(buffer);
+        USER_ID.putToByteBuffer(buffer);
+        buffer.putLong(1704153600000L);
+        buffer.putLong(1704157200000L);
+        buffer.putDouble(20.0);
+        buffer.putShort((short) -1);
+        buffer.putShort((short) category.length);
+        buffer.put(category);
+
+        TransactionEvent decoded = TransactionEventCodec.decode(buffer.array());
+
+        assertEquals(0L, decoded.getVersion());
+        assertEquals(1704153600000L, decoded.getDate());
+        assertEquals(1704157200000L, decoded.getOccurredAt());
+        assertEquals(20.0, decoded.getAmount());
+        assertNull(decoded.getType());
+        assertEquals("Hrana", decoded.getCategory());
+    }
+
+    @Test
+    void testLegacyJsonIsNotAnEvent() {
+        byte[] json = ("{\"transactionId\":\"" + TRANSACTION_ID.toHexString() + "\",\"amount\":10.0}")
+                .getBytes(StandardCharsets.UTF_8);
+
+        // Porabniki take sporočila preberejo kot JSON
+        assertFalse(TransactionEventCodec.isEvent(json));
+        assertThrows(IllegalArgumentException.class, () -> TransactionEventCodec.decode(json));
+    }
+
+    @Test
+    void testUnknownFormatIsRejected() {
+        assertFalse(TransactionEventCodec.isEvent(null));
+        assertFalse(TransactionEventCodec.isEvent(new byte[0]));
+        assertFalse(TransactionEventCodec.isEvent(new byte[] {3, 1}));
+        assertThrows(IllegalArgumentException.class, () -> TransactionEventCodec.decode(new byte[0]));
+    }
+
+    @Test
+    void testTruncatedEventIsRejected() {
+        TransactionEvent event = new TransactionEvent(TransactionEvent.EventType.CREATED, TRANSACTION_ID, USER_ID,
+                1L, "income", 5.0, "Plača", 0L, 0L);
+        byte[] body = TransactionEventCodec.encode(event);
+        assertTrue(TransactionEventCodec.isEvent(body));
+
+        for (int length : new int[] {2, 20, body.length - 1}) {
+            byte[] truncated = Arrays.copyOf(body, length);
+            assertThrows(IllegalArgumentException.class, () -> TransactionEventCodec.decode(truncated));
+        }
+    }
+}
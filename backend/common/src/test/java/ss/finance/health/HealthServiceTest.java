@@ -0,0 +1,132 @@
+package ss.finance.health;
+
+import java.time.Clock;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.lenient;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class HealthServiceTest {
+
+    @Mock
+    private Clock clock;
+
+    private final AtomicLong now = new AtomicLong();
+    private HealthService healthService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(clock.millis()).thenAnswer(invocation -> now.get());
+    }
+
+    @AfterEach
+    void tearDown() {
+        healthService.stop();
+    }
+
+    @Test
+    void testLivenessDoesNotRunChecks() {
+        healthService = new HealthService(5000, 1000, clock);
+        AtomicInteger calls = new AtomicInteger();
+        healthService.register("MongoDB", () -> {
+            calls.incrementAndGet();
+            return HealthResult.down("Connection refused");
+        }, true);
+
+        HealthService.HealthReport liveness = healthService.liveness();
+
+        // Izpad baze ne sme povzročiti ponovnega zagona poda
+        assertTrue(liveness.isUp());
+        assertTrue(liveness.getChecks().isEmpty());
+        assertEquals(0, calls.get());
+        assertFalse(healthService.readiness().isUp());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void testOnlyCriticalChecksDecideReadiness() {
+        healthService = new HealthService(5000, 1000, clock);
+        healthService.register("MongoDB", HealthResult::up, true);
+        healthService.register("RabbitMQ", () -> HealthResult.down("Connection refused"), false);
+
+        HealthService.HealthReport readiness = healthService.readiness();
+
+        assertTrue(readiness.isUp());
+        assertEquals("DOWN", readiness.getChecks().get("RabbitMQ").getStatus());
+        assertEquals(200, readiness.toResponse().getStatus());
+    }
+
+    @Test
+    void testFailingCriticalCheckAnswers503() {
+        healthService = new HealthService(5000, 1000, clock);
+        healthService.register("MongoDB", () -> {
+            throw new IllegalStateException("Timed out while waiting for a server");
+        }, true);
+
+        HealthService.HealthReport readiness = healthService.readiness();
+
+        assertFalse(readiness.isUp());
+        assertEquals("Timed out while waiting for a server", readiness.getChecks().get("MongoDB").getDetails().get("error"));
+        assertEquals(503, readiness.toResponse().getStatus());
+    }
+
+    @Test
+    void testResultIsCachedForTtl() {
+        healthService = new HealthService(5000, 1000, clock);
+        AtomicInteger calls = new AtomicInteger();
+        healthService.register("MongoDB", () -> {
+            calls.incrementAndGet();
+            return HealthResult.up();
+        }, true);
+
+        healthService.readiness();
+        now.addAndGet(4999);
+        healthService.readiness();
+        assertEquals(1, calls.get());
+
+        now.addAndGet(1);
+        healthService.readiness();
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void testSlowCheckTimesOutAndIsNotStartedTwice() throws Exception {
+        healthService = new HealthService(5000, 50, clock);
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        healthService.register("MongoDB", () -> {
+            calls.incrementAndGet();
+            release.await(5, TimeUnit.SECONDS);
+            return HealthResult.up();
+        }, true);
+
+        HealthService.HealthReport first = healthService.readiness();
+        HealthService.HealthReport second = healthService.readiness();
+
+        assertFalse(first.isUp());
+        assertEquals("No response within 50 ms", first.getChecks().get("MongoDB").getDetails().get("error"));
+        assertFalse(second.isUp());
+        // Druga sonda počaka na isti tekoči preizkus
+        assertEquals(1, calls.get());
+
+        release.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!healthService.readiness().isUp() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(healthService.readiness().isUp());
+        assertEquals(1, calls.get());
+    }
+}
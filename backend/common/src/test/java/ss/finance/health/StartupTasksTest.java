@@ -0,0 +1,124 @@
+package ss.finance.health;
+
+import java.time.Clock;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.Mock;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class StartupTasksTest {
+
+    @Mock
+    private ScheduledExecutorService executor;
+
+    @Mock
+    private Clock clock;
+
+    // Koraki, ki bi jih izvajalnik izvedel, jih test sproži sam
+    private final Queue<Runnable> steps = new ArrayDeque<>();
+    private final List<Long> delays = new ArrayList<>();
+    private HealthService healthService;
+    private StartupTasks startupTasks;
+
+    @BeforeEach
+    void setUp() {
+        doAnswer(invocation -> steps.add(invocation.getArgument(0))).when(executor).execute(any(Runnable.class));
+        lenient().doAnswer(invocation -> {
+            steps.add(invocation.getArgument(0));
+            delays.add(invocation.getArgument(1));
+            return null;
+        }).when(executor).schedule(any(Runnable.class), anyLong(), eq(TimeUnit.MILLISECONDS));
+        // Brez predpomnjenja, da vsaka sonda prebere trenutno stanje
+        healthService = new HealthService(0, 1000, clock);
+        startupTasks = new StartupTasks(healthService, executor, 100, 1000);
+        startupTasks.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        healthService.stop();
+    }
+
+    @Test
+    void testStartupCheckStaysDownUntilTasksFinish() {
+        startupTasks.submit("indexes", () -> { });
+        startupTasks.submit("rollups", () -> { });
+
+        HealthService.HealthReport starting = healthService.readiness();
+        assertFalse(starting.isUp());
+        assertEquals("pending", starting.getChecks().get("Startup").getDetails().get("rollups"));
+
+        runSteps(1);
+        assertFalse(healthService.readiness().isUp());
+        runSteps(1);
+
+        assertTrue(startupTasks.pending().isEmpty());
+        assertTrue(healthService.readiness().isUp());
+    }
+
+    @Test
+    void testFailedTaskIsRetriedWithBackoffBeforeLaterTasks() {
+        AtomicInteger attempts = new AtomicInteger();
+        AtomicInteger laterRuns = new AtomicInteger();
+        startupTasks.submit("indexes", () -> {
+            if (attempts.incrementAndGet() < 6) {
+                throw new IllegalStateException("Timed out while waiting for a server");
+            }
+        });
+        startupTasks.submit("rollups", laterRuns::incrementAndGet);
+
+        runSteps(5);
+
+        // Podvojen premor do zgornje meje, naslednja naloga čaka
+        assertEquals(List.of(100L, 200L, 400L, 800L, 1000L), delays);
+        assertEquals(0, laterRuns.get());
+        assertEquals("Timed out while waiting for a server", startupTasks.pending().get("indexes"));
+        assertFalse(healthService.readiness().isUp());
+
+        runSteps(3);
+
+        assertEquals(6, attempts.get());
+        assertEquals(1, laterRuns.get());
+        assertTrue(healthService.readiness().isUp());
+    }
+
+    @Test
+    void testTaskSubmittedAfterStartupRunsAgain() {
+        startupTasks.submit("indexes", () -> { });
+        runSteps(2);
+        assertTrue(steps.isEmpty());
+
+        AtomicInteger runs = new AtomicInteger();
+        startupTasks.submit("rollups", runs::incrementAndGet);
+
+        assertFalse(healthService.readiness().isUp());
+        runSteps(2);
+        assertEquals(1, runs.get());
+        assertTrue(healthService.readiness().isUp());
+    }
+
+    private void runSteps(int count) {
+        for (int i = 0; i < count; i++) {
+            steps.remove().run();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package ss.finance.security;
+
+import java.util.Map;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.core.Cookie;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.SecurityContext;
+
+import org.bson.types.ObjectId;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class AuthenticationFilterTest {
+
+    @Mock
+    private JwtUtil jwtUtil;
+
+    @Mock
+    private ContainerRequestContext requestContext;
+
+    private AuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new AuthenticationFilter(jwtUtil);
+    }
+
+    @Test
+    void testMissingTokenIsRejected() {
+        when(requestContext.getCookies()).thenReturn(Map.of());
+
+        filter.filter(requestContext);
+
+        assertUnauthorized();
+        verifyNoInteractions(jwtUtil);
+    }
+
+    @Test
+    void testEmptyTokenIsRejected() {
+        when(requestContext.getCookies()).thenReturn(Map.of(AuthenticationFilter.TOKEN_COOKIE,
+                new Cookie(AuthenticationFilter.TOKEN_COOKIE, "")));
+
+        filter.filter(requestContext);
+
+        assertUnauthorized();
+        verifyNoInteractions(jwtUtil);
+    }
+
+    @Test
+    void testInvalidTokenIsRejected() {
+        when(requestContext.getCookies()).thenReturn(Map.of(AuthenticationFilter.TOKEN_COOKIE,
+                new Cookie(AuthenticationFilter.TOKEN_COOKIE, "forged")));
+        when(jwtUtil.extractUserId("forged")).thenThrow(new RuntimeException("Invalid token signature"));
+
+        filter.filter(requestContext);
+
+        assertUnauthorized();
+        verify(requestContext, never()).setSecurityContext(any());
+    }
+
+    @Test
+    void testValidTokenSetsUser() {
+        ObjectId userId = new ObjectId();
+        SecurityContext transport = mock(SecurityContext.class);
+        when(transport.isSecure()).thenReturn(true);
+        when(requestContext.getCookies()).thenReturn(Map.of(AuthenticationFilter.TOKEN_COOKIE,
+                new Cookie(AuthenticationFilter.TOKEN_COOKIE, "valid")));
+        when(requestContext.getSecurityContext()).thenReturn(transport);
+        when(jwtUtil.extractUserId("valid")).thenReturn(userId);
+
+        filter.filter(requestContext);
+
+        ArgumentCaptor<SecurityContext> context = ArgumentCaptor.forClass(SecurityContext.class);
+        verify(requestContext).setSecurityContext(context.capture());
+        verify(requestContext, never()).abortWith(any());
+        assertEquals(userId, AuthenticatedUser.userId(context.getValue()));
+        assertEquals(userId.toHexString(), context.getValue().getUserPrincipal().getName());
+        // Pri HTTPS zahtevi ostane kontekst varen
+        assertTrue(context.getValue().isSecure());
+    }
+
+    private void assertUnauthorized() {
+        ArgumentCaptor<Response> response = ArgumentCaptor.forClass(Response.class);
+        verify(requestContext).abortWith(response.capture());
+        assertEquals(Response.Status.UNAUTHORIZED.getStatusCode(), response.getValue().getStatus());
+        assertEquals(AuthenticationFilter.UNAUTHORIZED_MESSAGE, response.getValue().getEntity());
+    }
+}
@@ -0,0 +1,136 @@
+package ss.finance.security;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bson.types.ObjectId;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class JwtUtilTest {
+
+    private static final String SECRET = "test-secret-test-secret-test-secret-0001";
+    private static final String REFRESH_SECRET = "test-refresh-secret-test-refresh-secret-01";
+
+    private final AtomicLong now = new AtomicLong(1704153600000L);
+
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = jwtUtil(100);
+    }
+
+    @Test
+    void testGenerateTokenAndExtractUserId() {
+        ObjectId userId = new ObjectId();
+        String token = jwtUtil.generateToken(userId, "test@example.com");
+
+        assertEquals(userId, jwtUtil.extractUserId(token));
+        assertEquals("test@example.com", jwtUtil.extractClaims(token).get("email", String.class));
+    }
+
+    @Test
+    void testRefreshTokenIsNotAnAccessToken() {
+        ObjectId userId = new ObjectId();
+        String refreshToken = jwtUtil.generateRefreshToken(userId, "test@example.com");
+
+        assertEquals(userId, jwtUtil.extractRefreshUserId(refreshToken));
+        assertThrows(RuntimeException.class, () -> jwtUtil.extractUserId(refreshToken));
+    }
+
+    @Test
+    void testCachedTokenIsVerifiedOnce() {
+        String token = jwtUtil.generateToken(new ObjectId(), "test@example.com");
+
+        jwtUtil.extractUserId(token);
+        jwtUtil.extractUserId(token);
+        jwtUtil.extractUserId(token);
+
+        verify(jwtUtil, times(1)).extractClaims(token);
+    }
+
+    @Test
+    void testInvalidTokenIsNotCached() {
+        String token = jwtUtil.generateToken(new ObjectId(), "test@example.com");
+        String forged = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThrows(RuntimeException.class, () -> jwtUtil.extractUserId(forged));
+        assertThrows(RuntimeException.class, () -> jwtUtil.extractUserId(forged));
+
+        verify(jwtUtil, times(2)).extractClaims(forged);
+    }
+
+    @Test
+    void testCachedTokenExpires() {
+        String token = jwtUtil.generateToken(new ObjectId(), "test@example.com");
+        jwtUtil.extractUserId(token);
+
+        // Ura preskoči veljavnost žetona, zato ga predpomnilnik ne sme več vrniti
+        now.addAndGet(TimeUnit.HOURS.toMillis(2));
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> jwtUtil.extractUserId(token));
+        assertEquals("Token has expired", e.getMessage());
+        verify(jwtUtil, times(2)).extractClaims(token);
+    }
+
+    @Test
+    void testFullCacheStaysBounded() {
+        jwtUtil = jwtUtil(2);
+
+        for (int i = 0; i < 5; i++) {
+            jwtUtil.extractUserId(jwtUtil.generateToken(new ObjectId(), "user" + i + "@example.com"));
+            assertTrue(jwtUtil.cachedTokens() <= 2);
+        }
+    }
+
+    @Test
+    void testConcurrentMissesStayBounded() throws Exception {
+        jwtUtil = jwtUtil(10);
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            tokens.add(jwtUtil.generateToken(new ObjectId(), "user" + i + "@example.com"));
+        }
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (String token : tokens) {
+                executor.execute(() -> jwtUtil.extractUserId(token));
+            }
+        }
+
+        assertTrue(jwtUtil.cachedTokens() <= 10);
+    }
+
+    @Test
+    void testFullCacheDropsExpiredEntriesFirst() {
+        jwtUtil = jwtUtil(2);
+        String expiring = jwtUtil.generateToken(new ObjectId(), "expiring@example.com");
+        jwtUtil.extractUserId(expiring);
+        now.addAndGet(TimeUnit.MINUTES.toMillis(50));
+        String valid = jwtUtil.generateToken(new ObjectId(), "valid@example.com");
+        jwtUtil.extractUserId(valid);
+        now.addAndGet(TimeUnit.MINUTES.toMillis(20));
+
+        jwtUtil.extractUserId(jwtUtil.generateToken(new ObjectId(), "new@example.com"));
+        jwtUtil.extractUserId(valid);
+
+        verify(jwtUtil, times(1)).extractClaims(valid);
+    }
+
+    private JwtUtil jwtUtil(int cacheMaxSize) {
+        JwtUtil util = new JwtUtil(SECRET, REFRESH_SECRET, () -> new Date(now.get()));
+        util.init(cacheMaxSize);
+        return spy(util);
+    }
+}
@@ -0,0 +1,164 @@
+package ss.finance.server;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class VirtualThreadFilterTest {
+
+    @Mock
+    private ServletRequest request;
+
+    @Mock
+    private HttpServletResponse response;
+
+    @Mock
+    private FilterChain chain;
+
+    @Mock
+    private AsyncContext async;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testDisabledModeRunsOnCallingThread() throws Exception {
+        Thread caller = Thread.currentThread();
+        doAnswer(invocation -> {
+            assertSame(caller, Thread.currentThread());
+            return null;
+        }).when(chain).doFilter(request, response);
+
+        new VirtualThreadFilter().doFilter(request, response, chain);
+
+        verify(chain).doFilter(request, response);
+        verify(request, never()).startAsync(any(), any());
+    }
+
+    @Test
+    void testRequestWithoutAsyncSupportRunsOnCallingThread() throws Exception {
+        when(request.isAsyncSupported()).thenReturn(false);
+
+        new VirtualThreadFilter(executor, 1000).doFilter(request, response, chain);
+
+        verify(chain).doFilter(request, response);
+        verify(request, never()).startAsync(any(), any());
+    }
+
+    @Test
+    void testRequestRunsOnVirtualThreadWithBoundedTimeout() throws Exception {
+        startAsync();
+        CountDownLatch handled = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            assertTrue(Thread.currentThread().isVirtual());
+            handled.countDown();
+            return null;
+        }).when(chain).doFilter(request, response);
+
+        new VirtualThreadFilter(executor, 1000).doFilter(request, response, chain);
+
+        assertTrue(handled.await(5, TimeUnit.SECONDS));
+        verify(async, timeout(5000)).complete();
+        verify(async).setTimeout(1000);
+    }
+
+    @Test
+    void testFailedRequestIsAnsweredWith500() throws Exception {
+        startAsync();
+        doAnswer(invocation -> {
+            throw new IllegalStateException("Mongo pool wait queue is full");
+        }).when(chain).doFilter(request, response);
+
+        new VirtualThreadFilter(executor, 1000).doFilter(request, response, chain);
+
+        verify(async, timeout(5000)).complete();
+        verify(response).setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+    }
+
+    @Test
+    void testTimedOutRequestIsAnsweredWith503AndInterrupted() throws Exception {
+        startAsync();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            started.countDown();
+            try {
+                Thread.sleep(60000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+            return null;
+        }).when(chain).doFilter(request, response);
+
+        new VirtualThreadFilter(executor, 1000).doFilter(request, response, chain);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // Vsebnik sproži časovno omejitev asinhrone zahteve
+        ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+        verify(async).addListener(listener.capture());
+        listener.getValue().onTimeout(new AsyncEvent(async));
+
+        verify(response).sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        // Prekinjena obdelava zahteve ne zaključi še enkrat in ne nastavi statusa 500
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        verify(async).complete();
+        verify(response, never()).setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+    }
+
+    @Test
+    void testTimeoutAfterCompletionIsIgnored() throws Exception {
+        startAsync();
+
+        new VirtualThreadFilter(executor, 1000).doFilter(request, response, chain);
+        verify(async, timeout(5000)).complete();
+
+        ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+        verify(async).addListener(listener.capture());
+        listener.getValue().onTimeout(new AsyncEvent(async));
+
+        verify(async).complete();
+        verify(response, never()).sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+    }
+
+    private void startAsync() {
+        when(request.isAsyncSupported()).thenReturn(true);
+        when(request.startAsync(request, response)).thenReturn(async);
+    }
+}
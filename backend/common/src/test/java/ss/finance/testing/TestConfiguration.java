@@ -0,0 +1,23 @@
+package ss.finance.testing;
+
+import com.kumuluz.ee.configuration.utils.ConfigurationImpl;
+import com.kumuluz.ee.configuration.utils.ConfigurationUtil;
+
+/**
+ * Inicializira konfiguracijo KumuluzEE (config.yaml na testni poti razredov), kot jo ob zagonu
+ * izvajalno okolje. Razredi, ki berejo konfiguracijo v konstruktorju ali statičnem inicializatorju
+ * (npr. MongoDBConnection, LogSampler), brez tega v enotskih testih vržejo IllegalStateException.
+ */
+public final class TestConfiguration {
+
+    private TestConfiguration() {
+    }
+
+    public static synchronized void initialize() {
+        try {
+            ConfigurationUtil.getInstance();
+        } catch (IllegalStateException e) {
+            ConfigurationUtil.initialize(new ConfigurationImpl());
+        }
+    }
+}
@@ -2,25 +2,37 @@ package ss.finance.repositories;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.logging.Logger;
 
 import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.Initialized;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.bson.Document;
 import org.bson.types.ObjectId;
 
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Indexes;
 
 import ss.finance.entities.Debt;
+import ss.finance.indexes.IndexDefinition;
+import ss.finance.indexes.IndexRegistry;
+import ss.finance.indexes.QueryCheck;
 import ss.finance.utils.MongoDBConnection;
 
 @ApplicationScoped
 public class DebtRepository {
 
     private MongoCollection<Document> collection;
-    private static final Logger logger = Logger.getLogger(DebtRepository.class.getName());
+    private static final Logger logger = LogManager.getLogger(DebtRepository.class);
+
+    @Inject
+    private IndexRegistry indexRegistry;
 
     public DebtRepository() {
         MongoClient mongoClient = MongoDBConnection.getMongoClient();
@@ -29,10 +41,15 @@ public class DebtRepository {
         logger.info("Initialized DebtRepository with MongoDB collection 'debts'");
     }
 
+    public void registerIndexes(@Observes @Initialized(ApplicationScoped.class) Object init) {
+        indexRegistry.register(IndexDefinition.on("debts", Indexes.ascending("userId")));
+        indexRegistry.verify(QueryCheck.find("debts by user", "debts", Filters.eq("userId", new ObjectId())));
+    }
+
     public void addDebt(Debt debt) {
         Document debtDoc = toDocument(debt);
         collection.insertOne(debtDoc);
-        logger.info("Debt added successfully: " + debt);
+        logger.info("Debt added successfully: {}", debt);
     }
 
     public List<Debt> getDebtsByUserId(ObjectId userId) {
@@ -41,7 +58,7 @@ public class DebtRepository {
                 .stream()
                 .map(this::toDebt)
                 .toList();
-        logger.info("Retrieved debts for userId " + userId + ": " + debts);
+        logger.debug("Retrieved debts for userId {}: {}", userId, debts);
         return debts;
     }
 
@@ -50,14 +67,14 @@ public class DebtRepository {
             // Find the document by its ObjectId
             Document document = collection.find(new Document("_id", debtObjectId)).first();
             if (document != null) {
-                logger.info("Debt retrieved successfully: " + debtObjectId);
+                logger.debug("Debt retrieved successfully: {}", debtObjectId);
                 return toDebt(document);
             } else {
-                logger.warning("No debt found with ID: " + debtObjectId);
+                logger.warn("No debt found with ID: {}", debtObjectId);
                 return null;
             }
         } catch (Exception e) {
-            logger.severe("Error retrieving debt with ID " + debtObjectId + ": " + e.getMessage());
+            logger.error("Error retrieving debt with ID {}: {}", debtObjectId, e.getMessage());
             throw new RuntimeException("Error retrieving debt", e);
         }
     }
@@ -78,14 +95,14 @@ public class DebtRepository {
             );
     
             if (result.getMatchedCount() > 0) {
-                logger.info("Successfully updated debt with ID: " + debtId);
+                logger.info("Successfully updated debt with ID: {}", debtId);
                 return true;
             } else {
-                logger.warning("No debt found with ID: " + debtId);
+                logger.warn("No debt found with ID: {}", debtId);
                 return false;
             }
         } catch (Exception e) {
-            logger.severe("Error updating debt with ID " + debtId + ": " + e.getMessage());
+            logger.error("Error updating debt with ID {}: {}", debtId, e.getMessage());
             throw new RuntimeException("Error updating debt", e);
         }
     }
@@ -93,10 +110,10 @@ public class DebtRepository {
     public boolean deleteDebt(ObjectId debtId) {
         var result = collection.deleteOne(new Document("_id", debtId));
         if (result.getDeletedCount() > 0) {
-            logger.info("Debt deleted successfully: " + debtId);
+            logger.info("Debt deleted successfully: {}", debtId);
             return true;
         } else {
-            logger.warning("No debt found with ID: " + debtId);
+            logger.warn("No debt found with ID: {}", debtId);
             return false;
         }
     }
@@ -107,9 +124,9 @@ public class DebtRepository {
                 new Document("$set", new Document("isPaid", true))
         );
         if (updateResult.getMatchedCount() > 0) {
-            logger.info("Marked debt with ID " + debtId + " as paid.");
+            logger.info("Marked debt with ID {} as paid.", debtId);
         } else {
-            logger.warning("No debt found with ID: " + debtId);
+            logger.warn("No debt found with ID: {}", debtId);
         }
     }
 
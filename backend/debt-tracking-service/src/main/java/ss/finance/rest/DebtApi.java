@@ -2,11 +2,9 @@ package ss.finance.rest;
 
 import java.util.Date;
 import java.util.List;
-import java.util.logging.Logger;
 
 import javax.inject.Inject;
 import javax.ws.rs.Consumes;
-import javax.ws.rs.CookieParam;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
@@ -14,9 +12,13 @@ import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.SecurityContext;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.bson.types.ObjectId;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
@@ -25,14 +27,10 @@ import org.eclipse.microprofile.openapi.annotations.parameters.RequestBody;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 
-import com.mongodb.client.MongoClient;
-import com.mongodb.client.MongoClients;
-import com.mongodb.client.MongoDatabase;
-
-import jakarta.json.Json;
-import jakarta.json.JsonObject;
 import ss.finance.entities.Debt;
-import ss.finance.security.JwtUtil;
+import ss.finance.health.HealthService;
+import ss.finance.security.Authenticated;
+import ss.finance.security.AuthenticatedUser;
 import ss.finance.services.DebtBean;
 
 @Tag(name = "Debts", description = "Endpoints for managing debts")
@@ -45,44 +43,34 @@ public class DebtApi {
     private DebtBean debtBean;
 
     @Inject
-    private JwtUtil jwtUtil;
-
-    private static final Logger logger = Logger.getLogger(DebtApi.class.getName());
-
+    private HealthService healthService;
 
-    private static final String MONGO_URI = System.getenv("MONGO_URI"); // Prebere iz okolja
-    private static final String DATABASE_NAME = System.getenv("DATABASE_NAME"); // Prebere iz okolja
+    private static final Logger logger = LogManager.getLogger(DebtApi.class);
 
-    @Operation(summary = "Health check", description = "Returns the health status of the Debt microservice.")
+    @Operation(summary = "Health check", description = "Returns the readiness of the Debt microservice. Kept for existing probes, same as /health/ready.")
     @APIResponse(responseCode = "200", description = "Service is up and running")
-    @APIResponse(responseCode = "503", description = "Service is unavailable")
+    @APIResponse(responseCode = "503", description = "Service is down")
     @GET
     @Path("/health")
     public Response healthCheck() {
-        boolean isMongoUp = checkMongoDB();
-        boolean isServiceUp = true; // Če lahko endpoint vrne odgovor, potem je servis UP.
-
-        JsonObject healthJson = Json.createObjectBuilder()
-                .add("status", isMongoUp ? "UP" : "DOWN")
-                .add("details", Json.createObjectBuilder()
-                        .add("MongoDB", isMongoUp ? "UP" : "DOWN")
-                        .add("Debt Service", isServiceUp ? "UP" : "DOWN")
-                        .build())
-                .build();
+        return healthService.readiness().with("Debt Service").toResponse();
+    }
 
-        int statusCode = isMongoUp ? Response.Status.OK.getStatusCode() : Response.Status.SERVICE_UNAVAILABLE.getStatusCode();
-        return Response.status(statusCode).entity(healthJson.toString()).build();
+    @Operation(summary = "Liveness check", description = "Returns UP while the process can serve requests. Does not check dependencies.")
+    @APIResponse(responseCode = "200", description = "Service is alive")
+    @GET
+    @Path("/health/live")
+    public Response livenessCheck() {
+        return healthService.liveness().toResponse();
     }
 
-    private boolean checkMongoDB() {
-        try (MongoClient mongoClient = MongoClients.create(MONGO_URI)) {
-            MongoDatabase database = mongoClient.getDatabase(DATABASE_NAME);
-            database.listCollectionNames().first(); // Če lahko bere kolekcije, je MongoDB UP
-            return true;
-        } catch (Exception e) {
-            logger.severe("MongoDB health check failed: " + e.getMessage());
-            return false;
-        }
+    @Operation(summary = "Readiness check", description = "Pings MongoDB through the shared client. Results are cached briefly.")
+    @APIResponse(responseCode = "200", description = "Service is ready")
+    @APIResponse(responseCode = "503", description = "A critical dependency is unavailable")
+    @GET
+    @Path("/health/ready")
+    public Response readinessCheck() {
+        return healthService.readiness().toResponse();
     }
 
     @Operation(summary = "Add a debt", description = "Creates a new debt for the authenticated user")
@@ -106,13 +94,14 @@ public class DebtApi {
             description = "Internal server error",
             content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"message\": \"Server error occurred\"}"))
     )
+    @Authenticated
     @POST
     public Response addDebt(
             @RequestBody(description = "Debt details", required = true, content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(implementation = Debt.class))) 
             Debt debt, 
-            @CookieParam("auth_token") String token) {
+            @Context SecurityContext securityContext) {
         try {
-            ObjectId userId = jwtUtil.extractUserId(token);
+            ObjectId userId = AuthenticatedUser.userId(securityContext);
             debt.setUserId(userId);
 
             if (debt.getDeadline() != null && debt.getDeadline().before(new Date())) {
@@ -143,10 +132,11 @@ public class DebtApi {
             description = "Unauthorized access",
             content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"message\": \"Token is missing or invalid\"}"))
     )
+    @Authenticated
     @GET
-    public Response getDebts(@CookieParam("auth_token") String token) {
+    public Response getDebts(@Context SecurityContext securityContext) {
         try {
-            ObjectId userId = jwtUtil.extractUserId(token);
+            ObjectId userId = AuthenticatedUser.userId(securityContext);
             List<Debt> debts = debtBean.getDebtsByUserId(userId);
 
             if (debts.isEmpty()) {
@@ -177,9 +167,10 @@ public class DebtApi {
             description = "Debt not found",
             content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"message\": \"Debt not found or does not belong to the user\"}"))
     )
+    @Authenticated
     @GET
     @Path("/{id}")
-    public Response getDebtById(@PathParam("id") String id, @CookieParam("auth_token") String token) {
+    public Response getDebtById(@PathParam("id") String id, @Context SecurityContext securityContext) {
         try {
             if (id == null || id.length() != 24 || !id.matches("[a-fA-F0-9]{24}")) {
                 return Response.status(Response.Status.BAD_REQUEST)
@@ -187,7 +178,7 @@ public class DebtApi {
                         .build();
             }
 
-            ObjectId userId = jwtUtil.extractUserId(token);
+            ObjectId userId = AuthenticatedUser.userId(securityContext);
             ObjectId debtObjectId = new ObjectId(id);
             Debt debt = debtBean.getDebtById(debtObjectId);
 
@@ -216,11 +207,12 @@ public class DebtApi {
             description = "Invalid debt ID",
             content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"message\": \"Invalid debt ID\"}"))
     )
+    @Authenticated
     @PUT
     @Path("/{debtId}")
-    public Response updateDebt(@PathParam("debtId") String debtId, Debt updatedDebt, @CookieParam("auth_token") String token) {
+    public Response updateDebt(@PathParam("debtId") String debtId, Debt updatedDebt, @Context SecurityContext securityContext) {
         try {
-            ObjectId userId = jwtUtil.extractUserId(token);
+            ObjectId userId = AuthenticatedUser.userId(securityContext);
             ObjectId debtObjectId = new ObjectId(debtId);
             Debt existingDebt = debtBean.getDebtById(debtObjectId);
             if (existingDebt == null || !existingDebt.getUserId().equals(userId)) {
@@ -1,11 +1,12 @@
 package ss.finance.services;
 
 import java.util.List;
-import java.util.logging.Logger;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.bson.types.ObjectId;
 
 import ss.finance.entities.Debt;
@@ -17,37 +18,37 @@ public class DebtBean {
     @Inject
     private DebtRepository debtRepository;
 
-    private static final Logger logger = Logger.getLogger(DebtBean.class.getName());
+    private static final Logger logger = LogManager.getLogger(DebtBean.class);
 
     public void addDebt(Debt debt) {
-        logger.info("Adding new debt: " + debt);
+        logger.debug("Adding new debt: {}", debt);
         debtRepository.addDebt(debt);
     }
 
     public List<Debt> getDebtsByUserId(ObjectId userId) {
-        logger.info("Fetching debts for userId: " + userId);
+        logger.debug("Fetching debts for userId: {}", userId);
         return debtRepository.getDebtsByUserId(userId);
     }
 
     public boolean updateDebt(ObjectId debtId, Debt updatedDebt) {
         if (updatedDebt == null) {
-            logger.warning("Attempted to update debt with null object.");
+            logger.warn("Attempted to update debt with null object.");
             return false;
         }
-        logger.info("Updating debt with ID: " + debtId);
+        logger.debug("Updating debt with ID: {}", debtId);
         return debtRepository.updateDebt(debtId, updatedDebt);
     }
 
     public boolean deleteDebt(ObjectId debtId) {
-        logger.info("Deleting debt with ID: " + debtId);
+        logger.debug("Deleting debt with ID: {}", debtId);
         return debtRepository.deleteDebt(debtId);
     }
 
     public boolean markAsPaid(ObjectId debtId) {
-        logger.info("Marking debt with ID " + debtId + " as paid.");
+        logger.debug("Marking debt with ID {} as paid.", debtId);
         List<Debt> debts = debtRepository.getDebtsByUserId(debtId);
         if (debts.isEmpty()) {
-            logger.warning("Debt not found with ID: " + debtId);
+            logger.warn("Debt not found with ID: {}", debtId);
             return false;
         }
         debtRepository.markAsPaid(debtId);
@@ -56,10 +57,10 @@ public class DebtBean {
 
     public Debt getDebtById(ObjectId debtObjectId) {
         if (debtObjectId == null) {
-            logger.warning("Attempted to fetch debt with null ID.");
+            logger.warn("Attempted to fetch debt with null ID.");
             return null;
         }
-        logger.info("Fetching debt with ID: " + debtObjectId);
+        logger.debug("Fetching debt with ID: {}", debtObjectId);
         return debtRepository.getDebtById(debtObjectId);
     }
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import java.util.Date;
 import java.util.List;
 
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.SecurityContext;
 
 import org.bson.types.ObjectId;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -16,14 +17,13 @@ import static org.mockito.ArgumentMatchers.eq;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import static org.mockito.Mockito.doAnswer;
-import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import ss.finance.entities.Debt;
-import ss.finance.security.JwtUtil;
+import ss.finance.security.AuthenticatedUser;
 import ss.finance.services.DebtBean;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,23 +32,18 @@ class DebtApiTest {
     @Mock
     private DebtBean debtBean;
 
-    @Mock
-    private JwtUtil jwtUtil;
-
     @InjectMocks
     private DebtApi debtApi;
 
-    private String validToken;
+    private SecurityContext securityContext;
     private ObjectId userId;
     private Debt sampleDebt;
 
     @BeforeEach
     void setUp() {
         userId = new ObjectId();
-        validToken = "valid.jwt.token";
+        securityContext = new AuthenticatedUser(userId);
         sampleDebt = new Debt(userId, "Bank A", "Car Loan", 5000.00, false, new Date());
-
-        lenient().when(jwtUtil.extractUserId(validToken)).thenReturn(userId);
     }
 
     @Test
@@ -56,7 +51,7 @@ class DebtApiTest {
         List<Debt> debts = Arrays.asList(sampleDebt, new Debt(userId, "Bank B", "Mortgage", 200000.00, false, new Date()));
         when(debtBean.getDebtsByUserId(userId)).thenReturn(debts);
 
-        Response response = debtApi.getDebts(validToken);
+        Response response = debtApi.getDebts(securityContext);
 
         assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
         assertEquals(debts, response.getEntity());
@@ -68,7 +63,7 @@ class DebtApiTest {
     void testGetDebts_NoContent() {
         when(debtBean.getDebtsByUserId(userId)).thenReturn(List.of());
 
-        Response response = debtApi.getDebts(validToken);
+        Response response = debtApi.getDebts(securityContext);
 
         assertEquals(Response.Status.NO_CONTENT.getStatusCode(), response.getStatus());
 
@@ -80,7 +75,7 @@ class DebtApiTest {
         ObjectId debtId = new ObjectId();
         when(debtBean.getDebtById(debtId)).thenReturn(sampleDebt);
 
-        Response response = debtApi.getDebtById(debtId.toHexString(), validToken);
+        Response response = debtApi.getDebtById(debtId.toHexString(), securityContext);
 
         assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
         assertEquals(sampleDebt, response.getEntity());
@@ -93,7 +88,7 @@ class DebtApiTest {
         ObjectId debtId = new ObjectId();
         when(debtBean.getDebtById(debtId)).thenReturn(null);
 
-        Response response = debtApi.getDebtById(debtId.toHexString(), validToken);
+        Response response = debtApi.getDebtById(debtId.toHexString(), securityContext);
 
         assertEquals(Response.Status.NOT_FOUND.getStatusCode(), response.getStatus());
         assertEquals("{\"message\": \"Debt not found or does not belong to the user\"}", response.getEntity());
@@ -105,7 +100,6 @@ class DebtApiTest {
     void testUpdateDebt_Success() {
         ObjectId debtId = new ObjectId();
         Debt sampleDebt = new Debt(userId, "Creditor", "Description", 100.0, false, new Date());
-        String validToken = "valid.jwt.token"; // Simuliran veljaven JWT token
     
         // Simuliraj, da metoda `getDebtById` vrne obstoječ dolg
         when(debtBean.getDebtById(debtId)).thenReturn(sampleDebt);
@@ -113,8 +107,8 @@ class DebtApiTest {
         // Simuliraj posodobitev dolga (ker metoda vrača `boolean`, uporabimo `thenReturn(true)`)
         when(debtBean.updateDebt(any(ObjectId.class), any(Debt.class))).thenReturn(true);
     
-        // Kličemo `updateDebt` z dodanim `validToken`
-        Response response = debtApi.updateDebt(debtId.toHexString(), sampleDebt, validToken);
+        // Kličemo `updateDebt` z dodanim `securityContext`
+        Response response = debtApi.updateDebt(debtId.toHexString(), sampleDebt, securityContext);
     
         assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
         assertEquals("{\"message\": \"Debt updated successfully\"}", response.getEntity());
@@ -16,6 +16,10 @@ public class Investment {
     private Date purchaseDate;
     private Double currentPrice;
     private Double currentValue;
+    // Čas zadnje cene; ob nedosegljivem ponudniku cen je cena starejša in označena kot zastarela
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", timezone = "UTC")
+    private Date priceUpdatedAt;
+    private Boolean priceStale;
     private Double lastTransactionAmount;
     private String lastTransactonType;
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", timezone = "UTC")
@@ -132,5 +136,19 @@ public class Investment {
         this.currentPrice = value;
     }
 
+    public Date getPriceUpdatedAt() {
+        return priceUpdatedAt;
+    }
+
+    public void setPriceUpdatedAt(Date priceUpdatedAt) {
+        this.priceUpdatedAt = priceUpdatedAt;
+    }
 
+    public Boolean getPriceStale() {
+        return priceStale;
+    }
+
+    public void setPriceStale(Boolean priceStale) {
+        this.priceStale = priceStale;
+    }
 }
@@ -0,0 +1,185 @@
+package ss.finance.prices;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.kumuluz.ee.configuration.utils.ConfigurationUtil;
+
+import ss.finance.metrics.Counter;
+import ss.finance.metrics.MetricsRegistry;
+
+/**
+ * Circuit breaker for calls to a remote dependency, so that an outage fails calls right away
+ * instead of every caller waiting for its timeout.
+ * <p>
+ * While closed, the outcome of the last {@code window-size} calls is kept. Once at least
+ * {@code minimum-calls} are recorded and {@code failure-rate-threshold} percent of them failed, or
+ * {@code slow-call-rate-threshold} percent took {@code slow-call-ms} or longer, the breaker opens
+ * and rejects calls for {@code open-ms}. It then lets {@code half-open-calls} trial calls through:
+ * if all of them succeed in time it closes, otherwise it opens again.
+ * <p>
+ * Callers ask {@link #tryAcquire()} before a call and report it with {@link #onResult(boolean, long)}.
+ */
+public class CircuitBreaker {
+    private static final Logger logger = LogManager.getLogger(CircuitBreaker.class);
+
+    private static final Counter transitions = MetricsRegistry.counter("circuit_breaker_transitions_total",
+            "State changes of circuit breakers.", "name", "state");
+
+    /**
+     * Exported as the ordinal: 0 closed, 1 half-open, 2 open.
+     */
+    public enum State { CLOSED, HALF_OPEN, OPEN }
+
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    private final String name;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long slowCallNanos;
+    private final int slowCallRateThreshold;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final LongSupplier clock;
+
+    // Ring buffer of the outcomes of the last calls while closed
+    private final byte[] window;
+    private int position;
+    private int recorded;
+    private int failures;
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int trialPermits;
+    private int trialSuccesses;
+
+    CircuitBreaker(String name, int windowSize, int minimumCalls, int failureRateThreshold, long slowCallNanos,
+                   int slowCallRateThreshold, long openNanos, int halfOpenCalls, LongSupplier clock) {
+        this.name = name;
+        this.window = new byte[Math.max(1, windowSize)];
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, window.length));
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallNanos = slowCallNanos;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.openNanos = openNanos;
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+        this.clock = clock;
+    }
+
+    /**
+     * A breaker configured by the keys under {@code prefix}, e.g. {@code prices.circuit-breaker}.
+     */
+    public static CircuitBreaker fromConfig(String name, String prefix) {
+        ConfigurationUtil config = ConfigurationUtil.getInstance();
+        return new CircuitBreaker(name,
+                config.getInteger(prefix + ".window-size").orElse(20),
+                config.getInteger(prefix + ".minimum-calls").orElse(10),
+                config.getInteger(prefix + ".failure-rate-threshold").orElse(50),
+                TimeUnit.MILLISECONDS.toNanos(config.getLong(prefix + ".slow-call-ms").orElse(3000L)),
+                config.getInteger(prefix + ".slow-call-rate-threshold").orElse(50),
+                TimeUnit.MILLISECONDS.toNanos(config.getLong(prefix + ".open-ms").orElse(30000L)),
+                config.getInteger(prefix + ".half-open-calls").orElse(2),
+                System::nanoTime);
+    }
+
+    /**
+     * Whether a call may be made now. A permitted call must be reported with
+     * {@link #onResult(boolean, long)}.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && clock.getAsLong() - openedAt >= openNanos) {
+            transition(State.HALF_OPEN);
+            trialPermits = halfOpenCalls;
+            trialSuccesses = 0;
+        }
+        switch (state) {
+            case CLOSED:
+                return true;
+            case HALF_OPEN:
+                if (trialPermits > 0) {
+                    trialPermits--;
+                    return true;
+                }
+                return false;
+            default:
+                return false;
+        }
+    }
+
+    public synchronized void onResult(boolean success, long durationNanos) {
+        boolean slow = durationNanos >= slowCallNanos;
+        if (state == State.HALF_OPEN) {
+            if (!success || slow) {
+                open();
+            } else if (++trialSuccesses == halfOpenCalls) {
+                transition(State.CLOSED);
+                clearWindow();
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            // A call that was started before the breaker opened
+            return;
+        }
+        byte outcome = (byte) ((success ? 0 : FAILED) | (slow ? SLOW : 0));
+        if (recorded == window.length) {
+            forget(window[position]);
+        } else {
+            recorded++;
+        }
+        window[position] = outcome;
+        position = (position + 1) % window.length;
+        failures += (outcome & FAILED) != 0 ? 1 : 0;
+        slowCalls += (outcome & SLOW) != 0 ? 1 : 0;
+
+        if (recorded >= minimumCalls && (failures * 100 >= failureRateThreshold * recorded
+                || slowCalls * 100 >= slowCallRateThreshold * recorded)) {
+            logger.warn("Circuit '{}' opens: {} failed and {} slow of the last {} calls.",
+                    name, failures, slowCalls, recorded);
+            open();
+        }
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    /**
+     * Open and still rejecting calls; an open breaker whose {@code open-ms} has passed lets the next
+     * call through as a trial.
+     */
+    public synchronized boolean isOpen() {
+        return state == State.OPEN && clock.getAsLong() - openedAt < openNanos;
+    }
+
+    private void open() {
+        transition(State.OPEN);
+        openedAt = clock.getAsLong();
+        clearWindow();
+    }
+
+    private void transition(State to) {
+        if (state != to) {
+            logger.info("Circuit '{}' is {} (was {}).", name, to, state);
+            state = to;
+            transitions.labels(name, to.name().toLowerCase()).inc();
+        }
+    }
+
+    private void forget(byte outcome) {
+        failures -= (outcome & FAILED) != 0 ? 1 : 0;
+        slowCalls -= (outcome & SLOW) != 0 ? 1 : 0;
+    }
+
+    private void clearWindow() {
+        position = 0;
+        recorded = 0;
+        failures = 0;
+        slowCalls = 0;
+    }
+}
@@ -0,0 +1,281 @@
+package ss.finance.prices;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Typed;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import com.kumuluz.ee.configuration.utils.ConfigurationUtil;
+
+import ss.finance.metrics.Counter;
+import ss.finance.metrics.Histogram;
+import ss.finance.metrics.MetricsRegistry;
+
+/**
+ * {@link PriceProvider} backed by the multi-symbol {@code /price} endpoint of the price API
+ * ({@code API_URL}, {@code API_KEY}).
+ * <p>
+ * The symbols of a call are requested with one {@code /price?symbol=A,B,C}; more than
+ * {@code prices.batch-size} symbols are split into batches that are sent in parallel. All requests
+ * share one {@link HttpClient}, so connections to the provider are reused, and every request has a
+ * connect and a response timeout. A failed batch is logged and its symbols have no price.
+ * Daily closes for the {@link PriceHistory} come from {@code /time_series}, one symbol per request.
+ * <p>
+ * A bulkhead bounds the requests in flight to {@code prices.bulkhead.max-concurrent}; a request
+ * that gets no permit within {@code prices.bulkhead.max-wait-ms} is rejected. Requests also go
+ * through a {@link CircuitBreaker} ({@code prices.circuit-breaker.*}) that opens when too many of
+ * them fail or are slow. Rejected requests fail right away, so while the provider is down no caller
+ * waits for it and the ticker keeps the last known prices, which then show up as stale.
+ * <p>
+ * Only called by the {@link PriceTicker}, for current prices through {@link QuoteCache} and for
+ * daily closes directly; requests read the stored snapshots instead.
+ * <p>
+ * Configuration: {@code prices.batch-size}, {@code prices.connect-timeout-ms},
+ * {@code prices.request-timeout-ms}.
+ */
+@ApplicationScoped
+@Typed(HttpPriceProvider.class)
+public class HttpPriceProvider implements PriceProvider {
+    private static final Logger logger = LogManager.getLogger(HttpPriceProvider.class);
+
+    private static final Histogram duration = MetricsRegistry.histogram("price_api_request_duration_seconds",
+            "Time of requests to the price API.", "outcome");
+    private static final Counter rejected = MetricsRegistry.counter("price_api_rejected_total",
+            "Requests to the price API that were not sent: circuit_open or bulkhead_full.", "reason");
+    private static final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(
+                    ConfigurationUtil.getInstance().getLong("prices.connect-timeout-ms").orElse(2000L)))
+            .build();
+
+    private final String baseUrl;
+    private final String apiKey;
+    private final int batchSize;
+    private final Duration requestTimeout;
+    private final int maxConcurrent;
+    private final long maxWaitMs;
+    private final Semaphore bulkhead;
+    private final CircuitBreaker breaker;
+
+    public HttpPriceProvider() {
+        ConfigurationUtil config = ConfigurationUtil.getInstance();
+        this.baseUrl = System.getenv("API_URL");
+        this.apiKey = System.getenv("API_KEY");
+        this.batchSize = Math.max(1, config.getInteger("prices.batch-size").orElse(50));
+        this.requestTimeout = Duration.ofMillis(config.getLong("prices.request-timeout-ms").orElse(5000L));
+        this.maxConcurrent = Math.max(1, config.getInteger("prices.bulkhead.max-concurrent").orElse(8));
+        this.maxWaitMs = config.getLong("prices.bulkhead.max-wait-ms").orElse(100L);
+        this.bulkhead = new Semaphore(maxConcurrent);
+        this.breaker = CircuitBreaker.fromConfig("price-api", "prices.circuit-breaker");
+    }
+
+    @PostConstruct
+    public void init() {
+        MetricsRegistry.gauge("price_api_circuit_state",
+                "State of the price API circuit breaker: 0 closed, 1 half-open, 2 open.",
+                () -> breaker.state().ordinal());
+        MetricsRegistry.gauge("price_api_requests_in_flight", "Requests to the price API holding a bulkhead permit.",
+                () -> maxConcurrent - bulkhead.availablePermits());
+    }
+
+    /**
+     * False while the circuit breaker is open and rejects every request.
+     */
+    public boolean isAvailable() {
+        return !breaker.isOpen();
+    }
+
+    @Override
+    public Map<String, Double> getPrices(Set<String> symbols) {
+        if (symbols.isEmpty()) {
+            return Map.of();
+        }
+        if (baseUrl == null) {
+            logger.warn("API_URL is not set; no prices for {}.", symbols);
+            return Map.of();
+        }
+        List<String> pending = new ArrayList<>(symbols);
+        List<CompletableFuture<Map<String, Double>>> batches = new ArrayList<>();
+        for (int from = 0; from < pending.size(); from += batchSize) {
+            batches.add(fetch(pending.subList(from, Math.min(pending.size(), from + batchSize))));
+        }
+        Map<String, Double> prices = new HashMap<>();
+        for (CompletableFuture<Map<String, Double>> batch : batches) {
+            prices.putAll(batch.join());
+        }
+        return prices;
+    }
+
+    /**
+     * Daily closes of the symbol from {@code from} to {@code to}, one request. Throws when the
+     * request fails; a symbol the provider has no history for has no closes.
+     */
+    public Map<LocalDate, Double> getDailyCloses(String symbol, LocalDate from, LocalDate to) {
+        if (baseUrl == null) {
+            throw new IllegalStateException("API_URL is not set");
+        }
+        URI uri = URI.create(baseUrl + "/time_series?symbol=" + encode(symbol) + "&interval=1day"
+                + "&start_date=" + from + "&end_date=" + to + "&outputsize=5000"
+                + "&apikey=" + encode(apiKey == null ? "" : apiKey));
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(requestTimeout).GET().build();
+        if (!acquire()) {
+            throw new IllegalStateException("Circuit open or too many requests to the price API");
+        }
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("HTTP error code " + response.statusCode());
+            }
+            Map<LocalDate, Double> closes = parseTimeSeries(symbol, response.body());
+            outcome = "success";
+            return closes;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while fetching the history of " + symbol, e);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            release("success".equals(outcome), elapsed);
+            duration.labels(outcome).observeNanos(elapsed);
+        }
+    }
+
+    private CompletableFuture<Map<String, Double>> fetch(List<String> batch) {
+        URI uri = URI.create(baseUrl + "/price?symbol=" + encode(String.join(",", batch))
+                + "&apikey=" + encode(apiKey == null ? "" : apiKey));
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(requestTimeout).GET().build();
+        if (!acquire()) {
+            logger.debug("Price API request for {} rejected.", batch);
+            return CompletableFuture.completedFuture(Map.of());
+        }
+        long start = System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> {
+                    if (response.statusCode() != 200) {
+                        throw new IllegalStateException("HTTP error code " + response.statusCode());
+                    }
+                    return parse(batch, response.body());
+                })
+                .handle((prices, error) -> {
+                    long elapsed = System.nanoTime() - start;
+                    release(error == null, elapsed);
+                    duration.labels(error == null ? "success" : "error").observeNanos(elapsed);
+                    if (error != null) {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause() : error;
+                        logger.warn("Failed to fetch prices for {}: {}", batch, cause.toString());
+                        return Map.of();
+                    }
+                    return prices;
+                });
+    }
+
+    private boolean acquire() {
+        try {
+            if (!bulkhead.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS)) {
+                rejected.labels("bulkhead_full").inc();
+                return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        // After the bulkhead, so that a half-open trial permit is not taken by a request that is not sent
+        if (!breaker.tryAcquire()) {
+            bulkhead.release();
+            rejected.labels("circuit_open").inc();
+            return false;
+        }
+        return true;
+    }
+
+    private void release(boolean success, long elapsedNanos) {
+        breaker.onResult(success, elapsedNanos);
+        bulkhead.release();
+    }
+
+    /**
+     * Reads the prices of {@code batch} from a {@code /price} response. A single symbol is
+     * answered with {@code {"price": ...}}, several with one such object per symbol; symbols the
+     * provider does not know come back as an error object without a price.
+     */
+    static Map<String, Double> parse(List<String> batch, String body) {
+        JSONObject json = new JSONObject(body);
+        Map<String, Double> prices = new HashMap<>();
+        if (batch.size() == 1) {
+            put(prices, batch.get(0), json);
+            return prices;
+        }
+        for (String symbol : batch) {
+            JSONObject quote = json.optJSONObject(symbol);
+            if (quote != null) {
+                put(prices, symbol, quote);
+            }
+        }
+        return prices;
+    }
+
+    /**
+     * Reads the closes from a {@code /time_series} response,
+     * {@code {"values": [{"datetime": "2024-01-02", "close": "185.64", ...}, ...]}}. An unknown
+     * symbol is answered with an error object without values.
+     */
+    static Map<LocalDate, Double> parseTimeSeries(String symbol, String body) {
+        JSONObject json = new JSONObject(body);
+        JSONArray values = json.optJSONArray("values");
+        Map<LocalDate, Double> closes = new HashMap<>();
+        if (values == null) {
+            logger.warn("No price history for {}: {}", symbol, json.optString("message", json.toString()));
+            return closes;
+        }
+        for (int i = 0; i < values.length(); i++) {
+            JSONObject value = values.optJSONObject(i);
+            String datetime = value == null ? "" : value.optString("datetime", "");
+            double close = value == null ? Double.NaN : value.optDouble("close", Double.NaN);
+            if (datetime.length() >= 10 && !Double.isNaN(close)) {
+                closes.put(LocalDate.parse(datetime.substring(0, 10)), close);
+            }
+        }
+        return closes;
+    }
+
+    private static void put(Map<String, Double> prices, String symbol, JSONObject quote) {
+        // The provider sends prices as strings, optDouble parses both
+        double price = quote.optDouble("price", Double.NaN);
+        if (Double.isNaN(price)) {
+            logger.warn("No price for {}: {}", symbol, quote.optString("message", quote.toString()));
+            return;
+        }
+        prices.put(symbol, price);
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
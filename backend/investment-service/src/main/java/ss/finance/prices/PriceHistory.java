@@ -0,0 +1,120 @@
+package ss.finance.prices;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.enterprise.context.ApplicationScoped;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+
+import ss.finance.utils.MongoDBConnection;
+
+/**
+ * The {@code price_history} collection: daily closes per price API symbol, read when the
+ * performance of a portfolio is computed.
+ * <p>
+ * The closes of one symbol and year share a document,
+ * {@code {_id: "BTC/EUR:2024", symbol: "BTC/EUR", year: 2024, closes: {"2024-01-02": 40000.0, ...}}},
+ * so five years of a symbol are five {@code _id} lookups and a day is added with one {@code $set}.
+ * {@link PriceTicker} backfills the history of new symbols from the price API and records the price
+ * of every run as the close of the day, so the last fetch of a day is its close.
+ */
+@ApplicationScoped
+public class PriceHistory {
+    public static final String COLLECTION_NAME = "price_history";
+
+    private final MongoCollection<Document> history;
+
+    public PriceHistory() {
+        this.history = MongoDBConnection.getDatabase("financeApp").getCollection(COLLECTION_NAME);
+    }
+
+    /**
+     * The closes of each symbol from {@code from} to {@code to}, both included; symbols without
+     * any close in the range are missing.
+     */
+    public Map<String, NavigableMap<LocalDate, Double>> getCloses(Set<String> symbols, LocalDate from, LocalDate to) {
+        List<String> ids = new ArrayList<>();
+        for (String symbol : symbols) {
+            for (int year = from.getYear(); year <= to.getYear(); year++) {
+                ids.add(id(symbol, year));
+            }
+        }
+        Map<String, NavigableMap<LocalDate, Double>> result = new HashMap<>();
+        for (Document bucket : history.find(Filters.in("_id", ids))) {
+            Document closes = bucket.get("closes", Document.class);
+            if (closes == null) {
+                continue;
+            }
+            NavigableMap<LocalDate, Double> series = result.computeIfAbsent(bucket.getString("symbol"),
+                    symbol -> new TreeMap<>());
+            for (Map.Entry<String, Object> close : closes.entrySet()) {
+                LocalDate day = LocalDate.parse(close.getKey());
+                if (!day.isBefore(from) && !day.isAfter(to) && close.getValue() instanceof Number) {
+                    series.put(day, ((Number) close.getValue()).doubleValue());
+                }
+            }
+        }
+        result.values().removeIf(Map::isEmpty);
+        return result;
+    }
+
+    /**
+     * Records the prices as the closes of {@code day}, replacing an earlier price of the same day.
+     */
+    public void record(Map<String, Double> prices, LocalDate day) {
+        List<WriteModel<Document>> writes = new ArrayList<>(prices.size());
+        for (Map.Entry<String, Double> price : prices.entrySet()) {
+            writes.add(upsert(price.getKey(), day.getYear(),
+                    Updates.set("closes." + day, price.getValue())));
+        }
+        write(writes);
+    }
+
+    /**
+     * Stores closes of one symbol, e.g. a backfill from the price API.
+     */
+    public void store(String symbol, Map<LocalDate, Double> closes) {
+        Map<Integer, List<Bson>> byYear = new TreeMap<>();
+        for (Map.Entry<LocalDate, Double> close : closes.entrySet()) {
+            byYear.computeIfAbsent(close.getKey().getYear(), year -> new ArrayList<>())
+                    .add(Updates.set("closes." + close.getKey(), close.getValue()));
+        }
+        List<WriteModel<Document>> writes = new ArrayList<>(byYear.size());
+        for (Map.Entry<Integer, List<Bson>> year : byYear.entrySet()) {
+            writes.add(upsert(symbol, year.getKey(), Updates.combine(year.getValue())));
+        }
+        write(writes);
+    }
+
+    private static WriteModel<Document> upsert(String symbol, int year, Bson closes) {
+        return new UpdateOneModel<>(Filters.eq("_id", id(symbol, year)),
+                Updates.combine(Updates.setOnInsert("symbol", symbol), Updates.setOnInsert("year", year), closes),
+                new UpdateOptions().upsert(true));
+    }
+
+    private void write(List<WriteModel<Document>> writes) {
+        if (!writes.isEmpty()) {
+            history.bulkWrite(writes, new BulkWriteOptions().ordered(false));
+        }
+    }
+
+    private static String id(String symbol, int year) {
+        return symbol + ":" + year;
+    }
+}
@@ -0,0 +1,18 @@
+package ss.finance.prices;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Source of current market prices, keyed by the symbols of the price API, e.g. {@code AAPL},
+ * {@code BTC/EUR} or {@code USD/EUR}.
+ * <p>
+ * Implementations look up all symbols of a call together and never throw for a failed lookup:
+ * symbols without a price are simply missing from the result. Tests replace the provider with a
+ * mock; locally {@code API_URL} can point to a stub such as {@code loadtest/slow-price-api.py}.
+ */
+public interface PriceProvider {
+    String USD_EUR = "USD/EUR";
+
+    Map<String, Double> getPrices(Set<String> symbols);
+}
@@ -0,0 +1,121 @@
+package ss.finance.prices;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.enterprise.context.ApplicationScoped;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+
+import ss.finance.utils.MongoDBConnection;
+
+/**
+ * The {@code prices} collection: the last price of every tracked symbol, written by
+ * {@link PriceTicker} and read when investments are valued. Documents are keyed by the price API
+ * symbol, {@code {_id: "BTC/EUR", price: 40000.0, fetchedAt: ...}}, so a lookup is an {@code _id}
+ * query. Once the {@link PriceHistory} of a symbol has been backfilled, its snapshot also records
+ * the first backfilled day in {@code historyFrom}.
+ */
+@ApplicationScoped
+public class PriceSnapshots {
+    public static final String COLLECTION_NAME = "prices";
+
+    private final MongoCollection<Document> prices;
+
+    public PriceSnapshots() {
+        this.prices = MongoDBConnection.getDatabase("financeApp").getCollection(COLLECTION_NAME);
+    }
+
+    /**
+     * The last price of each symbol and when it was fetched; symbols without a price are missing.
+     */
+    public Map<String, Snapshot> getSnapshots(Set<String> symbols) {
+        Map<String, Snapshot> result = new HashMap<>();
+        for (Document snapshot : prices.find(Filters.in("_id", symbols))) {
+            Double price = snapshot.getDouble("price");
+            if (price != null) {
+                result.put(snapshot.getString("_id"), new Snapshot(price, snapshot.getDate("fetchedAt")));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * When each of the symbols was last priced; symbols without a snapshot are missing.
+     */
+    public Map<String, Date> getFetchedAt(Set<String> symbols) {
+        Map<String, Date> result = new HashMap<>();
+        for (Document snapshot : prices.find(Filters.in("_id", symbols))) {
+            result.put(snapshot.getString("_id"), snapshot.getDate("fetchedAt"));
+        }
+        return result;
+    }
+
+    /**
+     * Stores each price with the time it was fetched from the price API.
+     */
+    public void save(Map<String, Snapshot> fetched) {
+        if (fetched.isEmpty()) {
+            return;
+        }
+        List<WriteModel<Document>> writes = new ArrayList<>(fetched.size());
+        for (Map.Entry<String, Snapshot> price : fetched.entrySet()) {
+            // $set keeps historyFrom
+            writes.add(new UpdateOneModel<>(Filters.eq("_id", price.getKey()),
+                    Updates.combine(Updates.set("price", price.getValue().getPrice()),
+                            Updates.set("fetchedAt", price.getValue().getFetchedAt())),
+                    new UpdateOptions().upsert(true)));
+        }
+        prices.bulkWrite(writes, new BulkWriteOptions().ordered(false));
+    }
+
+    /**
+     * The symbols that have a snapshot but whose price history has not been backfilled yet.
+     */
+    public Set<String> withoutHistory(Set<String> symbols) {
+        Set<String> result = new LinkedHashSet<>();
+        Bson pending = Filters.and(Filters.in("_id", symbols), Filters.exists("historyFrom", false));
+        for (Document snapshot : prices.find(pending).projection(Projections.include("_id"))) {
+            result.add(snapshot.getString("_id"));
+        }
+        return result;
+    }
+
+    public void markHistory(String symbol, LocalDate from) {
+        prices.updateOne(Filters.eq("_id", symbol), Updates.set("historyFrom", from.toString()));
+    }
+
+    public static final class Snapshot {
+        private final double price;
+        private final Date fetchedAt;
+
+        public Snapshot(double price, Date fetchedAt) {
+            this.price = price;
+            this.fetchedAt = fetchedAt;
+        }
+
+        public double getPrice() {
+            return price;
+        }
+
+        public Date getFetchedAt() {
+            return fetchedAt;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package ss.finance.prices;
+
+import java.util.List;
+import java.util.Map;
+
+import ss.finance.entities.Investment;
+
+/**
+ * Maps investments to the symbols of the price API and values them in EUR. Stocks are quoted in
+ * USD and converted with the {@link PriceProvider#USD_EUR} rate, crypto is quoted in EUR.
+ */
+public final class PriceSymbols {
+
+    private PriceSymbols() {
+    }
+
+    /**
+     * The symbols needed to price a holding; none for other types and for holdings without a name.
+     */
+    public static List<String> of(String type, String name) {
+        if (name == null || name.isBlank()) {
+            return List.of();
+        }
+        if ("stock".equals(type)) {
+            return List.of(name, PriceProvider.USD_EUR);
+        }
+        if ("crypto".equals(type)) {
+            return List.of(name + "/EUR");
+        }
+        return List.of();
+    }
+
+    /**
+     * Null when there is no price for the investment; other investment types are valued at the
+     * amount paid.
+     */
+    public static Double priceInEur(Investment investment, Map<String, Double> prices) {
+        boolean named = investment.getName() != null && !investment.getName().isBlank();
+        if (!named && ("stock".equals(investment.getType()) || "crypto".equals(investment.getType()))) {
+            return null;
+        }
+        if ("stock".equals(investment.getType())) {
+            Double priceInUsd = prices.get(investment.getName());
+            Double usdToEur = prices.get(PriceProvider.USD_EUR);
+            return priceInUsd == null || usdToEur == null ? null : priceInUsd * usdToEur;
+        }
+        if ("crypto".equals(investment.getType())) {
+            return prices.get(investment.getName() + "/EUR");
+        }
+        return investment.getAmount();
+    }
+}
@@ -0,0 +1,301 @@
+package ss.finance.prices;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.Initialized;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bson.Document;
+
+import com.kumuluz.ee.configuration.utils.ConfigurationUtil;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+
+import ss.finance.metrics.Counter;
+import ss.finance.metrics.MetricsRegistry;
+import ss.finance.utils.MongoDBConnection;
+
+/**
+ * Keeps the {@link PriceSnapshots} of every symbol held in {@code investments} up to date, so that
+ * valuing investments is a MongoDB read instead of calls to the price API.
+ * <p>
+ * Every {@code interval-ms} the ticker collects the distinct symbols of all investments and fetches
+ * those whose snapshot is older than {@code max-age-ms}, missing and oldest first. At most
+ * {@code max-symbols-per-minute} are fetched per minute, the rate budget of the price API plan; the
+ * rest wait for the next runs. Only one replica runs the ticker at a time: it holds a lease in the
+ * {@code locks} collection that the others take over once it expires. Symbols of a newly added
+ * holding are priced right away through {@link #track(List)}, within the same per-minute budget.
+ * <p>
+ * Every fetched price is also recorded as the close of the day in the {@link PriceHistory}. The
+ * budget left after the due symbols backfills the daily closes of the last
+ * {@code prices.history.backfill-days} of symbols that have no history yet, one symbol per request.
+ * <p>
+ * Configuration: {@code prices.ticker.enabled}, {@code prices.ticker.interval-ms},
+ * {@code prices.ticker.max-age-ms}, {@code prices.ticker.max-symbols-per-minute},
+ * {@code prices.history.backfill-days}.
+ */
+@ApplicationScoped
+public class PriceTicker {
+    private static final Logger logger = LogManager.getLogger(PriceTicker.class);
+    private static final String LOCK_ID = "price-ticker";
+
+    private static final Counter runs = MetricsRegistry.counter("price_ticker_runs_total",
+            "Ticker runs: fetched, idle (nothing due), standby (another replica holds the lease) or error.",
+            "outcome");
+    private static final Counter fetchedTotal = MetricsRegistry.counter("price_ticker_fetched_total",
+            "Prices fetched and written to the prices collection.");
+    private static final Counter backfilled = MetricsRegistry.counter("price_history_backfilled_total",
+            "Symbols whose daily closes were backfilled from the price API.", "outcome");
+    private static final AtomicLong backlog = new AtomicLong();
+
+    static {
+        MetricsRegistry.gauge("price_ticker_backlog", "Due symbols left for later runs by the rate budget.",
+                backlog::get);
+    }
+
+    @Inject
+    private QuoteCache quoteCache;
+
+    @Inject
+    private PriceSnapshots snapshots;
+
+    @Inject
+    private PriceHistory history;
+
+    @Inject
+    private HttpPriceProvider upstream;
+
+    private final MongoCollection<Document> investments;
+    private final MongoCollection<Document> locks;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final boolean enabled;
+    private final long intervalMs;
+    private final long maxAgeMs;
+    private final int perMinute;
+    private final int budgetPerRun;
+    private long budgetMinuteStart;
+    private int budgetUsed;
+    private final int backfillDays;
+    private final Clock clock;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "price-ticker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public PriceTicker() {
+        this(MongoDBConnection.getDatabase("financeApp"), null, null, null, null,
+                ConfigurationUtil.getInstance().getLong("prices.ticker.interval-ms").orElse(60000L),
+                ConfigurationUtil.getInstance().getInteger("prices.ticker.max-symbols-per-minute").orElse(50),
+                Clock.systemUTC());
+    }
+
+    // For tests: collaborators, interval and budget without CDI, and a clock that the test moves
+    PriceTicker(MongoDatabase database, QuoteCache quoteCache, PriceSnapshots snapshots, PriceHistory history,
+            HttpPriceProvider upstream, long intervalMs, int perMinute, Clock clock) {
+        this.investments = database.getCollection("investments");
+        this.locks = database.getCollection("locks");
+        this.quoteCache = quoteCache;
+        this.snapshots = snapshots;
+        this.history = history;
+        this.upstream = upstream;
+        ConfigurationUtil config = ConfigurationUtil.getInstance();
+        this.enabled = config.getBoolean("prices.ticker.enabled").orElse(true);
+        this.intervalMs = intervalMs;
+        this.maxAgeMs = config.getLong("prices.ticker.max-age-ms").orElse(60000L);
+        this.perMinute = perMinute;
+        this.budgetPerRun = (int) Math.max(1, perMinute * intervalMs / 60000);
+        this.backfillDays = config.getInteger("prices.history.backfill-days").orElse(1825);
+        this.clock = clock;
+    }
+
+    public void start(@Observes @Initialized(ApplicationScoped.class) Object init) {
+        if (!enabled) {
+            logger.info("Price ticker is disabled.");
+            return;
+        }
+        logger.info("Starting price ticker every {} ms with a budget of {} symbols per run.", intervalMs, budgetPerRun);
+        scheduler.scheduleWithFixedDelay(this::tick, 0, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Prices symbols that have no snapshot yet in the background, e.g. those of a holding that was
+     * just added, instead of waiting for the next run.
+     */
+    public void track(List<String> symbols) {
+        if (symbols.isEmpty()) {
+            return;
+        }
+        try {
+            scheduler.execute(() -> {
+                try {
+                    Set<String> untracked = new LinkedHashSet<>(symbols);
+                    untracked.removeAll(snapshots.getFetchedAt(untracked).keySet());
+                    // Symbols over the budget have no snapshot, so the next runs price them first
+                    List<String> allowed = new ArrayList<>(untracked).subList(0, takeBudget(untracked.size()));
+                    fetch(new LinkedHashSet<>(allowed));
+                } catch (Exception e) {
+                    logger.warn("Failed to price {}: {}", symbols, e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.debug("Price ticker is stopped, {} is priced by the next replica.", symbols);
+        }
+    }
+
+    void tick() {
+        try {
+            if (!acquireLease()) {
+                runs.labels("standby").inc();
+                return;
+            }
+            Set<String> symbols = trackedSymbols();
+            Map<String, Date> fetchedAt = snapshots.getFetchedAt(symbols);
+            long now = clock.millis();
+            List<String> due = new ArrayList<>();
+            for (String symbol : symbols) {
+                Date at = fetchedAt.get(symbol);
+                if (at == null || now - at.getTime() >= maxAgeMs) {
+                    due.add(symbol);
+                }
+            }
+            // Symbols without a snapshot first, then the oldest
+            due.sort(Comparator.comparingLong(symbol -> {
+                Date at = fetchedAt.get(symbol);
+                return at == null ? Long.MIN_VALUE : at.getTime();
+            }));
+            List<String> batch = due.subList(0, takeBudget(Math.min(due.size(), budgetPerRun)));
+            backlog.set(due.size() - batch.size());
+            int fetched = fetch(new LinkedHashSet<>(batch));
+            int filled = backfill(symbols, takeBudget(budgetPerRun - batch.size()));
+            if (batch.isEmpty() && filled == 0) {
+                runs.labels("idle").inc();
+                return;
+            }
+            runs.labels("fetched").inc();
+            logger.debug("Price ticker fetched {} of {} due symbols and backfilled {}.", fetched, due.size(), filled);
+        } catch (Exception e) {
+            runs.labels("error").inc();
+            logger.warn("Price ticker run failed: {}", e.getMessage());
+        }
+    }
+
+    private Set<String> trackedSymbols() {
+        Set<String> symbols = new LinkedHashSet<>();
+        for (String type : List.of("stock", "crypto")) {
+            for (String name : investments.distinct("name", Filters.eq("type", type), String.class)) {
+                if (name != null) {
+                    symbols.addAll(PriceSymbols.of(type, name));
+                }
+            }
+        }
+        return symbols;
+    }
+
+    private int fetch(Set<String> symbols) {
+        if (symbols.isEmpty()) {
+            return 0;
+        }
+        Map<String, PriceSnapshots.Snapshot> fetched = quoteCache.refresh(symbols);
+        snapshots.save(fetched);
+        Map<String, Double> prices = new HashMap<>();
+        fetched.forEach((symbol, snapshot) -> prices.put(symbol, snapshot.getPrice()));
+        history.record(prices, LocalDate.now(ZoneOffset.UTC));
+        fetchedTotal.inc(prices.size());
+        return prices.size();
+    }
+
+    /**
+     * Takes up to {@code wanted} symbols from the {@code max-symbols-per-minute} budget of the
+     * current minute. Runs and tracked holdings draw from the same budget; both run on the
+     * scheduler thread.
+     */
+    private int takeBudget(int wanted) {
+        long now = clock.millis();
+        if (now - budgetMinuteStart >= 60000) {
+            budgetMinuteStart = now;
+            budgetUsed = 0;
+        }
+        int granted = Math.max(0, Math.min(wanted, perMinute - budgetUsed));
+        budgetUsed += granted;
+        return granted;
+    }
+
+    private int backfill(Set<String> symbols, int budget) {
+        if (budget <= 0 || symbols.isEmpty() || !upstream.isAvailable()) {
+            return 0;
+        }
+        LocalDate to = LocalDate.now(ZoneOffset.UTC);
+        LocalDate from = to.minusDays(backfillDays);
+        int filled = 0;
+        for (String symbol : snapshots.withoutHistory(symbols)) {
+            if (filled == budget || !upstream.isAvailable()) {
+                break;
+            }
+            filled++;
+            try {
+                Map<LocalDate, Double> closes = upstream.getDailyCloses(symbol, from, to);
+                // Today's close is the one recorded by fetch
+                closes.remove(to);
+                history.store(symbol, closes);
+                snapshots.markHistory(symbol, from);
+                backfilled.labels("success").inc();
+            } catch (RuntimeException e) {
+                backfilled.labels("error").inc();
+                logger.warn("Failed to backfill the price history of {}: {}", symbol, e.getMessage());
+            }
+        }
+        return filled;
+    }
+
+    // Held for two intervals, so a replica that stops ticking is replaced after at most that long
+    private boolean acquireLease() {
+        Date now = new Date(clock.millis());
+        try {
+            locks.updateOne(
+                    Filters.and(Filters.eq("_id", LOCK_ID),
+                            Filters.or(Filters.lt("claimedUntil", now), Filters.eq("claimedBy", instanceId))),
+                    Updates.combine(Updates.set("claimedBy", instanceId),
+                            Updates.set("claimedUntil", new Date(now.getTime() + 2 * intervalMs))),
+                    new UpdateOptions().upsert(true));
+            return true;
+        } catch (MongoWriteException e) {
+            // The upsert collides with the lease of another replica
+            if (e.getError().getCategory() == ErrorCategory.DUPLICATE_KEY) {
+                return false;
+            }
+            throw e;
+        }
+    }
+}
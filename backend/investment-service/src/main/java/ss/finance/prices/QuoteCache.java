@@ -0,0 +1,121 @@
+package ss.finance.prices;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.kumuluz.ee.configuration.utils.ConfigurationUtil;
+
+import ss.finance.metrics.Counter;
+import ss.finance.metrics.MetricsRegistry;
+
+/**
+ * Fetches prices for the {@link PriceTicker} from {@link HttpPriceProvider} and keeps the FX rates
+ * it needs between runs.
+ * <p>
+ * Requests never read from here: {@code GET /investments} values holdings from the
+ * {@link PriceSnapshots} that the ticker writes. The ticker already decides which quotes are due,
+ * so quotes are fetched on every call. FX rates ({@link PriceProvider#USD_EUR}) are needed to value
+ * every stock but move slowly, so a rate is kept for {@code fx-ttl-ms} and only fetched again after
+ * that. Each price comes with the time it was actually fetched, so a kept rate does not look newer
+ * than it is.
+ * <p>
+ * Configuration: {@code prices.cache.fx-ttl-ms}.
+ */
+@ApplicationScoped
+public class QuoteCache {
+    private static final Logger logger = LogManager.getLogger(QuoteCache.class);
+    private static final Set<String> FX_SYMBOLS = Set.of(PriceProvider.USD_EUR);
+
+    private static final Counter fxLookups = MetricsRegistry.counter("price_cache_fx_lookups_total",
+            "FX rate lookups of the price ticker by result: hit (kept rate) or miss (fetched).", "result");
+
+    @Inject
+    private HttpPriceProvider upstream;
+
+    private final long fxTtlNanos;
+    private final Map<String, Entry> rates = new ConcurrentHashMap<>();
+
+    public QuoteCache() {
+        ConfigurationUtil config = ConfigurationUtil.getInstance();
+        this.fxTtlNanos = TimeUnit.MILLISECONDS.toNanos(config.getLong("prices.cache.fx-ttl-ms").orElse(3600000L));
+    }
+
+    // For tests: a short FX TTL without configuration
+    QuoteCache(HttpPriceProvider upstream, long fxTtlMs) {
+        this.upstream = upstream;
+        this.fxTtlNanos = TimeUnit.MILLISECONDS.toNanos(fxTtlMs);
+    }
+
+    /**
+     * Fetches the quotes among {@code symbols} and the FX rates whose TTL has passed in one upstream
+     * call, and returns a snapshot per symbol that has a price. Symbols the provider had no price
+     * for are missing from the result.
+     */
+    public Map<String, PriceSnapshots.Snapshot> refresh(Set<String> symbols) {
+        long now = System.nanoTime();
+        Set<String> wanted = new LinkedHashSet<>();
+        for (String symbol : symbols) {
+            Entry rate = rates.get(symbol);
+            if (!FX_SYMBOLS.contains(symbol)) {
+                wanted.add(symbol);
+            } else if (rate != null && now - rate.fetchedAt < fxTtlNanos) {
+                fxLookups.labels("hit").inc();
+            } else {
+                fxLookups.labels("miss").inc();
+                wanted.add(symbol);
+            }
+        }
+
+        Map<String, Double> fetched = Map.of();
+        if (!wanted.isEmpty()) {
+            try {
+                fetched = upstream.getPrices(wanted);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to fetch prices for {}: {}", wanted, e.getMessage());
+            }
+        }
+        long fetchedAt = System.nanoTime();
+        long fetchedAtMillis = System.currentTimeMillis();
+        Map<String, PriceSnapshots.Snapshot> prices = new HashMap<>();
+        for (String symbol : symbols) {
+            Double price = fetched.get(symbol);
+            if (price != null) {
+                if (FX_SYMBOLS.contains(symbol)) {
+                    rates.put(symbol, new Entry(price, fetchedAt, fetchedAtMillis));
+                }
+                prices.put(symbol, new PriceSnapshots.Snapshot(price, new Date(fetchedAtMillis)));
+                continue;
+            }
+            // A failed fetch of a rate keeps the last one until the next run
+            Entry rate = rates.get(symbol);
+            if (rate != null) {
+                prices.put(symbol, new PriceSnapshots.Snapshot(rate.price, new Date(rate.fetchedAtMillis)));
+            }
+        }
+        return prices;
+    }
+
+    private static final class Entry {
+        private final double price;
+        private final long fetchedAt;
+        // Wall-clock time of the fetch, stored with the snapshot
+        private final long fetchedAtMillis;
+
+        Entry(double price, long fetchedAt, long fetchedAtMillis) {
+            this.price = price;
+            this.fetchedAt = fetchedAt;
+            this.fetchedAtMillis = fetchedAtMillis;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package ss.finance.rabbit;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ss.finance.metrics.Counter;
+import ss.finance.metrics.Histogram;
+import ss.finance.metrics.MetricsRegistry;
+
+/**
+ * Counters for the micro-batched transaction consumer. They are kept for the JSON snapshot and
+ * also exported to {@link MetricsRegistry}.
+ */
+public class ConsumerMetrics {
+    private static final double[] BATCH_SIZE_BUCKETS = {1, 5, 10, 25, 50, 100, 250, 500};
+    private static final double[] LINGER_BUCKETS = {0.001, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1};
+    private static final double[] LAG_BUCKETS = {0.01, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 300};
+
+    private static final Counter consumed = MetricsRegistry.counter("rabbitmq_consumed_total",
+            "Messages stored and acked by the consumer.");
+    private static final Counter failedBatchesTotal = MetricsRegistry.counter("rabbitmq_consumer_failed_batches_total",
+            "Batches that could not be stored and were requeued.");
+    private static final Counter deadLetteredTotal = MetricsRegistry.counter("rabbitmq_dead_lettered_total",
+            "Messages rejected to the dead-letter queue.");
+    private static final Histogram batchSizes = MetricsRegistry.histogram("rabbitmq_consumer_batch_size",
+            "Messages written per batch.", BATCH_SIZE_BUCKETS);
+    private static final Histogram linger = MetricsRegistry.histogram("rabbitmq_consumer_linger_seconds",
+            "Time from the first message of a batch until the batch is written.", LINGER_BUCKETS);
+    // Measured against the clock of the producing service, so skew between nodes shows up here
+    private static final Histogram lag = MetricsRegistry.histogram("rabbitmq_consumer_lag_seconds",
+            "Time from the change of a transaction until its event reaches the consumer.", LAG_BUCKETS);
+
+    private final long startedAt = System.nanoTime();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong messages = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+    private final AtomicLong totalLingerNanos = new AtomicLong();
+    private final AtomicLong lastBatchSize = new AtomicLong();
+    private final AtomicLong maxBatchSize = new AtomicLong();
+
+    public void recordBatch(int size, long lingerNanos) {
+        batches.incrementAndGet();
+        messages.addAndGet(size);
+        totalLingerNanos.addAndGet(lingerNanos);
+        lastBatchSize.set(size);
+        maxBatchSize.accumulateAndGet(size, Math::max);
+        consumed.inc(size);
+        batchSizes.observe(size);
+        linger.observe(lingerNanos / 1e9);
+    }
+
+    public void recordFailedBatch() {
+        failedBatches.incrementAndGet();
+        failedBatchesTotal.inc();
+    }
+
+    public void recordDeadLettered() {
+        deadLettered.incrementAndGet();
+        deadLetteredTotal.inc();
+    }
+
+    public void recordLag(long millis) {
+        lag.observe(Math.max(0, millis) / 1000.0);
+    }
+
+    public Map<String, Object> snapshot() {
+        long batchCount = batches.get();
+        long messageCount = messages.get();
+        double uptimeSeconds = Math.max(1.0, (System.nanoTime() - startedAt) / 1e9);
+
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("batches", batchCount);
+        snapshot.put("messages", messageCount);
+        snapshot.put("failedBatches", failedBatches.get());
+        snapshot.put("deadLettered", deadLettered.get());
+        snapshot.put("lastBatchSize", lastBatchSize.get());
+        snapshot.put("maxBatchSize", maxBatchSize.get());
+        snapshot.put("averageBatchSize", batchCount == 0 ? 0.0 : (double) messageCount / batchCount);
+        snapshot.put("averageLingerMs", batchCount == 0 ? 0.0
+                : (double) TimeUnit.NANOSECONDS.toMicros(totalLingerNanos.get()) / batchCount / 1000.0);
+        snapshot.put("messagesPerSecond", messageCount / uptimeSeconds);
+        return snapshot;
+    }
+}
@@ -0,0 +1,451 @@
+package ss.finance.rabbit;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.Initialized;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kumuluz.ee.configuration.utils.ConfigurationUtil;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoException;
+import com.mongodb.MongoExecutionTimeoutException;
+import com.mongodb.MongoInterruptedException;
+import com.mongodb.MongoNodeIsRecoveringException;
+import com.mongodb.MongoNotPrimaryException;
+import com.mongodb.MongoSocketException;
+import com.mongodb.MongoTimeoutException;
+import com.mongodb.bulk.BulkWriteError;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.DefaultConsumer;
+import com.rabbitmq.client.Envelope;
+
+import ss.finance.events.TransactionEvent;
+import ss.finance.events.TransactionEventCodec;
+import ss.finance.health.HealthResult;
+import ss.finance.health.HealthService;
+import ss.finance.metrics.MetricsRegistry;
+import ss.finance.services.InvestmentBean;
+import ss.finance.services.InvestmentMessage;
+
+/**
+ * Push-based consumer of the transaction queue.
+ * <p>
+ * Each worker owns one channel with its own {@code basicConsume} subscription, because
+ * the client delivers messages of a single channel one at a time. Prefetch bounds the
+ * number of unacked messages per worker. Messages are gathered into micro-batches that
+ * are flushed when they reach the batch size or the linger time, written with one
+ * insertMany and acked together with {@code basicAck(multiple=true)} only after the
+ * write succeeded. Messages that cannot be parsed or that the server refuses to store are
+ * rejected to the dead-letter queue.
+ * <p>
+ * When MongoDB is unreachable, times out or is electing a primary, the batch is requeued and the
+ * worker pauses before taking the next delivery, backing off exponentially while the failures
+ * last; such messages are never dead-lettered. Batches that fail as a whole for any other reason
+ * are requeued once; messages that were already redelivered are dead-lettered instead, so a
+ * message that keeps failing does not cycle through the queue forever.
+ * <p>
+ * The depth of the queue is polled for {@code /metrics}, so the deployment can be scaled on the
+ * backlog rather than on CPU.
+ * <p>
+ * Configuration (config.yaml or environment):
+ * {@code rabbitmq.consumer.prefetch}, {@code rabbitmq.consumer.workers},
+ * {@code rabbitmq.consumer.batch-size}, {@code rabbitmq.consumer.linger-ms},
+ * {@code rabbitmq.consumer.depth-poll-ms}.
+ */
+@ApplicationScoped
+public class TransactionConsumer {
+
+    private static final Logger logger = LogManager.getLogger(TransactionConsumer.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final long INITIAL_BACKOFF_MS = 1000;
+    private static final long MAX_BACKOFF_MS = 60000;
+    private static final int DUPLICATE_KEY = 11000;
+    private static final long INITIAL_RETRY_DELAY_MS = 100;
+    private static final long MAX_RETRY_DELAY_MS = 10000;
+
+    @Inject
+    private InvestmentBean investmentBean;
+
+    @Inject
+    private HealthService healthService;
+
+    private final int prefetch;
+    private final int workers;
+    private final int batchSize;
+    private final long lingerMs;
+    private final long depthPollMs;
+    private final ConsumerMetrics metrics = new ConsumerMetrics();
+    private final AtomicLong queueDepth = new AtomicLong();
+    // Only fires linger timers; the flushes themselves run on flushPool so one slow write does not
+    // hold back the linger flushes of the other workers
+    private final ScheduledExecutorService lingerTimers = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "rabbitmq-consumer-linger");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService flushPool;
+    private final ScheduledExecutorService connector = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "rabbitmq-consumer-connector");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ExecutorService workerPool;
+    private volatile Connection connection;
+    private volatile Channel depthChannel;
+    private final List<Channel> channels = new CopyOnWriteArrayList<>();
+    private int failedAttempts;
+
+    public TransactionConsumer() {
+        this(ConfigurationUtil.getInstance());
+    }
+
+    private TransactionConsumer(ConfigurationUtil config) {
+        this(config.getInteger("rabbitmq.consumer.batch-size").orElse(100),
+                config.getLong("rabbitmq.consumer.linger-ms").orElse(50L),
+                config.getInteger("rabbitmq.consumer.prefetch").orElse(200),
+                config.getInteger("rabbitmq.consumer.workers").orElse(4),
+                config.getLong("rabbitmq.consumer.depth-poll-ms").orElse(15000L));
+    }
+
+    // For tests: workers are created with worker() instead of a broker connection
+    TransactionConsumer(InvestmentBean investmentBean, int batchSize, long lingerMs) {
+        this(batchSize, lingerMs, batchSize, 1, 15000L);
+        this.investmentBean = investmentBean;
+    }
+
+    private TransactionConsumer(int batchSize, long lingerMs, int prefetch, int workers, long depthPollMs) {
+        this.batchSize = batchSize;
+        this.lingerMs = lingerMs;
+        // A batch can only fill up if the broker lets enough unacked messages through
+        this.prefetch = Math.max(batchSize, prefetch);
+        this.workers = workers;
+        this.depthPollMs = depthPollMs;
+        AtomicInteger flushThreads = new AtomicInteger();
+        this.flushPool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "rabbitmq-consumer-flush-" + flushThreads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start(@Observes @Initialized(ApplicationScoped.class) Object init) {
+        // Reported but not critical: the API keeps serving while the broker is away
+        healthService.register("RabbitMQ", () -> {
+            Map<String, Object> state = state();
+            return isConnected() ? HealthResult.up(state) : HealthResult.down(state);
+        }, false);
+        MetricsRegistry.gauge("rabbitmq_queue_messages_ready", "Messages waiting in the transaction queue.",
+                queueDepth::get);
+        MetricsRegistry.gauge("rabbitmq_consumer_connected", "1 while the consumer is connected to the broker.",
+                () -> isConnected() ? 1 : 0);
+        connector.schedule(this::connect, 0, TimeUnit.MILLISECONDS);
+        connector.scheduleWithFixedDelay(this::pollQueueDepth, depthPollMs, depthPollMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Runs on the connector thread; retries with exponential backoff until the broker is reachable
+    private void connect() {
+        try {
+            workerPool = Executors.newFixedThreadPool(workers);
+            connection = RabbitMQConfig.createConnectionFactory().newConnection(workerPool, "investment-consumer");
+            for (int i = 0; i < workers; i++) {
+                Channel channel = connection.createChannel();
+                RabbitMQConfig.declareQueue(channel);
+                channel.basicQos(prefetch);
+                channel.basicConsume(RabbitMQConfig.getQueueName(), false, worker(channel));
+                channels.add(channel);
+            }
+            // Workers own their channels, so the depth is read on a channel of its own
+            depthChannel = connection.createChannel();
+            failedAttempts = 0;
+            logger.info("Consuming '{}' with {} workers, prefetch {}.",
+                    RabbitMQConfig.getQueueName(), workers, prefetch);
+        } catch (Exception e) {
+            close();
+            failedAttempts++;
+            long delay = Math.min(MAX_BACKOFF_MS, INITIAL_BACKOFF_MS << Math.min(failedAttempts - 1, 16));
+            logger.warn("RabbitMQ consumer could not connect, retrying in {} ms: {}", delay, e.getMessage());
+            connector.schedule(this::connect, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Runs on the connector thread, like connect(), so it never sees a half-built connection
+    private void pollQueueDepth() {
+        Channel channel = depthChannel;
+        if (channel == null || !channel.isOpen()) {
+            return;
+        }
+        try {
+            queueDepth.set(channel.messageCount(RabbitMQConfig.getQueueName()));
+        } catch (Exception e) {
+            logger.debug("Could not read the depth of the transaction queue: {}", e.getMessage());
+        }
+    }
+
+    Worker worker(Channel channel) {
+        return new Worker(channel);
+    }
+
+    public ConsumerMetrics getMetrics() {
+        return metrics;
+    }
+
+    public boolean isConnected() {
+        Connection current = connection;
+        return current != null && current.isOpen();
+    }
+
+    public Map<String, Object> state() {
+        int openChannels = 0;
+        for (Channel channel : channels) {
+            if (channel.isOpen()) {
+                openChannels++;
+            }
+        }
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("connection", isConnected() ? "OPEN" : "CLOSED");
+        state.put("openChannels", openChannels);
+        state.put("workers", workers);
+        state.put("failedAttempts", failedAttempts);
+        return state;
+    }
+
+    @PreDestroy
+    public void stop() {
+        connector.shutdownNow();
+        lingerTimers.shutdownNow();
+        flushPool.shutdownNow();
+        close();
+    }
+
+    private void close() {
+        channels.clear();
+        depthChannel = null;
+        try {
+            if (connection != null && connection.isOpen()) {
+                connection.close();
+            }
+        } catch (Exception e) {
+            logger.warn("Error closing RabbitMQ consumer connection: {}", e.getMessage());
+        }
+        connection = null;
+        if (workerPool != null) {
+            workerPool.shutdownNow();
+            workerPool = null;
+        }
+    }
+
+    // Messages queued before the binary event format are still JSON
+    private InvestmentMessage decode(byte[] body) throws IOException {
+        if (TransactionEventCodec.isEvent(body)) {
+            TransactionEvent event = TransactionEventCodec.decode(body);
+            metrics.recordLag(System.currentTimeMillis() - event.getOccurredAt());
+            return InvestmentMessage.fromEvent(event);
+        }
+        return objectMapper.readValue(body, InvestmentMessage.class);
+    }
+
+    /**
+     * Failures that say nothing about the messages: the write can succeed once MongoDB is back.
+     */
+    static boolean isTransient(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoSocketException || cause instanceof MongoTimeoutException
+                    || cause instanceof MongoNotPrimaryException || cause instanceof MongoNodeIsRecoveringException
+                    || cause instanceof MongoExecutionTimeoutException || cause instanceof MongoInterruptedException) {
+                return true;
+            }
+            if (cause instanceof MongoException && (((MongoException) cause).hasErrorLabel("RetryableWriteError")
+                    || ((MongoException) cause).hasErrorLabel("TransientTransactionError"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    class Worker extends DefaultConsumer {
+        private final List<InvestmentMessage> pendingMessages = new ArrayList<>();
+        private final List<Long> pendingTags = new ArrayList<>();
+        private final List<Boolean> pendingRedelivered = new ArrayList<>();
+        private long firstPendingAt;
+        private ScheduledFuture<?> lingerTimer;
+        private int transientFailures;
+        private volatile long pausedUntil;
+
+        Worker(Channel channel) {
+            super(channel);
+        }
+
+        @Override
+        public void handleDelivery(String consumerTag, Envelope envelope, AMQP.BasicProperties properties, byte[] body)
+                throws IOException {
+            long deliveryTag = envelope.getDeliveryTag();
+            pauseAfterTransientFailure();
+
+            InvestmentMessage message;
+            try {
+                message = decode(body);
+            } catch (IOException | IllegalArgumentException e) {
+                logger.error("Rejecting unparseable message to the dead-letter queue: {}", e.getMessage());
+                synchronized (this) {
+                    getChannel().basicReject(deliveryTag, false);
+                }
+                metrics.recordDeadLettered();
+                return;
+            }
+
+            synchronized (this) {
+                pendingMessages.add(message);
+                pendingTags.add(deliveryTag);
+                pendingRedelivered.add(envelope.isRedeliver());
+                if (pendingMessages.size() == 1) {
+                    long startedAt = System.nanoTime();
+                    firstPendingAt = startedAt;
+                    lingerTimer = lingerTimers.schedule(() -> flushPool.execute(() -> flushOnLinger(startedAt)),
+                            lingerMs, TimeUnit.MILLISECONDS);
+                }
+                if (pendingMessages.size() >= batchSize) {
+                    flush();
+                }
+            }
+        }
+
+        // Runs on the delivery thread of this channel only, so the other workers keep consuming
+        private void pauseAfterTransientFailure() {
+            long remaining = pausedUntil - System.nanoTime();
+            if (remaining > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        private synchronized void flushOnLinger(long startedAt) {
+            // The batch this timer was started for may have been flushed on size in the meantime
+            if (pendingMessages.isEmpty() || firstPendingAt != startedAt) {
+                return;
+            }
+            try {
+                flush();
+            } catch (Exception e) {
+                logger.warn("Failed to flush transaction batch: {}", e.getMessage());
+            }
+        }
+
+        // Callers hold the worker lock, so the channel is never used by two threads at once
+        private void flush() throws IOException {
+            if (pendingMessages.isEmpty()) {
+                return;
+            }
+            if (lingerTimer != null) {
+                lingerTimer.cancel(false);
+                lingerTimer = null;
+            }
+            int size = pendingMessages.size();
+            long lastTag = pendingTags.get(size - 1);
+            long lingerNanos = System.nanoTime() - firstPendingAt;
+            try {
+                investmentBean.saveTransactions(pendingMessages);
+                getChannel().basicAck(lastTag, true);
+                metrics.recordBatch(size, lingerNanos);
+                transientFailures = 0;
+            } catch (MongoBulkWriteException e) {
+                if (e.getWriteConcernError() != null) {
+                    // Not known to be durable; replaying is safe, the version filter makes the writes idempotent
+                    requeueAndPause(e, size, lastTag);
+                } else {
+                    rejectRefused(e, size, lingerNanos);
+                }
+            } catch (Exception e) {
+                if (isTransient(e)) {
+                    requeueAndPause(e, size, lastTag);
+                } else {
+                    requeueOrDeadLetter(e, size, lastTag);
+                }
+            } finally {
+                pendingMessages.clear();
+                pendingTags.clear();
+                pendingRedelivered.clear();
+            }
+        }
+
+        private void rejectRefused(MongoBulkWriteException e, int size, long lingerNanos) throws IOException {
+            // A duplicate key left after the retry in saveTransactions means a newer version is
+            // already stored, so the event is done.
+            // Anything else the server refused will be refused again: dead-letter it, keep the rest
+            Set<Integer> rejected = new HashSet<>();
+            for (BulkWriteError error : e.getWriteErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    getChannel().basicReject(pendingTags.get(error.getIndex()), false);
+                    metrics.recordDeadLettered();
+                    rejected.add(error.getIndex());
+                }
+            }
+            // Acking a tag that was just rejected would close the channel
+            for (int i = size - 1; i >= 0; i--) {
+                if (!rejected.contains(i)) {
+                    getChannel().basicAck(pendingTags.get(i), true);
+                    break;
+                }
+            }
+            metrics.recordBatch(size - rejected.size(), lingerNanos);
+            transientFailures = 0;
+        }
+
+        // The batch is fine, MongoDB is not: keep every message and wait before the next delivery
+        private void requeueAndPause(Exception e, int size, long lastTag) throws IOException {
+            metrics.recordFailedBatch();
+            getChannel().basicNack(lastTag, true, true);
+            long delay = Math.min(MAX_RETRY_DELAY_MS, INITIAL_RETRY_DELAY_MS << Math.min(transientFailures, 16));
+            transientFailures++;
+            pausedUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+            logger.warn("MongoDB is unavailable, requeued {} messages and pausing for {} ms: {}",
+                    size, delay, e.getMessage());
+        }
+
+        private void requeueOrDeadLetter(Exception e, int size, long lastTag) throws IOException {
+            metrics.recordFailedBatch();
+            if (!pendingRedelivered.contains(true)) {
+                logger.warn("Failed to store transaction batch, requeueing {} messages: {}", size, e.getMessage());
+                getChannel().basicNack(lastTag, true, true);
+            } else {
+                int deadLettered = 0;
+                for (int i = 0; i < size; i++) {
+                    boolean redelivered = pendingRedelivered.get(i);
+                    getChannel().basicNack(pendingTags.get(i), false, !redelivered);
+                    if (redelivered) {
+                        metrics.recordDeadLettered();
+                        deadLettered++;
+                    }
+                }
+                logger.warn("Failed to store transaction batch, dead-lettering {} redelivered and requeueing {} messages: {}",
+                        deadLettered, size - deadLettered, e.getMessage());
+            }
+        }
+    }
+}
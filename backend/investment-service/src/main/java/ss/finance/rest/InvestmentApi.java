@@ -2,20 +2,24 @@ package ss.finance.rest;
 
 import java.util.List;
 import java.util.Map;
-import java.util.logging.Logger;
 
 import javax.inject.Inject;
 import javax.ws.rs.Consumes;
-import javax.ws.rs.CookieParam;
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.SecurityContext;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.bson.Document;
 import org.bson.types.ObjectId;
 import org.eclipse.microprofile.openapi.annotations.Operation;
@@ -25,17 +29,13 @@ import org.eclipse.microprofile.openapi.annotations.parameters.RequestBody;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 
-import com.mongodb.client.MongoClient;
-import com.mongodb.client.MongoClients;
-import com.mongodb.client.MongoDatabase;
-
-import jakarta.json.Json;
-import jakarta.json.JsonObject;
 import ss.finance.entities.Investment;
-import ss.finance.security.JwtUtil;
+import ss.finance.health.HealthService;
+import ss.finance.rabbit.TransactionConsumer;
+import ss.finance.security.Authenticated;
+import ss.finance.security.AuthenticatedUser;
 import ss.finance.services.InvestmentBean;
 
-
 @Tag(name = "Investments", description = "Endpoints for managing investments")
 @Path("/investments")
 @Produces(MediaType.APPLICATION_JSON)
@@ -46,40 +46,50 @@ public class InvestmentApi {
     private InvestmentBean investmentBean;
 
     @Inject
-    private JwtUtil jwtUtil;
+    private HealthService healthService;
 
-    private static final Logger logger = Logger.getLogger(InvestmentApi.class.getName());
+    @Inject
+    private TransactionConsumer transactionConsumer;
 
-    private static final String MONGO_URI = System.getenv("MONGO_URL");
-    private static final String DATABASE_NAME = System.getenv("DATABASE_NAME");
+    private static final Logger logger = LogManager.getLogger(InvestmentApi.class);
 
+    @Operation(summary = "Health check", description = "Returns the readiness of the Investment microservice. Kept for existing probes, same as /health/ready.")
+    @APIResponse(responseCode = "200", description = "Service is up and running")
+    @APIResponse(responseCode = "503", description = "Service is down")
     @GET
     @Path("/health")
     public Response healthCheck() {
-        boolean isMongoUp = checkMongoDB();
-        boolean isServiceUp = true;
+        return healthService.readiness().with("Investment Service").toResponse();
+    }
 
-        JsonObject healthJson = Json.createObjectBuilder()
-                .add("status", isMongoUp ? "UP" : "DOWN")
-                .add("details", Json.createObjectBuilder()
-                        .add("MongoDB", isMongoUp ? "UP" : "DOWN")
-                        .add("Investment Service", isServiceUp ? "UP" : "DOWN")
-                        .build())
-                .build();
+    @Operation(summary = "Liveness check", description = "Returns UP while the process can serve requests. Does not check dependencies.")
+    @APIResponse(responseCode = "200", description = "Service is alive")
+    @GET
+    @Path("/health/live")
+    public Response livenessCheck() {
+        return healthService.liveness().toResponse();
+    }
 
-        int statusCode = isMongoUp ? Response.Status.OK.getStatusCode() : Response.Status.SERVICE_UNAVAILABLE.getStatusCode();
-        return Response.status(statusCode).entity(healthJson.toString()).build();
+    @Operation(summary = "Readiness check", description = "Pings MongoDB through the shared client and reports RabbitMQ state. Results are cached briefly.")
+    @APIResponse(responseCode = "200", description = "Service is ready")
+    @APIResponse(responseCode = "503", description = "A critical dependency is unavailable")
+    @GET
+    @Path("/health/ready")
+    public Response readinessCheck() {
+        return healthService.readiness().toResponse();
     }
 
-    private boolean checkMongoDB() {
-        try (MongoClient mongoClient = MongoClients.create(MONGO_URI)) {
-            MongoDatabase database = mongoClient.getDatabase(DATABASE_NAME);
-            database.listCollectionNames().first();
-            return true;
-        } catch (Exception e) {
-            logger.severe("MongoDB health check failed: " + e.getMessage());
-            return false;
-        }
+    @Operation(summary = "Get transaction consumer metrics",
+            description = "Returns batch size, linger time and throughput of the RabbitMQ transaction consumer")
+    @APIResponse(
+            responseCode = "200",
+            description = "Consumer metrics",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"batches\": 12, \"messages\": 1200, \"failedBatches\": 0, \"deadLettered\": 0, \"lastBatchSize\": 100, \"maxBatchSize\": 100, \"averageBatchSize\": 100.0, \"averageLingerMs\": 3.2, \"messagesPerSecond\": 40.0}"))
+    )
+    @GET
+    @Path("/consumer/metrics")
+    public Response getConsumerMetrics() {
+        return Response.ok(transactionConsumer.getMetrics().snapshot()).build();
     }
 
     @Operation(summary = "Get all investments",
@@ -92,29 +102,60 @@ public class InvestmentApi {
     @APIResponse(
             responseCode = "401",
             description = "Unauthorized access",
-            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"error\": \"Unauthorized access. Missing or invalid cookie.\"}"))
+            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"message\": \"Token is missing or invalid\"}"))
     )
     @APIResponse(
             responseCode = "500",
             description = "Server error occurred",
             content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"error\": \"Internal server error. Please try again later.\"}"))
     )
+    @Authenticated
     @GET
-    public Response getInvestments(@CookieParam("auth_token") String token) {
+    public Response getInvestments(@Context SecurityContext securityContext) {
         try {
-            if (token == null || token.isEmpty()) {
-                return Response.status(Response.Status.UNAUTHORIZED)
-                        .entity(Map.of("error", "Unauthorized access. Missing or invalid cookie."))
-                        .build();
-            }
-            ObjectId userId = jwtUtil.extractUserId(token);
+            ObjectId userId = AuthenticatedUser.userId(securityContext);
             List<Investment> investments = investmentBean.getAllInvestments(userId);
             return Response.ok(investments).build();
-        } catch (IllegalArgumentException e) {
-            return Response.status(Response.Status.UNAUTHORIZED)
-                    .entity(Map.of("error", "Invalid token."))
+        } catch (Exception e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("error", "Internal server error. Please try again later."))
                     .build();
+        }
+    }
+
+    @Operation(summary = "Get portfolio performance",
+            description = "Returns the value of the authenticated user's investments in EUR over the range, computed from the stored daily closes. Ranges over a year have one point per week.")
+    @APIResponse(
+            responseCode = "200",
+            description = "Portfolio value per day",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"range\": \"1m\", \"currency\": \"EUR\", \"points\": [{\"date\": \"2025-01-01\", \"value\": 1520.4}]}"))
+    )
+    @APIResponse(
+            responseCode = "400",
+            description = "Unsupported range",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"error\": \"Query parameter 'range' must be one of 1w, 1m, 3m, 6m, 1y, 5y.\"}"))
+    )
+    @APIResponse(
+            responseCode = "500",
+            description = "Server error occurred",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"error\": \"Internal server error. Please try again later.\"}"))
+    )
+    @Authenticated
+    @GET
+    @Path("/performance")
+    public Response getPerformance(@Context SecurityContext securityContext,
+                                   @QueryParam("range") @DefaultValue("1m") String range) {
+        if (!InvestmentBean.performanceRanges().contains(range)) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", "Query parameter 'range' must be one of "
+                            + String.join(", ", InvestmentBean.performanceRanges()) + "."))
+                    .build();
+        }
+        try {
+            ObjectId userId = AuthenticatedUser.userId(securityContext);
+            return Response.ok(investmentBean.getPerformance(userId, range)).build();
         } catch (Exception e) {
+            logger.error("Error computing portfolio performance: {}", e.getMessage());
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity(Map.of("error", "Internal server error. Please try again later."))
                     .build();
@@ -131,7 +172,7 @@ public class InvestmentApi {
     @APIResponse(
             responseCode = "401",
             description = "Unauthorized access",
-            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"error\": \"Unauthorized access. Missing or invalid cookie.\"}"))
+            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"message\": \"Token is missing or invalid\"}"))
     )
     @APIResponse(
             responseCode = "404",
@@ -143,16 +184,12 @@ public class InvestmentApi {
             description = "Server error occurred",
             content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"error\": \"Internal server error. Please try again later.\"}"))
     )
+    @Authenticated
     @GET
     @Path("/{id}")
-    public Response getInvestmentById(@CookieParam("auth_token") String token, @PathParam("id") String id) {
+    public Response getInvestmentById(@Context SecurityContext securityContext, @PathParam("id") String id) {
         try {
-            if (token == null || token.isEmpty()) {
-                return Response.status(Response.Status.UNAUTHORIZED)
-                        .entity(Map.of("error", "Unauthorized access. Missing or invalid cookie."))
-                        .build();
-            }
-            ObjectId userId = jwtUtil.extractUserId(token);
+            ObjectId userId = AuthenticatedUser.userId(securityContext);
             ObjectId investmentId = new ObjectId(id);
             Investment investment = investmentBean.getInvestment(investmentId);
 
@@ -191,8 +228,9 @@ public class InvestmentApi {
             description = "Server error occurred",
             content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"error\": \"Internal server error. Please try again later.\"}"))
     )
+    @Authenticated
     @POST
-    public Response addInvestment(@CookieParam("auth_token") String token, @RequestBody(
+    public Response addInvestment(@Context SecurityContext securityContext, @RequestBody(
             description = "Investment details including type, name, amount, quantity, and purchase date",
             required = true,
             content = @Content(
@@ -203,7 +241,7 @@ public class InvestmentApi {
             )
     )Investment investment) {
         try {
-            ObjectId userId = jwtUtil.extractUserId(token);
+            ObjectId userId = AuthenticatedUser.userId(securityContext);
             investment.setUserId(userId);
 
             if (investment.getType() == null || investment.getType().isEmpty() ||
@@ -220,12 +258,12 @@ public class InvestmentApi {
             investmentBean.addInvestment(investment);
             return Response.status(Response.Status.CREATED).entity(Map.of("message", "Investment created successfully")).build();
         } catch (IllegalArgumentException e) {
-            logger.warning("Validation failed: " + e.getMessage());
+            logger.warn("Validation failed: {}", e.getMessage());
             return Response.status(Response.Status.BAD_REQUEST)
                     .entity(Map.of("error", e.getMessage()))
                     .build();
         } catch (Exception e) {
-            logger.severe("Unexpected error occurred: " + e.getMessage());
+            logger.error("Unexpected error occurred: {}", e.getMessage());
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity(Map.of("error", "Internal server error."))
                     .build();
@@ -247,7 +285,7 @@ public class InvestmentApi {
     @APIResponse(
             responseCode = "401",
             description = "Unauthorized access",
-            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"error\": \"Unauthorized access. Missing or invalid cookie.\"}"))
+            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"message\": \"Token is missing or invalid\"}"))
     )
     @APIResponse(
             responseCode = "404",
@@ -259,16 +297,12 @@ public class InvestmentApi {
             description = "Server error occurred",
             content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"error\": \"Internal server error. Please try again later.\"}"))
     )
+    @Authenticated
     @DELETE
     @Path("/{id}")
-    public Response deleteInvestment(@CookieParam("auth_token") String token, @PathParam("id") String id) {
+    public Response deleteInvestment(@Context SecurityContext securityContext, @PathParam("id") String id) {
         try {
-            if (token == null || token.isEmpty()) {
-                return Response.status(Response.Status.UNAUTHORIZED)
-                        .entity(Map.of("error", "Unauthorized access. Missing or invalid cookie."))
-                        .build();
-            }
-            ObjectId userId = jwtUtil.extractUserId(token);
+            ObjectId userId = AuthenticatedUser.userId(securityContext);
             ObjectId investmentId = new ObjectId(id);
             boolean deleted = investmentBean.deleteInvestment(investmentId);
 
@@ -300,7 +334,7 @@ public class InvestmentApi {
         @APIResponse(
                 responseCode = "401",
                 description = "Unauthorized access",
-                content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"error\": \"Unauthorized access. Missing or invalid cookie.\"}"))
+                content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"message\": \"Token is missing or invalid\"}"))
         )
         @APIResponse(
                 responseCode = "404",
@@ -313,18 +347,13 @@ public class InvestmentApi {
                 content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"error\": \"Internal server error. Please try again later.\"}"))
         )
 
+        @Authenticated
         @GET
         @Path("/transactions/last")
-        public Response getLastTransaction(@CookieParam("auth_token") String token) {
+        public Response getLastTransaction(@Context SecurityContext securityContext) {
             try {
-                if (token == null || token.isEmpty()) {
-                    return Response.status(Response.Status.UNAUTHORIZED)
-                            .entity(Map.of("error", "Unauthorized access. Missing or invalid cookie."))
-                            .build();
-                }
-        
                 // Pridobitev userId kot String
-                String userId = jwtUtil.extractUserId(token).toHexString();
+                String userId = AuthenticatedUser.userId(securityContext).toHexString();
         
                 // Pridobitev zadnje transakcije
                 Document lastTransaction = investmentBean.getLastTransaction(userId);
@@ -337,7 +366,7 @@ public class InvestmentApi {
                             .build();
                 }
             } catch (Exception e) {
-                logger.severe("Unexpected error occurred while fetching last transaction: " + e.getMessage());
+                logger.error("Unexpected error occurred while fetching last transaction: {}", e.getMessage());
                 return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                         .entity(Map.of("error", "Internal server error. Please try again later."))
                         .build();
@@ -354,7 +383,7 @@ public class InvestmentApi {
         @APIResponse(
                 responseCode = "401",
                 description = "Unauthorized access",
-                content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"error\": \"Unauthorized access. Missing or invalid cookie.\"}"))
+                content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"message\": \"Token is missing or invalid\"}"))
         )
         @APIResponse(
                 responseCode = "500",
@@ -362,17 +391,12 @@ public class InvestmentApi {
                 content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"error\": \"Internal server error. Please try again later.\"}"))
         )
         
+        @Authenticated
         @GET
         @Path("/transactions")
-        public Response getAllTransactions(@CookieParam("auth_token") String token) {
+        public Response getAllTransactions(@Context SecurityContext securityContext) {
             try {
-                if (token == null || token.isEmpty()) {
-                        return Response.status(Response.Status.UNAUTHORIZED)
-                                .entity(Map.of("error", "Unauthorized access. Missing or invalid cookie."))
-                                .build();
-                }
-        
-                String userId = jwtUtil.extractUserId(token).toHexString(); // Pretvorite ObjectId v String
+                String userId = AuthenticatedUser.userId(securityContext).toHexString(); // Pretvorite ObjectId v String
                 List<Document> transactions = investmentBean.getAllTransactions(userId); // Posredujte userId kot String
         
                 if (transactions.isEmpty()) {
@@ -380,12 +404,8 @@ public class InvestmentApi {
                 }
         
                 return Response.ok(transactions).build(); // Vrnemo seznam transakcij
-            } catch (IllegalArgumentException e) {
-                return Response.status(Response.Status.UNAUTHORIZED)
-                        .entity(Map.of("error", "Invalid token."))
-                        .build();
             } catch (Exception e) {
-                logger.severe("Unexpected error occurred: " + e.getMessage());
+                logger.error("Unexpected error occurred: {}", e.getMessage());
                 return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                         .entity(Map.of("error", "Internal server error. Please try again later."))
                         .build();
@@ -401,25 +421,20 @@ public class InvestmentApi {
         @APIResponse(
                 responseCode = "401",
                 description = "Unauthorized access",
-                content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"error\": \"Unauthorized access. Missing or invalid cookie.\"}"))
+                content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"message\": \"Token is missing or invalid\"}"))
         )
         @APIResponse(
                 responseCode = "500",
                 description = "Server error occurred",
                 content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"error\": \"Internal server error. Please try again later.\"}"))
         )
+        @Authenticated
         @DELETE
         @Path("/transactions")
-        public Response deleteAllTransactions(@CookieParam("auth_token") String token) {
+        public Response deleteAllTransactions(@Context SecurityContext securityContext) {
         try {
-                if (token == null || token.isEmpty()) {
-                return Response.status(Response.Status.UNAUTHORIZED)
-                        .entity(Map.of("error", "Unauthorized access. Missing or invalid cookie."))
-                        .build();
-                }
-
                 // Pridobitev userId iz tokena
-                String userId = jwtUtil.extractUserId(token).toHexString();
+                String userId = AuthenticatedUser.userId(securityContext).toHexString();
 
                 // Klic metode za brisanje vseh transakcij
                 boolean deleted = investmentBean.deleteAllTransactions(userId);
@@ -432,7 +447,7 @@ public class InvestmentApi {
                         .build();
                 }
         } catch (Exception e) {
-                logger.severe("Unexpected error occurred while deleting transactions: " + e.getMessage());
+                logger.error("Unexpected error occurred while deleting transactions: {}", e.getMessage());
                 return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                         .entity(Map.of("error", "Internal server error. Please try again later."))
                         .build();
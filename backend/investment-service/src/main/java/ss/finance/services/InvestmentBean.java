@@ -1,41 +1,88 @@
 package ss.finance.services;
 
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Scanner;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.logging.Logger;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
 
-import javax.annotation.PostConstruct;
 import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.Initialized;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.bson.Document;
+import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
-import org.json.JSONObject;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kumuluz.ee.configuration.utils.ConfigurationUtil;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
-import com.rabbitmq.client.Channel;
-import com.rabbitmq.client.Connection;
-import com.rabbitmq.client.GetResponse;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.WriteModel;
 
 import ss.finance.entities.Investment;
-import ss.finance.rabbit.RabbitMQConfig;
+import ss.finance.events.TransactionEvent;
+import ss.finance.indexes.IndexDefinition;
+import ss.finance.indexes.IndexRegistry;
+import ss.finance.indexes.QueryCheck;
+import ss.finance.prices.PriceHistory;
+import ss.finance.prices.PriceSnapshots;
+import ss.finance.prices.PriceSymbols;
+import ss.finance.prices.PriceTicker;
 import ss.finance.utils.MongoDBConnection;
 
 @ApplicationScoped
 public class InvestmentBean {
     private MongoCollection<Document> investmentCollection; // Zbirka za investicije
     private MongoCollection<Document> transactionCollection; // Zbirka za transakcije
-    private static final Logger logger = Logger.getLogger(InvestmentBean.class.getName());
-    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final long staleAfterMs;
+    private static final Logger logger = LogManager.getLogger(InvestmentBean.class);
+    // Ranges of GET /investments/performance; ranges over a year have one point per week
+    private static final Map<String, Period> PERFORMANCE_RANGES = new LinkedHashMap<>();
+    // Weekends and holidays have no close, the last earlier one is used
+    private static final int MAX_CLOSE_AGE_DAYS = 7;
+
+    static {
+        PERFORMANCE_RANGES.put("1w", Period.ofWeeks(1));
+        PERFORMANCE_RANGES.put("1m", Period.ofMonths(1));
+        PERFORMANCE_RANGES.put("3m", Period.ofMonths(3));
+        PERFORMANCE_RANGES.put("6m", Period.ofMonths(6));
+        PERFORMANCE_RANGES.put("1y", Period.ofYears(1));
+        PERFORMANCE_RANGES.put("5y", Period.ofYears(5));
+    }
+
+    @Inject
+    private IndexRegistry indexRegistry;
+
+    @Inject
+    private PriceSnapshots priceSnapshots;
+
+    @Inject
+    private PriceTicker priceTicker;
+
+    @Inject
+    private PriceHistory priceHistory;
 
 
     public InvestmentBean() {
@@ -44,138 +91,135 @@ public class InvestmentBean {
         // Inicializacija zbirk
         this.investmentCollection = database.getCollection("investments"); // Zbirka za investicije
         this.transactionCollection = database.getCollection("transXinvst"); // Zbirka za transakcije
+        this.staleAfterMs = ConfigurationUtil.getInstance().getLong("prices.stale-after-ms").orElse(300000L);
     }
 
-    @PostConstruct
-    public void init() {
-        try {
-            logger.info("Delaying RabbitMQ listener initialization for 10 seconds...");
-            Thread.sleep(10000); // Delay to ensure RabbitMQ is ready
-    
-            logger.info("Initializing RabbitMQ listener for InvestmentService...");
-            
-            // Zaženemo RabbitMQ consumer v ločeni niti
-            executor.submit(() -> {
-                try {
-                    startRabbitMQConsumer();
-                } catch (Exception e) {
-                    logger.severe("RabbitMQ consumer initialization failed: " + e.getMessage());
-                }
-            });
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            logger.warning("Initialization delay was interrupted: " + e.getMessage());
-        }
+    public void registerIndexes(@Observes @Initialized(ApplicationScoped.class) Object init) {
+        indexRegistry.register(
+                IndexDefinition.on("investments", Indexes.ascending("userId")),
+                // Covers the distinct symbols per type that the price ticker collects
+                IndexDefinition.on("investments", Indexes.ascending("type", "name")),
+                IndexDefinition.on("transXinvst", Indexes.compoundIndex(
+                        Indexes.ascending("userId"), Indexes.descending("timestamp"))),
+                // Stale events are detected through duplicate keys on this index
+                IndexDefinition.on("transXinvst", Indexes.ascending("transactionId"))
+                        .unique()
+                        .partial(Filters.exists("transactionId")));
+
+        ObjectId sampleUser = new ObjectId();
+        indexRegistry.verify(
+                QueryCheck.find("investments by user", "investments", Filters.eq("userId", sampleUser)),
+                QueryCheck.find("investment transactions by user", "transXinvst",
+                                Filters.and(Filters.eq("userId", sampleUser.toHexString()), Filters.ne("deleted", true)))
+                        .sort(new Document("timestamp", -1)));
     }
 
-    public void startRabbitMQConsumer() {
-        while (true) { // Zanko prestavimo sem, da lahko ob napaki znova vzpostavimo povezavo
-            try (Connection connection = RabbitMQConfig.createConnection();
-                 Channel channel = connection.createChannel()) {
-    
-                String queueName = RabbitMQConfig.getQueueName();
-                logger.info("Connecting to RabbitMQ queue: " + queueName);
-    
-                while (true) {
-                    try {
-                        // Pridobi naslednje sporočilo iz vrste, če obstaja
-                        GetResponse response = channel.basicGet(queueName, true); // true za avtomatsko potrjevanje
-    
-                        if (response != null) {
-                            String message = new String(response.getBody(), "UTF-8");
-                            logger.info("Pulled message: " + message);
-                            processMessage(message); // Obdelava prejetega sporočila
-                        } else {
-                            logger.info("No messages in the queue.");
-                        }
-    
-                        // Počakajte 5 sekund pred naslednjim preverjanjem
-                        int sleepTime = (response != null) ? 1000 : 5000;
-                        Thread.sleep(sleepTime);
-                    } catch (InterruptedException e) {
-                        logger.warning("Thread interrupted while sleeping: " + e.getMessage());
-                        Thread.currentThread().interrupt(); // Ponastavite zastavico prekinjene niti
-                    } catch (Exception e) {
-                        logger.severe("Error while processing messages: " + e.getMessage());
-                    }
-                }
-            } catch (Exception e) {
-                logger.severe("RabbitMQ connection failed, retrying in 10 seconds: " + e.getMessage());
-                try {
-                    Thread.sleep(10000); // Počakaj 10 sekund pred ponovnim poskusom
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    logger.warning("Retry delay interrupted: " + ie.getMessage());
-                }
-            }
-        }
-    }
-
-    /* 
-    private void processMessage(String message) {
-        logger.info("Received a new transaction: " + message);
-        logger.info("RabbitMQ messages work! 😊");
-        logger.info("Thank you for using our service! 😊");
-    }
-    */
-
-    private void processMessage(String message) {
-        try {
-            // Parsiranje prejetega sporočila
-            ObjectMapper objectMapper = new ObjectMapper();
-            InvestmentMessage transaction = objectMapper.readValue(message, InvestmentMessage.class);
-    
+    /**
+     * Applies a batch of transaction events received from the queue with one unordered bulkWrite.
+     * Events are upserts keyed by transactionId that only replace an older version, so
+     * redelivered and reordered events are harmless: a stale event fails on the unique
+     * transactionId index with a duplicate key error. Two events of a new transaction can also
+     * race on the insert of the upsert, so events that hit a duplicate key are retried once as a
+     * plain replace and only count as stale when that matches nothing. Deletes leave a tombstone
+     * so that a late created event cannot resurrect the row. Throws when the write fails so the
+     * consumer can requeue the batch; a MongoBulkWriteException reports, by their index in the
+     * batch, which events were not applied, where duplicate keys are stale events, and carries
+     * the write concern error when the writes may not have been acknowledged.
+     */
+    public void saveTransactions(List<InvestmentMessage> transactions) {
+        List<WriteModel<Document>> writes = new ArrayList<>(transactions.size());
+        for (InvestmentMessage transaction : transactions) {
             // Nastavimo trenutni čas, če timestamp ni nastavljen
             if (transaction.getTimestamp() == null) {
                 transaction.setTimestamp(new Date());
             }
-    
-            logger.info("Processing transaction: Amount=" + transaction.getAmount() + 
-                        ", Type=" + transaction.getType() + 
-                        ", Timestamp=" + transaction.getTimestamp());
-    
-            // Shranimo transakcijo
-            saveTransaction(transaction);
-    
-        } catch (JsonProcessingException e) {
-            logger.severe("Failed to process message. Invalid JSON format: " + message);
-            logger.severe("Error details: " + e.getMessage());
-        } catch (Exception e) {
-            logger.severe("Unexpected error while processing message: " + e.getMessage());
-        }
-    }
-
-    private void saveTransaction(InvestmentMessage transaction) {
-        try {
             Document document = new Document()
                     .append("userId", transaction.getUserId()) // Uporabnik, ki je poslal transakcijo
                     .append("lastTransactionAmount", transaction.getAmount()) // Znesek transakcije
                     .append("lastTransactionType", transaction.getType()) // Tip transakcije (income/expense)
                     .append("timestamp", transaction.getTimestamp()); // Čas transakcije
-            
-            logger.info("Attempting to save transaction: " + document.toJson());
-            transactionCollection.insertOne(document); // Shranimo v zbirko MongoDB
-    
-            logger.info("Transaction saved: UserId=" + transaction.getUserId() +
-                        ", Amount=" + transaction.getAmount() +
-                        ", Type=" + transaction.getType() +
-                        ", Timestamp=" + transaction.getTimestamp());
+
+            if (transaction.getTransactionId() == null) {
+                // Sporočila v starem JSON formatu nimajo ID-ja transakcije
+                writes.add(new InsertOneModel<>(document));
+                continue;
+            }
+            document.append("transactionId", transaction.getTransactionId())
+                    .append("version", transaction.getVersion())
+                    .append("deleted", transaction.getEventType() == TransactionEvent.EventType.DELETED);
+            Bson olderVersion = Filters.and(
+                    Filters.eq("transactionId", transaction.getTransactionId()),
+                    Filters.or(Filters.exists("version", false), Filters.lt("version", transaction.getVersion())));
+            writes.add(new ReplaceOneModel<>(olderVersion, document, new ReplaceOptions().upsert(true)));
+        }
+
+        try {
+            transactionCollection.bulkWrite(writes, new BulkWriteOptions().ordered(false)); // Shranimo v zbirko MongoDB
+            logger.info("Applied batch of {} transaction events.", writes.size());
+        } catch (MongoBulkWriteException e) {
+            List<BulkWriteError> remaining = retryDuplicates(writes, e);
+            if (remaining.isEmpty() && e.getWriteConcernError() == null) {
+                logger.info("Applied batch of {} transaction events, {} stale.", writes.size(), e.getWriteErrors().size());
+                return;
+            }
+            logger.warn("Some transaction events in the batch were not applied: {}", e.getMessage());
+            // Indexes of the remaining errors point into this batch, as the consumer expects
+            throw new MongoBulkWriteException(e.getWriteResult(), remaining, e.getWriteConcernError(),
+                    e.getServerAddress(), e.getErrorLabels());
         } catch (Exception e) {
-            logger.severe("Error saving transaction to database: " + e.getMessage());
+            logger.error("Error saving transactions to database: {}", e.getMessage());
+            throw new RuntimeException("Error saving transactions", e);
         }
     }
 
+    // Replays the upserts that failed on a duplicate key without upsert, now that the row exists.
+    // Returns the errors that remain: the original ones that were not retried and those of the
+    // retry, both indexed by the position of the event in writes
+    private List<BulkWriteError> retryDuplicates(List<WriteModel<Document>> writes, MongoBulkWriteException e) {
+        List<BulkWriteError> remaining = new ArrayList<>();
+        List<WriteModel<Document>> retries = new ArrayList<>();
+        List<Integer> origins = new ArrayList<>();
+        for (BulkWriteError error : e.getWriteErrors()) {
+            WriteModel<Document> write = writes.get(error.getIndex());
+            if (error.getCategory() == ErrorCategory.DUPLICATE_KEY && write instanceof ReplaceOneModel) {
+                ReplaceOneModel<Document> upsert = (ReplaceOneModel<Document>) write;
+                retries.add(new ReplaceOneModel<>(upsert.getFilter(), upsert.getReplacement()));
+                origins.add(error.getIndex());
+            } else {
+                remaining.add(error);
+            }
+        }
+        if (retries.isEmpty()) {
+            return remaining;
+        }
+        try {
+            BulkWriteResult result = transactionCollection.bulkWrite(retries, new BulkWriteOptions().ordered(false));
+            logger.debug("Retried {} transaction events after a duplicate key, {} were stale.",
+                    retries.size(), retries.size() - result.getMatchedCount());
+        } catch (MongoBulkWriteException retry) {
+            for (BulkWriteError error : retry.getWriteErrors()) {
+                remaining.add(new BulkWriteError(error.getCode(), error.getMessage(), error.getDetails(),
+                        origins.get(error.getIndex())));
+            }
+            if (retry.getWriteConcernError() != null) {
+                throw new MongoBulkWriteException(retry.getWriteResult(), remaining, retry.getWriteConcernError(),
+                        retry.getServerAddress(), retry.getErrorLabels());
+            }
+        }
+        return remaining;
+    }
+
     public boolean deleteAllTransactions(String userId) {
         try {
-            logger.info("Deleting all transactions for userId: " + userId);
+            logger.info("Deleting all transactions for userId: {}", userId);
     
             // Brisanje vseh transakcij za določen userId
             transactionCollection.deleteMany(new Document("userId", userId));
     
-            logger.info("All transactions deleted successfully for userId: " + userId);
+            logger.info("All transactions deleted successfully for userId: {}", userId);
             return true;
         } catch (Exception e) {
-            logger.severe("Error deleting transactions: " + e.getMessage());
+            logger.error("Error deleting transactions: {}", e.getMessage());
             return false;
         }
     }
@@ -185,8 +229,9 @@ public class InvestmentBean {
             Document investmentDoc = toDocument(investment);
             investmentCollection.insertOne(investmentDoc);
             logger.info("Investment added successfully");
+            priceTicker.track(PriceSymbols.of(investment.getType(), investment.getName()));
         } catch (Exception e) {
-            logger.severe("Error adding investment: " + e.getMessage());
+            logger.error("Error adding investment: {}", e.getMessage());
             throw new RuntimeException("Error adding investment", e);
         }
     }
@@ -200,8 +245,9 @@ public class InvestmentBean {
                     new Document("$set", updateFields)
             );
             logger.info("Investment updated successfully");
+            priceTicker.track(PriceSymbols.of(updatedInvestment.getType(), updatedInvestment.getName()));
         } catch (Exception e) {
-            logger.severe("Error updating investment: " + e.getMessage());
+            logger.error("Error updating investment: {}", e.getMessage());
             throw new RuntimeException("Error updating investment", e);
         }
     }
@@ -213,94 +259,116 @@ public class InvestmentBean {
                 return toInvestment(doc);
             }
         } catch (Exception e) {
-            logger.severe("Error retrieving investment: " + e.getMessage());
+            logger.error("Error retrieving investment: {}", e.getMessage());
             throw new RuntimeException("Error retrieving investment", e);
         }
         return null;
     }
 
     public List<Investment> getAllInvestments(ObjectId userId) {
-        List<Investment> investments = new ArrayList<>();
-        try {
-            for (Document doc : investmentCollection.find(new Document("userId", userId))) {
-                Investment investment = toInvestment(doc);
-                double price = calculateCurrentPrice(investment);
-                investment.setCurrentPrice(price);
-                double value = calculateCurrentValue(investment);
-                investment.setCurrentValue(value);
-                investments.add(investment);
+        List<Investment> investments = findInvestments(userId);
+
+        // Prices come from the snapshots of the price ticker, one _id lookup for all holdings
+        Set<String> symbols = new LinkedHashSet<>();
+        for (Investment investment : investments) {
+            symbols.addAll(PriceSymbols.of(investment.getType(), investment.getName()));
+        }
+        Map<String, PriceSnapshots.Snapshot> snapshots = symbols.isEmpty()
+                ? Map.of()
+                : priceSnapshots.getSnapshots(symbols);
+        Map<String, Double> prices = new HashMap<>();
+        snapshots.forEach((symbol, snapshot) -> prices.put(symbol, snapshot.getPrice()));
+        long now = System.currentTimeMillis();
+        for (Investment investment : investments) {
+            investment.setCurrentPrice(PriceSymbols.priceInEur(investment, prices));
+            investment.setCurrentValue(calculateCurrentValue(investment));
+            // While the price API is down the last known price is served, flagged once it is too old
+            Date pricedAt = oldestFetchedAt(investment, snapshots);
+            if (investment.getCurrentPrice() != null && pricedAt != null) {
+                investment.setPriceUpdatedAt(pricedAt);
+                investment.setPriceStale(now - pricedAt.getTime() > staleAfterMs);
             }
-        } catch (Exception e) {
-            logger.severe("Error retrieving all investments: " + e.getMessage());
-            throw new RuntimeException("Error retrieving all investments", e);
         }
         return investments;
     }
 
-    public boolean deleteInvestment(ObjectId investmentId) {
-        try {
-            investmentCollection.deleteOne(new Document("_id", investmentId));
-            logger.info("Investment deleted successfully");
-            return true;
-        } catch (Exception e) {
-            logger.severe("Error deleting investment: " + e.getMessage());
-            return false;
-        }
+    public static Set<String> performanceRanges() {
+        return Collections.unmodifiableSet(PERFORMANCE_RANGES.keySet());
     }
 
-    public Double calculateCurrentPrice(Investment i){
-        String baseUrl = System.getenv("API_URL");
-        String apiKey = System.getenv("API_KEY");
-        String type = i.getType();
-        String symbol = i.getName();
-        String url = "";
-
-        if(type.equals("stock")){
-            url = String.format("%s/price?symbol=%s,USD/EUR&apikey=%s", baseUrl, symbol, apiKey);
-        }else if(type.equals("crypto")){
-            url = String.format("%s/price?symbol=%s/EUR&apikey=%s", baseUrl, symbol, apiKey);
-        }else{
-            return (double)i.getAmount();
+    /**
+     * Value of the user's holdings in EUR over the range, from the daily closes of the
+     * {@link PriceHistory}: per day, the quantity of every holding bought by then times its close.
+     * Holdings without a close on or shortly before a day are left out of that day. Throws
+     * IllegalArgumentException for a range that is not one of {@link #performanceRanges()}.
+     */
+    public Map<String, Object> getPerformance(ObjectId userId, String range) {
+        Period period = PERFORMANCE_RANGES.get(range);
+        if (period == null) {
+            throw new IllegalArgumentException("Unsupported range: " + range);
         }
-
-        System.out.println("url: " + url);
-
-        try {
-            URL apiUrl = new URL(url);
-            HttpURLConnection conn = (HttpURLConnection) apiUrl.openConnection();
-            conn.setRequestMethod("GET");
-            conn.connect();
-
-            int responseCode = conn.getResponseCode();
-            if (responseCode != 200) {
-                throw new RuntimeException("Failed to fetch data: HTTP error code " + responseCode);
-            }
-
-            StringBuilder inline = new StringBuilder();
-            Scanner scanner = new Scanner(apiUrl.openStream());
-            while (scanner.hasNext()) {
-                inline.append(scanner.nextLine());
+        List<Investment> investments = findInvestments(userId);
+        LocalDate to = LocalDate.now(ZoneOffset.UTC);
+        LocalDate from = to.minus(period);
+        int step = period.toTotalMonths() > 12 ? 7 : 1;
+
+        Set<String> symbols = new LinkedHashSet<>();
+        for (Investment investment : investments) {
+            symbols.addAll(PriceSymbols.of(investment.getType(), investment.getName()));
+        }
+        Map<String, NavigableMap<LocalDate, Double>> closes = symbols.isEmpty()
+                ? Map.of()
+                : priceHistory.getCloses(symbols, from.minusDays(MAX_CLOSE_AGE_DAYS), to);
+
+        // Counted back from today, so that the last point is always today
+        List<LocalDate> days = new ArrayList<>();
+        for (LocalDate day = to; !day.isBefore(from); day = day.minusDays(step)) {
+            days.add(day);
+        }
+        Collections.reverse(days);
+
+        List<Map<String, Object>> points = new ArrayList<>(days.size());
+        for (LocalDate day : days) {
+            Map<String, Double> prices = new HashMap<>();
+            for (Map.Entry<String, NavigableMap<LocalDate, Double>> series : closes.entrySet()) {
+                Map.Entry<LocalDate, Double> close = series.getValue().floorEntry(day);
+                if (close != null && !close.getKey().isBefore(day.minusDays(MAX_CLOSE_AGE_DAYS))) {
+                    prices.put(series.getKey(), close.getValue());
+                }
             }
-            scanner.close();
-
-            JSONObject response = new JSONObject(inline.toString());
-
-            double priceInEur;
-            if (type.equals("stock")) {
-                double priceInUsd = response.getJSONObject(symbol).getDouble("price");
-                double usdToEur = response.getJSONObject("USD/EUR").getDouble("price");
-                priceInEur = priceInUsd * usdToEur;
-            } else {
-                priceInEur = response.getDouble("price");
+            double value = 0;
+            for (Investment investment : investments) {
+                Date purchaseDate = investment.getPurchaseDate();
+                if (purchaseDate != null
+                        && LocalDate.ofInstant(purchaseDate.toInstant(), ZoneOffset.UTC).isAfter(day)) {
+                    continue;
+                }
+                Double price = PriceSymbols.priceInEur(investment, prices);
+                if (price != null && investment.getQuantity() != null) {
+                    value += price * investment.getQuantity();
+                }
             }
+            Map<String, Object> point = new LinkedHashMap<>();
+            point.put("date", day.toString());
+            point.put("value", Math.round(value * 100) / 100.0);
+            points.add(point);
+        }
 
-            System.out.println("price in eur: " + priceInEur);
-
-            return priceInEur;
+        Map<String, Object> performance = new LinkedHashMap<>();
+        performance.put("range", range);
+        performance.put("currency", "EUR");
+        performance.put("points", points);
+        return performance;
+    }
 
+    public boolean deleteInvestment(ObjectId investmentId) {
+        try {
+            investmentCollection.deleteOne(new Document("_id", investmentId));
+            logger.info("Investment deleted successfully");
+            return true;
         } catch (Exception e) {
-            logger.severe("Error while calculating current value"+ e.getMessage());
-            return null;
+            logger.error("Error deleting investment: {}", e.getMessage());
+            return false;
         }
     }
 
@@ -313,27 +381,52 @@ public class InvestmentBean {
 
     public Document getLastTransaction(String userId) {
         try {
-            return transactionCollection.find(new Document("userId", userId))
+            return transactionCollection.find(Filters.and(Filters.eq("userId", userId), Filters.ne("deleted", true)))
                     .sort(new Document("timestamp", -1)) // Razvrsti po datumu (najnovejša prva)
                     .first(); // Vrne prvo najnovejšo transakcijo
         } catch (Exception e) {
-            logger.severe("Error retrieving last transaction: " + e.getMessage());
+            logger.error("Error retrieving last transaction: {}", e.getMessage());
             return null;
         }
     }
 
     public List<Document> getAllTransactions(String userId) {
-        logger.info("Querying database for transactions with userId: " + userId);
+        logger.debug("Querying database for transactions with userId: {}", userId);
     
-        List<Document> transactions = transactionCollection.find(new Document("userId", userId)) // userId kot String
+        List<Document> transactions = transactionCollection.find(Filters.and(Filters.eq("userId", userId), Filters.ne("deleted", true))) // userId kot String
                 .sort(new Document("timestamp", -1)) // Razvrstitev po datumu (najnovejša prva)
                 .into(new ArrayList<>());
     
-        logger.info("Transactions found: " + transactions.size());
+        logger.info("Transactions found: {}", transactions.size());
         return transactions;
     }
 
 
+    private static Date oldestFetchedAt(Investment investment, Map<String, PriceSnapshots.Snapshot> snapshots) {
+        Date oldest = null;
+        for (String symbol : PriceSymbols.of(investment.getType(), investment.getName())) {
+            PriceSnapshots.Snapshot snapshot = snapshots.get(symbol);
+            Date fetchedAt = snapshot == null ? null : snapshot.getFetchedAt();
+            if (fetchedAt != null && (oldest == null || fetchedAt.before(oldest))) {
+                oldest = fetchedAt;
+            }
+        }
+        return oldest;
+    }
+
+    private List<Investment> findInvestments(ObjectId userId) {
+        List<Investment> investments = new ArrayList<>();
+        try {
+            for (Document doc : investmentCollection.find(new Document("userId", userId))) {
+                investments.add(toInvestment(doc));
+            }
+        } catch (Exception e) {
+            logger.error("Error retrieving all investments: {}", e.getMessage());
+            throw new RuntimeException("Error retrieving all investments", e);
+        }
+        return investments;
+    }
+
     private Document toDocument(Investment investment) {
         return new Document()
                 .append("userId", investment.getUserId())
@@ -6,10 +6,19 @@ import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 
+import ss.finance.events.TransactionEvent;
 import ss.finance.serializer.ObjectIdSerializer;
 
+/**
+ * Transaction as the investment service stores it. Built from the binary
+ * {@link TransactionEvent}; the Jackson mapping only remains for JSON messages that
+ * were queued before the binary format was introduced.
+ */
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class InvestmentMessage {
+    private String transactionId;
+    private TransactionEvent.EventType eventType;
+    private long version;
     @JsonSerialize(using=ObjectIdSerializer.class)
     private String userId;
     private String type; // "income" ali "expense"
@@ -18,7 +27,43 @@ public class InvestmentMessage {
     private Date timestamp; // Dodamo timestamp
 
 
+    public static InvestmentMessage fromEvent(TransactionEvent event) {
+        InvestmentMessage message = new InvestmentMessage();
+        message.setTransactionId(event.getTransactionId().toHexString());
+        message.setEventType(event.getEventType());
+        message.setVersion(event.getVersion());
+        message.setUserId(event.getUserId().toHexString());
+        message.setType(event.getType());
+        message.setAmount(event.getAmount());
+        message.setTimestamp(new Date(event.getDate()));
+        return message;
+    }
+
     // Getters in setters
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    public void setTransactionId(String transactionId) {
+        this.transactionId = transactionId;
+    }
+
+    public TransactionEvent.EventType getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(TransactionEvent.EventType eventType) {
+        this.eventType = eventType;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public String getUserId() {
         return userId;
     }
@@ -0,0 +1,123 @@
+package ss.finance.prices;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ss.finance.testing.TestConfiguration;
+
+class CircuitBreakerTest {
+
+    @BeforeAll
+    static void initConfiguration() {
+        TestConfiguration.initialize();
+    }
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(5);
+
+    private final AtomicLong clock = new AtomicLong();
+    private CircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        // Okno 10 klicev, odpre se pri 50 % napak ali počasnih klicev, odprt ostane 30 s
+        breaker = new CircuitBreaker("test", 10, 4, 50, TimeUnit.SECONDS.toNanos(3), 50,
+                TimeUnit.SECONDS.toNanos(30), 2, clock::get);
+    }
+
+    @Test
+    void testOpensWhenFailureRateIsReached() {
+        call(true, FAST);
+        call(true, FAST);
+        call(false, FAST);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+
+        call(false, FAST);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+        assertTrue(breaker.isOpen());
+    }
+
+    @Test
+    void testOpensWhenCallsAreSlow() {
+        for (int i = 0; i < 4; i++) {
+            call(true, i % 2 == 0 ? SLOW : FAST);
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    }
+
+    @Test
+    void testDoesNotOpenBeforeMinimumCalls() {
+        call(false, FAST);
+        call(false, FAST);
+        call(false, FAST);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void testOldOutcomesLeaveTheWindow() {
+        call(false, FAST);
+        for (int i = 0; i < 9; i++) {
+            call(true, FAST);
+        }
+        // Prva napaka izpade iz okna, zato so 4 napake od 10 klicev pod pragom
+        for (int i = 0; i < 4; i++) {
+            call(false, FAST);
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void testClosesAfterSuccessfulTrialCalls() {
+        open();
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+
+        assertFalse(breaker.isOpen());
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+        // Le dva poskusna klica naenkrat
+        assertFalse(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+
+        breaker.onResult(true, FAST);
+        breaker.onResult(true, FAST);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void testFailedTrialCallOpensAgain() {
+        open();
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+
+        assertTrue(breaker.tryAcquire());
+        breaker.onResult(false, FAST);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    private void open() {
+        for (int i = 0; i < 4; i++) {
+            call(false, FAST);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    }
+
+    private void call(boolean success, long durationNanos) {
+        assertTrue(breaker.tryAcquire());
+        breaker.onResult(success, durationNanos);
+    }
+}
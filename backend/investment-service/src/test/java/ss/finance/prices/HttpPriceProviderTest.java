@@ -0,0 +1,73 @@
+package ss.finance.prices;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import ss.finance.testing.TestConfiguration;
+
+class HttpPriceProviderTest {
+
+    @BeforeAll
+    static void initConfiguration() {
+        TestConfiguration.initialize();
+    }
+
+    @Test
+    void testParseSingleSymbol() {
+        Map<String, Double> prices = HttpPriceProvider.parse(List.of("NVDA"), "{\"price\":\"120.50\"}");
+
+        assertEquals(Map.of("NVDA", 120.5), prices);
+    }
+
+    @Test
+    void testParseSeveralSymbols() {
+        String body = "{\"NVDA\":{\"price\":\"120.50\"},\"BTC/EUR\":{\"price\":40000}}";
+
+        Map<String, Double> prices = HttpPriceProvider.parse(List.of("NVDA", "BTC/EUR"), body);
+
+        assertEquals(Map.of("NVDA", 120.5, "BTC/EUR", 40000.0), prices);
+    }
+
+    @Test
+    void testParseSkipsUnknownSymbol() {
+        // Neznan simbol ponudnik vrne kot napako brez cene
+        String body = "{\"NVDA\":{\"price\":\"120.50\"},"
+                + "\"ACME\":{\"code\":400,\"message\":\"**symbol** not found: ACME\",\"status\":\"error\"}}";
+
+        Map<String, Double> prices = HttpPriceProvider.parse(List.of("NVDA", "ACME", "MISSING"), body);
+
+        assertEquals(Map.of("NVDA", 120.5), prices);
+    }
+
+    @Test
+    void testParseErrorObjectForSingleSymbol() {
+        String body = "{\"code\":429,\"message\":\"You have run out of API credits\",\"status\":\"error\"}";
+
+        assertTrue(HttpPriceProvider.parse(List.of("NVDA"), body).isEmpty());
+    }
+
+    @Test
+    void testParseTimeSeriesReadsDailyCloses() {
+        String body = "{\"meta\":{\"symbol\":\"NVDA\"},\"values\":["
+                + "{\"datetime\":\"2024-01-03\",\"close\":\"475.69\"},"
+                + "{\"datetime\":\"2024-01-02 00:00:00\",\"close\":\"481.68\"},"
+                + "{\"datetime\":\"2024-01-01\"}]}";
+
+        Map<LocalDate, Double> closes = HttpPriceProvider.parseTimeSeries("NVDA", body);
+
+        assertEquals(Map.of(LocalDate.of(2024, 1, 3), 475.69, LocalDate.of(2024, 1, 2), 481.68), closes);
+    }
+
+    @Test
+    void testParseTimeSeriesErrorObjectHasNoCloses() {
+        String body = "{\"code\":404,\"message\":\"**symbol** not found: ACME\",\"status\":\"error\"}";
+
+        assertTrue(HttpPriceProvider.parseTimeSeries("ACME", body).isEmpty());
+    }
+}
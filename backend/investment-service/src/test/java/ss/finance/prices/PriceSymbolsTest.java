@@ -0,0 +1,36 @@
+package ss.finance.prices;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.Test;
+
+import ss.finance.entities.Investment;
+
+class PriceSymbolsTest {
+
+    @Test
+    void testSymbolsOfStockAndCrypto() {
+        assertEquals(List.of("NVDA", PriceProvider.USD_EUR), PriceSymbols.of("stock", "NVDA"));
+        assertEquals(List.of("BTC/EUR"), PriceSymbols.of("crypto", "BTC"));
+        assertEquals(List.of(), PriceSymbols.of("bond", "DE0001102580"));
+    }
+
+    @Test
+    void testHoldingWithoutNameHasNoSymbols() {
+        assertEquals(List.of(), PriceSymbols.of("stock", null));
+        assertEquals(List.of(), PriceSymbols.of("crypto", " "));
+    }
+
+    @Test
+    void testHoldingWithoutNameHasNoPrice() {
+        Investment investment = new Investment();
+        investment.setType("crypto");
+        investment.setAmount(100.0);
+
+        // Map.of ne dovoli iskanja po null ključu
+        assertNull(PriceSymbols.priceInEur(investment, Map.of("BTC/EUR", 40000.0)));
+    }
+}
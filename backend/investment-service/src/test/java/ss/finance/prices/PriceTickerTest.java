@@ -0,0 +1,237 @@
+package ss.finance.prices;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.WriteError;
+import com.mongodb.client.DistinctIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.UpdateOptions;
+
+import ss.finance.testing.TestConfiguration;
+
+@ExtendWith(MockitoExtension.class)
+class PriceTickerTest {
+
+    @BeforeAll
+    static void initConfiguration() {
+        TestConfiguration.initialize();
+    }
+
+    @Mock
+    private MongoDatabase database;
+
+    @Mock
+    private MongoCollection<Document> investments;
+
+    @Mock
+    private MongoCollection<Document> locks;
+
+    @Mock
+    private QuoteCache quoteCache;
+
+    @Mock
+    private PriceSnapshots snapshots;
+
+    @Mock
+    private PriceHistory history;
+
+    @Mock
+    private HttpPriceProvider upstream;
+
+    @Mock
+    private Clock clock;
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private PriceTicker ticker;
+
+    @BeforeEach
+    void setUp() {
+        when(database.getCollection("investments")).thenReturn(investments);
+        when(database.getCollection("locks")).thenReturn(locks);
+        lenient().when(clock.millis()).thenAnswer(invocation -> now.get());
+        lenient().when(quoteCache.refresh(anySet())).thenAnswer(invocation -> {
+            Map<String, PriceSnapshots.Snapshot> prices = new HashMap<>();
+            for (Object symbol : (Set<?>) invocation.getArgument(0)) {
+                prices.put((String) symbol, new PriceSnapshots.Snapshot(1.0, new Date(now.get())));
+            }
+            return prices;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (ticker != null) {
+            ticker.stop();
+        }
+    }
+
+    @Test
+    void testTickFetchesMissingSymbolsFirstWithinBudgetPerRun() {
+        ticker = ticker(60000, 2);
+        holdings(List.of("NVDA"), List.of("BTC", "ETH"));
+        // NVDA je svež, tečaj je zastarel, kripto še nima posnetka
+        when(snapshots.getFetchedAt(anySet())).thenReturn(Map.of(
+                "NVDA", new Date(now.get() - 1000),
+                PriceProvider.USD_EUR, new Date(now.get() - 600000)));
+
+        ticker.tick();
+
+        verify(quoteCache).refresh(Set.of("BTC/EUR", "ETH/EUR"));
+        verify(snapshots).save(anyMap());
+        verify(history).record(anyMap(), any(LocalDate.class));
+        // Ves proračun je porabljen, za dopolnjevanje zgodovine ga ne ostane
+        verify(snapshots, never()).withoutHistory(anySet());
+    }
+
+    @Test
+    void testBudgetPerMinuteIsSharedByRuns() {
+        ticker = ticker(30000, 4);
+        holdings(List.of(), List.of("BTC", "ETH", "SOL"));
+        when(snapshots.getFetchedAt(anySet())).thenReturn(Map.of());
+
+        ticker.tick();
+        now.addAndGet(30000);
+        ticker.tick();
+        now.addAndGet(10000);
+        // Proračun te minute je porabljen
+        ticker.tick();
+        now.addAndGet(20000);
+        ticker.tick();
+
+        ArgumentCaptor<Set<String>> fetched = ArgumentCaptor.forClass(Set.class);
+        verify(quoteCache, times(3)).refresh(fetched.capture());
+        assertEquals(List.of(2, 2, 2), fetched.getAllValues().stream().map(Set::size).toList());
+    }
+
+    @Test
+    void testLeftoverBudgetBackfillsHistory() {
+        ticker = ticker(60000, 3);
+        holdings(List.of(), List.of("BTC", "ETH"));
+        when(snapshots.getFetchedAt(anySet())).thenReturn(Map.of("ETH/EUR", new Date(now.get())));
+        when(upstream.isAvailable()).thenReturn(true);
+        when(snapshots.withoutHistory(anySet())).thenReturn(Set.of("BTC/EUR", "ETH/EUR"));
+        when(upstream.getDailyCloses(anyString(), any(LocalDate.class), any(LocalDate.class)))
+                .thenReturn(new HashMap<>(Map.of(LocalDate.of(2024, 1, 2), 40000.0)));
+
+        ticker.tick();
+
+        verify(quoteCache).refresh(Set.of("BTC/EUR"));
+        verify(upstream, times(2)).getDailyCloses(anyString(), any(LocalDate.class), any(LocalDate.class));
+        verify(snapshots).markHistory(eq("BTC/EUR"), any(LocalDate.class));
+        verify(snapshots).markHistory(eq("ETH/EUR"), any(LocalDate.class));
+    }
+
+    @Test
+    void testTrackPricesUntrackedSymbolsWithinBudget() {
+        ticker = ticker(60000, 1);
+        when(snapshots.getFetchedAt(anySet())).thenReturn(Map.of("BTC/EUR", new Date(now.get())));
+
+        ticker.track(List.of("BTC/EUR", "ETH/EUR", "SOL/EUR"));
+
+        verify(quoteCache, timeout(5000)).refresh(Set.of("ETH/EUR"));
+        verify(snapshots, timeout(5000)).save(anyMap());
+    }
+
+    @Test
+    void testLeaseIsClaimedForTwoIntervals() {
+        ticker = ticker(60000, 2);
+        holdings(List.of(), List.of());
+        when(snapshots.getFetchedAt(anySet())).thenReturn(Map.of());
+
+        ticker.tick();
+
+        ArgumentCaptor<Bson> filter = ArgumentCaptor.forClass(Bson.class);
+        ArgumentCaptor<Bson> update = ArgumentCaptor.forClass(Bson.class);
+        ArgumentCaptor<UpdateOptions> options = ArgumentCaptor.forClass(UpdateOptions.class);
+        verify(locks).updateOne(filter.capture(), update.capture(), options.capture());
+        String json = render(filter.getValue()).toJson();
+        assertTrue(json.contains("\"_id\": \"price-ticker\""));
+        assertTrue(json.contains("claimedUntil"));
+        assertTrue(json.contains("claimedBy"));
+        BsonDocument set = render(update.getValue()).getDocument("$set");
+        assertEquals(now.get() + 120000, set.getDateTime("claimedUntil").getValue());
+        assertTrue(options.getValue().isUpsert());
+    }
+
+    @Test
+    void testLeaseHeldByAnotherReplicaMeansStandby() {
+        ticker = ticker(60000, 2);
+        when(locks.updateOne(any(Bson.class), any(Bson.class), any(UpdateOptions.class))).thenThrow(
+                new MongoWriteException(new WriteError(11000, "E11000 duplicate key error", new BsonDocument()),
+                        new ServerAddress()));
+
+        ticker.tick();
+
+        verify(investments, never()).distinct(anyString(), any(Bson.class), eq(String.class));
+        verify(quoteCache, never()).refresh(anySet());
+    }
+
+    private PriceTicker ticker(long intervalMs, int perMinute) {
+        return new PriceTicker(database, quoteCache, snapshots, history, upstream, intervalMs, perMinute, clock);
+    }
+
+    private void holdings(List<String> stocks, List<String> cryptos) {
+        DistinctIterable<String> stockNames = names(stocks);
+        DistinctIterable<String> cryptoNames = names(cryptos);
+        when(investments.distinct(eq("name"), any(Bson.class), eq(String.class))).thenAnswer(invocation ->
+                render(invocation.getArgument(1)).toJson().contains("stock") ? stockNames : cryptoNames);
+    }
+
+    @SuppressWarnings("unchecked")
+    private DistinctIterable<String> names(List<String> names) {
+        DistinctIterable<String> iterable = mock(DistinctIterable.class);
+        // Vsak tek dobi nov kazalec čez ista imena
+        lenient().when(iterable.iterator()).thenAnswer(invocation -> {
+            Iterator<String> iterator = names.iterator();
+            return mock(MongoCursor.class, call -> switch (call.getMethod().getName()) {
+                case "hasNext" -> iterator.hasNext();
+                case "next" -> iterator.next();
+                default -> null;
+            });
+        });
+        return iterable;
+    }
+
+    private static BsonDocument render(Bson bson) {
+        return bson.toBsonDocument(BsonDocument.class, MongoClientSettings.getDefaultCodecRegistry());
+    }
+}
@@ -0,0 +1,110 @@
+package ss.finance.prices;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import ss.finance.testing.TestConfiguration;
+
+@ExtendWith(MockitoExtension.class)
+class QuoteCacheTest {
+
+    @BeforeAll
+    static void initConfiguration() {
+        TestConfiguration.initialize();
+    }
+
+    @Mock
+    private HttpPriceProvider upstream;
+
+    @InjectMocks
+    private QuoteCache quoteCache;
+
+    @Test
+    void testQuotesAreFetchedOnEveryRefresh() {
+        when(upstream.getPrices(Set.of("BTC/EUR"))).thenReturn(Map.of("BTC/EUR", 40000.0), Map.of("BTC/EUR", 41000.0));
+
+        quoteCache.refresh(Set.of("BTC/EUR"));
+        Map<String, PriceSnapshots.Snapshot> prices = quoteCache.refresh(Set.of("BTC/EUR"));
+
+        assertEquals(41000.0, prices.get("BTC/EUR").getPrice());
+        verify(upstream, times(2)).getPrices(any());
+    }
+
+    @Test
+    void testRefreshKeepsFetchTimeOfCachedFxRate() throws Exception {
+        when(upstream.getPrices(Set.of("NVDA", "USD/EUR"))).thenReturn(Map.of("NVDA", 120.0, "USD/EUR", 0.9));
+        when(upstream.getPrices(Set.of("NVDA"))).thenReturn(Map.of("NVDA", 121.0));
+        quoteCache.refresh(Set.of("NVDA", "USD/EUR"));
+        Thread.sleep(20);
+
+        long before = System.currentTimeMillis();
+        Map<String, PriceSnapshots.Snapshot> prices = quoteCache.refresh(Set.of("NVDA", "USD/EUR"));
+
+        // Tečaj je iz predpomnilnika, zato ohrani čas prvega prenosa
+        assertTrue(prices.get("USD/EUR").getFetchedAt().getTime() < before);
+        assertTrue(prices.get("NVDA").getFetchedAt().getTime() >= before);
+        assertEquals(0.9, prices.get("USD/EUR").getPrice());
+        assertEquals(121.0, prices.get("NVDA").getPrice());
+    }
+
+    @Test
+    void testExpiredFxRateIsFetchedAgain() throws Exception {
+        QuoteCache shortLived = new QuoteCache(upstream, 10);
+        when(upstream.getPrices(Set.of("USD/EUR"))).thenReturn(Map.of("USD/EUR", 0.9), Map.of("USD/EUR", 0.92));
+        shortLived.refresh(Set.of("USD/EUR"));
+        Thread.sleep(20);
+
+        Map<String, PriceSnapshots.Snapshot> prices = shortLived.refresh(Set.of("USD/EUR"));
+
+        assertEquals(0.92, prices.get("USD/EUR").getPrice());
+        verify(upstream, times(2)).getPrices(Set.of("USD/EUR"));
+    }
+
+    @Test
+    void testFailedFetchKeepsLastFxRate() throws Exception {
+        QuoteCache shortLived = new QuoteCache(upstream, 10);
+        when(upstream.getPrices(Set.of("USD/EUR")))
+                .thenReturn(Map.of("USD/EUR", 0.9))
+                .thenThrow(new IllegalStateException("HTTP error code 429"));
+        shortLived.refresh(Set.of("USD/EUR"));
+        Thread.sleep(20);
+
+        Map<String, PriceSnapshots.Snapshot> prices = shortLived.refresh(Set.of("USD/EUR"));
+
+        // Zadnji tečaj ostane do naslednjega teka
+        assertEquals(0.9, prices.get("USD/EUR").getPrice());
+    }
+
+    @Test
+    void testFailedFetchLeavesSymbolWithoutPrice() {
+        when(upstream.getPrices(Set.of("ACME"))).thenThrow(new IllegalStateException("HTTP error code 429"));
+
+        Map<String, PriceSnapshots.Snapshot> prices = quoteCache.refresh(Set.of("ACME"));
+
+        assertTrue(prices.isEmpty());
+    }
+
+    @Test
+    void testMissingQuoteDoesNotDropOtherPrices() {
+        when(upstream.getPrices(Set.of("NVDA", "ACME"))).thenReturn(Map.of("NVDA", 120.0));
+
+        Map<String, PriceSnapshots.Snapshot> prices = quoteCache.refresh(Set.of("NVDA", "ACME"));
+
+        assertEquals(120.0, prices.get("NVDA").getPrice());
+        assertFalse(prices.containsKey("ACME"));
+    }
+}
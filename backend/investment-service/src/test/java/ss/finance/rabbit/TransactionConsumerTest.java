@@ -0,0 +1,187 @@
+package ss.finance.rabbit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.bson.BsonDocument;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.Mock;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoSocketException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Envelope;
+
+import ss.finance.events.TransactionEvent;
+import ss.finance.events.TransactionEventCodec;
+import ss.finance.services.InvestmentBean;
+import ss.finance.services.InvestmentMessage;
+import ss.finance.testing.TestConfiguration;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionConsumerTest {
+
+    @BeforeAll
+    static void initConfiguration() {
+        TestConfiguration.initialize();
+    }
+
+    @Mock
+    private InvestmentBean investmentBean;
+
+    @Mock
+    private Channel channel;
+
+    private TransactionConsumer consumer;
+
+    @AfterEach
+    void tearDown() {
+        consumer.stop();
+    }
+
+    @Test
+    void testFullBatchIsStoredAndAckedTogether() throws Exception {
+        consumer = new TransactionConsumer(investmentBean, 2, 60000);
+        List<Integer> written = recordBatchSizes();
+        TransactionConsumer.Worker worker = consumer.worker(channel);
+
+        deliver(worker, 1, false);
+        verify(investmentBean, never()).saveTransactions(anyList());
+        deliver(worker, 2, false);
+
+        assertEquals(List.of(2), written);
+        verify(channel).basicAck(2, true);
+        assertEquals(2L, consumer.getMetrics().snapshot().get("messages"));
+    }
+
+    @Test
+    void testRefusedEventIsDeadLetteredAndStaleEventAcked() throws Exception {
+        consumer = new TransactionConsumer(investmentBean, 3, 60000);
+        MongoBulkWriteException refused = new MongoBulkWriteException(BulkWriteResult.unacknowledged(),
+                List.of(new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 0),
+                        new BulkWriteError(121, "Document failed validation", new BsonDocument(), 2)),
+                null, new ServerAddress(), Set.of());
+        doThrow(refused).when(investmentBean).saveTransactions(anyList());
+        TransactionConsumer.Worker worker = consumer.worker(channel);
+
+        deliver(worker, 1, false);
+        deliver(worker, 2, false);
+        deliver(worker, 3, false);
+
+        // Zastarel dogodek je opravljen, zavrnjenega ne potrdimo, da se kanal ne zapre
+        verify(channel).basicReject(3, false);
+        verify(channel).basicAck(2, true);
+        verify(channel, never()).basicAck(3, true);
+        verify(channel, never()).basicNack(anyLong(), anyBoolean(), anyBoolean());
+        assertEquals(1L, consumer.getMetrics().snapshot().get("deadLettered"));
+    }
+
+    @Test
+    void testTransientFailureRequeuesEvenRedeliveredMessages() throws Exception {
+        consumer = new TransactionConsumer(investmentBean, 2, 60000);
+        doThrow(new RuntimeException("Error saving transactions",
+                new MongoSocketException("Connection refused", new ServerAddress())))
+                .when(investmentBean).saveTransactions(anyList());
+        TransactionConsumer.Worker worker = consumer.worker(channel);
+
+        deliver(worker, 1, true);
+        deliver(worker, 2, false);
+
+        // Ob nedosegljivi bazi sporočila ne gredo v vrsto neuspelih sporočil
+        verify(channel).basicNack(2, true, true);
+        verify(channel, never()).basicNack(anyLong(), anyBoolean(), eq(false));
+        verify(channel, never()).basicReject(anyLong(), anyBoolean());
+        assertEquals(0L, consumer.getMetrics().snapshot().get("deadLettered"));
+    }
+
+    @Test
+    void testOtherFailureRequeuesFirstDelivery() throws Exception {
+        consumer = new TransactionConsumer(investmentBean, 2, 60000);
+        doThrow(new RuntimeException("Error saving transactions", new IllegalStateException("codec")))
+                .when(investmentBean).saveTransactions(anyList());
+        TransactionConsumer.Worker worker = consumer.worker(channel);
+
+        deliver(worker, 1, false);
+        deliver(worker, 2, false);
+
+        verify(channel).basicNack(2, true, true);
+        assertEquals(1L, consumer.getMetrics().snapshot().get("failedBatches"));
+    }
+
+    @Test
+    void testOtherFailureDeadLettersRedeliveredMessages() throws Exception {
+        consumer = new TransactionConsumer(investmentBean, 2, 60000);
+        doThrow(new RuntimeException("Error saving transactions", new IllegalStateException("codec")))
+                .when(investmentBean).saveTransactions(anyList());
+        TransactionConsumer.Worker worker = consumer.worker(channel);
+
+        deliver(worker, 1, true);
+        deliver(worker, 2, false);
+
+        // Ponovno dostavljeno sporočilo gre v vrsto neuspelih, novo se vrne v vrsto
+        verify(channel).basicNack(1, false, false);
+        verify(channel).basicNack(2, false, true);
+        assertEquals(1L, consumer.getMetrics().snapshot().get("deadLettered"));
+    }
+
+    @Test
+    void testUnparseableMessageIsDeadLetteredImmediately() throws Exception {
+        consumer = new TransactionConsumer(investmentBean, 2, 60000);
+        TransactionConsumer.Worker worker = consumer.worker(channel);
+
+        worker.handleDelivery("consumer", new Envelope(1, false, "", RabbitMQConfig.getQueueName()), null,
+                "{not json".getBytes());
+
+        verify(channel).basicReject(1, false);
+        verify(investmentBean, never()).saveTransactions(anyList());
+    }
+
+    @Test
+    void testPartialBatchIsFlushedAfterLinger() throws Exception {
+        consumer = new TransactionConsumer(investmentBean, 100, 20);
+        List<Integer> written = recordBatchSizes();
+        TransactionConsumer.Worker worker = consumer.worker(channel);
+
+        deliver(worker, 1, false);
+
+        verify(channel, timeout(5000)).basicAck(1, true);
+        assertEquals(List.of(1), written);
+    }
+
+    // Seznam sporočil se po zapisu izprazni, zato velikost zabeležimo ob klicu
+    private List<Integer> recordBatchSizes() {
+        List<Integer> sizes = new ArrayList<>();
+        doAnswer(invocation -> {
+            sizes.add(invocation.<List<InvestmentMessage>>getArgument(0).size());
+            return null;
+        }).when(investmentBean).saveTransactions(anyList());
+        return sizes;
+    }
+
+    private static void deliver(TransactionConsumer.Worker worker, long deliveryTag, boolean redelivered)
+            throws Exception {
+        TransactionEvent event = new TransactionEvent(TransactionEvent.EventType.CREATED, new ObjectId(),
+                new ObjectId(), 1L, "expense", 10.0, "Hrana", System.currentTimeMillis(), System.currentTimeMillis());
+        worker.handleDelivery("consumer", new Envelope(deliveryTag, redelivered, "", RabbitMQConfig.getQueueName()),
+                null, TransactionEventCodec.encode(event));
+    }
+}
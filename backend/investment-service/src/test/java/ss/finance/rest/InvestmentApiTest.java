@@ -5,10 +5,12 @@ import java.util.List;
 import java.util.Map;
 
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.SecurityContext;
 
 import org.bson.Document;
 import org.bson.types.ObjectId;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -22,7 +24,8 @@ import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import ss.finance.entities.Investment;
-import ss.finance.security.JwtUtil;
+import ss.finance.security.Authenticated;
+import ss.finance.security.AuthenticatedUser;
 import ss.finance.services.InvestmentBean;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,17 +37,16 @@ class InvestmentApiTest {
     @Mock
     private InvestmentBean investmentBean;
 
-    @Mock
-    private JwtUtil jwtUtil;
-
     private Investment sampleInvestment;
     private ObjectId investmentId;
-    private String validToken;
+    private ObjectId userId;
+    private SecurityContext securityContext;
 
     @BeforeEach
     void setUp() {
         investmentId = new ObjectId();
-        validToken = "valid.jwt.token";
+        userId = new ObjectId();
+        securityContext = new AuthenticatedUser(userId);
         sampleInvestment = new Investment(
             investmentId, "Stocks", "Apple Inc.", 1000.0, 10.0, new Date()
         );
@@ -52,31 +54,45 @@ class InvestmentApiTest {
 
     @Test
     void testGetInvestments_Success() {
-        ObjectId userId = new ObjectId();
-        when(jwtUtil.extractUserId(validToken)).thenReturn(userId);
         when(investmentBean.getAllInvestments(userId)).thenReturn(List.of(sampleInvestment));
 
-        Response response = investmentApi.getInvestments(validToken);
+        Response response = investmentApi.getInvestments(securityContext);
 
         assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
         verify(investmentBean, times(1)).getAllInvestments(userId);
     }
 
     @Test
-    void testGetInvestments_Unauthorized() {
-        Response response = investmentApi.getInvestments(null);
+    void testGetInvestments_Unauthorized() throws NoSuchMethodException {
+        // Requests without a valid token are rejected by AuthenticationFilter before reaching the resource
+        assertTrue(InvestmentApi.class.getMethod("getInvestments", SecurityContext.class)
+                .isAnnotationPresent(Authenticated.class));
+    }
+
+    @Test
+    void testGetPerformance_Success() {
+        when(investmentBean.getPerformance(userId, "1y")).thenReturn(Map.of("range", "1y", "points", List.of()));
+
+        Response response = investmentApi.getPerformance(securityContext, "1y");
+
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        verify(investmentBean, times(1)).getPerformance(userId, "1y");
+    }
+
+    @Test
+    void testGetPerformance_UnsupportedRange() {
+        Response response = investmentApi.getPerformance(securityContext, "10y");
 
-        assertEquals(Response.Status.UNAUTHORIZED.getStatusCode(), response.getStatus());
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+        verify(investmentBean, times(0)).getPerformance(any(), any());
     }
 
     @Test
     void testGetInvestmentById_Success() {
-        ObjectId userId = new ObjectId();
-        when(jwtUtil.extractUserId(validToken)).thenReturn(userId);
         when(investmentBean.getInvestment(investmentId)).thenReturn(sampleInvestment);
         sampleInvestment.setUserId(userId);
 
-        Response response = investmentApi.getInvestmentById(validToken, investmentId.toHexString());
+        Response response = investmentApi.getInvestmentById(securityContext, investmentId.toHexString());
 
         assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
         verify(investmentBean, times(1)).getInvestment(investmentId);
@@ -84,22 +100,18 @@ class InvestmentApiTest {
 
     @Test
     void testGetInvestmentById_NotFound() {
-        ObjectId userId = new ObjectId();
-        when(jwtUtil.extractUserId(validToken)).thenReturn(userId);
         when(investmentBean.getInvestment(investmentId)).thenReturn(null);
 
-        Response response = investmentApi.getInvestmentById(validToken, investmentId.toHexString());
+        Response response = investmentApi.getInvestmentById(securityContext, investmentId.toHexString());
 
         assertEquals(Response.Status.NOT_FOUND.getStatusCode(), response.getStatus());
     }
 
     @Test
     void testAddInvestment_Success() {
-        ObjectId userId = new ObjectId();
-        when(jwtUtil.extractUserId(validToken)).thenReturn(userId);
         doNothing().when(investmentBean).addInvestment(any(Investment.class));
 
-        Response response = investmentApi.addInvestment(validToken, sampleInvestment);
+        Response response = investmentApi.addInvestment(securityContext, sampleInvestment);
 
         assertEquals(Response.Status.CREATED.getStatusCode(), response.getStatus());
         verify(investmentBean, times(1)).addInvestment(any(Investment.class));
@@ -107,22 +119,18 @@ class InvestmentApiTest {
 
     @Test
     void testAddInvestment_BadRequest() {
-        ObjectId userId = new ObjectId();
-        when(jwtUtil.extractUserId(validToken)).thenReturn(userId);
 
         Investment invalidInvestment = new Investment();
-        Response response = investmentApi.addInvestment(validToken, invalidInvestment);
+        Response response = investmentApi.addInvestment(securityContext, invalidInvestment);
 
         assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
     }
 
     @Test
     void testDeleteInvestment_Success() {
-        ObjectId userId = new ObjectId();
-        when(jwtUtil.extractUserId(validToken)).thenReturn(userId);
         when(investmentBean.deleteInvestment(investmentId)).thenReturn(true);
 
-        Response response = investmentApi.deleteInvestment(validToken, investmentId.toHexString());
+        Response response = investmentApi.deleteInvestment(securityContext, investmentId.toHexString());
 
         assertEquals(Response.Status.NO_CONTENT.getStatusCode(), response.getStatus());
         verify(investmentBean, times(1)).deleteInvestment(investmentId);
@@ -130,18 +138,15 @@ class InvestmentApiTest {
 
     @Test
     void testDeleteInvestment_NotFound() {
-        ObjectId userId = new ObjectId();
-        when(jwtUtil.extractUserId(validToken)).thenReturn(userId);
         when(investmentBean.deleteInvestment(investmentId)).thenReturn(false);
 
-        Response response = investmentApi.deleteInvestment(validToken, investmentId.toHexString());
+        Response response = investmentApi.deleteInvestment(securityContext, investmentId.toHexString());
 
         assertEquals(Response.Status.NOT_FOUND.getStatusCode(), response.getStatus());
     }
 
     @Test
     void testGetLastTransaction_Success() {
-        ObjectId userId = new ObjectId();
         Document lastTransaction = new Document(Map.of(
                 "userId", userId.toHexString(),
                 "lastTransactionAmount", 55.0,
@@ -149,10 +154,9 @@ class InvestmentApiTest {
                 "timestamp", "2025-01-11T12:00:00Z"
         ));
 
-        when(jwtUtil.extractUserId(validToken)).thenReturn(userId);
         when(investmentBean.getLastTransaction(userId.toHexString())).thenReturn(lastTransaction);
 
-        Response response = investmentApi.getLastTransaction(validToken);
+        Response response = investmentApi.getLastTransaction(securityContext);
 
         assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
         verify(investmentBean, times(1)).getLastTransaction(userId.toHexString());
@@ -160,22 +164,18 @@ class InvestmentApiTest {
 
     @Test
     void testGetLastTransaction_NotFound() {
-        ObjectId userId = new ObjectId();
-        when(jwtUtil.extractUserId(validToken)).thenReturn(userId);
         when(investmentBean.getLastTransaction(userId.toHexString())).thenReturn(null);
 
-        Response response = investmentApi.getLastTransaction(validToken);
+        Response response = investmentApi.getLastTransaction(securityContext);
 
         assertEquals(Response.Status.NOT_FOUND.getStatusCode(), response.getStatus());
     }
 
     @Test
     void testDeleteAllTransactions_Success() {
-        ObjectId userId = new ObjectId();
-        when(jwtUtil.extractUserId(validToken)).thenReturn(userId);
         when(investmentBean.deleteAllTransactions(userId.toHexString())).thenReturn(true);
 
-        Response response = investmentApi.deleteAllTransactions(validToken);
+        Response response = investmentApi.deleteAllTransactions(securityContext);
 
         assertEquals(Response.Status.NO_CONTENT.getStatusCode(), response.getStatus());
         verify(investmentBean, times(1)).deleteAllTransactions(userId.toHexString());
@@ -183,11 +183,9 @@ class InvestmentApiTest {
 
     @Test
     void testDeleteAllTransactions_Failure() {
-        ObjectId userId = new ObjectId();
-        when(jwtUtil.extractUserId(validToken)).thenReturn(userId);
         when(investmentBean.deleteAllTransactions(userId.toHexString())).thenReturn(false);
 
-        Response response = investmentApi.deleteAllTransactions(validToken);
+        Response response = investmentApi.deleteAllTransactions(securityContext);
 
         assertEquals(Response.Status.INTERNAL_SERVER_ERROR.getStatusCode(), response.getStatus());
     }
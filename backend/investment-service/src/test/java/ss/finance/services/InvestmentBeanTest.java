@@ -0,0 +1,364 @@
+package ss.finance.services;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.WriteConcernError;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+
+import ss.finance.entities.Investment;
+import ss.finance.events.TransactionEvent;
+import ss.finance.prices.PriceHistory;
+import ss.finance.prices.PriceSnapshots;
+import ss.finance.prices.PriceTicker;
+import ss.finance.testing.TestConfiguration;
+
+@ExtendWith(MockitoExtension.class)
+class InvestmentBeanTest {
+
+    @BeforeAll
+    static void initConfiguration() {
+        TestConfiguration.initialize();
+    }
+
+    @Mock
+    private MongoCollection<Document> investmentCollection;
+
+    @Mock
+    private MongoCollection<Document> transactionCollection;
+
+    @Mock
+    private MongoDatabase mockDatabase;
+
+    @Mock
+    private PriceSnapshots priceSnapshots;
+
+    @Mock
+    private PriceTicker priceTicker;
+
+    @Mock
+    private PriceHistory priceHistory;
+
+    @InjectMocks
+    private InvestmentBean investmentBean;
+
+    private Investment sampleInvestment;
+    private ObjectId investmentId;
+    private ObjectId userId;
+
+    @BeforeEach
+    void setUp() {
+        investmentId = new ObjectId();
+        userId = new ObjectId();
+        sampleInvestment = new Investment();
+        sampleInvestment.setUserId(userId);
+        sampleInvestment.setType("Stocks");
+        sampleInvestment.setName("Apple");
+        sampleInvestment.setAmount(1000.0);
+        sampleInvestment.setQuantity(10.0);
+        sampleInvestment.setPurchaseDate(new Date());
+
+        lenient().when(mockDatabase.getCollection("investments")).thenReturn(investmentCollection);
+        lenient().when(mockDatabase.getCollection("transXinvst")).thenReturn(transactionCollection);
+    }
+
+    @Test
+    void testAddInvestment() {
+        assertDoesNotThrow(() -> investmentBean.addInvestment(sampleInvestment));
+
+        verify(investmentCollection, times(1)).insertOne(any(Document.class));
+    }
+
+    @Test
+    void testGetInvestment() {
+        Document mockDocument = new Document("_id", investmentId)
+                .append("userId", userId)
+                .append("type", "Stocks")
+                .append("name", "Apple")
+                .append("amount", 1000.0)
+                .append("quantity", 10.0)
+                .append("purchaseDate", new Date());
+
+        FindIterable<Document> findIterableMock = mock(FindIterable.class);
+        when(investmentCollection.find(any(Document.class))).thenReturn(findIterableMock);
+        when(findIterableMock.first()).thenReturn(mockDocument);
+
+        Investment fetchedInvestment = investmentBean.getInvestment(investmentId);
+
+        assertNotNull(fetchedInvestment);
+        assertEquals("Stocks", fetchedInvestment.getType());
+        assertEquals("Apple", fetchedInvestment.getName());
+    }
+
+    @Test
+    void testUpdateInvestment() {
+        UpdateResult mockResult = mock(UpdateResult.class);
+        when(investmentCollection.updateOne(any(Document.class), any(Document.class))).thenReturn(mockResult);
+
+        assertDoesNotThrow(() -> investmentBean.updateInvestment(investmentId, sampleInvestment));
+
+        verify(investmentCollection, times(1)).updateOne(any(Document.class), any(Document.class));
+    }
+
+    @Test
+    void testDeleteInvestment() {
+        when(investmentCollection.deleteOne(any(Document.class))).thenReturn(DeleteResult.acknowledged(1));
+
+        boolean result = investmentBean.deleteInvestment(investmentId);
+
+        assertTrue(result);
+        verify(investmentCollection, times(1)).deleteOne(any(Document.class));
+    }
+
+    @Test
+    void testGetAllInvestments() {
+        // Pripravimo simulirano FindIterable<Document>
+        FindIterable<Document> findIterableMock = mock(FindIterable.class);
+        MongoCursor<Document> cursorMock = mock(MongoCursor.class);
+    
+        Document mockDocument = new Document("_id", investmentId)
+                .append("userId", userId)
+                .append("type", "Stocks")
+                .append("name", "Apple")
+                .append("amount", 1000.0)
+                .append("quantity", 10.0)
+                .append("purchaseDate", new Date());
+    
+        // Konfiguriramo mock, da vrne naš mockCursor
+        when(investmentCollection.find(any(Document.class))).thenReturn(findIterableMock);
+        when(findIterableMock.iterator()).thenReturn(cursorMock);
+        when(cursorMock.hasNext()).thenReturn(true, false); // Vrne en dokument, nato se ustavi
+        when(cursorMock.next()).thenReturn(mockDocument);
+    
+        // Kličemo metodo, ki jo testiramo
+        List<Investment> investments = investmentBean.getAllInvestments(userId);
+    
+        // Preverimo rezultate
+        assertNotNull(investments);
+        assertEquals(1, investments.size());
+        assertEquals("Apple", investments.get(0).getName());
+    
+        // Preverimo, ali je bila klicana metoda find()
+        verify(investmentCollection, times(1)).find(any(Document.class));
+        // Tip brez tečaja ne bere cen
+        verify(priceSnapshots, never()).getSnapshots(any());
+    }
+
+    @Test
+    void testGetAllInvestmentsReadsDistinctSymbolsOnce() {
+        FindIterable<Document> findIterableMock = mock(FindIterable.class);
+        MongoCursor<Document> cursorMock = mock(MongoCursor.class);
+
+        Document apple = holding("stock", "AAPL", 10.0);
+        Document moreApple = holding("stock", "AAPL", 5.0);
+        Document microsoft = holding("stock", "MSFT", 2.0);
+        Document bitcoin = holding("crypto", "BTC", 0.5);
+
+        when(investmentCollection.find(any(Document.class))).thenReturn(findIterableMock);
+        when(findIterableMock.iterator()).thenReturn(cursorMock);
+        when(cursorMock.hasNext()).thenReturn(true, true, true, true, false);
+        when(cursorMock.next()).thenReturn(apple, moreApple, microsoft, bitcoin);
+        // MSFT še nima posnetka cene, BTC ima le staro ceno
+        Date now = new Date();
+        Date hourAgo = new Date(now.getTime() - 3600000);
+        when(priceSnapshots.getSnapshots(Set.of("AAPL", "USD/EUR", "MSFT", "BTC/EUR")))
+                .thenReturn(Map.of(
+                        "AAPL", new PriceSnapshots.Snapshot(200.0, now),
+                        "USD/EUR", new PriceSnapshots.Snapshot(0.9, now),
+                        "BTC/EUR", new PriceSnapshots.Snapshot(40000.0, hourAgo)));
+
+        List<Investment> investments = investmentBean.getAllInvestments(userId);
+
+        assertEquals(4, investments.size());
+        assertEquals(180.0, investments.get(0).getCurrentPrice(), 1e-9);
+        assertEquals(1800.0, investments.get(0).getCurrentValue(), 1e-9);
+        assertEquals(900.0, investments.get(1).getCurrentValue(), 1e-9);
+        assertNull(investments.get(2).getCurrentPrice());
+        assertEquals(0.0, investments.get(2).getCurrentValue());
+        assertEquals(20000.0, investments.get(3).getCurrentValue(), 1e-9);
+        assertEquals(false, investments.get(0).getPriceStale());
+        assertNull(investments.get(2).getPriceStale());
+        assertEquals(true, investments.get(3).getPriceStale());
+        assertEquals(hourAgo, investments.get(3).getPriceUpdatedAt());
+        verify(priceSnapshots, times(1)).getSnapshots(any());
+    }
+
+    @Test
+    void testGetPerformanceValuesHoldingsWithDailyCloses() {
+        FindIterable<Document> findIterableMock = mock(FindIterable.class);
+        MongoCursor<Document> cursorMock = mock(MongoCursor.class);
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+
+        Document apple = holding("stock", "AAPL", 10.0, today.minusDays(30));
+        Document bitcoin = holding("crypto", "BTC", 0.5, today.minusDays(2));
+
+        when(investmentCollection.find(any(Document.class))).thenReturn(findIterableMock);
+        when(findIterableMock.iterator()).thenReturn(cursorMock);
+        when(cursorMock.hasNext()).thenReturn(true, true, false);
+        when(cursorMock.next()).thenReturn(apple, bitcoin);
+        // AAPL ima zapise šele od pred treh dni, zadnji tečaj USD/EUR se uporablja še teden dni
+        when(priceHistory.getCloses(Set.of("AAPL", "USD/EUR", "BTC/EUR"), today.minusDays(14), today))
+                .thenReturn(Map.of(
+                        "AAPL", new TreeMap<>(Map.of(today.minusDays(3), 100.0, today, 110.0)),
+                        "USD/EUR", new TreeMap<>(Map.of(today.minusDays(6), 0.9)),
+                        "BTC/EUR", new TreeMap<>(Map.of(today.minusDays(7), 40000.0))));
+
+        Map<String, Object> performance = investmentBean.getPerformance(userId, "1w");
+
+        List<Map<String, Object>> points = (List<Map<String, Object>>) performance.get("points");
+        assertEquals("EUR", performance.get("currency"));
+        assertEquals(8, points.size());
+        assertEquals(today.minusDays(7).toString(), points.get(0).get("date"));
+        assertEquals(0.0, points.get(0).get("value"));
+        assertEquals(900.0, points.get(4).get("value"));
+        // BTC je kupljen pred dvema dnevoma
+        assertEquals(20900.0, points.get(5).get("value"));
+        assertEquals(today.toString(), points.get(7).get("date"));
+        assertEquals(20990.0, points.get(7).get("value"));
+    }
+
+    @Test
+    void testGetPerformanceRejectsUnknownRange() {
+        assertThrows(IllegalArgumentException.class, () -> investmentBean.getPerformance(userId, "2d"));
+        verify(priceHistory, never()).getCloses(any(), any(), any());
+    }
+
+    @Test
+    void testSaveTransactionsRetriesDuplicateKeyOnce() {
+        InvestmentMessage racing = message("t1", 2);
+        InvestmentMessage stale = message("t2", 1);
+        MongoBulkWriteException duplicates = new MongoBulkWriteException(BulkWriteResult.unacknowledged(),
+                List.of(new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 0),
+                        new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 1)),
+                null, new ServerAddress(), Set.of());
+        // Prvi zapis je tekmoval z vstavljanjem iste transakcije, drugi je zastarel
+        when(transactionCollection.bulkWrite(any(List.class), any(BulkWriteOptions.class)))
+                .thenThrow(duplicates)
+                .thenReturn(BulkWriteResult.acknowledged(0, 1, 0, 1, List.of(), List.of()));
+
+        assertDoesNotThrow(() -> investmentBean.saveTransactions(List.of(racing, stale)));
+
+        ArgumentCaptor<List<WriteModel<Document>>> writes = ArgumentCaptor.forClass(List.class);
+        verify(transactionCollection, times(2)).bulkWrite(writes.capture(), any(BulkWriteOptions.class));
+        List<WriteModel<Document>> retries = writes.getAllValues().get(1);
+        assertEquals(2, retries.size());
+        assertEquals(false, ((ReplaceOneModel<Document>) retries.get(0)).getReplaceOptions().isUpsert());
+    }
+
+    @Test
+    void testSaveTransactionsRethrowsOtherWriteErrors() {
+        MongoBulkWriteException invalid = new MongoBulkWriteException(BulkWriteResult.unacknowledged(),
+                List.of(new BulkWriteError(121, "Document failed validation", new BsonDocument(), 0)),
+                null, new ServerAddress(), Set.of());
+        when(transactionCollection.bulkWrite(any(List.class), any(BulkWriteOptions.class))).thenThrow(invalid);
+
+        assertThrows(MongoBulkWriteException.class,
+                () -> investmentBean.saveTransactions(List.of(message("t1", 1))));
+        verify(transactionCollection, times(1)).bulkWrite(any(List.class), any(BulkWriteOptions.class));
+    }
+
+    @Test
+    void testSaveTransactionsReportsRetryErrorsAtBatchIndexes() {
+        MongoBulkWriteException mixed = new MongoBulkWriteException(BulkWriteResult.unacknowledged(),
+                List.of(new BulkWriteError(121, "Document failed validation", new BsonDocument(), 0),
+                        new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 2)),
+                null, new ServerAddress(), Set.of());
+        MongoBulkWriteException retryFailed = new MongoBulkWriteException(BulkWriteResult.unacknowledged(),
+                List.of(new BulkWriteError(121, "Document failed validation", new BsonDocument(), 0)),
+                null, new ServerAddress(), Set.of());
+        when(transactionCollection.bulkWrite(any(List.class), any(BulkWriteOptions.class)))
+                .thenThrow(mixed)
+                .thenThrow(retryFailed);
+
+        MongoBulkWriteException thrown = assertThrows(MongoBulkWriteException.class,
+                () -> investmentBean.saveTransactions(List.of(message("t1", 1), message("t2", 1), message("t3", 1))));
+
+        // Napaka ponovnega poskusa na indeksu 0 pripada tretjemu dogodku paketa
+        assertEquals(List.of(0, 2), thrown.getWriteErrors().stream().map(BulkWriteError::getIndex).toList());
+    }
+
+    @Test
+    void testSaveTransactionsRethrowsWriteConcernError() {
+        MongoBulkWriteException duplicates = new MongoBulkWriteException(BulkWriteResult.unacknowledged(),
+                List.of(new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 0)),
+                new WriteConcernError(64, "WriteConcernFailed", "waiting for replication timed out", new BsonDocument()),
+                new ServerAddress(), Set.of());
+        when(transactionCollection.bulkWrite(any(List.class), any(BulkWriteOptions.class)))
+                .thenThrow(duplicates)
+                .thenReturn(BulkWriteResult.acknowledged(0, 1, 0, 1, List.of(), List.of()));
+
+        MongoBulkWriteException thrown = assertThrows(MongoBulkWriteException.class,
+                () -> investmentBean.saveTransactions(List.of(message("t1", 2))));
+
+        // Podvojeni ključ je razrešen, potrditev zapisa pa ni zagotovljena
+        assertTrue(thrown.getWriteErrors().isEmpty());
+        assertNotNull(thrown.getWriteConcernError());
+    }
+
+    private InvestmentMessage message(String transactionId, long version) {
+        InvestmentMessage message = new InvestmentMessage();
+        message.setTransactionId(transactionId);
+        message.setVersion(version);
+        message.setEventType(TransactionEvent.EventType.UPDATED);
+        message.setUserId(userId.toHexString());
+        message.setType("expense");
+        message.setAmount(10.0);
+        return message;
+    }
+
+    private Document holding(String type, String name, double quantity) {
+        return holding(type, name, quantity, LocalDate.now(ZoneOffset.UTC));
+    }
+
+    private Document holding(String type, String name, double quantity, LocalDate purchaseDate) {
+        return new Document("_id", new ObjectId())
+                .append("userId", userId)
+                .append("type", type)
+                .append("name", name)
+                .append("amount", 1000.0)
+                .append("quantity", quantity)
+                .append("purchaseDate", Date.from(purchaseDate.atStartOfDay(ZoneOffset.UTC).toInstant()));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,49 @@
+// Load test for GET /investments, which reads the holdings and the price snapshots from MongoDB.
+//
+// Compares request handling on Jetty's thread pool with handling on virtual threads
+// (request-execution.virtual-threads in config.yaml):
+//
+//   1. Start the price API stub for the price ticker:   python3 slow-price-api.py 9090 0.5
+//   2. Start investment-service with API_URL=http://localhost:9090 and the mode off, e.g. with
+//      kumuluzee.server.max-threads lowered to 50 so the pool is the first limit to be reached. Prices
+//      are no longer fetched on the read path, so add latency between the service and MongoDB (e.g.
+//      tc netem delay on the MongoDB port) to make request threads wait the way a loaded database does.
+//   3. Log in and add a few crypto investments for the test user, then run
+//        k6 run -e TOKEN=<auth_token cookie> -e MODE=platform investments.js
+//   4. Restart the service with the mode on and run again with -e MODE=virtual.
+//
+// The summary reports throughput and p50/p95/p99 latency per mode; with the pool exhausted the
+// platform run shows queued requests as a long tail while the virtual run stays near the added delay.
+// Recorded runs are in results.md.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8085';
+const TOKEN = __ENV.TOKEN;
+const MODE = __ENV.MODE || 'unknown';
+
+export const options = {
+    scenarios: {
+        ramp: {
+            executor: 'ramping-vus',
+            startVUs: 0,
+            stages: [
+                { duration: '30s', target: 50 },
+                { duration: '30s', target: 200 },
+                { duration: '60s', target: 400 },
+                { duration: '15s', target: 0 },
+            ],
+            gracefulRampDown: '10s',
+        },
+    },
+    summaryTrendStats: ['avg', 'med', 'p(95)', 'p(99)', 'max'],
+    tags: { mode: MODE },
+};
+
+export default function () {
+    const response = http.get(`${BASE_URL}/investments`, {
+        cookies: { auth_token: TOKEN },
+        timeout: '60s',
+    });
+    check(response, { 'status is 200': (r) => r.status === 200 });
+}
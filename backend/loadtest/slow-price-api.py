@@ -0,0 +1,36 @@
+"""Price API stub for investments.js: answers every /price request after a fixed delay.
+
+Usage: python3 slow-price-api.py [port] [delay seconds]
+"""
+import json
+import sys
+import time
+from http.server import BaseHTTPRequestHandler, ThreadingHTTPServer
+from urllib.parse import parse_qs, urlparse
+
+PORT = int(sys.argv[1]) if len(sys.argv) > 1 else 9090
+DELAY = float(sys.argv[2]) if len(sys.argv) > 2 else 0.5
+
+
+class PriceHandler(BaseHTTPRequestHandler):
+    def do_GET(self):
+        time.sleep(DELAY)
+        symbols = parse_qs(urlparse(self.path).query).get("symbol", [""])[0].split(",")
+        if len(symbols) > 1:
+            # Stock request: one price per symbol, including the USD/EUR rate
+            body = {symbol: {"price": 1.0} for symbol in symbols}
+        else:
+            body = {"price": 1.0}
+        payload = json.dumps(body).encode()
+        self.send_response(200)
+        self.send_header("Content-Type", "application/json")
+        self.send_header("Content-Length", str(len(payload)))
+        self.end_headers()
+        self.wfile.write(payload)
+
+    def log_message(self, format, *args):
+        pass
+
+
+if __name__ == "__main__":
+    ThreadingHTTPServer(("", PORT), PriceHandler).serve_forever()
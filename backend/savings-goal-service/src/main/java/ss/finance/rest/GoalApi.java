@@ -2,11 +2,9 @@ package ss.finance.rest;
 
 import java.util.List;
 import java.util.Map;
-import java.util.logging.Logger;
 
 import javax.inject.Inject;
 import javax.ws.rs.Consumes;
-import javax.ws.rs.CookieParam;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
@@ -14,9 +12,13 @@ import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.SecurityContext;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.bson.types.ObjectId;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
@@ -25,15 +27,10 @@ import org.eclipse.microprofile.openapi.annotations.parameters.RequestBody;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 
-import com.mongodb.client.MongoClient;
-import com.mongodb.client.MongoClients;
-import com.mongodb.client.MongoDatabase;
-
-import jakarta.json.Json;
-import jakarta.json.JsonObject;
-import jakarta.json.JsonObjectBuilder;
 import ss.finance.entities.SavingsGoal;
-import ss.finance.security.JwtUtil;
+import ss.finance.health.HealthService;
+import ss.finance.security.Authenticated;
+import ss.finance.security.AuthenticatedUser;
 import ss.finance.services.GoalBean;
 
 @Tag(name = "Savings Goals", description = "Endpoints related to managing savings goals")
@@ -46,40 +43,34 @@ public class GoalApi {
     private GoalBean goalBean;
 
     @Inject
-    private JwtUtil jwtUtil;
+    private HealthService healthService;
 
-    private static final Logger logger = Logger.getLogger(GoalApi.class.getName());
-    private static final String MONGO_URI = System.getenv("MONGO_URI");
-    private static final String DATABASE_NAME = System.getenv("DATABASE_NAME");
+    private static final Logger logger = LogManager.getLogger(GoalApi.class);
 
+    @Operation(summary = "Health check", description = "Returns the readiness of the Savings Goal microservice. Kept for existing probes, same as /health/ready.")
+    @APIResponse(responseCode = "200", description = "Service is up and running")
+    @APIResponse(responseCode = "503", description = "Service is down")
     @GET
     @Path("/health")
     public Response healthCheck() {
-        boolean isMongoUp = checkMongoDB();
-        boolean isServiceUp = true; // Če endpoint deluje, je storitev UP.
-
-        JsonObjectBuilder healthBuilder = Json.createObjectBuilder()
-                .add("status", isMongoUp ? "UP" : "DOWN");
-
-        JsonObjectBuilder detailsBuilder = Json.createObjectBuilder()
-                .add("MongoDB", isMongoUp ? "UP" : "DOWN")
-                .add("Savings Goal Service", isServiceUp ? "UP" : "DOWN");
-
-        JsonObject healthJson = healthBuilder.add("details", detailsBuilder.build()).build();
+        return healthService.readiness().with("Savings Goal Service").toResponse();
+    }
 
-        int statusCode = isMongoUp ? Response.Status.OK.getStatusCode() : Response.Status.SERVICE_UNAVAILABLE.getStatusCode();
-        return Response.status(statusCode).entity(healthJson.toString()).build();
+    @Operation(summary = "Liveness check", description = "Returns UP while the process can serve requests. Does not check dependencies.")
+    @APIResponse(responseCode = "200", description = "Service is alive")
+    @GET
+    @Path("/health/live")
+    public Response livenessCheck() {
+        return healthService.liveness().toResponse();
     }
 
-    private boolean checkMongoDB() {
-        try (MongoClient mongoClient = MongoClients.create(MONGO_URI)) {
-            MongoDatabase database = mongoClient.getDatabase(DATABASE_NAME);
-            database.listCollectionNames().first(); // Če ne vrže izjeme, je MongoDB UP
-            return true;
-        } catch (Exception e) {
-            logger.severe("MongoDB Health Check Failed: " + e.getMessage());
-            return false;
-        }
+    @Operation(summary = "Readiness check", description = "Pings MongoDB through the shared client. Results are cached briefly.")
+    @APIResponse(responseCode = "200", description = "Service is ready")
+    @APIResponse(responseCode = "503", description = "A critical dependency is unavailable")
+    @GET
+    @Path("/health/ready")
+    public Response readinessCheck() {
+        return healthService.readiness().toResponse();
     }
 
     @Operation(summary = "Get all savings goals", description = "Returns all savings goals for the authenticated user.")
@@ -91,26 +82,24 @@ public class GoalApi {
     @APIResponse(
             responseCode = "401",
             description = "Unauthorized access",
-            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"error\": \"Invalid token or user not found\"}"))
+            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"message\": \"Token is missing or invalid\"}"))
     )
     @APIResponse(
             responseCode = "500",
             description = "Internal server error",
             content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"error\": \"Server error\"}"))
     )
+    @Authenticated
     @GET
-    public Response getSavingsGoals(@CookieParam("auth_token") String token) {
+    public Response getSavingsGoals(@Context SecurityContext securityContext) {
         try {
-            if (token == null || token.isEmpty()) {
-                return Response.status(Response.Status.UNAUTHORIZED)
-                        .entity(Map.of("error", "Invalid token or user not found"))
-                        .build();
-            }
-            ObjectId userId = jwtUtil.extractUserId(token);
+            ObjectId userId = AuthenticatedUser.userId(securityContext);
             List<SavingsGoal> goals = goalBean.getAllSavingsGoals(userId);
             return Response.ok(goals).build();
         } catch (Exception e) {
-            return Response.status(Response.Status.UNAUTHORIZED).entity(Map.of("error", "Invalid token or user not found")).build();
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(Map.of("error", "Server error"))
+                    .build();
         }
     }
 
@@ -128,15 +117,16 @@ public class GoalApi {
     @APIResponse(
             responseCode = "401",
             description = "Unauthorized access",
-            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"error\": \"Invalid token or user not found\"}"))
+            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"message\": \"Token is missing or invalid\"}"))
     )
     @APIResponse(
             responseCode = "500",
             description = "Internal server error",
             content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"error\": \"Server error\"}"))
     )
+    @Authenticated
     @POST
-    public Response addSavingsGoal(@CookieParam("auth_token") String token, @RequestBody(
+    public Response addSavingsGoal(@Context SecurityContext securityContext, @RequestBody(
             description = "Savings goal details including goalName, targetAmount, currentAmount, startDate, and deadline",
             required = true,
             content = @Content(
@@ -155,7 +145,7 @@ public class GoalApi {
                         .entity(Map.of("error", "Missing or invalid fields. 'goalName', 'targetAmount', 'currentAmount', 'startDate', and 'deadline' are required."))
                         .build();
             }
-            ObjectId userId = jwtUtil.extractUserId(token);
+            ObjectId userId = AuthenticatedUser.userId(securityContext);
             goal.setUserId(userId);
             goalBean.addSavingsGoal(goal);
             return Response.status(Response.Status.CREATED).entity(Map.of("message", "Savings goal created successfully")).build();
@@ -175,16 +165,17 @@ public class GoalApi {
     @APIResponse(
             responseCode = "401",
             description = "Unauthorized access",
-            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"error\": \"Invalid token or user not found\"}"))
+            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"message\": \"Token is missing or invalid\"}"))
     )
     @APIResponse(
             responseCode = "500",
             description = "Internal server error",
             content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"error\": \"Server error\"}"))
     )
+    @Authenticated
     @PUT
     @Path("/{id}")
-    public Response updateSavingsGoal(@CookieParam("auth_token") String token, @PathParam("id") String id, @RequestBody(
+    public Response updateSavingsGoal(@Context SecurityContext securityContext, @PathParam("id") String id, @RequestBody(
             description = "Updated savings goal",
             required = true,
             content = @Content(
@@ -195,12 +186,7 @@ public class GoalApi {
             )
     )SavingsGoal updatedGoal) {
         try {
-            if (token == null || token.isEmpty()) {
-                return Response.status(Response.Status.UNAUTHORIZED)
-                        .entity(Map.of("error", "Invalid token or user not found"))
-                        .build();
-            }
-            ObjectId userId = jwtUtil.extractUserId(token);
+            ObjectId userId = AuthenticatedUser.userId(securityContext);
             updatedGoal.setUserId(userId);
             ObjectId goalId = new ObjectId(id);
             goalBean.updateSavingsGoal(goalId, updatedGoal);
@@ -220,7 +206,7 @@ public class GoalApi {
     @APIResponse(
             responseCode = "401",
             description = "Unauthorized access",
-            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"error\": \"Invalid token or user not found\"}"))
+            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"message\": \"Token is missing or invalid\"}"))
     )
     @APIResponse(
             responseCode = "404",
@@ -232,16 +218,12 @@ public class GoalApi {
             description = "Internal server error",
             content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"error\": \"Server error\"}"))
     )
+    @Authenticated
     @DELETE
     @Path("/{id}")
-    public Response deleteSavingsGoal(@CookieParam("auth_token") String token, @PathParam("id") String id) {
+    public Response deleteSavingsGoal(@Context SecurityContext securityContext, @PathParam("id") String id) {
         try {
-            if (token == null || token.isEmpty()) {
-                return Response.status(Response.Status.UNAUTHORIZED)
-                        .entity(Map.of("error", "Invalid token or user not found"))
-                        .build();
-            }
-            ObjectId userId = jwtUtil.extractUserId(token);
+            ObjectId userId = AuthenticatedUser.userId(securityContext);
             ObjectId goalId = new ObjectId(id);
             boolean deleted = goalBean.deleteSavingsGoal(goalId);
 
@@ -2,21 +2,33 @@ package ss.finance.services;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Indexes;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.bson.Document;
 import org.bson.types.ObjectId;
 import ss.finance.entities.SavingsGoal;
+import ss.finance.indexes.IndexDefinition;
+import ss.finance.indexes.IndexRegistry;
+import ss.finance.indexes.QueryCheck;
 import ss.finance.utils.MongoDBConnection;
 
 import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.Initialized;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
-import java.util.logging.Logger;
 
 @ApplicationScoped
 public class GoalBean {
     private MongoCollection<Document> collection;
-    private static final Logger logger = Logger.getLogger(GoalBean.class.getName());
+    private static final Logger logger = LogManager.getLogger(GoalBean.class);
+
+    @Inject
+    private IndexRegistry indexRegistry;
 
     public GoalBean() {
         MongoClient mongoClient = MongoDBConnection.getMongoClient();
@@ -24,13 +36,18 @@ public class GoalBean {
         this.collection = database.getCollection("savings-goals");
     }
 
+    public void registerIndexes(@Observes @Initialized(ApplicationScoped.class) Object init) {
+        indexRegistry.register(IndexDefinition.on("savings-goals", Indexes.ascending("userId")));
+        indexRegistry.verify(QueryCheck.find("savings goals by user", "savings-goals", Filters.eq("userId", new ObjectId())));
+    }
+
     public void addSavingsGoal(SavingsGoal goal) {
         try {
             Document goalDoc = toDocument(goal);
             collection.insertOne(goalDoc);
             logger.info("Savings goal added successfully");
         } catch (Exception e) {
-            logger.severe("Error adding savings goal: " + e.getMessage());
+            logger.error("Error adding savings goal: {}", e.getMessage());
             throw new RuntimeException("Error adding savings goal", e);
         }
     }
@@ -45,7 +62,7 @@ public class GoalBean {
             );
             logger.info("Savings goal updated successfully");
         } catch (Exception e) {
-            logger.severe("Error updating savings goal: " + e.getMessage());
+            logger.error("Error updating savings goal: {}", e.getMessage());
             throw new RuntimeException("Error updating savings goal", e);
         }
     }
@@ -57,7 +74,7 @@ public class GoalBean {
                 return toSavingsGoal(doc);
             }
         } catch (Exception e) {
-            logger.severe("Error retrieving savings goal: " + e.getMessage());
+            logger.error("Error retrieving savings goal: {}", e.getMessage());
             throw new RuntimeException("Error retrieving savings goal", e);
         }
         return null;
@@ -70,7 +87,7 @@ public class GoalBean {
                 goals.add(toSavingsGoal(doc));
             }
         } catch (Exception e) {
-            logger.severe("Error retrieving all savings goals: " + e.getMessage());
+            logger.error("Error retrieving all savings goals: {}", e.getMessage());
             throw new RuntimeException("Error retrieving all savings goals", e);
         }
         return goals;
@@ -82,7 +99,7 @@ public class GoalBean {
             logger.info("Savings goal deleted successfully");
             return true;
         } catch (Exception e) {
-            logger.severe("Error deleting savings goal: " + e.getMessage());
+            logger.error("Error deleting savings goal: {}", e.getMessage());
             return false;
         }
     }
@@ -1,14 +1,18 @@
 package ss.finance.rest;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.SecurityContext;
 
 import org.bson.types.ObjectId;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -23,45 +27,48 @@ import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import ss.finance.entities.SavingsGoal;
-import ss.finance.security.JwtUtil;
+import ss.finance.security.Authenticated;
+import ss.finance.security.AuthenticatedUser;
 import ss.finance.services.GoalBean;
+import ss.finance.testing.TestConfiguration;
 
 @ExtendWith(MockitoExtension.class)
 class GoalApiTest {
 
-    @Mock
-    private GoalBean goalBean;
+    @BeforeAll
+    static void initConfiguration() {
+        TestConfiguration.initialize();
+    }
 
     @Mock
-    private JwtUtil jwtUtil;
+    private GoalBean goalBean;
 
     @InjectMocks
     private GoalApi goalApi;
 
-    private String validToken;
+    private SecurityContext securityContext;
     private ObjectId userId;
     private SavingsGoal sampleGoal;
 
     @BeforeEach
     void setUp() {
-        validToken = "valid.jwt.token";
         userId = new ObjectId();
+        securityContext = new AuthenticatedUser(userId);
     
         sampleGoal = new SavingsGoal();
         sampleGoal.setUserId(userId);
         sampleGoal.setGoalName("Vacation");
         sampleGoal.setTargetAmount(3000);
         sampleGoal.setCurrentAmount(500);
-        sampleGoal.setStartDate(null);
-        sampleGoal.setDeadline(null);
+        sampleGoal.setStartDate(new Date());
+        sampleGoal.setDeadline(new Date());
     }
 
     @Test
     void testGetSavingsGoals_Success() {
-        when(jwtUtil.extractUserId(validToken)).thenReturn(userId);
         when(goalBean.getAllSavingsGoals(userId)).thenReturn(List.of(sampleGoal));
 
-        Response response = goalApi.getSavingsGoals(validToken);
+        Response response = goalApi.getSavingsGoals(securityContext);
 
         assertEquals(Status.OK.getStatusCode(), response.getStatus());
         assertNotNull(response.getEntity());
@@ -69,18 +76,16 @@ class GoalApiTest {
     }
 
     @Test
-    void testGetSavingsGoals_Unauthorized() {
-        Response response = goalApi.getSavingsGoals(null);
-
-        assertEquals(Status.UNAUTHORIZED.getStatusCode(), response.getStatus());
-        assertEquals(Map.of("error", "Invalid token or user not found"), response.getEntity());
+    void testGetSavingsGoals_Unauthorized() throws NoSuchMethodException {
+        // Requests without a valid token are rejected by AuthenticationFilter before reaching the resource
+        assertTrue(GoalApi.class.getMethod("getSavingsGoals", SecurityContext.class)
+                .isAnnotationPresent(Authenticated.class));
     }
 
     @Test
     void testAddSavingsGoal_Success() {
-        when(jwtUtil.extractUserId(validToken)).thenReturn(userId);
 
-        Response response = goalApi.addSavingsGoal(validToken, sampleGoal);
+        Response response = goalApi.addSavingsGoal(securityContext, sampleGoal);
 
         assertEquals(Status.CREATED.getStatusCode(), response.getStatus());
         assertEquals(Map.of("message", "Savings goal created successfully"), response.getEntity());
@@ -89,9 +94,9 @@ class GoalApiTest {
 
     @Test
     void testAddSavingsGoal_InvalidData() {
-        SavingsGoal invalidGoal = new SavingsGoal(null, "", -100, -50, null, null);
+        SavingsGoal invalidGoal = new SavingsGoal(userId, "", -100, -50, null, null);
 
-        Response response = goalApi.addSavingsGoal(validToken, invalidGoal);
+        Response response = goalApi.addSavingsGoal(securityContext, invalidGoal);
 
         assertEquals(Status.BAD_REQUEST.getStatusCode(), response.getStatus());
         assertEquals(Map.of("error", "Missing or invalid fields. 'goalName', 'targetAmount', 'currentAmount', 'startDate', and 'deadline' are required."), response.getEntity());
@@ -102,10 +107,9 @@ class GoalApiTest {
     @Test
     void testDeleteSavingsGoal_Success() {
         String goalId = new ObjectId().toHexString();
-        when(jwtUtil.extractUserId(validToken)).thenReturn(userId);
         when(goalBean.deleteSavingsGoal(new ObjectId(goalId))).thenReturn(true);
 
-        Response response = goalApi.deleteSavingsGoal(validToken, goalId);
+        Response response = goalApi.deleteSavingsGoal(securityContext, goalId);
 
         assertEquals(Status.OK.getStatusCode(), response.getStatus());
         assertEquals(Map.of("message", "Savings goal deleted successfully"), response.getEntity());
@@ -116,10 +120,9 @@ class GoalApiTest {
     @Test
     void testDeleteSavingsGoal_NotFound() {
         String goalId = new ObjectId().toHexString();
-        when(jwtUtil.extractUserId(validToken)).thenReturn(userId);
         when(goalBean.deleteSavingsGoal(new ObjectId(goalId))).thenReturn(false);
 
-        Response response = goalApi.deleteSavingsGoal(validToken, goalId);
+        Response response = goalApi.deleteSavingsGoal(securityContext, goalId);
 
         assertEquals(Status.NOT_FOUND.getStatusCode(), response.getStatus());
         assertEquals(Map.of("error", "Savings goal not found"), response.getEntity());
@@ -130,10 +133,9 @@ class GoalApiTest {
         String goalId = new ObjectId().toHexString();
         SavingsGoal updatedGoal = new SavingsGoal(userId, "Updated Goal", 4000, 1000, null, null);
 
-        when(jwtUtil.extractUserId(validToken)).thenReturn(userId);
         doNothing().when(goalBean).updateSavingsGoal(any(ObjectId.class), any(SavingsGoal.class));
 
-        Response response = goalApi.updateSavingsGoal(validToken, goalId, updatedGoal);
+        Response response = goalApi.updateSavingsGoal(securityContext, goalId, updatedGoal);
 
         assertEquals(Status.OK.getStatusCode(), response.getStatus());
         assertEquals(Map.of("message", "Savings goal updated successfully"), response.getEntity());
@@ -142,13 +144,9 @@ class GoalApiTest {
     }
 
     @Test
-    void testUpdateSavingsGoal_Unauthorized() {
-        String goalId = new ObjectId().toHexString();
-        SavingsGoal updatedGoal = new SavingsGoal(userId, "Updated Goal", 4000, 1000, null, null);
-
-        Response response = goalApi.updateSavingsGoal(null, goalId, updatedGoal);
-
-        assertEquals(Status.UNAUTHORIZED.getStatusCode(), response.getStatus());
-        assertEquals(Map.of("error", "Invalid token or user not found"), response.getEntity());
+    void testUpdateSavingsGoal_Unauthorized() throws NoSuchMethodException {
+        // Requests without a valid token are rejected by AuthenticationFilter before reaching the resource
+        assertTrue(GoalApi.class.getMethod("updateSavingsGoal", SecurityContext.class, String.class, SavingsGoal.class)
+                .isAnnotationPresent(Authenticated.class));
     }
 }
\ No newline at end of file
@@ -10,13 +10,13 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -28,10 +28,16 @@ import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
 
 import ss.finance.entities.SavingsGoal;
+import ss.finance.testing.TestConfiguration;
 
 @ExtendWith(MockitoExtension.class)
 class GoalBeanTest {
 
+    @BeforeAll
+    static void initConfiguration() {
+        TestConfiguration.initialize();
+    }
+
     @Mock
     private MongoCollection<Document> collection; // Mock zbirke
 
@@ -66,8 +72,6 @@ class GoalBeanTest {
 
     @Test
     void testAddSavingsGoal() {
-        doNothing().when(collection).insertOne(any(Document.class));
-
         goalBean.addSavingsGoal(sampleGoal);
 
         verify(collection, times(1)).insertOne(any(Document.class));
@@ -75,8 +79,6 @@ class GoalBeanTest {
 
     @Test
     void testUpdateSavingsGoal() {
-        doNothing().when(collection).updateOne(any(Document.class), any(Document.class));
-
         goalBean.updateSavingsGoal(goalId, sampleGoal);
 
         verify(collection, times(1)).updateOne(any(Document.class), any(Document.class));
@@ -130,8 +132,6 @@ class GoalBeanTest {
 
     @Test
     void testDeleteSavingsGoal() {
-        doNothing().when(collection).deleteOne(any(Document.class));
-
         boolean result = goalBean.deleteSavingsGoal(goalId);
 
         assertTrue(result);
@@ -41,9 +41,6 @@ public class Transaction {
         this.date = date != null ? date : new Date(); // Default to current date if null
         this.createdAt = new Date();
         this.updatedAt = new Date();
-
-        // Add logging
-        System.out.println("Transaction initialized: " + this);
     }
 
     // Getters and Setters
@@ -0,0 +1,265 @@
+package ss.finance.outbox;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.Initialized;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.bson.types.ObjectId;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.Updates;
+
+import ss.finance.health.HealthResult;
+import ss.finance.health.HealthService;
+import ss.finance.indexes.IndexDefinition;
+import ss.finance.indexes.IndexRegistry;
+import ss.finance.rabbit.RabbitMQConfig;
+import ss.finance.rabbit.RabbitPublisher;
+import ss.finance.utils.MongoDBConnection;
+
+/**
+ * Drains the transaction outbox to RabbitMQ. Entries are written together with the
+ * transaction they describe, so a broker outage only delays delivery instead of losing
+ * the event. Delivery is at-least-once: an entry is deleted only after the broker has
+ * confirmed it, and a crash in between republishes it.
+ * <p>
+ * An entry whose payload cannot be read, or that failed {@value #MAX_ATTEMPTS} times while the
+ * broker was reachable, is moved to {@value #DEAD_COLLECTION_NAME} with the last error, so it
+ * does not hold up the entries behind it. Failures while the broker is unreachable are not counted.
+ */
+@ApplicationScoped
+public class OutboxRelay {
+    public static final String COLLECTION_NAME = "transaction_outbox";
+    public static final String DEAD_COLLECTION_NAME = "transaction_outbox_dead";
+    static final int MAX_ATTEMPTS = 10;
+
+    private static final Logger logger = LogManager.getLogger(OutboxRelay.class);
+    private static final int BATCH_SIZE = 100;
+    private static final long POLL_INTERVAL_MS = 500;
+    private static final long INITIAL_BACKOFF_MS = 1000;
+    private static final long MAX_BACKOFF_MS = 60000;
+    private static final long CONFIRM_TIMEOUT_MS = 5000;
+    private static final long CLAIM_LEASE_MS = 30000;
+
+    private final MongoCollection<Document> outbox;
+    private final MongoCollection<Document> dead;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "outbox-relay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Inject
+    private RabbitPublisher publisher;
+
+    @Inject
+    private IndexRegistry indexRegistry;
+
+    @Inject
+    private HealthService healthService;
+
+    private int consecutiveFailures;
+
+    public OutboxRelay() {
+        this.outbox = MongoDBConnection.getDatabase("financeApp").getCollection(COLLECTION_NAME);
+        this.dead = MongoDBConnection.getDatabase("financeApp").getCollection(DEAD_COLLECTION_NAME);
+    }
+
+    OutboxRelay(RabbitPublisher publisher) {
+        this();
+        this.publisher = publisher;
+    }
+
+    public static Document newEntry(ObjectId aggregateId, ObjectId userId, byte[] payload) {
+        return new Document("_id", new ObjectId())
+                .append("aggregateId", aggregateId)
+                .append("userId", userId)
+                .append("payload", new Binary(payload))
+                .append("attempts", 0)
+                .append("createdAt", new Date());
+    }
+
+    public MongoCollection<Document> getCollection() {
+        return outbox;
+    }
+
+    // Start draining as soon as the application is up instead of on first injection
+    public void start(@Observes @Initialized(ApplicationScoped.class) Object init) {
+        indexRegistry.register(IndexDefinition.on(COLLECTION_NAME, Indexes.ascending("claimedBy")).sparse());
+        // Not critical for readiness: writes go to the outbox and are relayed once the broker is back
+        healthService.register("RabbitMQ", () -> {
+            Map<String, Object> state = publisher.state();
+            return "CLOSED".equals(state.get("connection")) ? HealthResult.down(state) : HealthResult.up(state);
+        }, false);
+        logger.info("Starting outbox relay for collection '{}'.", COLLECTION_NAME);
+        scheduler.schedule(this::run, 0, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    private void run() {
+        long delay;
+        try {
+            int published = drainBatch();
+            consecutiveFailures = 0;
+            // Keep going without pausing while there is a backlog
+            delay = published == BATCH_SIZE ? 0 : POLL_INTERVAL_MS;
+        } catch (Exception e) {
+            consecutiveFailures++;
+            delay = Math.min(MAX_BACKOFF_MS, INITIAL_BACKOFF_MS << Math.min(consecutiveFailures - 1, 16));
+            logger.warn("Outbox relay failed ({} in a row), retrying in {} ms: {}",
+                    consecutiveFailures, delay, e.getMessage());
+        }
+        if (!scheduler.isShutdown()) {
+            scheduler.schedule(this::run, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    int drainBatch() throws Exception {
+        Date now = new Date();
+        List<ObjectId> candidates = outbox.find(Filters.or(
+                        Filters.exists("claimedUntil", false),
+                        Filters.lt("claimedUntil", now)))
+                .sort(Sorts.ascending("_id"))
+                .limit(BATCH_SIZE)
+                .projection(Projections.include("_id"))
+                .map(doc -> doc.getObjectId("_id"))
+                .into(new ArrayList<>());
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+
+        // Claim the batch so that relays in other replicas skip it
+        String claim = UUID.randomUUID().toString();
+        outbox.updateMany(
+                Filters.and(
+                        Filters.in("_id", candidates),
+                        Filters.or(Filters.exists("claimedUntil", false), Filters.lt("claimedUntil", now))),
+                Updates.combine(
+                        Updates.set("claimedBy", claim),
+                        Updates.set("claimedUntil", new Date(now.getTime() + CLAIM_LEASE_MS))));
+        List<Document> batch = outbox.find(Filters.eq("claimedBy", claim))
+                .sort(Sorts.ascending("_id"))
+                .into(new ArrayList<>());
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        String queueName = RabbitMQConfig.getQueueName();
+        List<Document> sent = new ArrayList<>(batch.size());
+        List<CompletableFuture<Void>> confirms = new ArrayList<>(batch.size());
+        List<Document> failed = new ArrayList<>();
+        List<Exception> errors = new ArrayList<>();
+        for (Document entry : batch) {
+            byte[] payload;
+            try {
+                payload = payloadOf(entry);
+            } catch (RuntimeException e) {
+                moveAside(entry, "Unreadable payload: " + e);
+                continue;
+            }
+            try {
+                confirms.add(publisher.publish(queueName, payload));
+                sent.add(entry);
+            } catch (Exception e) {
+                failed.add(entry);
+                errors.add(e);
+                break;
+            }
+        }
+
+        List<ObjectId> published = new ArrayList<>(sent.size());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(CONFIRM_TIMEOUT_MS);
+        for (int i = 0; i < sent.size(); i++) {
+            try {
+                confirms.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                published.add(sent.get(i).getObjectId("_id"));
+            } catch (ExecutionException | TimeoutException e) {
+                failed.add(sent.get(i));
+                errors.add(e);
+            }
+        }
+        if (!published.isEmpty()) {
+            outbox.deleteMany(Filters.in("_id", published));
+            logger.info("Relayed {} outbox entries to RabbitMQ.", published.size());
+        }
+        if (failed.isEmpty()) {
+            return published.size();
+        }
+
+        // While the broker is unreachable every entry fails, which says nothing about the entry itself
+        if (publisher.isConnected()) {
+            List<ObjectId> retried = new ArrayList<>(failed.size());
+            for (int i = 0; i < failed.size(); i++) {
+                Document entry = failed.get(i);
+                if (entry.getInteger("attempts", 0) + 1 >= MAX_ATTEMPTS) {
+                    moveAside(entry, String.valueOf(errors.get(i)));
+                } else {
+                    retried.add(entry.getObjectId("_id"));
+                }
+            }
+            if (!retried.isEmpty()) {
+                outbox.updateMany(Filters.in("_id", retried), Updates.inc("attempts", 1));
+            }
+        }
+        // Release the claim so the rest of the batch is retried after the backoff
+        outbox.updateMany(Filters.eq("claimedBy", claim), Updates.combine(
+                Updates.unset("claimedBy"),
+                Updates.unset("claimedUntil")));
+        throw errors.get(0);
+    }
+
+    private void moveAside(Document entry, String error) {
+        Document copy = new Document(entry);
+        copy.remove("claimedBy");
+        copy.remove("claimedUntil");
+        copy.append("lastError", error).append("deadAt", new Date());
+        try {
+            dead.insertOne(copy);
+        } catch (MongoWriteException e) {
+            // Moved before, but the delete below did not happen
+            if (e.getError().getCategory() != ErrorCategory.DUPLICATE_KEY) {
+                throw e;
+            }
+        }
+        outbox.deleteOne(Filters.eq("_id", entry.getObjectId("_id")));
+        logger.error("Moved outbox entry {} to '{}': {}", entry.getObjectId("_id"), DEAD_COLLECTION_NAME, error);
+    }
+
+    // Entries written before the binary event format still hold the old JSON string
+    private static byte[] payloadOf(Document entry) {
+        Object payload = entry.get("payload");
+        if (payload instanceof String) {
+            return ((String) payload).getBytes(StandardCharsets.UTF_8);
+        }
+        return ((Binary) payload).getData();
+    }
+}
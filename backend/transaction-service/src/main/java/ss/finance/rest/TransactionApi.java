@@ -1,20 +1,35 @@
 package ss.finance.rest;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Date;
-import java.util.logging.Logger;
+import java.util.List;
 
 import javax.inject.Inject;
 import javax.ws.rs.Consumes;
-import javax.ws.rs.CookieParam;
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
+import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.SecurityContext;
+import javax.ws.rs.core.StreamingOutput;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.bson.types.ObjectId;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
@@ -23,16 +38,22 @@ import org.eclipse.microprofile.openapi.annotations.parameters.RequestBody;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 
-import com.mongodb.client.MongoClient;
-import com.mongodb.client.MongoClients;
-import com.mongodb.client.MongoDatabase;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import jakarta.json.Json;
-import jakarta.json.JsonObjectBuilder;
 import ss.finance.entities.Transaction;
-import ss.finance.security.JwtUtil;
+import ss.finance.health.HealthService;
+import ss.finance.security.Authenticated;
+import ss.finance.security.AuthenticatedUser;
+import ss.finance.services.TransactionBatchResult;
 import ss.finance.services.TransactionBean;
 import ss.finance.services.TransactionDTO;
+import ss.finance.services.TransactionPage;
+import ss.finance.services.TransactionSummary;
 
 @Tag(name = "Transactions", description = "Endpoints for managing user transactions")
 @Path("/transactions")
@@ -44,50 +65,38 @@ public class TransactionApi {
     private TransactionBean transactionBean;
 
     @Inject
-    private JwtUtil jwtUtil;
+    private HealthService healthService;
 
-    private static final Logger logger = Logger.getLogger(TransactionApi.class.getName());
+    private static final Logger logger = LogManager.getLogger(TransactionApi.class);
 
-    private static final String MONGO_URI = System.getenv("MONGO_URL");
-    private static final String DATABASE_NAME = System.getenv("DATABASE_NAME");
+    private static final String NDJSON = "application/x-ndjson";
+    private static final int MULTI_STATUS = 207;
+    private static final ObjectMapper objectMapper = new ObjectMapper();
 
-    @Operation(summary = "Health check", description = "Returns the health status of the Transaction microservice.")
-    @APIResponse(
-            responseCode = "200",
-            description = "Service is up and running"
-    )
-    @APIResponse(
-            responseCode = "500",
-            description = "Service is down"
-    )
+    @Operation(summary = "Health check", description = "Returns the readiness of the Transaction microservice. Kept for existing probes, same as /health/ready.")
+    @APIResponse(responseCode = "200", description = "Service is up and running")
+    @APIResponse(responseCode = "503", description = "Service is down")
     @GET
     @Path("/health")
     public Response healthCheck() {
-        boolean isMongoUp = checkMongoDB();
-        boolean isServiceUp = transactionBean != null;
-
-        JsonObjectBuilder healthBuilder = Json.createObjectBuilder()
-                .add("status", isMongoUp ? "UP" : "DOWN");
-
-        JsonObjectBuilder detailsBuilder = Json.createObjectBuilder()
-                .add("MongoDB", isMongoUp ? "UP" : "DOWN")
-                .add("Transaction Service", isServiceUp ? "UP" : "DOWN");
-
-        jakarta.json.JsonObject healthJson = healthBuilder.add("details", detailsBuilder.build()).build();
+        return healthService.readiness().with("Transaction Service").toResponse();
+    }
 
-        int statusCode = isMongoUp ? Response.Status.OK.getStatusCode() : Response.Status.SERVICE_UNAVAILABLE.getStatusCode();
-        return Response.status(statusCode).entity(healthJson.toString()).build();
+    @Operation(summary = "Liveness check", description = "Returns UP while the process can serve requests. Does not check dependencies.")
+    @APIResponse(responseCode = "200", description = "Service is alive")
+    @GET
+    @Path("/health/live")
+    public Response livenessCheck() {
+        return healthService.liveness().toResponse();
     }
 
-    private boolean checkMongoDB() {
-        try (MongoClient mongoClient = MongoClients.create(MONGO_URI)) {
-            MongoDatabase database = mongoClient.getDatabase(DATABASE_NAME);
-            database.listCollectionNames().first();
-            return true;
-        } catch (Exception e) {
-            logger.severe("MongoDB health check failed: " + e.getMessage());
-            return false;
-        }
+    @Operation(summary = "Readiness check", description = "Pings MongoDB through the shared client and reports RabbitMQ state. Results are cached briefly.")
+    @APIResponse(responseCode = "200", description = "Service is ready")
+    @APIResponse(responseCode = "503", description = "A critical dependency is unavailable")
+    @GET
+    @Path("/health/ready")
+    public Response readinessCheck() {
+        return healthService.readiness().toResponse();
     }
 
     @Operation(summary = "Add a transaction", description = "Creates a new transaction for the authenticated user")
@@ -111,25 +120,20 @@ public class TransactionApi {
             description = "Internal server error",
             content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"message\": \"Server error occurred\"}"))
     )
+    @Authenticated
     @POST
     public Response addTransaction(
             @RequestBody(description = "Transaction details", required = true, content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(implementation = TransactionDTO.class))) 
             TransactionDTO transactionDTO, 
-            @CookieParam("auth_token") String token) {
+            @Context SecurityContext securityContext) {
         try {
-            logger.info("Received transactionDTO: " + transactionDTO);
+            logger.debug("Received transactionDTO: {}", transactionDTO);
 
             if (transactionDTO.getDate() == null) {
                 transactionDTO.setDate(new Date());
             }
 
-            if (token == null || token.isEmpty()) {
-                return Response.status(Response.Status.UNAUTHORIZED)
-                        .entity("{\"message\": \"Token is missing or invalid\"}")
-                        .build();
-            }
-
-            ObjectId userId = jwtUtil.extractUserId(token);
+            ObjectId userId = AuthenticatedUser.userId(securityContext);
             Transaction transaction = new Transaction(
                     userId,
                     transactionDTO.getType(),
@@ -144,18 +148,154 @@ public class TransactionApi {
                     .entity("{\"message\": \"Transaction created successfully\"}")
                     .build();
         } catch (Exception e) {
-            logger.severe("Error adding transaction: " + e.getMessage());
+            logger.error("Error adding transaction: {}", e.getMessage());
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity("{\"message\": \"Server error occurred\"}")
                     .build();
         }
     }
 
-    @Operation(summary = "Get user transactions", description = "Fetches all transactions for the authenticated user")
+    @Operation(summary = "Import transactions in bulk", description = "Creates many transactions for the authenticated user from a JSON array or an NDJSON stream (one transaction per line). Each row is validated and stored independently.")
+    @APIResponse(
+            responseCode = "201",
+            description = "All rows were created",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"received\": 2, \"created\": 2, \"failed\": 0, \"results\": [{\"index\": 0, \"status\": \"created\", \"id\": \"<transaction_id>\"}, {\"index\": 1, \"status\": \"created\", \"id\": \"<transaction_id>\"}]}"))
+    )
+    @APIResponse(
+            responseCode = "207",
+            description = "Some rows failed; see the per-row results",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"received\": 2, \"created\": 1, \"failed\": 1, \"results\": [{\"index\": 0, \"status\": \"created\", \"id\": \"<transaction_id>\"}, {\"index\": 1, \"status\": \"failed\", \"error\": \"Type, category, and amount are required fields.\"}]}"))
+    )
+    @APIResponse(
+            responseCode = "400",
+            description = "Malformed or empty body, or too many rows",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"message\": \"Request body must be a JSON array\"}"))
+    )
+    @APIResponse(
+            responseCode = "401",
+            description = "Unauthorized access",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"message\": \"Token is missing or invalid\"}"))
+    )
+    @APIResponse(
+            responseCode = "500",
+            description = "Internal server error",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"message\": \"Server error occurred\"}"))
+    )
+    @Authenticated
+    @POST
+    @Path("/batch")
+    @Consumes({MediaType.APPLICATION_JSON, NDJSON})
+    public Response addTransactionsBatch(
+            InputStream body,
+            @HeaderParam(HttpHeaders.CONTENT_TYPE) String contentType,
+            @Context SecurityContext securityContext) {
+        try {
+            ObjectId userId = AuthenticatedUser.userId(securityContext);
+            boolean ndjson = contentType != null && contentType.startsWith(NDJSON);
+
+            TransactionBatchResult result = new TransactionBatchResult();
+            List<Transaction> rows = ndjson
+                    ? readNdjsonBatch(body, userId, result)
+                    : readJsonArrayBatch(body, userId, result);
+            result.setReceived(rows.size());
+
+            if (rows.isEmpty()) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("{\"message\": \"Request body contains no transactions\"}")
+                        .build();
+            }
+
+            transactionBean.addTransactions(rows, result);
+
+            int status = result.getFailed() == 0 ? Response.Status.CREATED.getStatusCode() : MULTI_STATUS;
+            return Response.status(status).entity(result).build();
+        } catch (JsonProcessingException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Json.createObjectBuilder().add("message", "Malformed JSON: " + e.getOriginalMessage()).build().toString())
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Json.createObjectBuilder().add("message", e.getMessage()).build().toString())
+                    .build();
+        } catch (Exception e) {
+            logger.error("Error importing transactions: {}", e.getMessage());
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("{\"message\": \"Server error occurred\"}")
+                    .build();
+        }
+    }
+
+    private List<Transaction> readJsonArrayBatch(InputStream body, ObjectId userId, TransactionBatchResult result) throws IOException {
+        List<Transaction> rows = new ArrayList<>();
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Request body must be a JSON array");
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new IllegalArgumentException("Unterminated JSON array");
+                }
+                checkBatchSize(rows);
+                JsonNode node = parser.readValueAsTree();
+                rows.add(toBatchTransaction(node, rows.size(), userId, result));
+            }
+        }
+        return rows;
+    }
+
+    private List<Transaction> readNdjsonBatch(InputStream body, ObjectId userId, TransactionBatchResult result) throws IOException {
+        List<Transaction> rows = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            checkBatchSize(rows);
+            try {
+                rows.add(toBatchTransaction(objectMapper.readTree(line), rows.size(), userId, result));
+            } catch (JsonProcessingException e) {
+                // In NDJSON a broken line only invalidates itself
+                result.failed(rows.size(), "Invalid JSON: " + e.getOriginalMessage());
+                rows.add(null);
+            }
+        }
+        return rows;
+    }
+
+    private void checkBatchSize(List<Transaction> rows) {
+        if (rows.size() >= TransactionBean.MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Batch exceeds the maximum of " + TransactionBean.MAX_BATCH_SIZE + " transactions");
+        }
+    }
+
+    private Transaction toBatchTransaction(JsonNode node, int index, ObjectId userId, TransactionBatchResult result) {
+        try {
+            TransactionDTO transactionDTO = objectMapper.treeToValue(node, TransactionDTO.class);
+            return new Transaction(
+                    userId,
+                    transactionDTO.getType(),
+                    transactionDTO.getAmount(),
+                    transactionDTO.getCategory(),
+                    transactionDTO.getDate()
+            );
+        } catch (JsonProcessingException e) {
+            result.failed(index, "Invalid transaction: " + e.getOriginalMessage());
+            return null;
+        }
+    }
+
+    @Operation(summary = "Get user transactions", description = "Fetches transactions for the authenticated user. Without parameters the full history is returned; with 'limit' or 'cursor' a single page is returned; with 'stream=true' the full history is streamed.")
     @APIResponse(
             responseCode = "200",
-            description = "List of transactions",
-            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "[{\"id\": \"<transaction_id>\", \"type\": \"expense\", \"amount\": 100.0, \"category\": \"Groceries\", \"date\": \"2023-12-01\"}]"))
+            description = "List of transactions, or a page of transactions when 'limit' or 'cursor' is set",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"items\": [{\"id\": \"<transaction_id>\", \"type\": \"expense\", \"amount\": 100.0, \"category\": \"Groceries\", \"date\": \"2023-12-01\"}], \"nextCursor\": \"<cursor>\"}"))
+    )
+    @APIResponse(
+            responseCode = "400",
+            description = "Invalid cursor or limit",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"message\": \"Invalid cursor\"}"))
     )
     @APIResponse(
             responseCode = "401",
@@ -167,16 +307,26 @@ public class TransactionApi {
             description = "Internal server error",
             content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"message\": \"Server error occurred\"}"))
     )
+    @Authenticated
     @GET
-    public Response getUserTransactions(@CookieParam("auth_token") String token) {
+    public Response getUserTransactions(
+            @Context SecurityContext securityContext,
+            @QueryParam("cursor") String cursor,
+            @QueryParam("limit") Integer limit,
+            @QueryParam("stream") @DefaultValue("false") boolean stream) {
         try {
-            if (token == null || token.isEmpty()) {
-                return Response.status(Response.Status.UNAUTHORIZED)
-                        .entity("{\"message\": \"Token is missing or invalid\"}")
-                        .build();
+            ObjectId userId = AuthenticatedUser.userId(securityContext);
+
+            if (stream) {
+                StreamingOutput output = outputStream -> transactionBean.streamTransactionsByUserId(userId, outputStream);
+                return Response.ok(output).build();
+            }
+
+            if (cursor != null || limit != null) {
+                TransactionPage page = transactionBean.getTransactionsPage(userId, cursor, limit);
+                return Response.ok(page).build();
             }
 
-            ObjectId userId = jwtUtil.extractUserId(token);
             var transactions = transactionBean.getTransactionsByUserId(userId);
 
             if (transactions.isEmpty()) {
@@ -184,8 +334,132 @@ public class TransactionApi {
             }
 
             return Response.ok(transactions).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Json.createObjectBuilder().add("message", e.getMessage()).build().toString())
+                    .build();
+        } catch (Exception e) {
+            logger.error("Error retrieving transactions: {}", e.getMessage());
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("{\"message\": \"Server error occurred\"}")
+                    .build();
+        }
+    }
+
+    @Operation(summary = "Get transaction summary", description = "Returns income and expense totals of the authenticated user grouped by category, month (UTC) or type. 'from' is inclusive and 'to' exclusive; both accept yyyy-MM-dd or an ISO-8601 instant.")
+    @APIResponse(
+            responseCode = "200",
+            description = "Totals per group",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"groupBy\": \"category\", \"from\": \"2024-01-01T00:00:00.000Z\", \"to\": \"2024-02-01T00:00:00.000Z\", \"groups\": [{\"key\": \"Groceries\", \"income\": 0.0, \"expense\": 250.0, \"count\": 12}]}"))
+    )
+    @APIResponse(
+            responseCode = "400",
+            description = "Invalid range or groupBy",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"message\": \"Invalid groupBy, expected category, month or type\"}"))
+    )
+    @APIResponse(
+            responseCode = "401",
+            description = "Unauthorized access",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"message\": \"Token is missing or invalid\"}"))
+    )
+    @APIResponse(
+            responseCode = "500",
+            description = "Internal server error",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"message\": \"Server error occurred\"}"))
+    )
+    @Authenticated
+    @GET
+    @Path("/summary")
+    public Response getTransactionSummary(
+            @Context SecurityContext securityContext,
+            @QueryParam("from") String from,
+            @QueryParam("to") String to,
+            @QueryParam("groupBy") @DefaultValue("category") String groupBy) {
+        try {
+            ObjectId userId = AuthenticatedUser.userId(securityContext);
+            TransactionSummary summary = transactionBean.getSummary(userId, from, to, groupBy);
+            return Response.ok(summary).build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Json.createObjectBuilder().add("message", e.getMessage()).build().toString())
+                    .build();
+        } catch (Exception e) {
+            logger.error("Error building transaction summary: {}", e.getMessage());
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity("{\"message\": \"Server error occurred\"}")
+                    .build();
+        }
+    }
+
+    @Operation(summary = "Update a transaction", description = "Replaces the type, amount, category and date of a transaction")
+    @APIResponse(
+            responseCode = "200",
+            description = "Transaction updated successfully",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"message\": \"Transaction updated successfully\"}"))
+    )
+    @APIResponse(
+            responseCode = "400",
+            description = "Invalid transaction ID, missing fields, missing date or an amount that is not positive",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"message\": \"Date is a required field.\"}"))
+    )
+    @APIResponse(
+            responseCode = "401",
+            description = "Unauthorized access",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"message\": \"Token is missing or invalid\"}"))
+    )
+    @APIResponse(
+            responseCode = "404",
+            description = "Transaction not found",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"message\": \"Transaction not found or does not belong to the user\"}"))
+    )
+    @APIResponse(
+            responseCode = "500",
+            description = "Internal server error",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"message\": \"Server error occurred\"}"))
+    )
+    @Authenticated
+    @PUT
+    @Path("/{transactionId}")
+    public Response updateTransaction(
+            @PathParam("transactionId") String transactionId,
+            @RequestBody(description = "Transaction details", required = true, content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(implementation = TransactionDTO.class)))
+            TransactionDTO transactionDTO,
+            @Context SecurityContext securityContext) {
+        try {
+            if (transactionId == null || transactionId.length() != 24 || !transactionId.matches("[a-fA-F0-9]{24}")) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("{\"message\": \"Invalid transaction ID format\"}")
+                        .build();
+            }
+
+            ObjectId userId = AuthenticatedUser.userId(securityContext);
+            ObjectId transactionObjectId = new ObjectId(transactionId);
+            Transaction existing = transactionBean.getTransactionById(transactionObjectId);
+
+            if (existing == null || !existing.getUserId().equals(userId)) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity("{\"message\": \"Transaction not found or does not belong to the user\"}")
+                        .build();
+            }
+
+            Transaction transaction = new Transaction(
+                    userId,
+                    transactionDTO.getType(),
+                    transactionDTO.getAmount(),
+                    transactionDTO.getCategory(),
+                    transactionDTO.getDate()
+            );
+            // The constructor falls back to now, but an update must not move the transaction silently
+            transaction.setDate(transactionDTO.getDate());
+            transactionBean.updateTransaction(transactionObjectId, transaction);
+
+            return Response.ok("{\"message\": \"Transaction updated successfully\"}").build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Json.createObjectBuilder().add("message", e.getMessage()).build().toString())
+                    .build();
         } catch (Exception e) {
-            logger.severe("Error retrieving transactions: " + e.getMessage());
+            logger.error("Error updating transaction: {}", e.getMessage());
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity("{\"message\": \"Server error occurred\"}")
                     .build();
@@ -217,11 +491,12 @@ public class TransactionApi {
             description = "Internal server error",
             content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"message\": \"Server error occurred\"}"))
     )
+    @Authenticated
     @DELETE
     @Path("/{transactionId}")
     public Response deleteTransaction(
             @PathParam("transactionId") String transactionId, 
-            @CookieParam("auth_token") String token) {
+            @Context SecurityContext securityContext) {
         try {
             if (transactionId == null || transactionId.length() != 24 || !transactionId.matches("[a-fA-F0-9]{24}")) {
                 return Response.status(Response.Status.BAD_REQUEST)
@@ -229,13 +504,7 @@ public class TransactionApi {
                         .build();
             }
 
-            if (token == null || token.isEmpty()) {
-                return Response.status(Response.Status.UNAUTHORIZED)
-                        .entity("{\"message\": \"Token is missing or invalid\"}")
-                        .build();
-            }
-
-            ObjectId userId = jwtUtil.extractUserId(token);
+            ObjectId userId = AuthenticatedUser.userId(securityContext);
             ObjectId transactionObjectId = new ObjectId(transactionId);
             Transaction transaction = transactionBean.getTransactionById(transactionObjectId);
 
@@ -253,7 +522,7 @@ public class TransactionApi {
                         .build();
             }
         } catch (Exception e) {
-            logger.severe("Error deleting transaction: " + e.getMessage());
+            logger.error("Error deleting transaction: {}", e.getMessage());
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity("{\"message\": \"Server error occurred\"}")
                     .build();
@@ -0,0 +1,95 @@
+package ss.finance.services;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.bson.types.ObjectId;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Per-row outcome of a bulk transaction import. Row indexes refer to the position
+ * of the row in the submitted JSON array or NDJSON stream.
+ */
+public class TransactionBatchResult {
+    private int received;
+    private int created;
+    private int failed;
+    private final List<RowResult> results = new ArrayList<>();
+
+    public void setReceived(int received) {
+        this.received = received;
+    }
+
+    public void created(int index, ObjectId id) {
+        created(index, id, null);
+    }
+
+    /**
+     * A stored row with a warning, e.g. when its event could not be queued for the other services.
+     */
+    public void created(int index, ObjectId id, String warning) {
+        results.add(new RowResult(index, "created", id.toHexString(), null, warning));
+        created++;
+    }
+
+    public void failed(int index, String error) {
+        results.add(new RowResult(index, "failed", null, error, null));
+        failed++;
+    }
+
+    public int getReceived() {
+        return received;
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public List<RowResult> getResults() {
+        results.sort(Comparator.comparingInt(RowResult::getIndex));
+        return results;
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class RowResult {
+        private final int index;
+        private final String status;
+        private final String id;
+        private final String error;
+        private final String warning;
+
+        public RowResult(int index, String status, String id, String error, String warning) {
+            this.index = index;
+            this.status = status;
+            this.id = id;
+            this.error = error;
+            this.warning = warning;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public String getWarning() {
+            return warning;
+        }
+    }
+}
@@ -1,230 +1,691 @@
 package ss.finance.services;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.logging.Logger;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 
 import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.Initialized;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.bson.Document;
+import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.ClientSession;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
-import com.rabbitmq.client.Channel;
-import com.rabbitmq.client.Connection;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.Updates;
 
 import ss.finance.entities.Transaction;
-import ss.finance.rabbit.RabbitMQConfig;
+import ss.finance.events.TransactionEvent;
+import ss.finance.events.TransactionEventCodec;
+import ss.finance.indexes.IndexDefinition;
+import ss.finance.indexes.IndexRegistry;
+import ss.finance.indexes.QueryCheck;
+import ss.finance.outbox.OutboxRelay;
+import ss.finance.utils.LogSampler;
 import ss.finance.utils.MongoDBConnection;
 
 @ApplicationScoped
 public class TransactionBean {
     private MongoCollection<Document> collection;
-    private static final Logger logger = Logger.getLogger(TransactionBean.class.getName());
+    private static final Logger logger = LogManager.getLogger(TransactionBean.class);
+    // toDocument/toTransaction run once per row, so their DEBUG lines are sampled
+    private static final LogSampler rowLogSampler = LogSampler.forRows();
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+    private static final int STREAM_BATCH_SIZE = 500;
+    public static final int MAX_BATCH_SIZE = 10000;
+    private static final int INSERT_CHUNK_SIZE = 500;
+    private static final String VERSIONS_COLLECTION = "transaction_versions";
+    private static final String SUMMARY_INDEX = "userId_date_summary";
+    private static final String HISTORY_INDEX = "userId_date_history";
+    private static final Document HISTORY_SORT = new Document("date", -1).append("_id", -1);
+    private static final ObjectMapper objectMapper = new ObjectMapper()
+            .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    @Inject
+    private IndexRegistry indexRegistry;
+
+    private MongoClient mongoClient;
+    private MongoCollection<Document> outboxCollection;
+    private MongoCollection<Document> versionCollection;
+    private TransactionRollups rollups;
+    private MongoDatabase database;
+    // Determined on first use, so construction does not wait for MongoDB
+    private volatile Boolean transactionsSupported;
 
-    private Connection rabbitMQConnection;
-    private Channel rabbitMQChannel;
-    
     public TransactionBean() {
-        logger.info("TransactionBean constructor invoked. Starting initialization...");
+        logger.debug("TransactionBean constructor invoked. Starting initialization...");
     
         // Inicializacija MongoDB
         try {
-            MongoClient mongoClient = MongoDBConnection.getMongoClient();
-            MongoDatabase database = mongoClient.getDatabase("financeApp");
+            this.mongoClient = MongoDBConnection.getMongoClient();
+            this.database = mongoClient.getDatabase("financeApp");
             this.collection = database.getCollection("transactions");
+            this.outboxCollection = database.getCollection(OutboxRelay.COLLECTION_NAME);
+            this.versionCollection = database.getCollection(VERSIONS_COLLECTION);
+            this.rollups = new TransactionRollups(database, collection);
             logger.info("MongoDB connection established and collection 'transactions' initialized.");
         } catch (Exception e) {
-            logger.severe("Failed to initialize MongoDB connection: " + e.getMessage());
+            logger.error("Failed to initialize MongoDB connection: {}", e.getMessage());
             throw new RuntimeException("Failed to initialize MongoDB", e);
         }
-    
-        // Inicializacija RabbitMQ
-        try {
-            Thread.sleep(10000); // Zamika 10 sekund
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            logger.warning("Initialization was interrupted.");
+        logger.info("TransactionBean initialized successfully.");
+    }
+
+    public void registerIndexes(@Observes @Initialized(ApplicationScoped.class) Object init) {
+        indexRegistry.register(
+                // History pages and streams: equality on userId, then the sort order of HISTORY_SORT
+                IndexDefinition.on("transactions", Indexes.compoundIndex(
+                        Indexes.ascending("userId"), Indexes.descending("date", "_id"))).name(HISTORY_INDEX),
+                // Covers the summary pipeline: the match uses the prefix, the group only reads indexed fields
+                IndexDefinition.on("transactions", Indexes.ascending("userId", "date", "type", "category", "amount"))
+                        .name(SUMMARY_INDEX),
+                IndexDefinition.on(TransactionRollups.COLLECTION_NAME,
+                        Indexes.ascending("userId", "month", "category", "type")).unique());
+
+        ObjectId sampleUser = new ObjectId();
+        indexRegistry.verify(
+                QueryCheck.find("transaction history", "transactions", Filters.eq("userId", sampleUser))
+                        .sort(HISTORY_SORT),
+                QueryCheck.aggregate("transaction summary", "transactions", List.of(
+                        Aggregates.match(Filters.and(Filters.eq("userId", sampleUser), Filters.gte("date", new Date(0)))),
+                        Aggregates.group("$category", Accumulators.sum("income", amountOfType("income")))))
+                        .covered(),
+                QueryCheck.find("monthly rollups", TransactionRollups.COLLECTION_NAME,
+                        Filters.and(Filters.eq("userId", sampleUser), Filters.gte("month", "2000-01"))));
+    }
+
+    // Multi-document transactions need a replica set or a sharded cluster
+    private boolean transactionsSupported() {
+        Boolean supported = transactionsSupported;
+        if (supported != null) {
+            return supported;
         }
         try {
-            logger.info("Initializing RabbitMQ connection...");
-            this.rabbitMQConnection = RabbitMQConfig.createConnection();
-            this.rabbitMQChannel = rabbitMQConnection.createChannel();
-    
-            String queueName = RabbitMQConfig.getQueueName();
-            logger.info("Declaring RabbitMQ queue: " + queueName);
-            rabbitMQChannel.queueDeclare(queueName, false, false, false, null);
-            logger.info("RabbitMQ queue '" + queueName + "' declared successfully.");
+            Document hello = database.runCommand(new Document("hello", 1));
+            supported = hello.containsKey("setName") || "isdbgrid".equals(hello.getString("msg"));
         } catch (Exception e) {
-            logger.severe("Failed to initialize RabbitMQ connection or channel: " + e.getMessage());
-            throw new RuntimeException("Failed to initialize RabbitMQ", e);
+            // Not cached, the next write asks again
+            logger.warn("Could not determine MongoDB topology: {}", e.getMessage());
+            return false;
         }
-    
-        logger.info("TransactionBean initialized successfully.");
+        if (!supported) {
+            logger.warn("MongoDB is not a replica set; transactions and outbox entries are written sequentially.");
+        }
+        transactionsSupported = supported;
+        return supported;
     }
     
     public void addTransaction(Transaction transaction) {
-        logger.info("addTransaction method invoked.");
+        logger.debug("addTransaction method invoked.");
         try {
             // Validate required fields
-            logger.info("Validating transaction fields...");
-            if (transaction.getType() == null || transaction.getType().isEmpty() ||
-                transaction.getCategory() == null || transaction.getCategory().isEmpty() ||
-                transaction.getAmount() <= 0) {
-                logger.warning("Validation failed: Type, category, and amount are required fields.");
-                throw new IllegalArgumentException("Type, category, and amount are required fields.");
-            }
-    
-            // Ensure the date is set
-            if (transaction.getDate() == null) {
-                transaction.setDate(new Date());
-                logger.info("Transaction date not provided. Setting current date.");
-            }
-    
-            // Set creation and update timestamps
-            transaction.setCreatedAt(new Date());
-            transaction.setUpdatedAt(new Date());
-            logger.info("Transaction timestamps (createdAt, updatedAt) set.");
+            prepareForInsert(transaction);
     
             // Convert to MongoDB Document
-            Document transactionDoc = toDocument(transaction);
-            logger.info("Saving transaction to MongoDB. Document: " + transactionDoc.toJson());
-            collection.insertOne(transactionDoc);
-            logger.info("Transaction saved to MongoDB successfully.");
-    
-            // Send the transaction to RabbitMQ
-            sendTransactionToQueue(transaction);
+            transaction.setId(new ObjectId());
+            Document transactionDoc = toDocument(transaction).append("_id", transaction.getId());
+            logger.debug("Saving transaction {} to MongoDB.", transaction.getId());
+
+            // The queue message goes to the outbox in the same write; OutboxRelay publishes it
+            insertWithOutbox(List.of(transactionDoc), List.of(transaction));
+            logger.info("Transaction {} saved for userId: {}", transaction.getId(), transaction.getUserId());
     
         } catch (IllegalArgumentException e) {
-            logger.warning("Validation error: " + e.getMessage());
+            logger.warn("Validation error: {}", e.getMessage());
             throw new RuntimeException("Validation error: " + e.getMessage(), e);
         } catch (Exception e) {
-            logger.severe("Error adding transaction: " + e.getMessage());
+            logger.error("Error adding transaction: {}", e.getMessage());
             throw new RuntimeException("Error adding transaction", e);
         }
     }
     
-    public void sendTransactionToQueue(Transaction transaction) {
-        logger.info("sendTransactionToQueue method invoked.");
-    
+    /**
+     * Bulk import used by statement uploads. Rows are inserted in insertMany chunks
+     * together with their outbox entries, and invalid rows only fail themselves.
+     * Null entries are rows that already failed to parse and are skipped.
+     */
+    public void addTransactions(List<Transaction> transactions, TransactionBatchResult result) {
+        if (transactions.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Batch exceeds the maximum of " + MAX_BATCH_SIZE + " transactions");
+        }
+        logger.debug("addTransactions invoked with {} rows.", transactions.size());
+
+        List<Integer> chunkIndexes = new ArrayList<>(INSERT_CHUNK_SIZE);
+        List<Document> chunkDocs = new ArrayList<>(INSERT_CHUNK_SIZE);
+
+        for (int i = 0; i < transactions.size(); i++) {
+            Transaction transaction = transactions.get(i);
+            if (transaction == null) {
+                continue;
+            }
+            try {
+                prepareForInsert(transaction);
+            } catch (IllegalArgumentException e) {
+                result.failed(i, e.getMessage());
+                continue;
+            }
+            transaction.setId(new ObjectId());
+            chunkIndexes.add(i);
+            chunkDocs.add(toDocument(transaction).append("_id", transaction.getId()));
+            if (chunkDocs.size() == INSERT_CHUNK_SIZE) {
+                insertChunk(transactions, chunkIndexes, chunkDocs, result);
+            }
+        }
+        if (!chunkDocs.isEmpty()) {
+            insertChunk(transactions, chunkIndexes, chunkDocs, result);
+        }
+
+        logger.info("addTransactions finished: created={}, failed={}", result.getCreated(), result.getFailed());
+    }
+
+    private void insertChunk(List<Transaction> transactions, List<Integer> chunkIndexes, List<Document> chunkDocs,
+                             TransactionBatchResult result) {
+        List<Integer> positions = new ArrayList<>(chunkDocs.size());
+        for (int position = 0; position < chunkDocs.size(); position++) {
+            positions.add(position);
+        }
         try {
-            // Debug transaction details
-            logger.info("Transaction details: " +
-                        "userId=" + transaction.getUserId() +
-                        ", type=" + transaction.getType() +
-                        ", amount=" + transaction.getAmount() +
-                        ", category=" + transaction.getCategory() +
-                        ", date=" + transaction.getDate());
-    
-            // Preveri, če je kanal aktiven
-            if (rabbitMQChannel == null || !rabbitMQChannel.isOpen()) {
-                logger.warning("RabbitMQ channel is not available. Attempting to reinitialize...");
-                this.rabbitMQChannel = rabbitMQConnection.createChannel();
-                logger.info("RabbitMQ channel reinitialized successfully.");
+            if (transactionsSupported()) {
+                insertChunkAtomically(transactions, chunkIndexes, chunkDocs, positions, result);
+            } else {
+                insertChunkSequentially(transactions, chunkIndexes, chunkDocs, positions, result);
             }
-    
-            // Pretvori transakcijo v sporočilo JSON
-            String message = String.format(
-                "{ \"userId\": \"%s\", \"type\": \"%s\", \"amount\": %.2f, \"category\": \"%s\", \"date\": \"%s\" }",
-                transaction.getUserId(),
-                transaction.getType(),
-                transaction.getAmount(),
-                transaction.getCategory(),
-                transaction.getDate()
-            );
-            logger.info("Message to be sent to RabbitMQ: " + message);
-    
-            // Objavi sporočilo v RabbitMQ vrsto
-            String queueName = RabbitMQConfig.getQueueName();
-            logger.info("Publishing message to queue: " + queueName);
-            rabbitMQChannel.basicPublish("", queueName, null, message.getBytes());
-            logger.info("Message published successfully to queue '" + queueName + "'. Message content: " + message);
-    
         } catch (Exception e) {
-            logger.severe("Failed to send message to RabbitMQ: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Error inserting transaction chunk: {}", e.getMessage());
+            for (int position : positions) {
+                result.failed(chunkIndexes.get(position), "Server error occurred");
+            }
+        }
+        chunkIndexes.clear();
+        chunkDocs.clear();
+    }
+
+    /**
+     * Inserts the rows at {@code positions} of a chunk in one multi-document transaction. A row
+     * the server refuses aborts the whole transaction, so the refused rows fail and the others
+     * are written again without them. Rows that are settled are removed from {@code positions}.
+     */
+    private void insertChunkAtomically(List<Transaction> transactions, List<Integer> chunkIndexes,
+                                       List<Document> chunkDocs, List<Integer> positions,
+                                       TransactionBatchResult result) {
+        while (!positions.isEmpty()) {
+            List<Document> docs = new ArrayList<>(positions.size());
+            List<Transaction> chunkTransactions = new ArrayList<>(positions.size());
+            for (int position : positions) {
+                docs.add(chunkDocs.get(position));
+                chunkTransactions.add(transactions.get(chunkIndexes.get(position)));
+            }
+            try {
+                insertWithOutbox(docs, chunkTransactions);
+            } catch (MongoBulkWriteException e) {
+                // Transactions and outbox entries are inserted in the same order, so either index is the row
+                List<Integer> refused = new ArrayList<>();
+                for (BulkWriteError error : e.getWriteErrors()) {
+                    refused.add(positions.get(error.getIndex()));
+                }
+                if (refused.isEmpty()) {
+                    throw e;
+                }
+                for (int position : refused) {
+                    result.failed(chunkIndexes.get(position), "Failed to store transaction");
+                }
+                positions.removeAll(refused);
+                continue;
+            }
+            for (int position : positions) {
+                result.created(chunkIndexes.get(position), transactions.get(chunkIndexes.get(position)).getId());
+            }
+            positions.clear();
+        }
+    }
+
+    /**
+     * Inserts the rows of a chunk on a standalone server, where the transactions, their outbox
+     * entries and their rollups are separate writes. Each row reports what was actually written:
+     * a row that was stored is created even when its outbox entry or rollup failed, with a warning
+     * when its event will not be published. Rows that are settled are removed from {@code positions}.
+     */
+    private void insertChunkSequentially(List<Transaction> transactions, List<Integer> chunkIndexes,
+                                         List<Document> chunkDocs, List<Integer> positions,
+                                         TransactionBatchResult result) {
+        Set<Integer> refused = new HashSet<>();
+        try {
+            collection.insertMany(chunkDocs, new InsertManyOptions().ordered(false));
+        } catch (MongoBulkWriteException e) {
+            for (BulkWriteError error : e.getWriteErrors()) {
+                refused.add(error.getIndex());
+            }
+        }
+        List<Integer> stored = new ArrayList<>(positions.size());
+        List<Transaction> storedTransactions = new ArrayList<>(positions.size());
+        for (int position : positions) {
+            if (refused.contains(position)) {
+                result.failed(chunkIndexes.get(position), "Failed to store transaction");
+            } else {
+                stored.add(position);
+                storedTransactions.add(transactions.get(chunkIndexes.get(position)));
+            }
+        }
+        positions.clear();
+
+        Set<Integer> unqueued = new HashSet<>();
+        if (!storedTransactions.isEmpty()) {
+            try {
+                outboxCollection.insertMany(toOutboxEntries(null, storedTransactions),
+                        new InsertManyOptions().ordered(false));
+            } catch (MongoBulkWriteException e) {
+                for (BulkWriteError error : e.getWriteErrors()) {
+                    unqueued.add(stored.get(error.getIndex()));
+                }
+            } catch (Exception e) {
+                logger.error("Stored {} transactions but could not queue their events: {}",
+                        stored.size(), e.getMessage());
+                unqueued.addAll(stored);
+            }
+            try {
+                rollups.apply(null, storedTransactions, 1);
+            } catch (Exception e) {
+                // The rows are stored; a rollup rebuild recomputes the totals from them
+                logger.error("Stored {} transactions but could not update their rollups: {}",
+                        stored.size(), e.getMessage());
+            }
+        }
+        for (int position : stored) {
+            ObjectId id = transactions.get(chunkIndexes.get(position)).getId();
+            if (unqueued.contains(position)) {
+                result.created(chunkIndexes.get(position), id, "Stored, but other services were not notified");
+            } else {
+                result.created(chunkIndexes.get(position), id);
+            }
+        }
+    }
+
+    /**
+     * Writes transactions, their CREATED events in the outbox and their rollup increments.
+     * On a standalone server the outbox entries and rollups are written right after the
+     * transactions, so a failure can leave the transactions stored without them.
+     */
+    private void insertWithOutbox(List<Document> transactionDocs, List<Transaction> transactions) {
+        writeWithOutbox(session -> {
+            // withTransaction may run this more than once
+            List<Document> outboxDocs = toOutboxEntries(session, transactions);
+            if (session != null) {
+                collection.insertMany(session, transactionDocs);
+                outboxCollection.insertMany(session, outboxDocs);
+            } else {
+                collection.insertMany(transactionDocs, new InsertManyOptions().ordered(false));
+                outboxCollection.insertMany(outboxDocs);
+            }
+            rollups.apply(session, transactions, 1);
+            return null;
+        });
+    }
+
+    /**
+     * Runs a write together with its outbox entries in one multi-document transaction.
+     * Without replica set support the work gets a null session and runs sequentially.
+     */
+    private <T> T writeWithOutbox(Function<ClientSession, T> work) {
+        if (transactionsSupported()) {
+            try (ClientSession session = mongoClient.startSession()) {
+                return session.withTransaction(() -> work.apply(session));
+            }
         }
+        return work.apply(null);
+    }
+
+    /**
+     * Reserves {@code count} consecutive change versions for a user and returns the first one.
+     * Versions only ever increase per user, so consumers can drop events older than what they
+     * have applied. Writes that fail after reserving leave gaps.
+     */
+    private long reserveVersions(ClientSession session, ObjectId userId, int count) {
+        Bson filter = Filters.eq("_id", userId);
+        Bson update = Updates.inc("version", (long) count);
+        FindOneAndUpdateOptions options = new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.AFTER);
+        Document counter = session != null
+                ? versionCollection.findOneAndUpdate(session, filter, update, options)
+                : versionCollection.findOneAndUpdate(filter, update, options);
+        return counter.getLong("version") - count + 1;
+    }
+
+    private List<Document> toOutboxEntries(ClientSession session, List<Transaction> transactions) {
+        Map<ObjectId, Integer> counts = new HashMap<>();
+        for (Transaction transaction : transactions) {
+            counts.merge(transaction.getUserId(), 1, Integer::sum);
+        }
+        Map<ObjectId, Long> nextVersions = new HashMap<>();
+        for (Map.Entry<ObjectId, Integer> count : counts.entrySet()) {
+            nextVersions.put(count.getKey(), reserveVersions(session, count.getKey(), count.getValue()));
+        }
+
+        List<Document> entries = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            long version = nextVersions.merge(transaction.getUserId(), 1L, Long::sum) - 1;
+            entries.add(toOutboxEntry(TransactionEvent.EventType.CREATED, transaction, version));
+        }
+        return entries;
     }
 
     public List<Transaction> getTransactionsByUserId(ObjectId userId) {
-        logger.info("Querying database for transactions with userId: " + userId);
+        logger.debug("Querying database for transactions with userId: {}", userId);
     
         List<Transaction> transactions = collection.find(new Document("userId", userId))
                 .into(new ArrayList<>())
                 .stream().map(doc->toTransaction(doc)).toList();
     
-        for (Transaction transaction : transactions) {
-            logger.info("Transaction retrieved from database: " +
-                "userId=" + transaction.getUserId() +
-                ", type=" + transaction.getType() +
-                ", amount=" + transaction.getAmount() +
-                ", category=" + transaction.getCategory() +
-                ", date=" + transaction.getDate());
-        }
-    
+        logger.info("Retrieved {} transactions for userId: {}", transactions.size(), userId);
         return transactions;
     }    
 
+    public TransactionPage getTransactionsPage(ObjectId userId, String cursor, Integer limit) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Limit must be a positive number");
+        }
+
+        Document filter = new Document("userId", userId);
+        if (cursor != null && !cursor.isEmpty()) {
+            filter.putAll(TransactionCursor.decode(cursor).toFilter());
+        }
+
+        // Fetch one extra document to find out whether another page exists
+        List<Transaction> transactions = new ArrayList<>(pageSize + 1);
+        for (Document doc : collection.find(filter).sort(HISTORY_SORT).limit(pageSize + 1)) {
+            transactions.add(toTransaction(doc));
+        }
+
+        String nextCursor = null;
+        if (transactions.size() > pageSize) {
+            transactions = transactions.subList(0, pageSize);
+            Transaction last = transactions.get(pageSize - 1);
+            nextCursor = new TransactionCursor(last.getDate(), last.getId()).encode();
+        }
+
+        logger.info("Retrieved page of {} transactions for userId: {}", transactions.size(), userId);
+        return new TransactionPage(transactions, nextCursor);
+    }
+
+    /**
+     * Writes the user's full history as a JSON array straight from the Mongo cursor,
+     * so memory use does not grow with the number of transactions.
+     */
+    public void streamTransactionsByUserId(ObjectId userId, OutputStream output) throws IOException {
+        logger.info("Streaming transactions for userId: {}", userId);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output);
+             MongoCursor<Document> cursor = collection.find(new Document("userId", userId))
+                     .sort(HISTORY_SORT)
+                     .batchSize(STREAM_BATCH_SIZE)
+                     .iterator()) {
+            generator.writeStartArray();
+            while (cursor.hasNext()) {
+                objectMapper.writeValue(generator, toTransaction(cursor.next()));
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    /**
+     * Totals a user's income and expenses per category, month (UTC) or type, so clients no
+     * longer need the full history to draw charts. Ranges of whole months are read from the
+     * rollups once they have been rebuilt; other ranges, and all ranges before the first rebuild
+     * has finished, run a single aggregation over the transactions.
+     * {@code from} is inclusive and {@code to} exclusive; either may be omitted.
+     */
+    public TransactionSummary getSummary(ObjectId userId, String from, String to, String groupBy) {
+        TransactionSummary.GroupBy grouping = TransactionSummary.GroupBy.parse(groupBy);
+        Date fromDate = TransactionSummary.parseBound(from, "from");
+        Date toDate = TransactionSummary.parseBound(to, "to");
+        if (fromDate != null && toDate != null && !fromDate.before(toDate)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+
+        if (isMonthStart(fromDate) && isMonthStart(toDate) && rollups.isReady()) {
+            String fromMonth = fromDate != null ? TransactionRollups.monthOf(fromDate) : null;
+            String toMonth = toDate != null ? TransactionRollups.monthOf(toDate) : null;
+            return new TransactionSummary(grouping, fromDate, toDate,
+                    rollups.summarize(userId, fromMonth, toMonth, grouping));
+        }
+
+        List<Bson> match = new ArrayList<>();
+        match.add(Filters.eq("userId", userId));
+        if (fromDate != null) {
+            match.add(Filters.gte("date", fromDate));
+        }
+        if (toDate != null) {
+            match.add(Filters.lt("date", toDate));
+        }
+
+        List<Bson> pipeline = List.of(
+                Aggregates.match(Filters.and(match)),
+                Aggregates.group(groupKey(grouping),
+                        Accumulators.sum("income", amountOfType("income")),
+                        Accumulators.sum("expense", amountOfType("expense")),
+                        Accumulators.sum("count", 1)),
+                Aggregates.sort(Sorts.ascending("_id")));
+
+        List<TransactionSummary.Group> groups = new ArrayList<>();
+        for (Document doc : collection.aggregate(pipeline)) {
+            groups.add(new TransactionSummary.Group(
+                    doc.getString("_id"),
+                    ((Number) doc.get("income")).doubleValue(),
+                    ((Number) doc.get("expense")).doubleValue(),
+                    ((Number) doc.get("count")).longValue()));
+        }
+        return new TransactionSummary(grouping, fromDate, toDate, groups);
+    }
+
+    // Whole-month ranges are answered from the rollups, anything finer needs the aggregation
+    private static boolean isMonthStart(Date bound) {
+        if (bound == null) {
+            return true;
+        }
+        ZonedDateTime time = bound.toInstant().atZone(ZoneOffset.UTC);
+        return time.getDayOfMonth() == 1 && time.toLocalTime().equals(LocalTime.MIDNIGHT);
+    }
+
+    public TransactionRollups getRollups() {
+        return rollups;
+    }
+
+    private static Object groupKey(TransactionSummary.GroupBy grouping) {
+        switch (grouping) {
+            case MONTH:
+                return new Document("$dateToString", new Document("format", "%Y-%m")
+                        .append("date", "$date")
+                        .append("timezone", "UTC"));
+            case TYPE:
+                return "$type";
+            default:
+                return "$category";
+        }
+    }
+
+    private static Document amountOfType(String type) {
+        return new Document("$cond", List.of(new Document("$eq", List.of("$type", type)), "$amount", 0));
+    }
+
     public Transaction getTransactionById(ObjectId transactionId) {
         try {
-            logger.info("Fetching transaction by ID: " + transactionId);
+            logger.debug("Fetching transaction by ID: {}", transactionId);
             Document doc = collection.find(new Document("_id", transactionId)).first();
             if (doc != null) {
                 Transaction transaction = toTransaction(doc);
-                logger.info("Fetched transaction: " + transaction);
+                logger.debug("Fetched transaction: {}", transaction);
                 return transaction;
             } else {
-                logger.warning("Transaction not found with ID: " + transactionId);
+                logger.warn("Transaction not found with ID: {}", transactionId);
                 return null;
             }
         } catch (Exception e) {
-            logger.severe("Error retrieving transaction: " + e.getMessage());
+            logger.error("Error retrieving transaction: {}", e.getMessage());
             throw new RuntimeException("Error retrieving transaction", e);
         }
     }
 
     public boolean deleteTransaction(ObjectId transactionId) {
         try {
-            logger.info("Attempting to delete transaction with ID: " + transactionId);
-            Document existingTransaction = collection.find(new Document("_id", transactionId)).first();
-            if (existingTransaction != null) {
-                collection.deleteOne(new Document("_id", transactionId));
-                logger.info("Transaction deleted successfully: " + transactionId);
+            logger.debug("Attempting to delete transaction with ID: {}", transactionId);
+            Document deleted = writeWithOutbox(session -> {
+                Bson filter = Filters.eq("_id", transactionId);
+                Document removed = session != null
+                        ? collection.findOneAndDelete(session, filter)
+                        : collection.findOneAndDelete(filter);
+                if (removed != null) {
+                    Transaction transaction = toTransaction(removed);
+                    insertOutboxEntry(session, TransactionEvent.EventType.DELETED, transaction);
+                    rollups.apply(session, List.of(transaction), -1);
+                }
+                return removed;
+            });
+            if (deleted != null) {
+                logger.info("Transaction deleted successfully: {}", transactionId);
                 return true;
             } else {
-                logger.warning("Transaction not found for deletion: " + transactionId);
+                logger.warn("Transaction not found for deletion: {}", transactionId);
                 return false;
             }
         } catch (Exception e) {
-            logger.severe("Error deleting transaction: " + e.getMessage());
+            logger.error("Error deleting transaction: {}", e.getMessage());
             throw new RuntimeException("Error deleting transaction", e);
         }
     }
 
+    /**
+     * Replaces the fields of a transaction. The transaction is validated like a new one, except
+     * that the date must be given.
+     *
+     * @throws IllegalArgumentException when a required field is missing or the amount is not positive
+     */
     public void updateTransaction(ObjectId transactionId, Transaction updatedTransaction) {
+        validate(updatedTransaction);
+        if (updatedTransaction.getDate() == null) {
+            logger.warn("Validation failed: Date is required when updating a transaction.");
+            throw new IllegalArgumentException("Date is a required field.");
+        }
         try {
-            logger.info("Updating transaction with ID: " + transactionId);
-            logger.info("Updated transaction data: " + updatedTransaction);
+            logger.debug("Updating transaction {} with: {}", transactionId, updatedTransaction);
             Document updateFields = toDocument(updatedTransaction);
+            // The owner and the creation time of a transaction never change
+            updateFields.remove("userId");
+            updateFields.remove("createdAt");
             updateFields.append("updatedAt", new Date());
 
-            collection.updateOne(
-                new Document("_id", transactionId),
-                new Document("$set", updateFields)
-            );
+            Document updated = writeWithOutbox(session -> {
+                Bson filter = Filters.eq("_id", transactionId);
+                Bson update = new Document("$set", updateFields);
+                FindOneAndUpdateOptions options = new FindOneAndUpdateOptions().returnDocument(ReturnDocument.BEFORE);
+                Document before = session != null
+                        ? collection.findOneAndUpdate(session, filter, update, options)
+                        : collection.findOneAndUpdate(filter, update, options);
+                if (before == null) {
+                    return null;
+                }
+                Document after = new Document(before);
+                after.putAll(updateFields);
+                Transaction transaction = toTransaction(after);
+                insertOutboxEntry(session, TransactionEvent.EventType.UPDATED, transaction);
+                rollups.apply(session, List.of(toTransaction(before)), -1);
+                rollups.apply(session, List.of(transaction), 1);
+                return after;
+            });
 
-            logger.info("Transaction updated successfully: " + transactionId);
+            if (updated != null) {
+                logger.info("Transaction updated successfully: {}", transactionId);
+            } else {
+                logger.warn("Transaction not found for update: {}", transactionId);
+            }
         } catch (Exception e) {
-            logger.severe("Error updating transaction: " + e.getMessage());
+            logger.error("Error updating transaction: {}", e.getMessage());
             throw new RuntimeException("Error updating transaction", e);
         }
     }
 
+    private void prepareForInsert(Transaction transaction) {
+        validate(transaction);
+
+        // Ensure the date is set
+        if (transaction.getDate() == null) {
+            transaction.setDate(new Date());
+        }
+
+        // Set creation and update timestamps
+        transaction.setCreatedAt(new Date());
+        transaction.setUpdatedAt(new Date());
+    }
+
+    private static void validate(Transaction transaction) {
+        if (transaction.getType() == null || transaction.getType().isEmpty() ||
+            transaction.getCategory() == null || transaction.getCategory().isEmpty() ||
+            !(transaction.getAmount() > 0) || Double.isInfinite(transaction.getAmount())) {
+            logger.warn("Validation failed: Type, category, and amount are required fields.");
+            throw new IllegalArgumentException("Type, category, and amount are required fields.");
+        }
+    }
+
+    private void insertOutboxEntry(ClientSession session, TransactionEvent.EventType eventType, Transaction transaction) {
+        long version = reserveVersions(session, transaction.getUserId(), 1);
+        Document entry = toOutboxEntry(eventType, transaction, version);
+        if (session != null) {
+            outboxCollection.insertOne(session, entry);
+        } else {
+            outboxCollection.insertOne(entry);
+        }
+    }
+
+    private Document toOutboxEntry(TransactionEvent.EventType eventType, Transaction transaction, long version) {
+        return OutboxRelay.newEntry(transaction.getId(), transaction.getUserId(),
+                toQueueMessage(eventType, transaction, version));
+    }
+
+    private byte[] toQueueMessage(TransactionEvent.EventType eventType, Transaction transaction, long version) {
+        return TransactionEventCodec.encode(new TransactionEvent(
+                eventType,
+                transaction.getId(),
+                transaction.getUserId(),
+                version,
+                transaction.getType(),
+                transaction.getAmount(),
+                transaction.getCategory(),
+                transaction.getDate() != null ? transaction.getDate().getTime() : 0L,
+                System.currentTimeMillis()));
+    }
+
     private Document toDocument(Transaction transaction) {
-        logger.info("Converting Transaction to Document: " + transaction);
         Document doc = new Document()
                 .append("userId", transaction.getUserId())
                 .append("type", transaction.getType())
@@ -233,12 +694,13 @@ public class TransactionBean {
                 .append("date", transaction.getDate()) // Log the date field
                 .append("createdAt", transaction.getCreatedAt())
                 .append("updatedAt", transaction.getUpdatedAt());
-        logger.info("Generated Document: " + doc);
+        if (logger.isDebugEnabled() && rowLogSampler.sample()) {
+            logger.debug("Converted transaction to document: {}", doc);
+        }
         return doc;
     }
     
     private Transaction toTransaction(Document doc) {
-        logger.info("Converting Document to Transaction: " + doc);
         Transaction transaction = new Transaction();
         transaction.setId(doc.getObjectId("_id"));
         transaction.setUserId(doc.getObjectId("userId"));
@@ -252,7 +714,9 @@ public class TransactionBean {
         transaction.setDate(doc.getDate("date")); // Ensure this field is logged
         transaction.setCreatedAt(doc.getDate("createdAt"));
         transaction.setUpdatedAt(doc.getDate("updatedAt"));
-        logger.info("Converted Transaction: " + transaction);
+        if (logger.isDebugEnabled() && rowLogSampler.sample()) {
+            logger.debug("Converted document to transaction: {}", doc);
+        }
         return transaction;
     }    
 }
\ No newline at end of file
@@ -0,0 +1,67 @@
+package ss.finance.services;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+
+/**
+ * Opaque keyset cursor over (date, _id), the sort order of the transaction history.
+ * Encoded as base64url("<dateMillis>:<idHex>") so clients treat it as a token; dateMillis is
+ * empty for a transaction without a date, which sorts after all dated ones.
+ */
+public class TransactionCursor {
+    private final Date date;
+    private final ObjectId id;
+
+    public TransactionCursor(Date date, ObjectId id) {
+        this.date = date;
+        this.id = id;
+    }
+
+    public static TransactionCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            String millis = raw.substring(0, separator);
+            Date date = millis.isEmpty() ? null : new Date(Long.parseLong(millis));
+            ObjectId id = new ObjectId(raw.substring(separator + 1));
+            return new TransactionCursor(date, id);
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException and ObjectId parse errors are both IllegalArgumentExceptions
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    public String encode() {
+        String raw = (date == null ? "" : String.valueOf(date.getTime())) + ":" + id.toHexString();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Matches everything strictly after this cursor in (date desc, _id desc) order. A missing date
+    // sorts lowest, and $lt on a date never matches it, so undated rows need their own branch.
+    public Document toFilter() {
+        if (date == null) {
+            return new Document("date", null).append("_id", new Document("$lt", id));
+        }
+        return new Document("$or", List.of(
+                new Document("date", new Document("$lt", date)),
+                new Document("date", date).append("_id", new Document("$lt", id)),
+                new Document("date", null)
+        ));
+    }
+
+    public Date getDate() {
+        return date;
+    }
+
+    public ObjectId getId() {
+        return id;
+    }
+}
@@ -0,0 +1,34 @@
+package ss.finance.services;
+
+import java.util.List;
+
+import ss.finance.entities.Transaction;
+
+public class TransactionPage {
+    private List<Transaction> items;
+    private String nextCursor; // null when there are no more transactions
+
+    public TransactionPage() {
+    }
+
+    public TransactionPage(List<Transaction> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Transaction> getItems() {
+        return items;
+    }
+
+    public void setItems(List<Transaction> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
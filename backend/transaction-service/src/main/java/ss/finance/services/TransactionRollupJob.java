@@ -0,0 +1,63 @@
+package ss.finance.services;
+
+import java.util.UUID;
+
+import javax.annotation.Priority;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.Initialized;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import javax.interceptor.Interceptor;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.kumuluz.ee.configuration.utils.ConfigurationUtil;
+
+import ss.finance.health.StartupTasks;
+
+/**
+ * Rebuilds {@link TransactionRollups} from the raw transactions as a startup task, so the replica
+ * is not ready until the rebuild has finished. Runs until a rebuild has completed once, which
+ * seeds the rollups on the first deployment, or on every start when
+ * {@code rollups.rebuild-on-start} is enabled. Only the replica holding the rebuild lease
+ * ({@code rollups.rebuild-lease-ms}) rebuilds; the others answer summaries from the raw
+ * transactions until it is done.
+ */
+@ApplicationScoped
+public class TransactionRollupJob {
+    private static final Logger logger = LogManager.getLogger(TransactionRollupJob.class);
+
+    @Inject
+    private TransactionBean transactionBean;
+
+    @Inject
+    private StartupTasks startupTasks;
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    // After the index registration, since the $merge of a rebuild needs the unique index on the rollup key
+    public void start(@Observes @Priority(Interceptor.Priority.APPLICATION + 1000) @Initialized(ApplicationScoped.class) Object init) {
+        ConfigurationUtil config = ConfigurationUtil.getInstance();
+        boolean rebuildOnStart = config.getBoolean("rollups.rebuild-on-start").orElse(false);
+        long leaseMs = config.getLong("rollups.rebuild-lease-ms").orElse(1800000L);
+        startupTasks.submit("transaction rollups", () -> {
+            TransactionRollups rollups = transactionBean.getRollups();
+            if (!rebuildOnStart && rollups.isReady()) {
+                return;
+            }
+            if (!rollups.acquireRebuildLease(instanceId, leaseMs)) {
+                logger.info("Another replica is rebuilding the transaction rollups.");
+                return;
+            }
+            logger.info("Rebuilding transaction rollups.");
+            try {
+                rollups.rebuild(null);
+            } catch (RuntimeException e) {
+                rollups.releaseRebuildLease(instanceId);
+                throw e;
+            }
+            rollups.markRebuilt(instanceId);
+        });
+    }
+}
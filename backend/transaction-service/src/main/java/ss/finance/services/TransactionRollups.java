@@ -0,0 +1,268 @@
+package ss.finance.services;
+
+import java.time.Clock;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.CountOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.MergeOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+
+import ss.finance.entities.Transaction;
+
+/**
+ * Monthly totals per (userId, month, category, type), kept in step with the transactions
+ * collection by an atomic {@code $inc} on every insert, update and delete. Summaries over
+ * whole months then read a handful of rollup rows instead of scanning the history.
+ * <p>
+ * Amounts are summed as doubles, so long chains of increments can drift by rounding;
+ * {@link #rebuild(ObjectId)} recomputes the rows from the raw transactions.
+ * <p>
+ * A full rebuild is coordinated through a document in the {@code locks} collection: the replica
+ * that holds its lease rebuilds, and a finished rebuild leaves {@code completedAt} on it. Until
+ * then the rows are incomplete and {@link #isReady()} is false.
+ */
+public class TransactionRollups {
+    public static final String COLLECTION_NAME = "transaction_rollups";
+    private static final String LOCK_ID = "transaction-rollups";
+    // Another replica may finish the rebuild, so the marker is read again, but not on every summary
+    private static final long READY_RECHECK_MS = 10000;
+
+    private static final Logger logger = LogManager.getLogger(TransactionRollups.class);
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyy-MM").withZone(ZoneOffset.UTC);
+
+    private final MongoCollection<Document> rollups;
+    private final MongoCollection<Document> transactions;
+    private final MongoCollection<Document> locks;
+    private final Clock clock;
+    // Once a rebuild has completed the rows stay complete, so the marker is not read again
+    private volatile boolean ready;
+    private volatile long nextReadyCheck;
+
+    public TransactionRollups(MongoDatabase database, MongoCollection<Document> transactions) {
+        this(database, transactions, Clock.systemUTC());
+    }
+
+    TransactionRollups(MongoDatabase database, MongoCollection<Document> transactions, Clock clock) {
+        this.rollups = database.getCollection(COLLECTION_NAME);
+        this.transactions = transactions;
+        this.locks = database.getCollection("locks");
+        this.clock = clock;
+    }
+
+    public static String monthOf(Date date) {
+        return MONTH.format(date.toInstant());
+    }
+
+    /**
+     * Adds ({@code sign} 1) or removes ({@code sign} -1) transactions from their monthly rows.
+     * Runs inside the caller's session when there is one, so the rollups commit together
+     * with the change.
+     */
+    public void apply(ClientSession session, List<Transaction> changed, int sign) {
+        if (changed.isEmpty()) {
+            return;
+        }
+        List<WriteModel<Document>> writes = new ArrayList<>(changed.size());
+        for (Transaction transaction : changed) {
+            if (transaction.getDate() == null) {
+                continue;
+            }
+            Bson key = Filters.and(
+                    Filters.eq("userId", transaction.getUserId()),
+                    Filters.eq("month", monthOf(transaction.getDate())),
+                    Filters.eq("category", transaction.getCategory()),
+                    Filters.eq("type", transaction.getType()));
+            Bson increment = Updates.combine(
+                    Updates.inc("amount", sign * transaction.getAmount()),
+                    Updates.inc("count", sign),
+                    // Rows created while a rebuild runs must not count as stale
+                    Updates.setOnInsert("rebuiltAt", new Date()));
+            writes.add(new UpdateOneModel<>(key, increment, new UpdateOptions().upsert(true)));
+        }
+        if (writes.isEmpty()) {
+            return;
+        }
+        // Ordered, so two rows of the same new key do not race on the upsert
+        BulkWriteOptions options = new BulkWriteOptions().ordered(true);
+        if (session != null) {
+            rollups.bulkWrite(session, writes, options);
+        } else {
+            rollups.bulkWrite(writes, options);
+        }
+    }
+
+    /**
+     * Summary over whole months read from the rollups. {@code fromMonth} is inclusive and
+     * {@code toMonth} exclusive, both as {@code yyyy-MM}; either may be null.
+     */
+    public List<TransactionSummary.Group> summarize(ObjectId userId, String fromMonth, String toMonth,
+                                                    TransactionSummary.GroupBy grouping) {
+        List<Bson> filters = new ArrayList<>();
+        filters.add(Filters.eq("userId", userId));
+        filters.add(Filters.gt("count", 0));
+        if (fromMonth != null) {
+            filters.add(Filters.gte("month", fromMonth));
+        }
+        if (toMonth != null) {
+            filters.add(Filters.lt("month", toMonth));
+        }
+
+        Map<String, TransactionSummary.Group> groups = new LinkedHashMap<>();
+        for (Document row : rollups.find(Filters.and(filters))
+                .projection(Projections.include("month", "category", "type", "amount", "count"))
+                .sort(Sorts.ascending(keyField(grouping)))) {
+            String key = row.getString(keyField(grouping));
+            TransactionSummary.Group group = groups.computeIfAbsent(key,
+                    k -> new TransactionSummary.Group(k, 0.0, 0.0, 0));
+            double amount = ((Number) row.get("amount")).doubleValue();
+            if ("income".equals(row.getString("type"))) {
+                group.setIncome(group.getIncome() + amount);
+            } else if ("expense".equals(row.getString("type"))) {
+                group.setExpense(group.getExpense() + amount);
+            }
+            group.setCount(group.getCount() + ((Number) row.get("count")).longValue());
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    private static String keyField(TransactionSummary.GroupBy grouping) {
+        switch (grouping) {
+            case MONTH:
+                return "month";
+            case TYPE:
+                return "type";
+            default:
+                return "category";
+        }
+    }
+
+    /**
+     * Recomputes the rollups of one user, or of everyone when {@code userId} is null, from the
+     * transactions collection. Rows are replaced through {@code $merge}, and rows that no longer
+     * have transactions are removed. Increments that land while the rebuild runs may be
+     * overwritten, so run it when the affected users are idle.
+     */
+    public void rebuild(ObjectId userId) {
+        Date startedAt = new Date();
+        Bson match = userId != null
+                ? Filters.and(Filters.eq("userId", userId), Filters.exists("date"))
+                : Filters.exists("date");
+
+        transactions.aggregate(List.of(
+                Aggregates.match(match),
+                Aggregates.group(new Document("userId", "$userId")
+                                .append("month", new Document("$dateToString", new Document("format", "%Y-%m")
+                                        .append("date", "$date")
+                                        .append("timezone", "UTC")))
+                                .append("category", "$category")
+                                .append("type", "$type"),
+                        Accumulators.sum("amount", "$amount"),
+                        Accumulators.sum("count", 1)),
+                Aggregates.project(Projections.fields(
+                        Projections.excludeId(),
+                        Projections.computed("userId", "$_id.userId"),
+                        Projections.computed("month", "$_id.month"),
+                        Projections.computed("category", "$_id.category"),
+                        Projections.computed("type", "$_id.type"),
+                        Projections.include("amount", "count"),
+                        Projections.computed("rebuiltAt", new Document("$literal", startedAt)))),
+                Aggregates.merge(COLLECTION_NAME, new MergeOptions()
+                        .uniqueIdentifier(List.of("userId", "month", "category", "type"))
+                        .whenMatched(MergeOptions.WhenMatched.REPLACE)
+                        .whenNotMatched(MergeOptions.WhenNotMatched.INSERT))))
+                .toCollection();
+
+        Bson stale = Filters.or(Filters.exists("rebuiltAt", false), Filters.lt("rebuiltAt", startedAt));
+        long removed = rollups.deleteMany(userId != null ? Filters.and(Filters.eq("userId", userId), stale) : stale)
+                .getDeletedCount();
+        logger.info("Rebuilt transaction rollups{}, removed {} stale rows.",
+                userId != null ? " for user " + userId : "", removed);
+    }
+
+    /**
+     * Whether a full rebuild has completed, so the rows hold every transaction. A positive answer
+     * is kept; until then the marker is read at most once every {@value #READY_RECHECK_MS} ms.
+     */
+    public boolean isReady() {
+        if (ready) {
+            return true;
+        }
+        long now = clock.millis();
+        if (now < nextReadyCheck) {
+            return false;
+        }
+        nextReadyCheck = now + READY_RECHECK_MS;
+        ready = locks.countDocuments(Filters.and(Filters.eq("_id", LOCK_ID), Filters.exists("completedAt")),
+                new CountOptions().limit(1)) > 0;
+        return ready;
+    }
+
+    /**
+     * Takes the rebuild lease for {@code leaseMs}, unless another replica holds it. The
+     * {@code $merge} of a rebuild replaces rows, so two rebuilds at once would overwrite the
+     * increments in between.
+     */
+    public boolean acquireRebuildLease(String instanceId, long leaseMs) {
+        Date now = new Date();
+        try {
+            locks.updateOne(
+                    Filters.and(Filters.eq("_id", LOCK_ID),
+                            Filters.or(Filters.exists("claimedUntil", false), Filters.lt("claimedUntil", now),
+                                    Filters.eq("claimedBy", instanceId))),
+                    Updates.combine(Updates.set("claimedBy", instanceId),
+                            Updates.set("claimedUntil", new Date(now.getTime() + leaseMs))),
+                    new UpdateOptions().upsert(true));
+            return true;
+        } catch (MongoWriteException e) {
+            // The upsert collides with the lease of another replica
+            if (e.getError().getCategory() == ErrorCategory.DUPLICATE_KEY) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Records a completed full rebuild and releases the lease.
+     */
+    public void markRebuilt(String instanceId) {
+        locks.updateOne(Filters.and(Filters.eq("_id", LOCK_ID), Filters.eq("claimedBy", instanceId)),
+                Updates.combine(Updates.set("completedAt", new Date()),
+                        Updates.unset("claimedBy"), Updates.unset("claimedUntil")));
+        ready = true;
+    }
+
+    /**
+     * Releases the lease without recording a rebuild, e.g. after it failed.
+     */
+    public void releaseRebuildLease(String instanceId) {
+        locks.updateOne(Filters.and(Filters.eq("_id", LOCK_ID), Filters.eq("claimedBy", instanceId)),
+                Updates.combine(Updates.unset("claimedBy"), Updates.unset("claimedUntil")));
+    }
+}
@@ -0,0 +1,154 @@
+package ss.finance.services;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * Income and expense totals of a user's transactions, grouped by category, month or type.
+ */
+public class TransactionSummary {
+
+    public enum GroupBy {
+        CATEGORY, MONTH, TYPE;
+
+        public static GroupBy parse(String value) {
+            if (value == null || value.isEmpty()) {
+                return CATEGORY;
+            }
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid groupBy, expected category, month or type");
+            }
+        }
+
+        @JsonValue
+        public String value() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    public static class Group {
+        private String key; // category, "yyyy-MM" or type
+        private double income;
+        private double expense;
+        private long count;
+
+        public Group() {
+        }
+
+        public Group(String key, double income, double expense, long count) {
+            this.key = key;
+            this.income = income;
+            this.expense = expense;
+            this.count = count;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public void setKey(String key) {
+            this.key = key;
+        }
+
+        public double getIncome() {
+            return income;
+        }
+
+        public void setIncome(double income) {
+            this.income = income;
+        }
+
+        public double getExpense() {
+            return expense;
+        }
+
+        public void setExpense(double expense) {
+            this.expense = expense;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void setCount(long count) {
+            this.count = count;
+        }
+    }
+
+    private GroupBy groupBy;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", timezone = "UTC")
+    private Date from; // null when unbounded
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", timezone = "UTC")
+    private Date to; // null when unbounded, exclusive
+    private List<Group> groups;
+
+    public TransactionSummary() {
+    }
+
+    public TransactionSummary(GroupBy groupBy, Date from, Date to, List<Group> groups) {
+        this.groupBy = groupBy;
+        this.from = from;
+        this.to = to;
+        this.groups = groups;
+    }
+
+    /**
+     * Parses a range bound given either as an ISO instant or as a {@code yyyy-MM-dd} date,
+     * which means the start of that day in UTC.
+     */
+    public static Date parseBound(String value, String name) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            if (value.length() == 10) {
+                return Date.from(LocalDate.parse(value).atStartOfDay(ZoneOffset.UTC).toInstant());
+            }
+            return Date.from(Instant.parse(value));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid '" + name + "', expected yyyy-MM-dd or an ISO-8601 instant");
+        }
+    }
+
+    public GroupBy getGroupBy() {
+        return groupBy;
+    }
+
+    public void setGroupBy(GroupBy groupBy) {
+        this.groupBy = groupBy;
+    }
+
+    public Date getFrom() {
+        return from;
+    }
+
+    public void setFrom(Date from) {
+        this.from = from;
+    }
+
+    public Date getTo() {
+        return to;
+    }
+
+    public void setTo(Date to) {
+        this.to = to;
+    }
+
+    public List<Group> getGroups() {
+        return groups;
+    }
+
+    public void setGroups(List<Group> groups) {
+        this.groups = groups;
+    }
+}
@@ -0,0 +1,219 @@
+package ss.finance.outbox;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+
+import ss.finance.rabbit.RabbitPublisher;
+import ss.finance.testing.TestConfiguration;
+import ss.finance.utils.MongoDBConnection;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @BeforeAll
+    static void initConfiguration() {
+        TestConfiguration.initialize();
+    }
+
+    @Mock
+    private MongoClient mongoClient;
+
+    @Mock
+    private MongoDatabase database;
+
+    @Mock
+    private MongoCollection<Document> outboxCollection;
+
+    @Mock
+    private MongoCollection<Document> deadCollection;
+
+    @Mock(answer = Answers.RETURNS_SELF)
+    private FindIterable<Document> candidatesFind;
+
+    @Mock(answer = Answers.RETURNS_SELF)
+    private FindIterable<Document> batchFind;
+
+    @Mock
+    private RabbitPublisher publisher;
+
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        when(mongoClient.getDatabase("financeApp")).thenReturn(database);
+        when(database.getCollection(OutboxRelay.COLLECTION_NAME)).thenReturn(outboxCollection);
+        when(database.getCollection(OutboxRelay.DEAD_COLLECTION_NAME)).thenReturn(deadCollection);
+        MongoDBConnection.setTestMongoClient(mongoClient);
+        relay = new OutboxRelay(publisher);
+    }
+
+    @AfterEach
+    void tearDown() {
+        MongoDBConnection.setTestMongoClient(null);
+    }
+
+    @Test
+    void testEmptyOutboxClaimsNothing() throws Exception {
+        outbox();
+
+        assertEquals(0, relay.drainBatch());
+
+        verify(outboxCollection, never()).updateMany(any(Bson.class), any(Bson.class));
+        verify(outboxCollection, never()).deleteMany(any(Bson.class));
+    }
+
+    @Test
+    void testConfirmedBatchIsClaimedAndDeleted() throws Exception {
+        Document first = entry(0);
+        Document second = entry(0);
+        outbox(first, second);
+        when(publisher.publish(anyString(), any(byte[].class))).thenReturn(CompletableFuture.completedFuture(null));
+
+        assertEquals(2, relay.drainBatch());
+
+        // Zahtevek označi kandidate, nato se prebere le označeni paket
+        ArgumentCaptor<Bson> claim = ArgumentCaptor.forClass(Bson.class);
+        verify(outboxCollection).updateMany(any(Bson.class), claim.capture());
+        assertTrue(render(claim.getValue()).containsKey("$set"));
+        verify(outboxCollection, times(2)).find(any(Bson.class));
+
+        ArgumentCaptor<Bson> deleted = ArgumentCaptor.forClass(Bson.class);
+        verify(outboxCollection).deleteMany(deleted.capture());
+        assertEquals(List.of(first.getObjectId("_id"), second.getObjectId("_id")),
+                render(deleted.getValue()).getDocument("_id").getArray("$in").stream()
+                        .map(id -> id.asObjectId().getValue()).toList());
+    }
+
+    @Test
+    void testNackedEntryIsReleasedAndCounted() throws Exception {
+        Document acked = entry(0);
+        Document nacked = entry(2);
+        outbox(acked, nacked);
+        when(publisher.publish(anyString(), any(byte[].class)))
+                .thenReturn(CompletableFuture.completedFuture(null))
+                .thenReturn(CompletableFuture.failedFuture(new IOException("Message was nacked by the broker")));
+        when(publisher.isConnected()).thenReturn(true);
+
+        assertThrows(Exception.class, () -> relay.drainBatch());
+
+        verify(outboxCollection).deleteMany(any(Bson.class));
+        ArgumentCaptor<Bson> filters = ArgumentCaptor.forClass(Bson.class);
+        ArgumentCaptor<Bson> updates = ArgumentCaptor.forClass(Bson.class);
+        verify(outboxCollection, times(3)).updateMany(filters.capture(), updates.capture());
+        // Šteje se le zavrnjeni vnos, zahtevek pa se sprosti za ves paket
+        assertEquals(nacked.getObjectId("_id"),
+                render(filters.getAllValues().get(1)).getDocument("_id").getArray("$in").get(0).asObjectId().getValue());
+        assertTrue(render(updates.getAllValues().get(1)).containsKey("$inc"));
+        assertTrue(render(updates.getAllValues().get(2)).getDocument("$unset").containsKey("claimedBy"));
+        verify(deadCollection, never()).insertOne(any());
+    }
+
+    @Test
+    void testFailuresWhileBrokerIsDownAreNotCounted() throws Exception {
+        outbox(entry(OutboxRelay.MAX_ATTEMPTS - 1), entry(0));
+        when(publisher.publish(anyString(), any(byte[].class)))
+                .thenThrow(new IOException("Failed to start RabbitMQ publisher: Connection refused"));
+        when(publisher.isConnected()).thenReturn(false);
+
+        assertThrows(IOException.class, () -> relay.drainBatch());
+
+        ArgumentCaptor<Bson> updates = ArgumentCaptor.forClass(Bson.class);
+        verify(outboxCollection, times(2)).updateMany(any(Bson.class), updates.capture());
+        assertTrue(render(updates.getAllValues().get(1)).containsKey("$unset"));
+        verify(deadCollection, never()).insertOne(any());
+    }
+
+    @Test
+    void testEntryFailingTooOftenIsMovedAside() throws Exception {
+        Document poison = entry(OutboxRelay.MAX_ATTEMPTS - 1);
+        outbox(poison);
+        when(publisher.publish(anyString(), any(byte[].class)))
+                .thenReturn(CompletableFuture.failedFuture(new IOException("Message was nacked by the broker")));
+        when(publisher.isConnected()).thenReturn(true);
+
+        assertThrows(Exception.class, () -> relay.drainBatch());
+
+        ArgumentCaptor<Document> moved = ArgumentCaptor.forClass(Document.class);
+        verify(deadCollection).insertOne(moved.capture());
+        assertEquals(poison.getObjectId("_id"), moved.getValue().getObjectId("_id"));
+        assertTrue(moved.getValue().getString("lastError").contains("nacked"));
+        verify(outboxCollection).deleteOne(any(Bson.class));
+        // Brez povečanja števca, le sprostitev zahtevka
+        verify(outboxCollection, times(2)).updateMany(any(Bson.class), any(Bson.class));
+    }
+
+    @Test
+    void testUnreadablePayloadIsMovedAsideWithoutBlockingBatch() throws Exception {
+        Document unreadable = entry(0).append("payload", 42);
+        Document valid = entry(0);
+        outbox(unreadable, valid);
+        when(publisher.publish(anyString(), any(byte[].class))).thenReturn(CompletableFuture.completedFuture(null));
+
+        assertEquals(1, relay.drainBatch());
+
+        verify(publisher, times(1)).publish(anyString(), any(byte[].class));
+        verify(deadCollection).insertOne(any(Document.class));
+        verify(outboxCollection).deleteOne(any(Bson.class));
+        verify(outboxCollection).deleteMany(any(Bson.class));
+    }
+
+    private void outbox(Document... entries) {
+        List<ObjectId> ids = new ArrayList<>();
+        for (Document entry : entries) {
+            ids.add(entry.getObjectId("_id"));
+        }
+        when(outboxCollection.find(any(Bson.class))).thenReturn(candidatesFind, batchFind);
+        when(candidatesFind.into(any())).thenAnswer(invocation -> {
+            invocation.<Collection<Object>>getArgument(0).addAll(ids);
+            return invocation.getArgument(0);
+        });
+        if (entries.length > 0) {
+            when(batchFind.into(any())).thenAnswer(invocation -> {
+                invocation.<Collection<Object>>getArgument(0).addAll(List.of(entries));
+                return invocation.getArgument(0);
+            });
+        }
+    }
+
+    private static Document entry(int attempts) {
+        return OutboxRelay.newEntry(new ObjectId(), new ObjectId(), new byte[] {2, 1})
+                .append("attempts", attempts)
+                .append("claimedBy", "claim");
+    }
+
+    private static BsonDocument render(Bson bson) {
+        return bson.toBsonDocument(BsonDocument.class, MongoClientSettings.getDefaultCodecRegistry());
+    }
+}
@@ -1,21 +1,31 @@
 package ss.finance.rest;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.core.SecurityContext;
 
 import org.bson.types.ObjectId;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -23,31 +33,38 @@ import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import ss.finance.entities.Transaction;
-import ss.finance.security.JwtUtil;
+import ss.finance.security.Authenticated;
+import ss.finance.security.AuthenticatedUser;
+import ss.finance.services.TransactionBatchResult;
 import ss.finance.services.TransactionBean;
 import ss.finance.services.TransactionDTO;
+import ss.finance.services.TransactionPage;
+import ss.finance.services.TransactionSummary;
+import ss.finance.testing.TestConfiguration;
 
 @ExtendWith(MockitoExtension.class)
 public class TransactionApiTest {
 
+    @BeforeAll
+    static void initConfiguration() {
+        TestConfiguration.initialize();
+    }
+
     @InjectMocks
     private TransactionApi transactionApi;
 
     @Mock
     private TransactionBean transactionBean;
 
-    @Mock
-    private JwtUtil jwtUtil;
-
-    private String validToken;
+    private SecurityContext securityContext;
     private ObjectId userId;
     private Transaction transaction;
     private TransactionDTO transactionDTO;
 
     @BeforeEach
     void setUp() {
-        validToken = "valid.jwt.token";
         userId = new ObjectId();
+        securityContext = new AuthenticatedUser(userId);
         transaction = new Transaction(userId, "expense", 50.0, "Groceries", new Date());
         transactionDTO = new TransactionDTO();
         transactionDTO.setType("expense");
@@ -58,10 +75,9 @@ public class TransactionApiTest {
 
     @Test
     void testAddTransaction_Success() {
-        when(jwtUtil.extractUserId(validToken)).thenReturn(userId);
         doNothing().when(transactionBean).addTransaction(any(Transaction.class));
 
-        Response response = transactionApi.addTransaction(transactionDTO, validToken);
+        Response response = transactionApi.addTransaction(transactionDTO, securityContext);
 
         assertEquals(Response.Status.CREATED.getStatusCode(), response.getStatus());
         assertEquals("{\"message\": \"Transaction created successfully\"}", response.getEntity());
@@ -69,20 +85,17 @@ public class TransactionApiTest {
     }
 
     @Test
-    void testAddTransaction_Unauthorized() {
-        Response response = transactionApi.addTransaction(transactionDTO, null);
-
-        assertEquals(Response.Status.UNAUTHORIZED.getStatusCode(), response.getStatus());
-        assertEquals("{\"message\": \"Token is missing or invalid\"}", response.getEntity());
-        verify(transactionBean, never()).addTransaction(any(Transaction.class));
+    void testAddTransaction_Unauthorized() throws NoSuchMethodException {
+        // Requests without a valid token are rejected by AuthenticationFilter before reaching the resource
+        assertTrue(TransactionApi.class.getMethod("addTransaction", TransactionDTO.class, SecurityContext.class)
+                .isAnnotationPresent(Authenticated.class));
     }
 
     @Test
     void testGetUserTransactions_Success() {
-        when(jwtUtil.extractUserId(validToken)).thenReturn(userId);
         when(transactionBean.getTransactionsByUserId(userId)).thenReturn(List.of(transaction));
 
-        Response response = transactionApi.getUserTransactions(validToken);
+        Response response = transactionApi.getUserTransactions(securityContext, null, null, false);
 
         assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
         assertNotNull(response.getEntity());
@@ -91,32 +104,191 @@ public class TransactionApiTest {
 
     @Test
     void testGetUserTransactions_NoContent() {
-        when(jwtUtil.extractUserId(validToken)).thenReturn(userId);
         when(transactionBean.getTransactionsByUserId(userId)).thenReturn(Collections.emptyList());
 
-        Response response = transactionApi.getUserTransactions(validToken);
+        Response response = transactionApi.getUserTransactions(securityContext, null, null, false);
 
         assertEquals(Response.Status.NO_CONTENT.getStatusCode(), response.getStatus());
     }
 
     @Test
-    void testGetUserTransactions_Unauthorized() {
-        Response response = transactionApi.getUserTransactions(null);
+    void testGetUserTransactions_Unauthorized() throws NoSuchMethodException {
+        // Requests without a valid token are rejected by AuthenticationFilter before reaching the resource
+        assertTrue(TransactionApi.class.getMethod("getUserTransactions", SecurityContext.class, String.class, Integer.class, boolean.class)
+                .isAnnotationPresent(Authenticated.class));
+    }
 
-        assertEquals(Response.Status.UNAUTHORIZED.getStatusCode(), response.getStatus());
-        assertEquals("{\"message\": \"Token is missing or invalid\"}", response.getEntity());
+    @Test
+    void testGetUserTransactions_Page() {
+        TransactionPage page = new TransactionPage(List.of(transaction), "next-cursor");
+        when(transactionBean.getTransactionsPage(userId, null, 20)).thenReturn(page);
+
+        Response response = transactionApi.getUserTransactions(securityContext, null, 20, false);
+
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        assertEquals(page, response.getEntity());
         verify(transactionBean, never()).getTransactionsByUserId(any());
     }
 
+    @Test
+    void testGetUserTransactions_InvalidCursor() {
+        when(transactionBean.getTransactionsPage(userId, "garbage", null))
+                .thenThrow(new IllegalArgumentException("Invalid cursor"));
+
+        Response response = transactionApi.getUserTransactions(securityContext, "garbage", null, false);
+
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+        assertEquals("{\"message\":\"Invalid cursor\"}", response.getEntity());
+    }
+
+    @Test
+    void testGetUserTransactions_Stream() throws Exception {
+
+        Response response = transactionApi.getUserTransactions(securityContext, null, null, true);
+
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        StreamingOutput output = (StreamingOutput) response.getEntity();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        output.write(buffer);
+        verify(transactionBean, times(1)).streamTransactionsByUserId(userId, buffer);
+        verify(transactionBean, never()).getTransactionsByUserId(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testAddTransactionsBatch_JsonArray() {
+        String body = "[{\"type\": \"expense\", \"amount\": 12.5, \"category\": \"Groceries\"}, \"not-a-transaction\"]";
+
+        Response response = transactionApi.addTransactionsBatch(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), "application/json", securityContext);
+
+        ArgumentCaptor<List<Transaction>> rows = ArgumentCaptor.forClass(List.class);
+        verify(transactionBean, times(1)).addTransactions(rows.capture(), any(TransactionBatchResult.class));
+        assertEquals(2, rows.getValue().size());
+        assertEquals("Groceries", rows.getValue().get(0).getCategory());
+        assertEquals(userId, rows.getValue().get(0).getUserId());
+        assertNull(rows.getValue().get(1));
+
+        TransactionBatchResult result = (TransactionBatchResult) response.getEntity();
+        assertEquals(207, response.getStatus());
+        assertEquals(2, result.getReceived());
+        assertEquals(1, result.getFailed());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testAddTransactionsBatch_Ndjson() {
+        String body = "{\"type\": \"income\", \"amount\": 100, \"category\": \"Salary\"}\n"
+                + "\n"
+                + "{\"type\": \"expense\", \"amount\": 20, \"category\": \"Fuel\"}\n";
+
+        Response response = transactionApi.addTransactionsBatch(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), "application/x-ndjson", securityContext);
+
+        ArgumentCaptor<List<Transaction>> rows = ArgumentCaptor.forClass(List.class);
+        verify(transactionBean, times(1)).addTransactions(rows.capture(), any(TransactionBatchResult.class));
+        assertEquals(2, rows.getValue().size());
+        assertEquals(Response.Status.CREATED.getStatusCode(), response.getStatus());
+    }
+
+    @Test
+    void testAddTransactionsBatch_NotAnArray() {
+
+        Response response = transactionApi.addTransactionsBatch(
+                new ByteArrayInputStream("{}".getBytes(StandardCharsets.UTF_8)), "application/json", securityContext);
+
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+        verify(transactionBean, never()).addTransactions(any(), any());
+    }
+
+    @Test
+    void testGetTransactionSummary_Success() {
+        TransactionSummary summary = new TransactionSummary(TransactionSummary.GroupBy.CATEGORY, null, null,
+                List.of(new TransactionSummary.Group("Groceries", 0.0, 50.0, 1)));
+        when(transactionBean.getSummary(userId, "2024-01-01", "2024-02-01", "category")).thenReturn(summary);
+
+        Response response = transactionApi.getTransactionSummary(securityContext, "2024-01-01", "2024-02-01", "category");
+
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        assertEquals(summary, response.getEntity());
+    }
+
+    @Test
+    void testGetTransactionSummary_InvalidGroupBy() {
+        when(transactionBean.getSummary(userId, null, null, "week"))
+                .thenThrow(new IllegalArgumentException("Invalid groupBy, expected category, month or type"));
+
+        Response response = transactionApi.getTransactionSummary(securityContext, null, null, "week");
+
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+    }
+
+    @Test
+    void testGetTransactionSummary_InvalidDateIsEscaped() {
+        when(transactionBean.getSummary(userId, "2024-13-01\"", null, "month"))
+                .thenThrow(new IllegalArgumentException("Invalid date \"2024-13-01\"\""));
+
+        Response response = transactionApi.getTransactionSummary(securityContext, "2024-13-01\"", null, "month");
+
+        // Sporočilo z narekovaji mora ostati veljaven JSON
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+        assertEquals("{\"message\":\"Invalid date \\\"2024-13-01\\\"\\\"\"}", response.getEntity());
+    }
+
+    @Test
+    void testGetTransactionSummary_Unauthorized() throws NoSuchMethodException {
+        // Requests without a valid token are rejected by AuthenticationFilter before reaching the resource
+        assertTrue(TransactionApi.class.getMethod("getTransactionSummary", SecurityContext.class, String.class, String.class, String.class)
+                .isAnnotationPresent(Authenticated.class));
+    }
+
+    @Test
+    void testUpdateTransaction_Success() {
+        ObjectId transactionId = new ObjectId();
+
+        when(transactionBean.getTransactionById(transactionId)).thenReturn(transaction);
+
+        Response response = transactionApi.updateTransaction(transactionId.toHexString(), transactionDTO, securityContext);
+
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        verify(transactionBean, times(1)).updateTransaction(any(ObjectId.class), any(Transaction.class));
+    }
+
+    @Test
+    void testUpdateTransaction_InvalidBody() {
+        ObjectId transactionId = new ObjectId();
+        transactionDTO.setDate(null);
+
+        when(transactionBean.getTransactionById(transactionId)).thenReturn(transaction);
+        doThrow(new IllegalArgumentException("Date is a required field."))
+                .when(transactionBean).updateTransaction(any(ObjectId.class), any(Transaction.class));
+
+        Response response = transactionApi.updateTransaction(transactionId.toHexString(), transactionDTO, securityContext);
+
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+        assertEquals("{\"message\":\"Date is a required field.\"}", response.getEntity());
+    }
+
+    @Test
+    void testUpdateTransaction_NotFound() {
+        ObjectId transactionId = new ObjectId();
+
+        when(transactionBean.getTransactionById(transactionId)).thenReturn(null);
+
+        Response response = transactionApi.updateTransaction(transactionId.toHexString(), transactionDTO, securityContext);
+
+        assertEquals(Response.Status.NOT_FOUND.getStatusCode(), response.getStatus());
+        verify(transactionBean, never()).updateTransaction(any(), any());
+    }
+
     @Test
     void testDeleteTransaction_Success() {
         ObjectId transactionId = new ObjectId();
 
-        when(jwtUtil.extractUserId(validToken)).thenReturn(userId);
         when(transactionBean.getTransactionById(transactionId)).thenReturn(transaction);
         when(transactionBean.deleteTransaction(transactionId)).thenReturn(true);
 
-        Response response = transactionApi.deleteTransaction(transactionId.toHexString(), validToken);
+        Response response = transactionApi.deleteTransaction(transactionId.toHexString(), securityContext);
 
         assertEquals(Response.Status.NO_CONTENT.getStatusCode(), response.getStatus());
         verify(transactionBean, times(1)).deleteTransaction(transactionId);
@@ -126,10 +298,9 @@ public class TransactionApiTest {
     void testDeleteTransaction_NotFound() {
         ObjectId transactionId = new ObjectId();
 
-        when(jwtUtil.extractUserId(validToken)).thenReturn(userId);
         when(transactionBean.getTransactionById(transactionId)).thenReturn(null);
 
-        Response response = transactionApi.deleteTransaction(transactionId.toHexString(), validToken);
+        Response response = transactionApi.deleteTransaction(transactionId.toHexString(), securityContext);
 
         assertEquals(Response.Status.NOT_FOUND.getStatusCode(), response.getStatus());
         assertEquals("{\"message\": \"Transaction not found or does not belong to the user\"}", response.getEntity());
@@ -138,7 +309,7 @@ public class TransactionApiTest {
 
     @Test
     void testDeleteTransaction_InvalidIdFormat() {
-        Response response = transactionApi.deleteTransaction("invalid_id", validToken);
+        Response response = transactionApi.deleteTransaction("invalid_id", securityContext);
 
         assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
         assertEquals("{\"message\": \"Invalid transaction ID format\"}", response.getEntity());
@@ -146,11 +317,9 @@ public class TransactionApiTest {
     }
 
     @Test
-    void testDeleteTransaction_Unauthorized() {
-        Response response = transactionApi.deleteTransaction(new ObjectId().toHexString(), null);
-
-        assertEquals(Response.Status.UNAUTHORIZED.getStatusCode(), response.getStatus());
-        assertEquals("{\"message\": \"Token is missing or invalid\"}", response.getEntity());
-        verify(transactionBean, never()).deleteTransaction(any());
+    void testDeleteTransaction_Unauthorized() throws NoSuchMethodException {
+        // Requests without a valid token are rejected by AuthenticationFilter before reaching the resource
+        assertTrue(TransactionApi.class.getMethod("deleteTransaction", String.class, SecurityContext.class)
+                .isAnnotationPresent(Authenticated.class));
     }
 }
\ No newline at end of file
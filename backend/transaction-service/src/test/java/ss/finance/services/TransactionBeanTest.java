@@ -1,15 +1,278 @@
 package ss.finance.services;
 
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoTimeoutException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.TransactionBody;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+
+import ss.finance.entities.Transaction;
+import ss.finance.outbox.OutboxRelay;
+import ss.finance.testing.TestConfiguration;
+import ss.finance.utils.MongoDBConnection;
+
 @ExtendWith(MockitoExtension.class)
 class TransactionBeanTest {
 
+    @BeforeAll
+    static void initConfiguration() {
+        TestConfiguration.initialize();
+    }
+
+    @Mock
+    private MongoClient mongoClient;
+
+    @Mock
+    private MongoDatabase database;
+
+    @Mock
+    private MongoCollection<Document> collection;
+
+    @Mock
+    private MongoCollection<Document> outboxCollection;
+
+    @Mock
+    private MongoCollection<Document> versionCollection;
+
+    @Mock
+    private MongoCollection<Document> rollupCollection;
+
+    @Mock
+    private ClientSession session;
+
+    private TransactionBean transactionBean;
+    private ObjectId userId;
+
+    @BeforeEach
+    void setUp() {
+        userId = new ObjectId();
+        when(mongoClient.getDatabase("financeApp")).thenReturn(database);
+        when(database.getCollection("transactions")).thenReturn(collection);
+        when(database.getCollection(OutboxRelay.COLLECTION_NAME)).thenReturn(outboxCollection);
+        when(database.getCollection("transaction_versions")).thenReturn(versionCollection);
+        when(database.getCollection(TransactionRollups.COLLECTION_NAME)).thenReturn(rollupCollection);
+        lenient().when(database.getCollection("locks")).thenReturn(rollupCollection);
+        lenient().when(versionCollection.findOneAndUpdate(any(ClientSession.class), any(Bson.class), any(Bson.class), any(FindOneAndUpdateOptions.class)))
+                .thenReturn(new Document("version", 10L));
+        lenient().when(versionCollection.findOneAndUpdate(any(Bson.class), any(Bson.class), any(FindOneAndUpdateOptions.class)))
+                .thenReturn(new Document("version", 10L));
+        MongoDBConnection.setTestMongoClient(mongoClient);
+        transactionBean = new TransactionBean();
+    }
+
+    @AfterEach
+    void tearDown() {
+        MongoDBConnection.setTestMongoClient(null);
+    }
+
+    @Test
+    void testUpdateTransactionRejectsMissingDate() {
+        Transaction update = new Transaction(new ObjectId(), "expense", 50.0, "Groceries", new Date());
+        update.setDate(null);
+
+        assertThrows(IllegalArgumentException.class, () -> transactionBean.updateTransaction(new ObjectId(), update));
+        verifyNoInteractions(collection);
+    }
+
+    @Test
+    void testUpdateTransactionRejectsNonPositiveAmount() {
+        Transaction update = new Transaction(new ObjectId(), "expense", 0.0, "Groceries", new Date());
+
+        assertThrows(IllegalArgumentException.class, () -> transactionBean.updateTransaction(new ObjectId(), update));
+        verifyNoInteractions(collection);
+    }
+
+    @Test
+    void testAddTransactionsRejectsInvalidRowsBeforeInserting() {
+        standalone();
+        TransactionBatchResult result = new TransactionBatchResult();
+
+        transactionBean.addTransactions(rows(50.0, Double.NaN, Double.POSITIVE_INFINITY), result);
+
+        assertEquals(1, result.getCreated());
+        assertEquals(2, result.getFailed());
+        assertEquals("Type, category, and amount are required fields.", result.getResults().get(1).getError());
+        verify(collection, times(1)).insertMany(anyList(), any(InsertManyOptions.class));
+    }
+
     @Test
-    public void shouldAnswerWithTrue() {
-        assertTrue(true, "This test should always pass");
+    void testAddTransactionsRetriesChunkWithoutRefusedRowOnReplicaSet() {
+        when(database.runCommand(any())).thenReturn(new Document("setName", "rs0"));
+        when(mongoClient.startSession()).thenReturn(session);
+        when(session.withTransaction(any())).thenAnswer(invocation ->
+                ((TransactionBody<?>) invocation.getArgument(0)).execute());
+        // Druga vrstica prekine prvo transakcijo, ponovni zapis brez nje uspe
+        when(collection.insertMany(any(ClientSession.class), anyList()))
+                .thenThrow(bulkWriteError(1))
+                .thenReturn(null);
+        TransactionBatchResult result = new TransactionBatchResult();
+
+        transactionBean.addTransactions(rows(10.0, 20.0, 30.0), result);
+
+        assertEquals(2, result.getCreated());
+        assertEquals(1, result.getFailed());
+        List<TransactionBatchResult.RowResult> rows = result.getResults();
+        assertEquals("created", rows.get(0).getStatus());
+        assertEquals("failed", rows.get(1).getStatus());
+        assertEquals("created", rows.get(2).getStatus());
+        List<List<Document>> inserts = insertedInSession();
+        assertEquals(3, inserts.get(0).size());
+        assertEquals(2, inserts.get(1).size());
+    }
+
+    @Test
+    void testAddTransactionsReportsStoredRowsWhenOutboxFailsOnStandalone() {
+        standalone();
+        when(outboxCollection.insertMany(anyList(), any(InsertManyOptions.class)))
+                .thenThrow(new MongoTimeoutException("Timed out"));
+        TransactionBatchResult result = new TransactionBatchResult();
+
+        transactionBean.addTransactions(rows(10.0, 20.0), result);
+
+        assertEquals(2, result.getCreated());
+        assertEquals(0, result.getFailed());
+        for (TransactionBatchResult.RowResult row : result.getResults()) {
+            assertEquals("created", row.getStatus());
+            assertEquals("Stored, but other services were not notified", row.getWarning());
+        }
+        // Rollupi se posodobijo tudi brez dogodkov
+        verify(rollupCollection, times(1)).bulkWrite(anyList(), any());
+    }
+
+    @Test
+    void testAddTransactionsReportsRefusedRowsOnStandalone() {
+        standalone();
+        when(collection.insertMany(anyList(), any(InsertManyOptions.class))).thenThrow(bulkWriteError(0));
+        TransactionBatchResult result = new TransactionBatchResult();
+
+        transactionBean.addTransactions(rows(10.0, 20.0), result);
+
+        List<TransactionBatchResult.RowResult> rows = result.getResults();
+        assertEquals("failed", rows.get(0).getStatus());
+        assertEquals("created", rows.get(1).getStatus());
+        assertNull(rows.get(1).getWarning());
+        List<Document> outbox = outboxEntries();
+        assertEquals(1, outbox.size());
+        verify(mongoClient, never()).startSession();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testUpdateTransactionMovesAmountBetweenRollupRows() {
+        standalone();
+        ObjectId transactionId = new ObjectId();
+        Document before = new Document("_id", transactionId)
+                .append("userId", userId)
+                .append("type", "expense")
+                .append("amount", 40.0)
+                .append("category", "Groceries")
+                .append("date", utc(2024, 1, 31))
+                .append("createdAt", utc(2024, 1, 31));
+        when(collection.findOneAndUpdate(any(Bson.class), any(Bson.class), any(FindOneAndUpdateOptions.class)))
+                .thenReturn(before);
+
+        transactionBean.updateTransaction(transactionId,
+                new Transaction(userId, "income", 100.0, "Salary", utc(2024, 2, 1)));
+
+        // Znesek se odšteje od stare vrstice in prišteje novi, ne glede na spremenjena polja
+        ArgumentCaptor<List<WriteModel<Document>>> writes = ArgumentCaptor.forClass(List.class);
+        verify(rollupCollection, times(2)).bulkWrite(writes.capture(), any(BulkWriteOptions.class));
+        UpdateOneModel<Document> removed = (UpdateOneModel<Document>) writes.getAllValues().get(0).get(0);
+        UpdateOneModel<Document> added = (UpdateOneModel<Document>) writes.getAllValues().get(1).get(0);
+        assertRollupRow(removed, "2024-01", "Groceries", "expense", -40.0);
+        assertRollupRow(added, "2024-02", "Salary", "income", 100.0);
+    }
+
+    private static void assertRollupRow(UpdateOneModel<Document> write, String month, String category, String type,
+                                        double amount) {
+        String key = render(write.getFilter()).toJson();
+        assertTrue(key.contains("\"month\": \"" + month + "\""), key);
+        assertTrue(key.contains("\"category\": \"" + category + "\""), key);
+        assertTrue(key.contains("\"type\": \"" + type + "\""), key);
+        assertEquals(amount, render(write.getUpdate()).getDocument("$inc").getNumber("amount").doubleValue());
+    }
+
+    private static Date utc(int year, int month, int day) {
+        return Date.from(LocalDate.of(year, month, day).atStartOfDay(ZoneOffset.UTC).toInstant());
+    }
+
+    private static BsonDocument render(Bson bson) {
+        return bson.toBsonDocument(BsonDocument.class, MongoClientSettings.getDefaultCodecRegistry());
+    }
+
+    private void standalone() {
+        when(database.runCommand(any())).thenReturn(new Document("ismaster", true));
+    }
+
+    private List<Transaction> rows(double... amounts) {
+        List<Transaction> rows = new ArrayList<>();
+        for (double amount : amounts) {
+            rows.add(new Transaction(userId, "expense", amount, "Groceries", new Date()));
+        }
+        return rows;
+    }
+
+    private static MongoBulkWriteException bulkWriteError(int index) {
+        return new MongoBulkWriteException(BulkWriteResult.unacknowledged(),
+                List.of(new BulkWriteError(121, "Document failed validation", new BsonDocument(), index)),
+                null, new ServerAddress(), Set.of());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<Document>> insertedInSession() {
+        ArgumentCaptor<List<Document>> docs = ArgumentCaptor.forClass(List.class);
+        verify(collection, times(2)).insertMany(any(ClientSession.class), docs.capture());
+        return docs.getAllValues();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Document> outboxEntries() {
+        ArgumentCaptor<List<Document>> docs = ArgumentCaptor.forClass(List.class);
+        verify(outboxCollection).insertMany(docs.capture(), any(InsertManyOptions.class));
+        assertTrue(docs.getValue().size() > 0);
+        return docs.getValue();
     }
-}
\ No newline at end of file
+}
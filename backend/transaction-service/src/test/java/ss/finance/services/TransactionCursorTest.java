@@ -0,0 +1,64 @@
+package ss.finance.services;
+
+import java.util.Date;
+import java.util.List;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+class TransactionCursorTest {
+
+    @Test
+    void testEncodeDecodeRoundTrip() {
+        ObjectId id = new ObjectId();
+        Date date = new Date(1704067200000L);
+
+        TransactionCursor cursor = TransactionCursor.decode(new TransactionCursor(date, id).encode());
+
+        assertEquals(date, cursor.getDate());
+        assertEquals(id, cursor.getId());
+    }
+
+    @Test
+    void testUndatedTransactionHasCursor() {
+        ObjectId id = new ObjectId();
+
+        TransactionCursor cursor = TransactionCursor.decode(new TransactionCursor(null, id).encode());
+
+        assertNull(cursor.getDate());
+        assertEquals(id, cursor.getId());
+    }
+
+    @Test
+    void testFilterAfterDatedCursorIncludesUndatedRows() {
+        ObjectId id = new ObjectId();
+        Date date = new Date(1704067200000L);
+
+        Document filter = new TransactionCursor(date, id).toFilter();
+
+        // Transakcije brez datuma so na koncu zgodovine
+        assertEquals(List.of(
+                new Document("date", new Document("$lt", date)),
+                new Document("date", date).append("_id", new Document("$lt", id)),
+                new Document("date", null)), filter.get("$or"));
+    }
+
+    @Test
+    void testFilterAfterUndatedCursorStaysAmongUndatedRows() {
+        ObjectId id = new ObjectId();
+
+        Document filter = new TransactionCursor(null, id).toFilter();
+
+        assertEquals(new Document("date", null).append("_id", new Document("$lt", id)), filter);
+    }
+
+    @Test
+    void testDecodeRejectsGarbage() {
+        assertThrows(IllegalArgumentException.class, () -> TransactionCursor.decode("garbage"));
+        assertThrows(IllegalArgumentException.class, () -> TransactionCursor.decode("!!"));
+    }
+}
@@ -0,0 +1,247 @@
+package ss.finance.services;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.CountOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.client.result.DeleteResult;
+
+import ss.finance.entities.Transaction;
+import ss.finance.testing.TestConfiguration;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionRollupsTest {
+
+    @BeforeAll
+    static void initConfiguration() {
+        TestConfiguration.initialize();
+    }
+
+    @Mock
+    private MongoDatabase database;
+
+    @Mock
+    private MongoCollection<Document> rollupCollection;
+
+    @Mock
+    private MongoCollection<Document> transactionCollection;
+
+    @Mock
+    private MongoCollection<Document> lockCollection;
+
+    @Mock(answer = Answers.RETURNS_SELF)
+    private FindIterable<Document> rows;
+
+    @Mock
+    private MongoCursor<Document> cursor;
+
+    @Mock
+    private AggregateIterable<Document> pipeline;
+
+    @Mock
+    private ClientSession session;
+
+    @Mock
+    private Clock clock;
+
+    private TransactionRollups rollups;
+    private ObjectId userId;
+
+    @BeforeEach
+    void setUp() {
+        userId = new ObjectId();
+        when(database.getCollection(TransactionRollups.COLLECTION_NAME)).thenReturn(rollupCollection);
+        when(database.getCollection("locks")).thenReturn(lockCollection);
+        rollups = new TransactionRollups(database, transactionCollection, clock);
+    }
+
+    @Test
+    void testApplyIncrementsMonthlyRowsInOrder() {
+        Transaction lunch = transaction("expense", 12.5, "Hrana", LocalDate.of(2024, 3, 31));
+        Transaction undated = transaction("expense", 5.0, "Hrana", LocalDate.of(2024, 3, 1));
+        undated.setDate(null);
+
+        rollups.apply(null, List.of(lunch, undated), -1);
+
+        List<WriteModel<Document>> writes = bulkWrite();
+        // Transakcija brez datuma nima mesečne vrstice
+        assertEquals(1, writes.size());
+        UpdateOneModel<Document> write = (UpdateOneModel<Document>) writes.get(0);
+        BsonDocument key = render(write.getFilter());
+        assertTrue(key.toJson().contains("\"month\": \"2024-03\""));
+        assertTrue(key.toJson().contains("\"category\": \"Hrana\""));
+        assertTrue(key.toJson().contains("\"type\": \"expense\""));
+        BsonDocument increment = render(write.getUpdate()).getDocument("$inc");
+        assertEquals(-12.5, increment.getNumber("amount").doubleValue());
+        assertEquals(-1, increment.getNumber("count").intValue());
+        assertTrue(write.getOptions().isUpsert());
+    }
+
+    @Test
+    void testApplyWritesInsideCallerSession() {
+        rollups.apply(session, List.of(transaction("income", 100.0, "Plača", LocalDate.of(2024, 1, 15))), 1);
+
+        verify(rollupCollection).bulkWrite(eq(session), anyList(), any(BulkWriteOptions.class));
+        verify(rollupCollection, never()).bulkWrite(anyList(), any(BulkWriteOptions.class));
+    }
+
+    @Test
+    void testApplyWithoutRowsWritesNothing() {
+        rollups.apply(null, List.of(), 1);
+
+        verify(rollupCollection, never()).bulkWrite(anyList(), any(BulkWriteOptions.class));
+    }
+
+    @Test
+    void testSummarizeAddsIncomeAndExpensePerGroup() {
+        rows(row("2024-01", "Hrana", "expense", 40.0, 3),
+                row("2024-02", "Hrana", "income", 10.0, 1),
+                row("2024-02", "Najemnina", "expense", 500.0, 1));
+
+        List<TransactionSummary.Group> groups = rollups.summarize(userId, "2024-01", "2024-03",
+                TransactionSummary.GroupBy.CATEGORY);
+
+        assertEquals(2, groups.size());
+        assertEquals("Hrana", groups.get(0).getKey());
+        assertEquals(10.0, groups.get(0).getIncome());
+        assertEquals(40.0, groups.get(0).getExpense());
+        assertEquals(4, groups.get(0).getCount());
+        assertEquals("Najemnina", groups.get(1).getKey());
+        assertEquals(500.0, groups.get(1).getExpense());
+
+        ArgumentCaptor<Bson> filter = ArgumentCaptor.forClass(Bson.class);
+        verify(rollupCollection).find(filter.capture());
+        String json = render(filter.getValue()).toJson();
+        assertTrue(json.contains("\"$gte\": \"2024-01\""));
+        assertTrue(json.contains("\"$lt\": \"2024-03\""));
+    }
+
+    @Test
+    void testRebuildMergesAggregatedRowsAndRemovesStaleOnes() {
+        when(transactionCollection.aggregate(anyList())).thenReturn(pipeline);
+        when(rollupCollection.deleteMany(any(Bson.class))).thenReturn(DeleteResult.acknowledged(2));
+
+        rollups.rebuild(userId);
+
+        ArgumentCaptor<List<Bson>> stages = ArgumentCaptor.forClass(List.class);
+        verify(transactionCollection).aggregate(stages.capture());
+        List<Bson> pipelineStages = stages.getValue();
+        assertTrue(render(pipelineStages.get(0)).getDocument("$match").toJson().contains(userId.toHexString()));
+        BsonDocument merge = render(pipelineStages.get(pipelineStages.size() - 1)).getDocument("$merge");
+        assertEquals(TransactionRollups.COLLECTION_NAME, merge.getString("into").getValue());
+        verify(pipeline).toCollection();
+
+        // Odstranijo se le vrstice tega uporabnika, ki jih obnova ni zapisala
+        ArgumentCaptor<Bson> stale = ArgumentCaptor.forClass(Bson.class);
+        verify(rollupCollection).deleteMany(stale.capture());
+        String json = render(stale.getValue()).toJson();
+        assertTrue(json.contains(userId.toHexString()));
+        assertTrue(json.contains("rebuiltAt"));
+    }
+
+    @Test
+    void testIsReadyKeepsPositiveAnswer() {
+        when(clock.millis()).thenReturn(0L);
+        when(lockCollection.countDocuments(any(Bson.class), any(CountOptions.class))).thenReturn(1L);
+
+        assertTrue(rollups.isReady());
+        assertTrue(rollups.isReady());
+        assertTrue(rollups.isReady());
+
+        verify(lockCollection, times(1)).countDocuments(any(Bson.class), any(CountOptions.class));
+    }
+
+    @Test
+    void testIsReadyRechecksMissingRebuildAtMostOncePerInterval() {
+        when(clock.millis()).thenReturn(0L, 5000L, 10000L, 20000L);
+        when(lockCollection.countDocuments(any(Bson.class), any(CountOptions.class))).thenReturn(0L, 1L);
+
+        assertFalse(rollups.isReady());
+        assertFalse(rollups.isReady());
+        // Obnovo je medtem dokončala druga replika
+        assertTrue(rollups.isReady());
+        assertTrue(rollups.isReady());
+
+        verify(lockCollection, times(2)).countDocuments(any(Bson.class), any(CountOptions.class));
+    }
+
+    @Test
+    void testMarkRebuiltMakesRowsReadyWithoutReadingMarker() {
+        rollups.markRebuilt("instance");
+
+        assertTrue(rollups.isReady());
+        verify(lockCollection, never()).countDocuments(any(Bson.class), any(CountOptions.class));
+    }
+
+    private Transaction transaction(String type, double amount, String category, LocalDate date) {
+        return new Transaction(userId, type, amount, category,
+                Date.from(date.atStartOfDay(ZoneOffset.UTC).toInstant()));
+    }
+
+    private Document row(String month, String category, String type, double amount, long count) {
+        return new Document("userId", userId)
+                .append("month", month)
+                .append("category", category)
+                .append("type", type)
+                .append("amount", amount)
+                .append("count", count);
+    }
+
+    private void rows(Document... documents) {
+        Iterator<Document> iterator = List.of(documents).iterator();
+        when(rollupCollection.find(any(Bson.class))).thenReturn(rows);
+        when(rows.iterator()).thenReturn(cursor);
+        when(cursor.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+        when(cursor.next()).thenAnswer(invocation -> iterator.next());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<WriteModel<Document>> bulkWrite() {
+        ArgumentCaptor<List<WriteModel<Document>>> writes = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<BulkWriteOptions> options = ArgumentCaptor.forClass(BulkWriteOptions.class);
+        verify(rollupCollection).bulkWrite(writes.capture(), options.capture());
+        assertTrue(options.getValue().isOrdered());
+        return writes.getValue();
+    }
+
+    private static BsonDocument render(Bson bson) {
+        return bson.toBsonDocument(BsonDocument.class, MongoClientSettings.getDefaultCodecRegistry());
+    }
+}
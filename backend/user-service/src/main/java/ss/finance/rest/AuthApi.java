@@ -1,7 +1,6 @@
 package ss.finance.rest;
 
 import java.util.Map;
-import java.util.logging.Logger;
 
 import javax.inject.Inject;
 import javax.ws.rs.Consumes;
@@ -14,6 +13,8 @@ import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.NewCookie;
 import javax.ws.rs.core.Response;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.bson.types.ObjectId;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
@@ -23,18 +24,11 @@ import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 import org.mindrot.jbcrypt.BCrypt;
 
-import com.mongodb.client.MongoClient;
-import com.mongodb.client.MongoClients;
-import com.mongodb.client.MongoDatabase;
-
-import jakarta.json.Json;
-import jakarta.json.JsonObject;
-import jakarta.json.JsonObjectBuilder;
 import ss.finance.entities.User;
+import ss.finance.health.HealthService;
 import ss.finance.security.JwtUtil;
 import ss.finance.services.UserBean;
 
-
 @Tag(name = "Authentication", description = "Endpoints related to user authentication")
 @Path("/auth")
 @Produces(MediaType.APPLICATION_JSON)
@@ -45,44 +39,37 @@ public class AuthApi {
     private UserBean userBean;
 
     @Inject
-    private JwtUtil jwtUtil;
+    private HealthService healthService;
 
-    private static final Logger logger = Logger.getLogger(AuthApi.class.getName());
+    @Inject
+    private JwtUtil jwtUtil;
 
-    private static final String MONGO_URI = System.getenv("MONGO_URL");
-    private static final String DATABASE_NAME = System.getenv("DATABASE_NAME");
+    private static final Logger logger = LogManager.getLogger(AuthApi.class);
 
-    @Operation(summary = "Health check", description = "Returns the health status of the User Service.")
-    @APIResponse(responseCode = "200", description = "Service is healthy")
-    @APIResponse(responseCode = "503", description = "Service is unhealthy")
+    @Operation(summary = "Health check", description = "Returns the readiness of the User microservice. Kept for existing probes, same as /health/ready.")
+    @APIResponse(responseCode = "200", description = "Service is up and running")
+    @APIResponse(responseCode = "503", description = "Service is down")
     @GET
     @Path("/health")
     public Response healthCheck() {
-        boolean isMongoUp = checkMongoDB();
-        boolean isServiceUp = true;  // Če endpoint deluje, pomeni da je User Service UP.
-
-        JsonObjectBuilder healthBuilder = Json.createObjectBuilder()
-                .add("status", isMongoUp ? "UP" : "DOWN");
-
-        JsonObjectBuilder detailsBuilder = Json.createObjectBuilder()
-                .add("MongoDB", isMongoUp ? "UP" : "DOWN")
-                .add("User Service", isServiceUp ? "UP" : "DOWN");
-
-        JsonObject healthJson = healthBuilder.add("details", detailsBuilder.build()).build();
+        return healthService.readiness().with("User Service").toResponse();
+    }
 
-        int statusCode = isMongoUp ? Response.Status.OK.getStatusCode() : Response.Status.SERVICE_UNAVAILABLE.getStatusCode();
-        return Response.status(statusCode).entity(healthJson.toString()).build();
+    @Operation(summary = "Liveness check", description = "Returns UP while the process can serve requests. Does not check dependencies.")
+    @APIResponse(responseCode = "200", description = "Service is alive")
+    @GET
+    @Path("/health/live")
+    public Response livenessCheck() {
+        return healthService.liveness().toResponse();
     }
 
-    private boolean checkMongoDB() {
-        try (MongoClient mongoClient = MongoClients.create(MONGO_URI)) {
-            MongoDatabase database = mongoClient.getDatabase(DATABASE_NAME);
-            database.listCollectionNames().first(); // Če ne vrže izjeme, je MongoDB UP
-            return true;
-        } catch (Exception e) {
-            logger.severe("MongoDB connection check failed: " + e.getMessage());
-            return false;
-        }
+    @Operation(summary = "Readiness check", description = "Pings MongoDB through the shared client. Results are cached briefly.")
+    @APIResponse(responseCode = "200", description = "Service is ready")
+    @APIResponse(responseCode = "503", description = "A critical dependency is unavailable")
+    @GET
+    @Path("/health/ready")
+    public Response readinessCheck() {
+        return healthService.readiness().toResponse();
     }
 
     @Operation(summary = "Register a new user", description = "Creates a new user account.")
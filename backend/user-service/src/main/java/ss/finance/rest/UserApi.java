@@ -2,19 +2,21 @@ package ss.finance.rest;
 
 import java.util.List;
 import java.util.Map;
-import java.util.logging.Logger;
 
 import javax.inject.Inject;
 import javax.ws.rs.Consumes;
-import javax.ws.rs.CookieParam;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.SecurityContext;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.bson.types.ObjectId;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
@@ -24,15 +26,10 @@ import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 import org.mindrot.jbcrypt.BCrypt;
 
-import com.mongodb.client.MongoClient;
-import com.mongodb.client.MongoClients;
-import com.mongodb.client.MongoDatabase;
-
-import jakarta.json.Json;
-import jakarta.json.JsonObject;
-import jakarta.json.JsonObjectBuilder;
 import ss.finance.entities.User;
-import ss.finance.security.JwtUtil;
+import ss.finance.health.HealthService;
+import ss.finance.security.Authenticated;
+import ss.finance.security.AuthenticatedUser;
 import ss.finance.services.UserBean;
 
 @Tag(name = "User", description = "Endpoints related to user management")
@@ -45,41 +42,35 @@ public class UserApi {
     private UserBean userBean;
 
     @Inject
-    private JwtUtil jwtUtil;
+    private HealthService healthService;
 
-    private static final Logger logger = Logger.getLogger(UserApi.class.getName());
+    private static final Logger logger = LogManager.getLogger(UserApi.class);
     
-    private static final String MONGO_URI = System.getenv("MONGO_URL");
-    private static final String DATABASE_NAME = System.getenv("DATABASE_NAME");
 
+    @Operation(summary = "Health check", description = "Returns the readiness of the User microservice. Kept for existing probes, same as /health/ready.")
+    @APIResponse(responseCode = "200", description = "Service is up and running")
+    @APIResponse(responseCode = "503", description = "Service is down")
     @GET
     @Path("/health")
     public Response healthCheck() {
-        boolean isMongoUp = checkMongoDB();
-        boolean isServiceUp = true; // Če endpoint deluje, pomeni, da je storitev UP
-
-        JsonObjectBuilder healthBuilder = Json.createObjectBuilder()
-                .add("status", isMongoUp ? "UP" : "DOWN");
-
-        JsonObjectBuilder detailsBuilder = Json.createObjectBuilder()
-                .add("MongoDB", isMongoUp ? "UP" : "DOWN")
-                .add("User Service", isServiceUp ? "UP" : "DOWN");
-
-        JsonObject healthJson = healthBuilder.add("details", detailsBuilder.build()).build();
+        return healthService.readiness().with("User Service").toResponse();
+    }
 
-        int statusCode = isMongoUp ? Response.Status.OK.getStatusCode() : Response.Status.SERVICE_UNAVAILABLE.getStatusCode();
-        return Response.status(statusCode).entity(healthJson.toString()).build();
+    @Operation(summary = "Liveness check", description = "Returns UP while the process can serve requests. Does not check dependencies.")
+    @APIResponse(responseCode = "200", description = "Service is alive")
+    @GET
+    @Path("/health/live")
+    public Response livenessCheck() {
+        return healthService.liveness().toResponse();
     }
 
-    private boolean checkMongoDB() {
-        try (MongoClient mongoClient = MongoClients.create(MONGO_URI)) {
-            MongoDatabase database = mongoClient.getDatabase(DATABASE_NAME);
-            database.listCollectionNames().first(); // Če ne vrže izjeme, je MongoDB UP
-            return true;
-        } catch (Exception e) {
-            logger.severe("MongoDB connection failed: " + e.getMessage());
-            return false;
-        }
+    @Operation(summary = "Readiness check", description = "Pings MongoDB through the shared client. Results are cached briefly.")
+    @APIResponse(responseCode = "200", description = "Service is ready")
+    @APIResponse(responseCode = "503", description = "A critical dependency is unavailable")
+    @GET
+    @Path("/health/ready")
+    public Response readinessCheck() {
+        return healthService.readiness().toResponse();
     }
 
     @Operation(summary = "Get all users", description = "Returns a list of all registered users.")
@@ -119,16 +110,17 @@ public class UserApi {
     @APIResponse(
             responseCode = "401",
             description = "Unauthorized access",
-            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"error\": \"Cookie is missing or invalid\"}"))
+            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"message\": \"Token is missing or invalid\"}"))
     )
     @APIResponse(
             responseCode = "500",
             description = "Internal server error",
             content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"error\": \"Error occurred while changing password\"}"))
     )
+    @Authenticated
     @PUT
     @Path("/change-password")
-    public Response changePassword(@CookieParam("auth_token") String token,@RequestBody(
+    public Response changePassword(@Context SecurityContext securityContext,@RequestBody(
             description = "Payload containing old password, new password, and confirm new password",
             required = true,
             content = @Content(
@@ -143,12 +135,6 @@ public class UserApi {
             String newPassword = payload.get("newPassword");
             String confirmNewPassword = payload.get("confirmNewPassword");
 
-            if (token == null || token.isEmpty()) {
-                return Response.status(Response.Status.UNAUTHORIZED)
-                        .entity(Map.of("error", "Cookie is missing or invalid"))
-                        .build();
-            }
-
             if (oldPassword == null || oldPassword.isEmpty() ||
                     newPassword == null || newPassword.isEmpty() ||
                     confirmNewPassword == null || confirmNewPassword.isEmpty()) {
@@ -157,7 +143,7 @@ public class UserApi {
                         .build();
             }
 
-            ObjectId userId = jwtUtil.extractUserId(token);
+            ObjectId userId = AuthenticatedUser.userId(securityContext);
             User user = userBean.getUserById(userId);
             if (user == null) {
                 return Response.status(Response.Status.NOT_FOUND)
@@ -197,7 +183,7 @@ public class UserApi {
     @APIResponse(
             responseCode = "401",
             description = "Unauthorized access",
-            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"error\": \"Cookie is missing or invalid\"}"))
+            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"message\": \"Token is missing or invalid\"}"))
     )
     @APIResponse(
             responseCode = "404",
@@ -209,17 +195,12 @@ public class UserApi {
             description = "Internal server error",
             content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"error\": \"Server error\"}"))
     )
+    @Authenticated
     @DELETE
     @Path("/profile")
-    public Response deleteUser(@CookieParam("auth_token") String token) {
+    public Response deleteUser(@Context SecurityContext securityContext) {
         try {
-            if (token == null || token.isEmpty()) {
-                return Response.status(Response.Status.UNAUTHORIZED)
-                        .entity(Map.of("error", "Cookie is missing or invalid"))
-                        .build();
-            }
-
-            ObjectId userId = jwtUtil.extractUserId(token);
+            ObjectId userId = AuthenticatedUser.userId(securityContext);
 
             boolean isDeleted = userBean.deleteUser(userId);
             if (isDeleted) {
@@ -257,17 +238,12 @@ public class UserApi {
             description = "Internal server error",
             content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"error\": \"Server error\"}"))
     )
+    @Authenticated
     @GET
     @Path("/profile")
-    public Response getUserProfile(@CookieParam("auth_token") String token) {
+    public Response getUserProfile(@Context SecurityContext securityContext) {
         try {
-            if (token == null || token.isEmpty()) {
-                return Response.status(Response.Status.UNAUTHORIZED)
-                        .entity(Map.of("error", "Token is missing or invalid"))
-                        .build();
-            }
-
-            ObjectId userId = jwtUtil.extractUserId(token);
+            ObjectId userId = AuthenticatedUser.userId(securityContext);
             User user = userBean.getUserById(userId);
             if (user != null) {
                 return Response.ok(user).build();
@@ -292,7 +268,7 @@ public class UserApi {
     @APIResponse(
             responseCode = "401",
             description = "Unauthorized access",
-            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"error\": \"Cookie is missing or invalid\"}"))
+            content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"message\": \"Token is missing or invalid\"}"))
     )
     @APIResponse(
             responseCode = "404",
@@ -304,17 +280,12 @@ public class UserApi {
             description = "Internal server error",
             content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(example = "{\"error\": \"Error occurred while updating user\"}"))
     )
+    @Authenticated
     @PUT
     @Path("/profile")
-    public Response updateUser(@CookieParam("auth_token") String token, User updatedUser) {
+    public Response updateUser(@Context SecurityContext securityContext, User updatedUser) {
         try {
-            if (token == null || token.isEmpty()) {
-                return Response.status(Response.Status.UNAUTHORIZED)
-                        .entity(Map.of("error", "Cookie is missing or invalid"))
-                        .build();
-            }
-
-            ObjectId userId = jwtUtil.extractUserId(token);
+            ObjectId userId = AuthenticatedUser.userId(securityContext);
             User existingUser = userBean.getUserById(userId);
             if (existingUser == null) {
                 return Response.status(Response.Status.NOT_FOUND)
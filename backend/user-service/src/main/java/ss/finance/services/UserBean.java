@@ -4,10 +4,14 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.logging.Logger;
 
 import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.Initialized;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.bson.Document;
 import org.bson.types.ObjectId;
 import org.mindrot.jbcrypt.BCrypt;
@@ -15,22 +19,39 @@ import org.mindrot.jbcrypt.BCrypt;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Indexes;
 
 import ss.finance.entities.User;
+import ss.finance.indexes.IndexDefinition;
+import ss.finance.indexes.IndexRegistry;
+import ss.finance.indexes.QueryCheck;
 import ss.finance.utils.MongoDBConnection;
 
 @ApplicationScoped
 public class UserBean {
     private MongoCollection<Document> collection;
-    private static final Logger logger = Logger.getLogger(UserBean.class.getName());
+    private static final Logger logger = LogManager.getLogger(UserBean.class);
     private static final ExecutorService executor = Executors.newSingleThreadExecutor();
 
+    @Inject
+    private IndexRegistry indexRegistry;
+
     public UserBean() {
         MongoClient mongoClient = MongoDBConnection.getMongoClient();
         MongoDatabase database = mongoClient.getDatabase("financeApp");
         this.collection = database.getCollection("users");
     }
 
+    public void registerIndexes(@Observes @Initialized(ApplicationScoped.class) Object init) {
+        indexRegistry.register(
+                IndexDefinition.on("users", Indexes.ascending("email")).unique(),
+                IndexDefinition.on("users", Indexes.ascending("resetToken")).sparse());
+        indexRegistry.verify(
+                QueryCheck.find("user by email", "users", Filters.eq("email", "user@example.com")),
+                QueryCheck.find("user by reset token", "users", Filters.eq("resetToken", "token")));
+    }
+
     public void addUser(User user) {
         try {
             // Check if the user already exists by email
@@ -38,7 +59,7 @@ public class UserBean {
     
             if (existingUser != null) {
                 // If the user exists, log and return
-                logger.info("User already exists with this email: " + user.getEmail());
+                logger.info("User already exists with this email: {}", user.getEmail());
             } else if (!isValidEmail(user.getEmail())) {
                 throw new IllegalArgumentException("Invalid email format.");
             } else {
@@ -52,12 +73,12 @@ public class UserBean {
                 logger.info("User added successfully");
             }
     
-            logger.info("User added successfully: " + user.getEmail());
+            logger.info("User added successfully: {}", user.getEmail());
         } catch (IllegalArgumentException e) {
-            logger.severe("Error adding user: " + e.getMessage());
+            logger.error("Error adding user: {}", e.getMessage());
             throw e; // Rethrow IllegalArgumentException directly
         } catch (Exception e) {
-            logger.severe("Unexpected error adding user: " + e.getMessage());
+            logger.error("Unexpected error adding user: {}", e.getMessage());
             throw new RuntimeException("Unexpected error adding user", e);
         }
     }
@@ -68,7 +89,7 @@ public class UserBean {
             // Access the _id field
             return userDoc.getObjectId("_id");
         } else {
-            logger.severe("User not found for email: " + email);
+            logger.error("User not found for email: {}", email);
             return null;
         }
     }
@@ -88,9 +109,8 @@ public class UserBean {
         // Check password
         String hashedPassword = doc.getString("password");
         rawPassword = rawPassword.trim();
-        logger.info(rawPassword);
         if (!BCrypt.checkpw(rawPassword, hashedPassword)) {
-            logger.warning("Invalid login attempt: Incorrect password for email " + email);
+            logger.warn("Invalid login attempt: Incorrect password for email {}", email);
             return null;
         }
 
@@ -130,7 +150,7 @@ public class UserBean {
     public void updateUser(ObjectId userId, User updatedUser) {
         Document existingUser = collection.find(new Document("_id", userId)).first();
         if (existingUser == null) {
-            logger.warning("User with ID " + userId + " not found, update skipped.");
+            logger.warn("User with ID {} not found, update skipped.", userId);
             return;
         }
     
@@ -145,7 +165,7 @@ public class UserBean {
     
             logger.info("User updated successfully");
         } catch (Exception e) {
-            logger.severe("Error updating user: " + e.getMessage());
+            logger.error("Error updating user: {}", e.getMessage());
             throw new RuntimeException("Error updating user", e);
         }
     }
@@ -157,7 +177,7 @@ public class UserBean {
                 return toUser(doc);
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error retrieving user by ID: {}", e.getMessage());
             throw new RuntimeException("Error retrieving user by ID", e);
         }
         return null;
@@ -170,7 +190,7 @@ public class UserBean {
                 return toUser(doc);
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error retrieving user by email: {}", e.getMessage());
             throw new RuntimeException("Error retrieving user by email", e);
         }
         return null;
@@ -183,7 +203,7 @@ public class UserBean {
                 return toUser(doc);
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error retrieving user by reset token: {}", e.getMessage());
             throw new RuntimeException("Error retrieving user by email", e);
         }
         return null;
@@ -201,7 +221,7 @@ public class UserBean {
 
             return userDocument.getObjectId("_id"); // Assuming the user ID is stored in the "_id" field
         } catch (Exception e) {
-            logger.severe("Error retrieving user ID");
+            logger.error("Error retrieving user ID");
             throw new RuntimeException("Error retrieving user ID");
         }
     }
@@ -4,10 +4,12 @@ import java.util.List;
 import java.util.Map;
 
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.SecurityContext;
 
 import org.bson.types.ObjectId;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -16,14 +18,14 @@ import static org.mockito.ArgumentMatchers.eq;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import static org.mockito.Mockito.doNothing;
-import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import ss.finance.entities.User;
-import ss.finance.security.JwtUtil;
+import ss.finance.security.Authenticated;
+import ss.finance.security.AuthenticatedUser;
 import ss.finance.services.UserBean;
 
 @ExtendWith(MockitoExtension.class)
@@ -35,17 +37,14 @@ public class UserApiTest {
     @Mock
     private UserBean userBean;
 
-    @Mock
-    private JwtUtil jwtUtil;
-
-    private String validToken;
+    private SecurityContext securityContext;
     private ObjectId userId;
     private User user;
 
     @BeforeEach
     void setUp() {
-        validToken = "valid.jwt.token";
         userId = new ObjectId();
+        securityContext = new AuthenticatedUser(userId);
         user = new User();
         user.setId(userId.toHexString());
         user.setEmail("test@example.com");
@@ -74,23 +73,17 @@ public class UserApiTest {
     }
 
     @Test
-    void testChangePassword_MissingToken() {
-        Response response = userApi.changePassword(null, Map.of(
-                "oldPassword", "current-password",
-                "newPassword", "new-password",
-                "confirmNewPassword", "new-password"
-        ));
-
-        assertEquals(Response.Status.UNAUTHORIZED.getStatusCode(), response.getStatus());
-        assertEquals(Map.of("error", "Cookie is missing or invalid"), response.getEntity());
+    void testChangePassword_MissingToken() throws NoSuchMethodException {
+        // Requests without a valid token are rejected by AuthenticationFilter before reaching the resource
+        assertTrue(UserApi.class.getMethod("changePassword", SecurityContext.class, Map.class)
+                .isAnnotationPresent(Authenticated.class));
     }
 
     @Test
     void testDeleteUser_Success() {
-        when(jwtUtil.extractUserId(validToken)).thenReturn(userId);
         when(userBean.deleteUser(userId)).thenReturn(true);
 
-        Response response = userApi.deleteUser(validToken);
+        Response response = userApi.deleteUser(securityContext);
 
         assertEquals(Response.Status.NO_CONTENT.getStatusCode(), response.getStatus());
         verify(userBean, times(1)).deleteUser(userId);
@@ -98,30 +91,26 @@ public class UserApiTest {
 
     @Test
     void testDeleteUser_NotFound() {
-        when(jwtUtil.extractUserId(validToken)).thenReturn(userId);
         when(userBean.deleteUser(userId)).thenReturn(false);
 
-        Response response = userApi.deleteUser(validToken);
+        Response response = userApi.deleteUser(securityContext);
 
         assertEquals(Response.Status.NOT_FOUND.getStatusCode(), response.getStatus());
         assertEquals(Map.of("error", "User not found"), response.getEntity());
     }
 
     @Test
-    void testDeleteUser_Unauthorized() {
-        Response response = userApi.deleteUser(null);
-
-        assertEquals(Response.Status.UNAUTHORIZED.getStatusCode(), response.getStatus());
-        assertEquals(Map.of("error", "Cookie is missing or invalid"), response.getEntity());
-        verify(userBean, never()).deleteUser(any());
+    void testDeleteUser_Unauthorized() throws NoSuchMethodException {
+        // Requests without a valid token are rejected by AuthenticationFilter before reaching the resource
+        assertTrue(UserApi.class.getMethod("deleteUser", SecurityContext.class)
+                .isAnnotationPresent(Authenticated.class));
     }
 
     @Test
     void testGetUserProfile_Success() {
-        when(jwtUtil.extractUserId(validToken)).thenReturn(userId);
         when(userBean.getUserById(userId)).thenReturn(user);
 
-        Response response = userApi.getUserProfile(validToken);
+        Response response = userApi.getUserProfile(securityContext);
 
         assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
         assertEquals(user, response.getEntity());
@@ -129,30 +118,27 @@ public class UserApiTest {
 
     @Test
     void testGetUserProfile_NotFound() {
-        when(jwtUtil.extractUserId(validToken)).thenReturn(userId);
         when(userBean.getUserById(userId)).thenReturn(null);
 
-        Response response = userApi.getUserProfile(validToken);
+        Response response = userApi.getUserProfile(securityContext);
 
         assertEquals(Response.Status.NOT_FOUND.getStatusCode(), response.getStatus());
         assertEquals(Map.of("error", "User not found"), response.getEntity());
     }
 
     @Test
-    void testGetUserProfile_Unauthorized() {
-        Response response = userApi.getUserProfile(null);
-
-        assertEquals(Response.Status.UNAUTHORIZED.getStatusCode(), response.getStatus());
-        assertEquals(Map.of("error", "Token is missing or invalid"), response.getEntity());
+    void testGetUserProfile_Unauthorized() throws NoSuchMethodException {
+        // Requests without a valid token are rejected by AuthenticationFilter before reaching the resource
+        assertTrue(UserApi.class.getMethod("getUserProfile", SecurityContext.class)
+                .isAnnotationPresent(Authenticated.class));
     }
 
     @Test
     void testUpdateUser_Success() {
-        when(jwtUtil.extractUserId(validToken)).thenReturn(userId);
         when(userBean.getUserById(userId)).thenReturn(user);
         doNothing().when(userBean).updateUser(eq(userId), any(User.class));
 
-        Response response = userApi.updateUser(validToken, user);
+        Response response = userApi.updateUser(securityContext, user);
 
         assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
         assertEquals(Map.of("message", "User updated successfully"), response.getEntity());
@@ -160,20 +146,18 @@ public class UserApiTest {
 
     @Test
     void testUpdateUser_NotFound() {
-        when(jwtUtil.extractUserId(validToken)).thenReturn(userId);
         when(userBean.getUserById(userId)).thenReturn(null);
 
-        Response response = userApi.updateUser(validToken, user);
+        Response response = userApi.updateUser(securityContext, user);
 
         assertEquals(Response.Status.NOT_FOUND.getStatusCode(), response.getStatus());
         assertEquals(Map.of("error", "User not found"), response.getEntity());
     }
 
     @Test
-    void testUpdateUser_Unauthorized() {
-        Response response = userApi.updateUser(null, user);
-
-        assertEquals(Response.Status.UNAUTHORIZED.getStatusCode(), response.getStatus());
-        assertEquals(Map.of("error", "Cookie is missing or invalid"), response.getEntity());
+    void testUpdateUser_Unauthorized() throws NoSuchMethodException {
+        // Requests without a valid token are rejected by AuthenticationFilter before reaching the resource
+        assertTrue(UserApi.class.getMethod("updateUser", SecurityContext.class, User.class)
+                .isAnnotationPresent(Authenticated.class));
     }
 }
\ No newline at end of file
@@ -7,6 +7,10 @@ export interface Investment {
     amount: number; // Amount invested
     quantity: number;//quantity of stocks/coins....
     purchaseDate: Date; // Date of investment
+    currentPrice?: number; // Last known price in EUR
+    currentValue?: number; // Quantity times the last known price
+    priceUpdatedAt?: string; // When the price was fetched
+    priceStale?: boolean; // True when the price provider has been unavailable and the price is old
 
 
     // Optional Fields
@@ -46,6 +50,20 @@ export interface InvestmentAccount {
     routingNumber?: string; // Routing number, optional
 }
 
+// Portfolio value over time, computed by the investment service from stored daily closes
+export type PerformanceRange = '1w' | '1m' | '3m' | '6m' | '1y' | '5y';
+
+export interface PerformancePoint {
+    date: string; // YYYY-MM-DD
+    value: number; // Value of the holdings on that day in EUR
+}
+
+export interface PortfolioPerformance {
+    range: PerformanceRange;
+    currency: string;
+    points: PerformancePoint[];
+}
+
 // Request Interfaces for Creating and Updating Investments
 export interface CreateInvestmentRequest {
     type: InvestmentType;
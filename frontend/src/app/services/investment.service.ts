@@ -1,7 +1,13 @@
 // src/app/core/services/investments.service.ts
 import { Injectable } from '@angular/core';
 import { Observable } from 'rxjs';
-import { Investment, CreateInvestmentRequest, UpdateInvestmentRequest } from '../models/investment';
+import {
+  Investment,
+  CreateInvestmentRequest,
+  UpdateInvestmentRequest,
+  PerformanceRange,
+  PortfolioPerformance,
+} from '../models/investment';
 import { HttpService } from './http.service';
 
 
@@ -24,6 +30,14 @@ export class InvestmentsService {
         return this.httpService.get<Investment[]>(this.endpoint, { withCredentials: true });
     }
 
+    /**
+   * Fetch the value of all investments over time, served from the backend's price history
+   * @param range - Time range of the chart
+   */
+    getPerformance(range: PerformanceRange = '1m'): Observable<PortfolioPerformance> {
+        return this.httpService.get<PortfolioPerformance>(`${this.endpoint}/performance?range=${range}`, { withCredentials: true });
+    }
+
 
    /**
    * Delete an investment
@@ -17,6 +17,21 @@ export class TransactionService {
     });
   }
 
+  // Fetch income and expense totals grouped by category, month or type
+  getTransactionSummary(groupBy: 'category' | 'month' | 'type', from?: string, to?: string): Observable<any> {
+    let params = new HttpParams().set('groupBy', groupBy);
+    if (from) {
+      params = params.set('from', from);
+    }
+    if (to) {
+      params = params.set('to', to);
+    }
+    return this.httpService.get('transactions/summary', {
+      params,
+      withCredentials: true,
+    });
+  }
+
   // Add a new transaction
   addTransaction(transactionData: {
     type: string;